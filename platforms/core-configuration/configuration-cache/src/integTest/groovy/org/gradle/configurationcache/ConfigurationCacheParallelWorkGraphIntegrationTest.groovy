@@ -0,0 +1,115 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache
+
+class ConfigurationCacheParallelWorkGraphIntegrationTest extends AbstractConfigurationCacheIntegrationTest {
+
+    static final String PARALLEL_WORK_GRAPH = "-Dorg.gradle.configuration-cache.internal.parallel-work-graph=true"
+
+    def "tasks of different projects share build services and value sources when work graph is stored in segments"() {
+        given:
+        settingsFile << """
+            include 'a', 'b', 'c'
+        """
+        buildFile """
+            abstract class CounterService implements BuildService<BuildServiceParameters.None> {
+                CounterService() {
+                    println("service created")
+                }
+            }
+
+            abstract class GreetingSource implements ValueSource<String, ValueSourceParameters.None> {
+                String obtain() {
+                    return "hello"
+                }
+            }
+
+            abstract class Greet extends DefaultTask {
+                @ServiceReference("counter")
+                abstract Property<CounterService> getCounter()
+
+                @Input
+                abstract Property<String> getGreeting()
+
+                @TaskAction
+                def greet() {
+                    println("\${path}: \${greeting.get()} from service \${System.identityHashCode(counter.get())}")
+                }
+            }
+
+            gradle.sharedServices.registerIfAbsent("counter", CounterService)
+            def greeting = providers.of(GreetingSource) {}
+
+            allprojects {
+                tasks.register("greet", Greet) {
+                    it.greeting = greeting
+                }
+            }
+        """
+        def configurationCache = newConfigurationCacheFixture()
+
+        when:
+        configurationCacheRun "greet", PARALLEL_WORK_GRAPH
+
+        then:
+        configurationCache.assertStateStored()
+        result.assertTasksExecuted(":greet", ":a:greet", ":b:greet", ":c:greet")
+        output.count("service created") == 1
+        output.count(": hello from service") == 4
+
+        when:
+        configurationCacheRun "greet", PARALLEL_WORK_GRAPH
+
+        then:
+        configurationCache.assertStateLoaded()
+        result.assertTasksExecuted(":greet", ":a:greet", ":b:greet", ":c:greet")
+        output.count("service created") == 1
+        output.count(": hello from service") == 4
+    }
+
+    def "loads entry stored in segments when flag is no longer set"() {
+        given:
+        settingsFile << """
+            include 'a', 'b'
+        """
+        buildFile """
+            allprojects {
+                tasks.register("hello") {
+                    def projectName = project.name
+                    doLast {
+                        println("hello from \$projectName")
+                    }
+                }
+            }
+        """
+        def configurationCache = newConfigurationCacheFixture()
+
+        when:
+        configurationCacheRun "hello", PARALLEL_WORK_GRAPH
+
+        then:
+        configurationCache.assertStateStored()
+
+        when:
+        configurationCacheRun "hello"
+
+        then:
+        configurationCache.assertStateLoaded()
+        outputContains("hello from a")
+        outputContains("hello from b")
+    }
+}
@@ -31,6 +31,7 @@ import org.gradle.configurationcache.serialization.Tracer
 import org.gradle.configurationcache.serialization.beans.BeanStateReaderLookup
 import org.gradle.configurationcache.serialization.beans.BeanStateWriterLookup
 import org.gradle.configurationcache.serialization.codecs.Codecs
+import org.gradle.configurationcache.serialization.codecs.WorkGraphSegments
 import org.gradle.configurationcache.serialization.readCollection
 import org.gradle.configurationcache.serialization.readFile
 import org.gradle.configurationcache.serialization.readList
@@ -72,6 +73,21 @@ class ConfigurationCacheIO internal constructor(
     private
     val encryptionService by lazy { service<EncryptionService>() }
 
+    private
+    val workGraphSegments by lazy {
+        WorkGraphSegments(
+            codecs,
+            scopeRegistryListener,
+            beanStateWriterLookup,
+            beanStateReaderLookup,
+            logger,
+            problems,
+            service(),
+            ::loggingTracerFor,
+            startParameter.parallelWorkGraph
+        )
+    }
+
     internal
     fun writeCacheEntryDetailsTo(
         buildStateRegistry: BuildStateRegistry,
@@ -185,7 +201,7 @@ class ConfigurationCacheIO internal constructor(
         action: suspend DefaultReadContext.(ConfigurationCacheState) -> T
     ): T {
         return withReadContextFor(encryptionService.inputStream(stateFile.stateType, stateFile::inputStream)) { codecs ->
-            ConfigurationCacheState(codecs, stateFile, eventEmitter, host).run {
+            ConfigurationCacheState(codecs, stateFile, eventEmitter, host, workGraphSegments).run {
                 action(this)
             }
         }
@@ -201,7 +217,7 @@ class ConfigurationCacheIO internal constructor(
         }
         return context.useToRun {
             runWriteOperation {
-                action(ConfigurationCacheState(codecs, stateFile, eventEmitter, host))
+                action(ConfigurationCacheState(codecs, stateFile, eventEmitter, host, workGraphSegments))
             }
         }
     }
@@ -46,6 +46,11 @@ class ConfigurationCacheStartParameter(
 
     val taskExecutionAccessPreStable: Boolean = options.getInternalFlag("org.gradle.configuration-cache.internal.task-execution-access-pre-stable")
 
+    /**
+     * Whether the work graph is stored as per-project segments that are loaded concurrently.
+     */
+    val parallelWorkGraph: Boolean = options.getInternalFlag("org.gradle.configuration-cache.internal.parallel-work-graph")
+
     val encryptionRequested: Boolean = options.getInternalFlag("org.gradle.configuration-cache.internal.encryption", true)
 
     val keystoreDir: String? = options.getInternalString("org.gradle.configuration-cache.internal.key-store-dir", null)
@@ -30,6 +30,7 @@ import org.gradle.configurationcache.serialization.beans.BeanStateReader
 import org.gradle.configurationcache.serialization.beans.BeanStateWriter
 import org.gradle.internal.serialize.Decoder
 import org.gradle.internal.serialize.Encoder
+import kotlin.concurrent.withLock
 
 
 /**
@@ -44,6 +45,12 @@ interface WriteContext : IsolateContext, MutableIsolateContext, Encoder {
 
     val sharedIdentities: WriteIdentities
 
+    /**
+     * The table of shared objects when this context writes one of the segments of an entry, see [SharedObjectsWriter].
+     */
+    val sharedObjects: SharedObjectsWriter?
+        get() = null
+
     val circularReferences: CircularReferences
 
     override val isolate: WriteIsolate
@@ -68,6 +75,12 @@ interface ReadContext : IsolateContext, MutableIsolateContext, Decoder {
 
     val sharedIdentities: ReadIdentities
 
+    /**
+     * The table of shared objects when this context reads one of the segments of an entry, see [SharedObjectsReader].
+     */
+    val sharedObjects: SharedObjectsReader?
+        get() = null
+
     override val isolate: ReadIsolate
 
     val classLoader: ClassLoader
@@ -260,8 +273,23 @@ inline fun <T : Any> WriteContext.encodePreservingIdentityOf(reference: T, encod
 
 
 internal
-inline fun <T : Any> WriteContext.encodePreservingSharedIdentityOf(reference: T, encode: WriteContext.(T) -> Unit) =
-    encodePreservingIdentityOf(sharedIdentities, reference, encode)
+inline fun <T : Any> WriteContext.encodePreservingSharedIdentityOf(reference: T, encode: WriteContext.(T) -> Unit) {
+    val sharedObjects = sharedObjects
+    if (sharedObjects == null) {
+        encodePreservingIdentityOf(sharedIdentities, reference, encode)
+        return
+    }
+    val entry = sharedObjects.entryFor(this, reference)
+    writeSmallInt(entry.id)
+    val entryContext = entry.context ?: return
+    entryContext.circularReferences.enter(reference)
+    try {
+        encode(entryContext, reference)
+    } finally {
+        entryContext.circularReferences.leave(reference)
+    }
+    sharedObjects.commit(entry)
+}
 
 
 internal
@@ -288,12 +316,24 @@ inline fun <T> ReadContext.decodePreservingIdentity(decode: ReadContext.(Int) ->
 
 
 internal
-inline fun <T : Any> ReadContext.decodePreservingSharedIdentity(decode: ReadContext.(Int) -> T): T =
-    decodePreservingIdentity(sharedIdentities) { id ->
-        decode(id).also {
-            sharedIdentities.putInstance(id, it)
+inline fun <T : Any> ReadContext.decodePreservingSharedIdentity(decode: ReadContext.(Int) -> T): T {
+    val sharedObjects = sharedObjects
+        ?: return decodePreservingIdentity(sharedIdentities) { id ->
+            decode(id).also {
+                sharedIdentities.putInstance(id, it)
+            }
         }
+    val id = readSmallInt()
+    sharedObjects.getInstance(id)?.let {
+        return it.uncheckedCast()
+    }
+    return sharedObjects.lock.withLock {
+        sharedObjects.getInstance(id)?.uncheckedCast<T>()
+            ?: decode(sharedObjects.entryContextFor(this, id), id).also {
+                sharedObjects.putInstance(id, it)
+            }
     }
+}
 
 
 internal
@@ -55,7 +55,12 @@ class DefaultWriteContext(
 
     override val tracer: Tracer?,
 
-    problemsListener: ProblemsListener
+    problemsListener: ProblemsListener,
+
+    override val sharedObjects: SharedObjectsWriter? = null,
+
+    internal
+    val segmentCodecs: SegmentCodecs? = null
 
 ) : AbstractIsolateContext<WriteIsolate>(codec, problemsListener), WriteContext, Encoder by encoder, AutoCloseable {
 
@@ -146,9 +151,13 @@ class DefaultWriteContext(
         }
     }
 
-    // TODO: consider interning strings
-    override fun writeString(string: CharSequence) =
-        encoder.writeString(string)
+    override fun writeString(string: CharSequence) {
+        if (sharedObjects == null) {
+            encoder.writeString(string)
+        } else {
+            writeSmallInt(sharedObjects.stringId(string.toString()))
+        }
+    }
 
     override fun newIsolate(owner: IsolateOwner): WriteIsolate =
         DefaultWriteIsolate(owner)
@@ -217,7 +226,12 @@ class DefaultReadContext(
 
     override val logger: Logger,
 
-    problemsListener: ProblemsListener
+    problemsListener: ProblemsListener,
+
+    override val sharedObjects: SharedObjectsReader? = null,
+
+    internal
+    val segmentCodecs: SegmentCodecs? = null
 
 ) : AbstractIsolateContext<ReadIsolate>(codec, problemsListener), ReadContext, Decoder by decoder, AutoCloseable {
 
@@ -269,6 +283,13 @@ class DefaultReadContext(
         decode()
     }
 
+    override fun readString(): String =
+        if (sharedObjects == null) {
+            decoder.readString()
+        } else {
+            sharedObjects.string(readSmallInt())
+        }
+
     override val isolate: ReadIsolate
         get() = getIsolate()
 
@@ -321,10 +342,13 @@ class DefaultReadContext(
         val localImplementationHash = readHashCode()
         val exportClassPath = readClassPath()
 
-        val newScope = if (localImplementationHash != null && exportClassPath.isEmpty) {
-            parent.createLockedChild(name, origin, localClassPath, localImplementationHash, null)
-        } else {
-            parent.createChild(name, origin).local(localClassPath).export(exportClassPath).lock()
+        // The segments of an entry can be read concurrently
+        val newScope = synchronized(scopeCreationLock) {
+            if (localImplementationHash != null && exportClassPath.isEmpty) {
+                parent.createLockedChild(name, origin, localClassPath, localImplementationHash, null)
+            } else {
+                parent.createChild(name, origin).local(localClassPath).export(exportClassPath).lock()
+            }
         }
 
         scopes.putInstance(id, newScope)
@@ -346,6 +370,10 @@ class DefaultReadContext(
 }
 
 
+private
+val scopeCreationLock = Any()
+
+
 interface DecodingProvider<T> {
     suspend fun ReadContext.decode(): T?
 }
@@ -383,7 +411,7 @@ abstract class AbstractIsolateContext<T>(
         isolate
     }
 
-    protected
+    internal
     fun getCodec() = currentCodec
 
     private
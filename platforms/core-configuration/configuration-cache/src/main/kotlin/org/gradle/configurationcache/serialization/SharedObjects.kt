@@ -0,0 +1,216 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache.serialization
+
+import org.gradle.internal.serialize.Decoder
+import org.gradle.internal.serialize.Encoder
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.util.IdentityHashMap
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicReferenceArray
+import java.util.concurrent.locks.ReentrantLock
+
+
+/**
+ * The codecs of a context that takes part in a concurrent encoding or decoding.
+ *
+ * Codecs are stateful, so each context gets its own instances.
+ */
+internal
+class SegmentCodecs(
+    val userTypesCodec: Codec<Any?>,
+    val internalTypesCodec: Codec<Any?>
+) {
+    /**
+     * Returns the codec of this set that plays the role of the given [codec] of [other].
+     */
+    fun equivalentOf(codec: Codec<Any?>, other: SegmentCodecs): Codec<Any?> = when {
+        codec === other.userTypesCodec -> userTypesCodec
+        codec === other.internalTypesCodec -> internalTypesCodec
+        else -> throw IllegalStateException("Cannot share an object encoded with a codec of another context.")
+    }
+}
+
+
+/**
+ * Writes the strings and the objects with a shared identity of segments that are encoded concurrently.
+ *
+ * Segments refer to a string by its index in the table. Each object with a shared identity is encoded once,
+ * into an entry of the table of its own, so that any segment can decode it regardless of which segment
+ * encountered it first.
+ */
+class SharedObjectsWriter internal constructor(
+    private val newCodecs: () -> SegmentCodecs,
+    private val contextFor: (KryoBackedEncoder, SegmentCodecs, SharedObjectsWriter) -> DefaultWriteContext
+) {
+    private
+    val stringIds = ConcurrentHashMap<String, Int>()
+
+    private
+    val strings = ArrayList<String>()
+
+    private
+    val lock = Any()
+
+    private
+    val objectIds = IdentityHashMap<Any, Int>()
+
+    private
+    val entries = ArrayList<ByteArray?>()
+
+    internal
+    fun stringId(string: String): Int =
+        stringIds[string] ?: synchronized(strings) {
+            stringIds.getOrPut(string) {
+                strings.size.also { strings.add(string) }
+            }
+        }
+
+    /**
+     * Returns the entry of the given [reference], with the context to encode it into when [context] is the first to encounter it.
+     */
+    internal
+    fun entryFor(context: WriteContext, reference: Any): Entry {
+        val id = synchronized(lock) {
+            objectIds[reference]?.let { existing ->
+                return Entry(existing, null, null)
+            }
+            entries.size.also { id ->
+                objectIds[reference] = id
+                entries.add(null)
+            }
+        }
+        val callerContext = context as DefaultWriteContext
+        val codecs = newCodecs()
+        val output = ByteArrayOutputStream()
+        val entryContext = contextFor(KryoBackedEncoder(output), codecs, this).apply {
+            push(callerContext.isolate.owner, codecs.equivalentOf(callerContext.getCodec(), callerContext.segmentCodecs!!))
+        }
+        return Entry(id, entryContext, output)
+    }
+
+    internal
+    fun commit(entry: Entry) {
+        entry.context!!.close()
+        val bytes = entry.output!!.toByteArray()
+        synchronized(lock) {
+            entries[entry.id] = bytes
+        }
+    }
+
+    /**
+     * Writes the table once all segments have been encoded.
+     */
+    internal
+    fun writeTo(encoder: Encoder) {
+        encoder.writeCollection(strings) {
+            encoder.writeString(it)
+        }
+        encoder.writeCollection(entries) {
+            encoder.writeBinary(requireNotNull(it) { "Shared object was not fully encoded." })
+        }
+    }
+
+    internal
+    class Entry(
+        val id: Int,
+        val context: DefaultWriteContext?,
+        val output: ByteArrayOutputStream?
+    )
+}
+
+
+/**
+ * Reads the table written by [SharedObjectsWriter], decoding each object with a shared identity on first use.
+ */
+class SharedObjectsReader private constructor(
+    private val strings: Array<String>,
+    private val entries: Array<ByteArray>,
+    private val newCodecs: () -> SegmentCodecs,
+    private val contextFor: (Decoder, SegmentCodecs, SharedObjectsReader) -> DefaultReadContext
+) {
+    internal
+    companion object {
+        fun readFrom(
+            decoder: Decoder,
+            newCodecs: () -> SegmentCodecs,
+            contextFor: (Decoder, SegmentCodecs, SharedObjectsReader) -> DefaultReadContext
+        ): SharedObjectsReader {
+            val strings = Array(decoder.readSmallInt()) { decoder.readString() }
+            val entries = Array(decoder.readSmallInt()) { decoder.readBinary() }
+            return SharedObjectsReader(strings, entries, newCodecs, contextFor)
+        }
+    }
+
+    /**
+     * Guards the decoding of shared objects. Reentrant, as a shared object can refer to other shared objects.
+     * Only taken for objects that have not been decoded yet, see [getInstance].
+     */
+    internal
+    val lock = ReentrantLock()
+
+    private
+    val instances = AtomicReferenceArray<Any?>(entries.size)
+
+    private
+    val entryContexts = ArrayList<DefaultReadContext>()
+
+    internal
+    fun string(id: Int): String =
+        strings[id]
+
+    /**
+     * Returns the decoded object with the given [id], if any. Does not require the [lock], as an object is only published once fully decoded.
+     */
+    internal
+    fun getInstance(id: Int): Any? =
+        instances.get(id)
+
+    internal
+    fun putInstance(id: Int, instance: Any) {
+        instances.set(id, instance)
+    }
+
+    /**
+     * Returns a context to decode the entry with the given [id], on behalf of [context].
+     */
+    internal
+    fun entryContextFor(context: ReadContext, id: Int): DefaultReadContext {
+        val callerContext = context as DefaultReadContext
+        val codecs = newCodecs()
+        return contextFor(KryoBackedDecoder(ByteArrayInputStream(entries[id])), codecs, this).apply {
+            initClassLoader(callerContext.classLoader)
+            push(callerContext.isolate.owner, codecs.equivalentOf(callerContext.getCodec(), callerContext.segmentCodecs!!))
+            entryContexts.add(this)
+        }
+    }
+
+    /**
+     * Runs the operations deferred by the decoded shared objects.
+     */
+    internal
+    fun finish() {
+        for (context in entryContexts) {
+            context.finish()
+            context.close()
+        }
+        entryContexts.clear()
+    }
+}
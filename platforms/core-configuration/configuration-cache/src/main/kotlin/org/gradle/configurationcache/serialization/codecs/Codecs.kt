@@ -42,6 +42,7 @@ import org.gradle.api.tasks.util.PatternSet
 import org.gradle.composite.internal.BuildTreeWorkGraphController
 import org.gradle.configurationcache.problems.DocumentationSection.NotYetImplementedJavaSerialization
 import org.gradle.configurationcache.serialization.Codec
+import org.gradle.configurationcache.serialization.SegmentCodecs
 import org.gradle.configurationcache.serialization.codecs.jos.JavaObjectSerializationCodec
 import org.gradle.configurationcache.serialization.codecs.jos.JavaSerializationEncodingLookup
 import org.gradle.configurationcache.serialization.codecs.transform.CalculateArtifactsCodec
@@ -258,9 +259,7 @@ class Codecs(
         bind(DefaultResolvableArtifactCodec(calculatedValueContainerFactory))
     }
 
-    fun internalTypesCodec(): Codec<Any?> = internalTypesBindings.append {
-        val userTypesCodec = userTypesCodec()
-
+    fun internalTypesCodec(userTypesCodec: Codec<Any?> = userTypesCodec()): Codec<Any?> = internalTypesBindings.append {
         bind(TaskNodeCodec(userTypesCodec, taskNodeFactory))
         bind(DelegatingCodec<TransformStepNode>(userTypesCodec))
         bind(ActionNodeCodec(userTypesCodec))
@@ -398,6 +397,14 @@ class Codecs(
         bind(OutputStreamCodec)
     }
 
-    fun workNodeCodecFor(gradle: GradleInternal) =
-        WorkNodeCodec(gradle, internalTypesCodec(), ordinalGroupFactory)
+    /**
+     * Returns a new set of the codecs for a context that encodes or decodes concurrently with other contexts.
+     */
+    fun segmentCodecs(): SegmentCodecs =
+        userTypesCodec().let { userTypesCodec ->
+            SegmentCodecs(userTypesCodec, internalTypesCodec(userTypesCodec))
+        }
+
+    fun workNodeCodecFor(gradle: GradleInternal, segments: WorkGraphSegments) =
+        WorkNodeCodec(gradle, internalTypesCodec(), ordinalGroupFactory, segments)
 }
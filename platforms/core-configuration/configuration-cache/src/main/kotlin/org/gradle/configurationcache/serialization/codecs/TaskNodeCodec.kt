@@ -75,7 +75,10 @@ class TaskNodeCodec(
 
     override suspend fun ReadContext.decode(): LocalTaskNode {
         val task = readTask()
-        val node = taskNodeFactory.getOrCreateNode(task) as LocalTaskNode
+        // The tasks of different projects can be read concurrently, see WorkGraphSegments
+        val node = synchronized(taskNodeFactory) {
+            taskNodeFactory.getOrCreateNode(task) as LocalTaskNode
+        }
         node.isolated()
         return node
     }
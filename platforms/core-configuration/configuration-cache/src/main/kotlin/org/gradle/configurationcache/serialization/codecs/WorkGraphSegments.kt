@@ -0,0 +1,187 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache.serialization.codecs
+
+import org.gradle.api.internal.GradleInternal
+import org.gradle.api.logging.Logger
+import org.gradle.configurationcache.extensions.useToRun
+import org.gradle.configurationcache.problems.ProblemsListener
+import org.gradle.configurationcache.serialization.DefaultReadContext
+import org.gradle.configurationcache.serialization.DefaultWriteContext
+import org.gradle.configurationcache.serialization.ProjectProvider
+import org.gradle.configurationcache.serialization.ReadContext
+import org.gradle.configurationcache.serialization.ScopeLookup
+import org.gradle.configurationcache.serialization.SegmentCodecs
+import org.gradle.configurationcache.serialization.SharedObjectsReader
+import org.gradle.configurationcache.serialization.SharedObjectsWriter
+import org.gradle.configurationcache.serialization.Tracer
+import org.gradle.configurationcache.serialization.WriteContext
+import org.gradle.configurationcache.serialization.beans.BeanStateReaderLookup
+import org.gradle.configurationcache.serialization.beans.BeanStateWriterLookup
+import org.gradle.configurationcache.serialization.runReadOperation
+import org.gradle.configurationcache.serialization.runWriteOperation
+import org.gradle.configurationcache.serialization.withGradleIsolate
+import org.gradle.internal.operations.BuildOperationContext
+import org.gradle.internal.operations.BuildOperationDescriptor
+import org.gradle.internal.operations.BuildOperationExecutor
+import org.gradle.internal.operations.RunnableBuildOperation
+import org.gradle.internal.serialize.Decoder
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+
+
+/**
+ * Encodes and decodes the segments of a work graph, each segment with a context of its own.
+ *
+ * Segments are encoded one after the other by the thread storing the work graph, as encoding a segment can require the state of its project.
+ * Segments are decoded concurrently.
+ *
+ * Strings and objects with a shared identity are resolved through a table shared by all the segments of the graph,
+ * see [SharedObjectsWriter].
+ */
+internal
+class WorkGraphSegments(
+    private val codecs: Codecs,
+    private val scopeLookup: ScopeLookup,
+    private val beanStateWriterLookup: BeanStateWriterLookup,
+    private val beanStateReaderLookup: BeanStateReaderLookup,
+    private val logger: Logger,
+    private val problems: ProblemsListener,
+    private val buildOperationExecutor: BuildOperationExecutor,
+    private val tracerFor: (profile: () -> String, encoder: KryoBackedEncoder) -> Tracer?,
+    /**
+     * Whether the work graph is written as segments. Entries are always readable, regardless of how they were written.
+     */
+    val isEnabled: Boolean
+) {
+    fun newSharedObjectsWriter(): SharedObjectsWriter =
+        SharedObjectsWriter(codecs::segmentCodecs) { encoder, segmentCodecs, sharedObjects ->
+            writeContextFor(encoder, { "work graph shared object" }, segmentCodecs, sharedObjects)
+        }
+
+    fun readSharedObjects(decoder: Decoder, projectProvider: ProjectProvider): SharedObjectsReader =
+        SharedObjectsReader.readFrom(decoder, codecs::segmentCodecs) { segmentDecoder, segmentCodecs, sharedObjects ->
+            readContextFor(segmentDecoder, segmentCodecs, sharedObjects).apply {
+                initProjectProvider(projectProvider)
+            }
+        }
+
+    /**
+     * Encodes each of the given [segments] with [writeSegment] and returns the encoded segments in the same order.
+     */
+    fun <T> write(
+        gradle: GradleInternal,
+        segments: List<T>,
+        sharedObjects: SharedObjectsWriter,
+        displayName: (T) -> String,
+        writeSegment: suspend WriteContext.(T) -> Unit
+    ): List<ByteArray> =
+        segments.map { segment ->
+            val segmentCodecs = codecs.segmentCodecs()
+            val output = ByteArrayOutputStream()
+            writeContextFor(KryoBackedEncoder(output), { "${displayName(segment)} segment" }, segmentCodecs, sharedObjects).useToRun {
+                runWriteOperation {
+                    withGradleIsolate(gradle, segmentCodecs.internalTypesCodec) {
+                        writeSegment(segment)
+                    }
+                }
+            }
+            output.toByteArray()
+        }
+
+    /**
+     * Decodes each of the given [segments] with [readSegment], concurrently, and returns the results in the same order.
+     *
+     * The operations deferred by the segments are run once all the segments have been decoded.
+     */
+    fun <T> read(
+        gradle: GradleInternal,
+        segments: List<ByteArray>,
+        sharedObjects: SharedObjectsReader,
+        classLoader: ClassLoader,
+        projectProvider: ProjectProvider,
+        displayName: (Int) -> String,
+        readSegment: suspend ReadContext.(Int) -> T
+    ): List<T> {
+        val contexts = arrayOfNulls<DefaultReadContext>(segments.size)
+        val results = arrayOfNulls<Any>(segments.size)
+        runConcurrently(segments.size, { index -> "Load ${displayName(index)}" }) { index ->
+            val segmentCodecs = codecs.segmentCodecs()
+            val context = readContextFor(KryoBackedDecoder(ByteArrayInputStream(segments[index])), segmentCodecs, sharedObjects)
+            context.initClassLoader(classLoader)
+            context.initProjectProvider(projectProvider)
+            contexts[index] = context
+            results[index] = context.runReadOperation {
+                withGradleIsolate(gradle, segmentCodecs.internalTypesCodec) {
+                    readSegment(index)
+                }
+            }
+        }
+        for (context in contexts) {
+            context!!.useToRun {
+                finish()
+            }
+        }
+        sharedObjects.finish()
+        @Suppress("UNCHECKED_CAST")
+        return results.toList() as List<T>
+    }
+
+    private
+    fun runConcurrently(count: Int, displayName: (Int) -> String, action: (Int) -> Unit) {
+        buildOperationExecutor.runAllWithAccessToProjectState<RunnableBuildOperation> { queue ->
+            for (index in 0 until count) {
+                queue.add(object : RunnableBuildOperation {
+                    override fun run(context: BuildOperationContext) {
+                        action(index)
+                    }
+
+                    override fun description(): BuildOperationDescriptor.Builder =
+                        BuildOperationDescriptor.displayName(displayName(index))
+                })
+            }
+        }
+    }
+
+    private
+    fun writeContextFor(encoder: KryoBackedEncoder, profile: () -> String, segmentCodecs: SegmentCodecs, sharedObjects: SharedObjectsWriter) =
+        DefaultWriteContext(
+            segmentCodecs.internalTypesCodec,
+            encoder,
+            scopeLookup,
+            beanStateWriterLookup,
+            logger,
+            tracerFor(profile, encoder),
+            problems,
+            sharedObjects,
+            segmentCodecs
+        )
+
+    private
+    fun readContextFor(decoder: Decoder, segmentCodecs: SegmentCodecs, sharedObjects: SharedObjectsReader) =
+        DefaultReadContext(
+            segmentCodecs.internalTypesCodec,
+            decoder,
+            beanStateReaderLookup,
+            logger,
+            problems,
+            sharedObjects,
+            segmentCodecs
+        )
+}
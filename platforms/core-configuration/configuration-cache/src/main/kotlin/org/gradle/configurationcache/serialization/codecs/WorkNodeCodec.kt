@@ -28,6 +28,7 @@ import org.gradle.configurationcache.serialization.encodePreservingIdentityOf
 import org.gradle.configurationcache.serialization.ownerService
 import org.gradle.configurationcache.serialization.readCollection
 import org.gradle.configurationcache.serialization.readCollectionInto
+import org.gradle.configurationcache.serialization.readList
 import org.gradle.configurationcache.serialization.readNonNull
 import org.gradle.configurationcache.serialization.withGradleIsolate
 import org.gradle.configurationcache.serialization.writeCollection
@@ -47,19 +48,29 @@ internal
 class WorkNodeCodec(
     private val owner: GradleInternal,
     private val internalTypesCodec: Codec<Any?>,
-    private val ordinalGroups: OrdinalGroupFactory
+    private val ordinalGroups: OrdinalGroupFactory,
+    private val segments: WorkGraphSegments
 ) {
 
     suspend fun WriteContext.writeWork(work: ScheduledWork) {
         // Share bean instances across all nodes (except tasks, which have their own isolate)
         withGradleIsolate(owner, internalTypesCodec) {
-            doWrite(work)
+            writeBoolean(segments.isEnabled)
+            if (segments.isEnabled) {
+                doWriteSegments(work)
+            } else {
+                doWrite(work)
+            }
         }
     }
 
     suspend fun ReadContext.readWork(): ScheduledWork =
         withGradleIsolate(owner, internalTypesCodec) {
-            doRead()
+            if (readBoolean()) {
+                doReadSegments()
+            } else {
+                doRead()
+            }
         }
 
     private
@@ -84,6 +95,54 @@ class WorkNodeCodec(
                 scheduledNodeIds[node.prepareNode] = scheduledNodeIds.size
             }
         }
+        writeRelationships(nodes, scheduledNodeIds, scheduledEntryNodeIds)
+    }
+
+    /**
+     * Writes the task nodes of each project to a segment of their own, and all other nodes to a single segment so that they keep
+     * sharing bean instances, then writes the relationships between the nodes.
+     */
+    private
+    suspend fun WriteContext.doWriteSegments(work: ScheduledWork) {
+        val nodes = work.scheduledNodes
+        val nodeCount = nodes.size
+        writeSmallInt(nodeCount)
+        val scheduledNodeIds = HashMap<Node, Int>(nodeCount)
+        val scheduledEntryNodeIds = mutableListOf<Int>()
+        val nodesByProject = LinkedHashMap<String?, MutableList<Node>>()
+        nodes.forEach { node ->
+            val nodeId = scheduledNodeIds.size
+            scheduledNodeIds[node] = nodeId
+            if (node in work.entryNodes) {
+                scheduledEntryNodeIds.add(nodeId)
+            }
+            if (node is LocalTaskNode) {
+                scheduledNodeIds[node.prepareNode] = scheduledNodeIds.size
+            }
+            val projectPath = (node as? LocalTaskNode)?.task?.project?.path
+            nodesByProject.getOrPut(projectPath) { mutableListOf() }.add(node)
+        }
+        val segmentsToWrite = nodesByProject.entries.toList()
+        val sharedObjects = segments.newSharedObjectsWriter()
+        val encodedSegments = segments.write(owner, segmentsToWrite, sharedObjects, { segmentDisplayName(it.key) }) { segment ->
+            segment.value.forEach { node ->
+                write(node)
+            }
+        }
+        sharedObjects.writeTo(this)
+        writeSmallInt(segmentsToWrite.size)
+        segmentsToWrite.forEachIndexed { index, segment ->
+            writeNullableString(segment.key)
+            writeCollection(segment.value) {
+                writeSmallInt(scheduledNodeIds.getValue(it))
+            }
+            writeBinary(encodedSegments[index])
+        }
+        writeRelationships(nodes, scheduledNodeIds, scheduledEntryNodeIds)
+    }
+
+    private
+    fun WriteContext.writeRelationships(nodes: List<Node>, scheduledNodeIds: Map<Node, Int>, scheduledEntryNodeIds: List<Int>) {
         // A large build may have many nodes but not so many entry nodes.
         // To save some disk space, we're only saving entry node ids rather than writing "entry/non-entry" boolean for every node.
         writeCollection(scheduledEntryNodeIds) {
@@ -109,6 +168,47 @@ class WorkNodeCodec(
             }
             nodes.add(node)
         }
+        return readRelationships(nodes, nodesById)
+    }
+
+    private
+    suspend fun ReadContext.doReadSegments(): ScheduledWork {
+        val nodeCount = readSmallInt()
+        val sharedObjects = segments.readSharedObjects(this, this::getProject)
+        val segmentCount = readSmallInt()
+        val projectPaths = ArrayList<String?>(segmentCount)
+        val segmentNodeIds = ArrayList<List<Int>>(segmentCount)
+        val encodedSegments = ArrayList<ByteArray>(segmentCount)
+        for (i in 0 until segmentCount) {
+            projectPaths.add(readNullableString())
+            segmentNodeIds.add(readList { readSmallInt() })
+            encodedSegments.add(readBinary())
+        }
+        val decodedSegments = segments.read(owner, encodedSegments, sharedObjects, classLoader, this::getProject, { segmentDisplayName(projectPaths[it]) }) { index ->
+            segmentNodeIds[index].map {
+                readNode().also { node ->
+                    if (node is LocalTaskNode) {
+                        node.prepareNode.require()
+                    }
+                }
+            }
+        }
+        val nodesById = HashMap<Int, Node>(nodeCount)
+        segmentNodeIds.forEachIndexed { index, nodeIds ->
+            nodeIds.forEachIndexed { position, nodeId ->
+                val node = decodedSegments[index][position]
+                nodesById[nodeId] = node
+                if (node is LocalTaskNode) {
+                    nodesById[nodeId + 1] = node.prepareNode
+                }
+            }
+        }
+        val nodes = segmentNodeIds.flatten().sorted().map { nodesById.getValue(it) }
+        return readRelationships(nodes, nodesById)
+    }
+
+    private
+    fun ReadContext.readRelationships(nodes: List<Node>, nodesById: Map<Int, Node>): ScheduledWork {
         // Note that using the ImmutableSet retains the original ordering of entry nodes.
         val entryNodes = ImmutableSet.builder<Node>()
         readCollection {
@@ -121,6 +221,10 @@ class WorkNodeCodec(
         return ScheduledWork(nodes, entryNodes.build())
     }
 
+    private
+    fun segmentDisplayName(projectPath: String?) =
+        if (projectPath == null) "work of ${owner.owner.displayName.displayName}" else "tasks of project $projectPath"
+
     private
     suspend fun ReadContext.readNode(): Node {
         val node = readNonNull<Node>()
@@ -41,8 +41,10 @@
 import org.gradle.internal.DisplayName;
 import org.gradle.internal.Factory;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.classloader.ClassLoaderUtils;
 import org.gradle.internal.deprecation.DeprecationLogger;
 import org.gradle.internal.extensibility.ConventionAwareHelper;
+import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.instantiation.ClassGenerationException;
 import org.gradle.internal.instantiation.InjectAnnotationHandler;
 import org.gradle.internal.instantiation.InstanceGenerator;
@@ -124,6 +126,7 @@ public class AsmBackedClassGenerator extends AbstractClassGenerator {
     private final boolean decorate;
     private final String suffix;
     private final int factoryId;
+    private final GeneratedClassBytecodeCache bytecodeCache;
 
     private static final String GET_DISPLAY_NAME_FOR_NEXT_METHOD_NAME = "getDisplayNameForNext";
 
@@ -161,12 +164,14 @@ private AsmBackedClassGenerator(
         Collection<Class<? extends Annotation>> enabledInjectAnnotations,
         PropertyRoleAnnotationHandler roleHandler,
         CrossBuildInMemoryCache<Class<?>, GeneratedClassImpl> generatedClasses,
-        int factoryId
+        int factoryId,
+        GeneratedClassBytecodeStore bytecodeStore
     ) {
         super(allKnownAnnotations, enabledInjectAnnotations, roleHandler, generatedClasses);
         this.decorate = decorate;
         this.suffix = suffix;
         this.factoryId = factoryId;
+        this.bytecodeCache = new GeneratedClassBytecodeCache(bytecodeStore, decorate, suffix, allKnownAnnotations, enabledInjectAnnotations, roleHandler);
     }
 
     /**
@@ -178,6 +183,20 @@ static ClassGenerator decorateAndInject(
         Collection<Class<? extends Annotation>> enabledInjectAnnotations,
         CrossBuildInMemoryCacheFactory cacheFactory,
         int factoryId
+    ) {
+        return decorateAndInject(allKnownAnnotations, roleHandler, enabledInjectAnnotations, cacheFactory, factoryId, GeneratedClassBytecodeStore.NONE);
+    }
+
+    /**
+     * Returns a generator that applies DSL mix-in, extensibility and service injection for generated classes, and reuses the bytecode of classes generated by earlier processes from the given store.
+     */
+    static ClassGenerator decorateAndInject(
+        Collection<? extends InjectAnnotationHandler> allKnownAnnotations,
+        PropertyRoleAnnotationHandler roleHandler,
+        Collection<Class<? extends Annotation>> enabledInjectAnnotations,
+        CrossBuildInMemoryCacheFactory cacheFactory,
+        int factoryId,
+        GeneratedClassBytecodeStore bytecodeStore
     ) {
         String suffix;
         CrossBuildInMemoryCache<Class<?>, GeneratedClassImpl> generatedClasses;
@@ -199,7 +218,7 @@ static ClassGenerator decorateAndInject(
             generatedClasses = cacheFactory.newClassMap();
         }
 
-        return new AsmBackedClassGenerator(true, suffix, allKnownAnnotations, enabledInjectAnnotations, roleHandler, generatedClasses, factoryId);
+        return new AsmBackedClassGenerator(true, suffix, allKnownAnnotations, enabledInjectAnnotations, roleHandler, generatedClasses, factoryId, bytecodeStore);
     }
 
     /**
@@ -211,11 +230,25 @@ static ClassGenerator injectOnly(
         Collection<Class<? extends Annotation>> enabledInjectAnnotations,
         CrossBuildInMemoryCacheFactory cacheFactory,
         int factoryId
+    ) {
+        return injectOnly(allKnownAnnotations, roleHandler, enabledInjectAnnotations, cacheFactory, factoryId, GeneratedClassBytecodeStore.NONE);
+    }
+
+    /**
+     * Returns a generator that applies service injection only for generated classes, will generate classes only if required, and reuses the bytecode of classes generated by earlier processes from the given store.
+     */
+    static ClassGenerator injectOnly(
+        Collection<? extends InjectAnnotationHandler> allKnownAnnotations,
+        PropertyRoleAnnotationHandler roleHandler,
+        Collection<Class<? extends Annotation>> enabledInjectAnnotations,
+        CrossBuildInMemoryCacheFactory cacheFactory,
+        int factoryId,
+        GeneratedClassBytecodeStore bytecodeStore
     ) {
         // TODO - the suffix should be a deterministic function of the known and enabled annotations
         // For now, just assign using a counter
         String suffix = ClassGeneratorSuffixRegistry.assign("$Inject");
-        return new AsmBackedClassGenerator(false, suffix, allKnownAnnotations, enabledInjectAnnotations, roleHandler, cacheFactory.newClassMap(), factoryId);
+        return new AsmBackedClassGenerator(false, suffix, allKnownAnnotations, enabledInjectAnnotations, roleHandler, cacheFactory.newClassMap(), factoryId, bytecodeStore);
     }
 
     @Override
@@ -247,7 +280,7 @@ protected ClassInspectionVisitor start(Class<?> type) {
             formatter.append(" is not a class or interface.");
             throw new ClassGenerationException(formatter.toString());
         }
-        return new ClassInspectionVisitorImpl(type, decorate, suffix, factoryId);
+        return new ClassInspectionVisitorImpl(type, decorate, suffix, factoryId, bytecodeCache);
     }
 
     private static class AttachedProperty {
@@ -270,6 +303,7 @@ private static class ClassInspectionVisitorImpl implements ClassInspectionVisito
         private final boolean decorate;
         private final String suffix;
         private final int factoryId;
+        private final GeneratedClassBytecodeCache bytecodeCache;
         private boolean extensible;
         private boolean serviceInjection;
         private boolean conventionAware;
@@ -282,11 +316,12 @@ private static class ClassInspectionVisitorImpl implements ClassInspectionVisito
         private final List<AttachedProperty> propertiesToAttachOnDemand = new ArrayList<>();
         private final List<PropertyMetadata> ineligibleProperties = new ArrayList<>();
 
-        public ClassInspectionVisitorImpl(Class<?> type, boolean decorate, String suffix, int factoryId) {
+        public ClassInspectionVisitorImpl(Class<?> type, boolean decorate, String suffix, int factoryId, GeneratedClassBytecodeCache bytecodeCache) {
             this.type = type;
             this.decorate = decorate;
             this.suffix = suffix;
             this.factoryId = factoryId;
+            this.bytecodeCache = bytecodeCache;
         }
 
         @Override
@@ -375,10 +410,20 @@ public ClassGenerationVisitor builder() {
                 formatter.append(" is final.");
                 throw new ClassGenerationException(formatter.toString());
             }
+            HashCode cacheKey = bytecodeCache.keyFor(type, factoryId);
+            if (cacheKey != null) {
+                byte[] bytecode = bytecodeCache.load(cacheKey);
+                if (bytecode != null) {
+                    // Generated by an earlier process, skip generating the bytecode again
+                    return new CachedClassBuilder(type, type.getName() + suffix, bytecode, managed, factoryId);
+                }
+            }
             boolean requiresServicesMethod = (extensible || serviceInjection) && !providesOwnServicesImplementation;
             boolean requiresToString = !providesOwnToStringImplementation;
             ClassBuilderImpl builder = new ClassBuilderImpl(
                 new AsmClassGenerator(type, suffix),
+                bytecodeCache,
+                cacheKey,
                 decorate,
                 factoryId,
                 extensible,
@@ -530,6 +575,8 @@ private static class ClassBuilderImpl extends ClassVisitorScope implements Class
         private final Type superclassType;
         private final Map<java.lang.reflect.Type, ReturnTypeEntry> genericReturnTypeConstantsIndex = new HashMap<>();
         private final AsmClassGenerator classGenerator;
+        private final GeneratedClassBytecodeCache bytecodeCache;
+        private final HashCode cacheKey;
         private final int factoryId;
         private boolean hasMappingField;
         private final boolean conventionAware;
@@ -545,6 +592,8 @@ private static class ClassBuilderImpl extends ClassVisitorScope implements Class
 
         private ClassBuilderImpl(
             AsmClassGenerator classGenerator,
+            GeneratedClassBytecodeCache bytecodeCache,
+            @Nullable HashCode cacheKey,
             boolean decorated,
             int factoryId,
             boolean extensible,
@@ -560,6 +609,8 @@ private ClassBuilderImpl(
         ) {
             super(classGenerator.getVisitor());
             this.classGenerator = classGenerator;
+            this.bytecodeCache = bytecodeCache;
+            this.cacheKey = cacheKey;
             this.type = classGenerator.getTargetType();
             this.generatedType = classGenerator.getGeneratedType();
             this.factoryId = factoryId;
@@ -1850,7 +1901,14 @@ public Class<?> generate() {
             writeGenericReturnTypeFields();
             visitEnd();
 
-            Class<?> generatedClass = classGenerator.define();
+            Class<?> generatedClass;
+            if (cacheKey == null) {
+                generatedClass = classGenerator.define();
+            } else {
+                byte[] bytecode = classGenerator.getVisitor().toByteArray();
+                generatedClass = classGenerator.define(bytecode);
+                bytecodeCache.store(cacheKey, bytecode);
+            }
 
             if (managed) {
                 attachFactoryIdToImplType(generatedClass, factoryId);
@@ -2080,6 +2138,32 @@ public Class<?> generate() {
         }
     }
 
+    private static class CachedClassBuilder extends NoOpBuilder {
+        private final Class<?> type;
+        private final String generatedTypeName;
+        private final byte[] bytecode;
+        private final boolean managed;
+        private final int factoryId;
+
+        public CachedClassBuilder(Class<?> type, String generatedTypeName, byte[] bytecode, boolean managed, int factoryId) {
+            super(type);
+            this.type = type;
+            this.generatedTypeName = generatedTypeName;
+            this.bytecode = bytecode;
+            this.managed = managed;
+            this.factoryId = factoryId;
+        }
+
+        @Override
+        public Class<?> generate() {
+            Class<?> generatedClass = ClassLoaderUtils.defineDecorator(type, type.getClassLoader(), generatedTypeName, bytecode);
+            if (managed) {
+                ClassBuilderImpl.attachFactoryIdToImplType(generatedClass, factoryId);
+            }
+            return generatedClass;
+        }
+    }
+
     private static class InvokeConstructorStrategy implements InstantiationStrategy {
         private final Constructor<?> constructor;
         private final PropertyRoleAnnotationHandler roleHandler;
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.instantiation.generator;
+
+import com.google.common.base.Suppliers;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.instantiation.InjectAnnotationHandler;
+import org.gradle.internal.instantiation.PropertyRoleAnnotationHandler;
+import org.gradle.util.GradleVersion;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+/**
+ * Calculates the keys of the classes generated by an {@link AsmBackedClassGenerator} and looks them up in a {@link GeneratedClassBytecodeStore}.
+ *
+ * The key of a generated class combines:
+ *
+ * - the Gradle and Java versions
+ * - the settings of the generator, that is, whether it decorates, the suffix of the generated classes and the known, enabled and role annotations
+ * - the class files of the type, its super types and the types used in the signatures of its methods, as these determine what the inspection finds
+ *
+ * Classes loaded by the JVM or by the same class loader as the generator are part of the Gradle runtime and covered by the versions,
+ * so their class files are not read.
+ * Types whose class files cannot be read, for example because they have been generated at runtime, are not cached.
+ */
+class GeneratedClassBytecodeCache {
+    private static final int CACHE_VERSION = 1;
+    private static final ClassLoader GENERATOR_CLASS_LOADER = AsmBackedClassGenerator.class.getClassLoader();
+
+    private static final ClassValue<Optional<HashCode>> CLASS_FILE_HASHES = new ClassValue<Optional<HashCode>>() {
+        @Override
+        protected Optional<HashCode> computeValue(Class<?> type) {
+            return Optional.ofNullable(hashClassFile(type));
+        }
+    };
+
+    private static final ClassValue<Optional<HashCode>> TYPE_HASHES = new ClassValue<Optional<HashCode>>() {
+        @Override
+        protected Optional<HashCode> computeValue(Class<?> type) {
+            return Optional.ofNullable(hashType(type));
+        }
+    };
+
+    private final GeneratedClassBytecodeStore store;
+    private final Supplier<Optional<HashCode>> generatorHash;
+
+    GeneratedClassBytecodeCache(
+        GeneratedClassBytecodeStore store,
+        boolean decorate,
+        String suffix,
+        Collection<? extends InjectAnnotationHandler> allKnownAnnotations,
+        Collection<Class<? extends Annotation>> enabledInjectAnnotations,
+        PropertyRoleAnnotationHandler roleHandler
+    ) {
+        this.store = store;
+        this.generatorHash = Suppliers.memoize(() -> Optional.ofNullable(hashGenerator(decorate, suffix, allKnownAnnotations, enabledInjectAnnotations, roleHandler)));
+    }
+
+    /**
+     * Returns the key for the class generated for the given type, or null when the class should not be cached.
+     */
+    @Nullable
+    HashCode keyFor(Class<?> type, int factoryId) {
+        if (!store.isEnabled()) {
+            return null;
+        }
+        Optional<HashCode> generator = generatorHash.get();
+        Optional<HashCode> typeHash = TYPE_HASHES.get(type);
+        if (!generator.isPresent() || !typeHash.isPresent()) {
+            return null;
+        }
+        Hasher hasher = Hashing.newHasher();
+        hasher.putHash(generator.get());
+        hasher.putInt(factoryId);
+        hasher.putString(type.getName());
+        hasher.putHash(typeHash.get());
+        return hasher.hash();
+    }
+
+    @Nullable
+    byte[] load(HashCode key) {
+        return store.load(key);
+    }
+
+    void store(HashCode key, byte[] bytecode) {
+        store.store(key, bytecode);
+    }
+
+    @Nullable
+    private static HashCode hashGenerator(
+        boolean decorate,
+        String suffix,
+        Collection<? extends InjectAnnotationHandler> allKnownAnnotations,
+        Collection<Class<? extends Annotation>> enabledInjectAnnotations,
+        PropertyRoleAnnotationHandler roleHandler
+    ) {
+        Hasher hasher = Hashing.newHasher();
+        hasher.putInt(CACHE_VERSION);
+        hasher.putString(GradleVersion.current().getVersion());
+        hasher.putString(System.getProperty("java.version"));
+        hasher.putBoolean(decorate);
+        hasher.putString(suffix);
+        TreeSet<String> knownAnnotations = new TreeSet<>();
+        for (InjectAnnotationHandler handler : allKnownAnnotations) {
+            knownAnnotations.add(handler.getAnnotationType().getName());
+        }
+        putNames(hasher, knownAnnotations);
+        TreeSet<String> enabledAnnotations = new TreeSet<>();
+        for (Class<? extends Annotation> annotation : enabledInjectAnnotations) {
+            enabledAnnotations.add(annotation.getName());
+        }
+        putNames(hasher, enabledAnnotations);
+        TreeSet<String> roleAnnotations = new TreeSet<>();
+        for (Class<? extends Annotation> annotation : roleHandler.getAnnotationTypes()) {
+            roleAnnotations.add(annotation.getName());
+        }
+        putNames(hasher, roleAnnotations);
+        return hasher.hash();
+    }
+
+    @Nullable
+    private static HashCode hashType(Class<?> type) {
+        SortedMap<String, HashCode> classFiles = new TreeMap<>();
+        Deque<Class<?>> hierarchy = new ArrayDeque<>();
+        if (!addHierarchy(type, classFiles, hierarchy)) {
+            return null;
+        }
+        try {
+            while (!hierarchy.isEmpty()) {
+                for (Method method : hierarchy.pop().getDeclaredMethods()) {
+                    if (!addTypeAndSuperTypes(method.getReturnType(), classFiles)) {
+                        return null;
+                    }
+                    for (Class<?> parameterType : method.getParameterTypes()) {
+                        if (!addTypeAndSuperTypes(parameterType, classFiles)) {
+                            return null;
+                        }
+                    }
+                }
+            }
+        } catch (LinkageError e) {
+            // Some type of a method signature is not visible, do not cache
+            return null;
+        }
+        Hasher hasher = Hashing.newHasher();
+        putClassFiles(hasher, classFiles);
+        return hasher.hash();
+    }
+
+    private static boolean addTypeAndSuperTypes(Class<?> type, SortedMap<String, HashCode> classFiles) {
+        return addHierarchy(type, classFiles, null);
+    }
+
+    /**
+     * Adds the class files of the given type and its super types, and collects the visited types when a queue is given.
+     */
+    private static boolean addHierarchy(Class<?> type, SortedMap<String, HashCode> classFiles, @Nullable Deque<Class<?>> visited) {
+        Deque<Class<?>> queue = new ArrayDeque<>();
+        queue.add(type);
+        while (!queue.isEmpty()) {
+            Class<?> current = queue.pop();
+            while (current.isArray()) {
+                current = current.getComponentType();
+            }
+            if (current.isPrimitive() || isRuntimeClass(current) || classFiles.containsKey(current.getName())) {
+                // Types of the Gradle runtime cannot refer to types of the build, so there is no need to visit their super types and members
+                continue;
+            }
+            if (!addClassFile(current, classFiles)) {
+                return false;
+            }
+            if (visited != null) {
+                visited.add(current);
+            }
+            if (current.getSuperclass() != null) {
+                queue.add(current.getSuperclass());
+            }
+            for (Class<?> superInterface : current.getInterfaces()) {
+                queue.add(superInterface);
+            }
+        }
+        return true;
+    }
+
+    private static boolean isRuntimeClass(Class<?> type) {
+        ClassLoader classLoader = type.getClassLoader();
+        return classLoader == null || classLoader == GENERATOR_CLASS_LOADER;
+    }
+
+    private static boolean addClassFile(Class<?> type, Map<String, HashCode> classFiles) {
+        Optional<HashCode> hash = CLASS_FILE_HASHES.get(type);
+        if (!hash.isPresent()) {
+            return false;
+        }
+        classFiles.put(type.getName(), hash.get());
+        return true;
+    }
+
+    @Nullable
+    private static HashCode hashClassFile(Class<?> type) {
+        try (InputStream classFile = type.getClassLoader().getResourceAsStream(type.getName().replace('.', '/') + ".class")) {
+            return classFile == null ? null : Hashing.hashStream(classFile);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void putNames(Hasher hasher, Collection<String> names) {
+        hasher.putInt(names.size());
+        for (String name : names) {
+            hasher.putString(name);
+        }
+    }
+
+    private static void putClassFiles(Hasher hasher, SortedMap<String, HashCode> classFiles) {
+        hasher.putInt(classFiles.size());
+        for (Map.Entry<String, HashCode> entry : classFiles.entrySet()) {
+            hasher.putString(entry.getKey());
+            hasher.putHash(entry.getValue());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.instantiation.generator;
+
+import org.gradle.internal.hash.HashCode;
+
+import javax.annotation.Nullable;
+
+/**
+ * Stores the bytecode of classes generated by {@link AsmBackedClassGenerator}, so that a later process can define them without generating them again.
+ *
+ * The keys are calculated by the generator and capture all inputs of the generation.
+ */
+public interface GeneratedClassBytecodeStore {
+    GeneratedClassBytecodeStore NONE = new GeneratedClassBytecodeStore() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Nullable
+        @Override
+        public byte[] load(HashCode key) {
+            return null;
+        }
+
+        @Override
+        public void store(HashCode key, byte[] bytecode) {
+        }
+    };
+
+    /**
+     * Returns whether this store keeps any bytecode. When it does not, the generator does not calculate keys.
+     */
+    boolean isEnabled();
+
+    @Nullable
+    byte[] load(HashCode key);
+
+    void store(HashCode key, byte[] bytecode);
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.instantiation.generator;
+
+import org.gradle.internal.hash.HashCode;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The store used by the global class generators.
+ *
+ * The generators live as long as the process, while the persistent store lives in a Gradle user home directory.
+ * The store of the user home directory that is currently in use is attached here, and detached again when it is closed.
+ */
+public class GlobalGeneratedClassBytecodeStore implements GeneratedClassBytecodeStore {
+    private final AtomicReference<GeneratedClassBytecodeStore> delegate = new AtomicReference<>(NONE);
+
+    public void attach(GeneratedClassBytecodeStore store) {
+        delegate.set(store);
+    }
+
+    public void detach(GeneratedClassBytecodeStore store) {
+        delegate.compareAndSet(store, NONE);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return delegate.get().isEnabled();
+    }
+
+    @Nullable
+    @Override
+    public byte[] load(HashCode key) {
+        return delegate.get().load(key);
+    }
+
+    @Override
+    public void store(HashCode key, byte[] bytecode) {
+        delegate.get().store(key, bytecode);
+    }
+}
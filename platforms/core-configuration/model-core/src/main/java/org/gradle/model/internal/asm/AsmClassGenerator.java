@@ -57,4 +57,11 @@ public <T> Class<T> define() {
     public <T> Class<T> define(ClassLoader targetClassLoader) {
         return ClassLoaderUtils.defineDecorator(targetType, targetClassLoader, generatedTypeName, visitor.toByteArray());
     }
+
+    /**
+     * Defines the generated type from the given bytecode, which was produced by this generator.
+     */
+    public <T> Class<T> define(byte[] bytecode) {
+        return ClassLoaderUtils.defineDecorator(targetType, targetType.getClassLoader(), generatedTypeName, bytecode);
+    }
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.instantiation.generator
+
+import org.gradle.api.plugins.ExtensionAware
+import org.gradle.cache.internal.TestCrossBuildInMemoryCacheFactory
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.instantiation.PropertyRoleAnnotationHandler
+import spock.lang.Specification
+
+import javax.annotation.Nullable
+
+class GeneratedClassBytecodeCacheTest extends Specification {
+    def store = new TestStore()
+
+    def "defines class from stored bytecode when the same type is generated again"() {
+        when:
+        def first = newInstance(isolatedCopyOf(TestJavaObject))
+
+        then:
+        store.entries.size() == 1
+        store.hits == 0
+
+        when:
+        def second = newInstance(isolatedCopyOf(TestJavaObject))
+
+        then:
+        store.entries.size() == 1
+        store.hits == 1
+
+        and:
+        !second.getClass().is(first.getClass())
+        second.getClass().name == TestJavaObject.name + "_Decorated"
+        second instanceof ExtensionAware
+        second.someValue == "value"
+    }
+
+    def "does not calculate keys when the store is disabled"() {
+        def cache = new GeneratedClassBytecodeCache(GeneratedClassBytecodeStore.NONE, true, "_Decorated", [], [], Stub(PropertyRoleAnnotationHandler))
+
+        expect:
+        cache.keyFor(isolatedCopyOf(TestJavaObject), 0) == null
+    }
+
+    def "key changes with the settings of the generator"() {
+        def decorating = new GeneratedClassBytecodeCache(store, true, "_Decorated", [], [], Stub(PropertyRoleAnnotationHandler))
+        def injecting = new GeneratedClassBytecodeCache(store, false, "\$Inject1", [], [], Stub(PropertyRoleAnnotationHandler))
+        def type = isolatedCopyOf(TestJavaObject)
+
+        expect:
+        decorating.keyFor(type, 0) == decorating.keyFor(isolatedCopyOf(TestJavaObject), 0)
+        decorating.keyFor(type, 0) != decorating.keyFor(type, 1)
+        decorating.keyFor(type, 0) != injecting.keyFor(type, 0)
+    }
+
+    private Object newInstance(Class<?> type) {
+        def instantiatorFactory = new DefaultInstantiatorFactory(new TestCrossBuildInMemoryCacheFactory(), [], Stub(PropertyRoleAnnotationHandler), store)
+        return instantiatorFactory.decorateLenient().newInstance(type)
+    }
+
+    /**
+     * Loads the given class in a new class loader, as a new daemon would.
+     */
+    private static Class<?> isolatedCopyOf(Class<?> type) {
+        def classFile = type.classLoader.getResourceAsStream(type.name.replace('.', '/') + ".class").bytes
+        return new IsolatedClassLoader(type.classLoader).define(type.name, classFile)
+    }
+
+    private static class IsolatedClassLoader extends ClassLoader {
+        IsolatedClassLoader(ClassLoader parent) {
+            super(parent)
+        }
+
+        Class<?> define(String name, byte[] classFile) {
+            return defineClass(name, classFile, 0, classFile.length)
+        }
+    }
+
+    private static class TestStore implements GeneratedClassBytecodeStore {
+        final Map<HashCode, byte[]> entries = [:]
+        int hits
+
+        @Override
+        boolean isEnabled() {
+            return true
+        }
+
+        @Nullable
+        @Override
+        byte[] load(HashCode key) {
+            def bytecode = entries[key]
+            if (bytecode != null) {
+                hits++
+            }
+            return bytecode
+        }
+
+        @Override
+        void store(HashCode key, byte[] bytecode) {
+            entries[key] = bytecode
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Detects the compression format of a build cache entry from its header, so entries written in any supported format can be loaded.
+ */
+class CompressionFormats {
+    private static final int GZIP_MAGIC_0 = 0x1f;
+    private static final int GZIP_MAGIC_1 = 0x8b;
+    private static final byte[] LZ4_MAGIC = {'G', 'L', 'Z', '4'};
+
+    private CompressionFormats() {
+    }
+
+    /**
+     * Writes the LZ4 format header and returns a stream that compresses to the given output.
+     */
+    static OutputStream lz4Output(OutputStream output) throws IOException {
+        output.write(LZ4_MAGIC);
+        return new Lz4FrameOutputStream(output);
+    }
+
+    /**
+     * Returns a stream that decompresses the given input, based on the format header of the input.
+     */
+    static InputStream decompressingInput(InputStream input) throws IOException {
+        PushbackInputStream pushback = new PushbackInputStream(input, LZ4_MAGIC.length);
+        byte[] header = new byte[LZ4_MAGIC.length];
+        int read = 0;
+        while (read < header.length) {
+            int count = pushback.read(header, read, header.length - read);
+            if (count < 0) {
+                break;
+            }
+            read += count;
+        }
+        if (read >= 2 && (header[0] & 0xFF) == GZIP_MAGIC_0 && (header[1] & 0xFF) == GZIP_MAGIC_1) {
+            pushback.unread(header, 0, read);
+            return new GZIPInputStream(pushback);
+        }
+        if (read == LZ4_MAGIC.length && isLz4Magic(header)) {
+            // The whole header has been consumed, so read the frames from the input directly
+            return new Lz4FrameInputStream(input);
+        }
+        throw new IOException("Unsupported build cache entry format");
+    }
+
+    private static boolean isLz4Magic(byte[] header) {
+        for (int i = 0; i < LZ4_MAGIC.length; i++) {
+            if (header[i] != LZ4_MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -26,7 +26,6 @@
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Map;
-import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
 public class GZipBuildCacheEntryPacker implements BuildCacheEntryPacker {
@@ -45,8 +44,9 @@ public PackResult pack(CacheableEntity entity, Map<String, ? extends FileSystemS
 
     @Override
     public UnpackResult unpack(CacheableEntity entity, InputStream input, OriginReader readOrigin) throws IOException {
-        try (GZIPInputStream gzipInput = new GZIPInputStream(input)) {
-            return delegate.unpack(entity, gzipInput, readOrigin);
+        // Entries might have been stored by a build using a different compression format
+        try (InputStream decompressedInput = CompressionFormats.decompressingInput(input)) {
+            return delegate.unpack(entity, decompressedInput, readOrigin);
         }
     }
 }
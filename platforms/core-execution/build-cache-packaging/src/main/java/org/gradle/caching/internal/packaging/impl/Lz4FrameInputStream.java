@@ -0,0 +1,129 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl;
+
+import java.io.DataInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+
+import static org.gradle.caching.internal.packaging.impl.Lz4FrameOutputStream.BLOCK_SIZE;
+import static org.gradle.caching.internal.packaging.impl.Lz4FrameOutputStream.UNCOMPRESSED_FLAG;
+
+/**
+ * Decompresses data written by {@link Lz4FrameOutputStream}, verifying the checksum of each block.
+ */
+public class Lz4FrameInputStream extends FilterInputStream {
+    private final DataInputStream input;
+    private final byte[] buffer = new byte[BLOCK_SIZE];
+    private final byte[] compressed = new byte[Lz4BlockCodec.maxCompressedLength(BLOCK_SIZE)];
+    private final CRC32 checksum = new CRC32();
+    private int position;
+    private int limit;
+    private boolean finished;
+
+    public Lz4FrameInputStream(InputStream input) {
+        super(input);
+        this.input = new DataInputStream(input);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        int count = Math.min(len, limit - position);
+        System.arraycopy(buffer, position, bytes, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && ensureAvailable()) {
+            int count = (int) Math.min(n - skipped, limit - position);
+            position += count;
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return limit - position;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private boolean ensureAvailable() throws IOException {
+        while (position == limit) {
+            if (finished) {
+                return false;
+            }
+            readBlock();
+        }
+        return true;
+    }
+
+    private void readBlock() throws IOException {
+        int header = input.readInt();
+        if (header == 0) {
+            finished = true;
+            return;
+        }
+        int length = input.readInt();
+        if (length <= 0 || length > BLOCK_SIZE) {
+            throw new IOException("Corrupted LZ4 stream, invalid block length: " + length);
+        }
+        int expectedChecksum = input.readInt();
+        if ((header & UNCOMPRESSED_FLAG) != 0) {
+            if ((header & ~UNCOMPRESSED_FLAG) != length) {
+                throw new IOException("Corrupted LZ4 stream, invalid stored block length: " + header);
+            }
+            input.readFully(buffer, 0, length);
+        } else {
+            if (header > compressed.length) {
+                throw new IOException("Corrupted LZ4 stream, invalid compressed block length: " + header);
+            }
+            input.readFully(compressed, 0, header);
+            Lz4BlockCodec.decompress(compressed, header, buffer, length);
+        }
+        checksum.reset();
+        checksum.update(buffer, 0, length);
+        if ((int) checksum.getValue() != expectedChecksum) {
+            throw new IOException("Corrupted LZ4 stream, block checksum mismatch");
+        }
+        position = 0;
+        limit = length;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl;
+
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+
+/**
+ * Compresses data as a sequence of independent LZ4 blocks.
+ *
+ * Each block is written as its compressed length, its uncompressed length, the CRC32 checksum of its uncompressed contents and its contents.
+ * Blocks that do not compress are stored as is, which is marked by the highest bit of the compressed length.
+ * The stream is terminated by a block with length zero.
+ */
+public class Lz4FrameOutputStream extends FilterOutputStream {
+    static final int BLOCK_SIZE = 64 * 1024;
+    static final int UNCOMPRESSED_FLAG = 0x80000000;
+
+    private final DataOutputStream output;
+    private final Lz4BlockCodec codec = new Lz4BlockCodec();
+    private final byte[] buffer = new byte[BLOCK_SIZE];
+    private final byte[] compressed = new byte[Lz4BlockCodec.maxCompressedLength(BLOCK_SIZE)];
+    private final CRC32 checksum = new CRC32();
+    private int position;
+    private boolean closed;
+
+    public Lz4FrameOutputStream(OutputStream output) {
+        super(output);
+        this.output = new DataOutputStream(output);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (position == BLOCK_SIZE) {
+            writeBlock();
+        }
+        buffer[position++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int off, int len) throws IOException {
+        while (len > 0) {
+            if (position == BLOCK_SIZE) {
+                writeBlock();
+            }
+            int count = Math.min(len, BLOCK_SIZE - position);
+            System.arraycopy(bytes, off, buffer, position, count);
+            position += count;
+            off += count;
+            len -= count;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writeBlock();
+        output.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writeBlock();
+            output.writeInt(0);
+            output.flush();
+        } finally {
+            output.close();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (position == 0) {
+            return;
+        }
+        checksum.reset();
+        checksum.update(buffer, 0, position);
+        int compressedLength = codec.compress(buffer, position, compressed);
+        if (compressedLength < position) {
+            output.writeInt(compressedLength);
+            output.writeInt(position);
+            output.writeInt((int) checksum.getValue());
+            output.write(compressed, 0, compressedLength);
+        } else {
+            output.writeInt(position | UNCOMPRESSED_FLAG);
+            output.writeInt(position);
+            output.writeInt((int) checksum.getValue());
+            output.write(buffer, 0, position);
+        }
+        position = 0;
+    }
+}
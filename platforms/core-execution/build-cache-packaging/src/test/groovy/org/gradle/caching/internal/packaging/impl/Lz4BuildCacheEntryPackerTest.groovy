@@ -0,0 +1,204 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl
+
+import org.gradle.caching.internal.CacheableEntity
+import org.gradle.caching.internal.origin.OriginReader
+import org.gradle.caching.internal.origin.OriginWriter
+import org.gradle.caching.internal.packaging.BuildCacheEntryPacker
+import org.gradle.internal.snapshot.FileSystemSnapshot
+import spock.lang.Specification
+
+class Lz4BuildCacheEntryPackerTest extends Specification {
+    def entity = Stub(CacheableEntity)
+    def delegate = new CopyingPacker()
+
+    def "can unpack entries packed with #packedWith"() {
+        given:
+        def content = contentOfSize(size)
+        delegate.content = content
+        def packer = packedWith == "lz4" ? new Lz4BuildCacheEntryPacker(delegate) : new GZipBuildCacheEntryPacker(delegate)
+        def output = new ByteArrayOutputStream()
+        packer.pack(entity, [:], output, Stub(OriginWriter))
+
+        when:
+        new Lz4BuildCacheEntryPacker(delegate).unpack(entity, new ByteArrayInputStream(output.toByteArray()), Stub(OriginReader))
+
+        then:
+        delegate.unpacked == content
+
+        when:
+        new GZipBuildCacheEntryPacker(delegate).unpack(entity, new ByteArrayInputStream(output.toByteArray()), Stub(OriginReader))
+
+        then:
+        delegate.unpacked == content
+
+        where:
+        packedWith | size
+        "lz4"      | 0
+        "lz4"      | 100
+        "lz4"      | 1024 * 1024 + 17
+        "gzip"     | 1024 * 1024 + 17
+    }
+
+    def "compresses repetitive content"() {
+        given:
+        def content = ("some repetitive content " * 10000).bytes
+        def output = new ByteArrayOutputStream()
+
+        when:
+        def stream = new Lz4FrameOutputStream(output)
+        stream.write(content)
+        stream.close()
+
+        then:
+        output.size() < content.length / 10
+        new Lz4FrameInputStream(new ByteArrayInputStream(output.toByteArray())).bytes == content
+    }
+
+    def "stores incompressible content"() {
+        given:
+        def content = new byte[100000]
+        new Random(1234L).nextBytes(content)
+        def output = new ByteArrayOutputStream()
+
+        when:
+        def stream = new Lz4FrameOutputStream(output)
+        stream.write(content)
+        stream.close()
+
+        then:
+        output.size() < content.length + 100
+        new Lz4FrameInputStream(new ByteArrayInputStream(output.toByteArray())).bytes == content
+    }
+
+    def "fails on unknown format"() {
+        when:
+        new Lz4BuildCacheEntryPacker(delegate).unpack(entity, new ByteArrayInputStream("unknown".bytes), Stub(OriginReader))
+
+        then:
+        def e = thrown(IOException)
+        e.message == "Unsupported build cache entry format"
+    }
+
+    def "fails on corrupted content"() {
+        given:
+        def output = new ByteArrayOutputStream()
+        def stream = new Lz4FrameOutputStream(output)
+        stream.write(("some repetitive content " * 10000).bytes)
+        stream.close()
+        def bytes = output.toByteArray()
+        // Uncompressed length of the first block
+        bytes[7] = (byte) (bytes[7] ^ 0x01)
+
+        when:
+        new Lz4FrameInputStream(new ByteArrayInputStream(bytes)).bytes
+
+        then:
+        thrown(IOException)
+    }
+
+    def "fails on corrupted #blockType payload"() {
+        given:
+        def output = new ByteArrayOutputStream()
+        def stream = new Lz4FrameOutputStream(output)
+        stream.write(content)
+        stream.close()
+        def bytes = output.toByteArray()
+        // A byte within the payload of the first block, after its lengths and checksum
+        bytes[100] = (byte) (bytes[100] ^ 0x01)
+
+        when:
+        new Lz4FrameInputStream(new ByteArrayInputStream(bytes)).bytes
+
+        then:
+        thrown(IOException)
+
+        where:
+        blockType      | content
+        "compressed"   | contentOfSize(100000)
+        "uncompressed" | randomContent(100000)
+    }
+
+    def "fails on truncated block"() {
+        given:
+        def content = contentOfSize(10000)
+        def compressed = new byte[Lz4BlockCodec.maxCompressedLength(content.length)]
+        def compressedLength = new Lz4BlockCodec().compress(content, content.length, compressed)
+
+        expect:
+        (0..<compressedLength).each { length ->
+            try {
+                Lz4BlockCodec.decompress(compressed, length, new byte[content.length], content.length)
+                assert false: "Truncated block of length $length was decompressed"
+            } catch (IOException e) {
+                assert e.message == "Corrupted LZ4 block"
+            }
+        }
+    }
+
+    def "fails with IOException on randomly corrupted block"() {
+        given:
+        def content = contentOfSize(10000)
+        def compressed = new byte[Lz4BlockCodec.maxCompressedLength(content.length)]
+        def compressedLength = new Lz4BlockCodec().compress(content, content.length, compressed)
+        def random = new Random(1234L)
+
+        expect:
+        1000.times {
+            def corrupted = Arrays.copyOf(compressed, compressedLength)
+            corrupted[random.nextInt(compressedLength)] = (byte) random.nextInt(256)
+            try {
+                Lz4BlockCodec.decompress(corrupted, compressedLength, new byte[content.length], content.length)
+            } catch (IOException ignored) {
+                // Expected for most corruptions, others only change the decompressed bytes
+            }
+        }
+    }
+
+    private static byte[] randomContent(int size) {
+        def content = new byte[size]
+        new Random(size).nextBytes(content)
+        return content
+    }
+
+    private static byte[] contentOfSize(int size) {
+        def content = new byte[size]
+        def random = new Random(size)
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) (i % 64 < 32 ? random.nextInt(4) : i % 7)
+        }
+        return content
+    }
+
+    private static class CopyingPacker implements BuildCacheEntryPacker {
+        byte[] content = new byte[0]
+        byte[] unpacked
+
+        @Override
+        PackResult pack(CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, OutputStream output, OriginWriter writeOrigin) throws IOException {
+            output.write(content)
+            return new PackResult(1)
+        }
+
+        @Override
+        UnpackResult unpack(CacheableEntity entity, InputStream input, OriginReader readOrigin) throws IOException {
+            unpacked = input.bytes
+            return new UnpackResult(null, 1, [:])
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.tasks;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Interners;
+import org.apache.commons.io.FileUtils;
+import org.gradle.internal.hash.DefaultFileHasher;
+import org.gradle.internal.hash.DefaultStreamHasher;
+import org.gradle.internal.snapshot.impl.DirectorySnapshotter;
+import org.gradle.internal.snapshot.impl.DirectorySnapshotterStatistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Compares sequential and parallel hashing when snapshotting a generated output directory.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class DirectorySnapshottingBenchmark {
+    private static final int FILES_PER_DIRECTORY = 100;
+
+    Path tempDirPath;
+    DirectorySnapshotter snapshotter;
+    ExecutorService hashingExecutor;
+
+    @Param({"1000", "20000"})
+    int fileCount;
+
+    @Param({"4096"})
+    int fileSize;
+
+    @Param({"true", "false"})
+    boolean parallel;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        tempDirPath = Files.createTempDirectory("directory-snapshotting");
+        Random random = new Random(1234L);
+        byte[] content = new byte[fileSize];
+        for (int i = 0; i < fileCount; i++) {
+            Path directory = tempDirPath.resolve("dir" + (i / FILES_PER_DIRECTORY));
+            Files.createDirectories(directory);
+            random.nextBytes(content);
+            Files.write(directory.resolve("file" + i + ".bin"), content);
+        }
+        hashingExecutor = parallel ? Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()) : null;
+        snapshotter = new DirectorySnapshotter(
+            new DefaultFileHasher(new DefaultStreamHasher()),
+            Interners.newStrongInterner(),
+            ImmutableList.of(),
+            new DirectorySnapshotterStatistics.Collector(),
+            hashingExecutor
+        );
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (hashingExecutor != null) {
+            hashingExecutor.shutdownNow();
+        }
+        FileUtils.forceDelete(tempDirPath.toFile());
+    }
+
+    @Benchmark
+    public void snapshot(Blackhole blackhole) {
+        blackhole.consume(snapshotter.snapshot(tempDirPath.toString(), null, ImmutableMap.of(), blackhole::consume));
+    }
+}
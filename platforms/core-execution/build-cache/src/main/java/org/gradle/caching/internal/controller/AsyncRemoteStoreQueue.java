@@ -0,0 +1,220 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.io.FileUtils;
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.internal.BuildCacheKeyInternal;
+import org.gradle.caching.internal.controller.service.RemoteBuildCacheServiceHandle;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationRef;
+import org.gradle.internal.operations.BuildOperationRunner;
+import org.gradle.internal.operations.CurrentBuildOperationRef;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.File;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uploads packed entries to the remote build cache in the background, so that the worker producing an entry
+ * does not have to wait for the upload to finish.
+ *
+ * <p>The queue takes ownership of the files handed to it and deletes them once uploaded.
+ * At most a fixed number of uploads can be pending; submitting more blocks until an upload finishes.
+ * An entry that is already pending for the same cache key is not uploaded a second time.</p>
+ *
+ * <p>The operation that produces an entry has usually finished by the time its upload runs, and an operation cannot outlive its parent.
+ * The uploads are therefore reported as children of a 'Store entries in remote build cache' operation, which is started with the first upload
+ * as a child of the build's operation and lasts until all uploads have stopped.
+ * Failures are handled by the remote handle, which disables the remote cache the same way as for synchronous stores.</p>
+ */
+class AsyncRemoteStoreQueue implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncRemoteStoreQueue.class);
+
+    static final int DEFAULT_THREADS = 4;
+    static final int DEFAULT_MAX_PENDING = 32;
+    static final Duration DEFAULT_CLOSE_TIMEOUT = Duration.ofMinutes(5);
+    private static final long PROGRESS_INTERVAL_SECONDS = 10;
+
+    private final RemoteBuildCacheServiceHandle remote;
+    private final BuildOperationRunner buildOperationRunner;
+    @Nullable
+    private final BuildOperationRef buildOperation;
+    private final Duration closeTimeout;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore pendingPermits;
+    private final Set<HashCode> pendingKeys = ConcurrentHashMap.newKeySet();
+
+    private BuildOperationContext storesOperationContext;
+    private BuildOperationRef storesOperation;
+
+    /**
+     * @param buildOperation the operation of the build, which must keep running until the queue is closed, or {@code null} when there is none
+     */
+    AsyncRemoteStoreQueue(RemoteBuildCacheServiceHandle remote, BuildOperationRunner buildOperationRunner, @Nullable BuildOperationRef buildOperation, int threads, int maxPending, Duration closeTimeout) {
+        this.remote = remote;
+        this.buildOperationRunner = buildOperationRunner;
+        this.buildOperation = buildOperation;
+        this.closeTimeout = closeTimeout;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), new ThreadFactoryBuilder()
+            .setNameFormat("Remote build cache store %d")
+            .setDaemon(true)
+            .build()) {
+            @Override
+            protected void terminated() {
+                // Only finish the operation once no upload can run under it anymore
+                finishStoresOperation();
+            }
+        };
+        this.pendingPermits = new Semaphore(maxPending);
+    }
+
+    /**
+     * Claims the given key for an upload. Returns {@code false} when an upload for the same key is already pending.
+     * A successful claim must be followed by a call to {@link #submit(BuildCacheKey, File)} or {@link #release(BuildCacheKey)}.
+     */
+    boolean claim(BuildCacheKey key) {
+        return pendingKeys.add(((BuildCacheKeyInternal) key).getHashCodeInternal());
+    }
+
+    /**
+     * Releases a claim without scheduling an upload.
+     */
+    void release(BuildCacheKey key) {
+        pendingKeys.remove(((BuildCacheKeyInternal) key).getHashCodeInternal());
+    }
+
+    /**
+     * Schedules the upload of the given file, waiting while too many uploads are pending.
+     */
+    void submit(BuildCacheKey key, File file) {
+        pendingPermits.acquireUninterruptibly();
+        try {
+            executor.execute(new PendingStore(key, file, storesOperation()));
+        } catch (RuntimeException e) {
+            finish(key, file);
+            throw e;
+        }
+    }
+
+    private synchronized BuildOperationRef storesOperation() {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("Cannot store entries in the remote build cache after the queue has been closed.");
+        }
+        if (storesOperationContext == null) {
+            // Start the operation under the build's operation rather than the operation of the submitting thread, which finishes before the uploads do
+            CurrentBuildOperationRef.instance().with(buildOperation, () -> {
+                storesOperationContext = buildOperationRunner.start(BuildOperationDescriptor.displayName("Store entries in remote build cache")
+                    .progressDisplayName("Uploading to remote build cache"));
+                storesOperation = CurrentBuildOperationRef.instance().get();
+            });
+        }
+        return storesOperation;
+    }
+
+    private synchronized void finishStoresOperation() {
+        if (storesOperationContext != null) {
+            // Finishing the operation resets the current operation of this thread to the one the operation was started with
+            CurrentBuildOperationRef.instance().with(CurrentBuildOperationRef.instance().get(), () -> storesOperationContext.setResult(null));
+            storesOperationContext = null;
+            storesOperation = null;
+        }
+    }
+
+    private void finish(BuildCacheKey key, File file) {
+        FileUtils.deleteQuietly(file);
+        release(key);
+        pendingPermits.release();
+    }
+
+    /**
+     * Waits for the pending uploads to finish. Uploads still pending after the close timeout are abandoned with a warning.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!awaitUploads()) {
+                LOGGER.warn("Abandoned {} pending stores to the remote build cache that did not finish within {} seconds.", pendingKeys.size(), closeTimeout.getSeconds());
+                abandonUploads();
+            }
+        } catch (InterruptedException e) {
+            abandonUploads();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Interrupts the running uploads and discards the ones that have not started yet.
+     * The operation the uploads run under is finished once the running uploads have stopped.
+     */
+    private void abandonUploads() {
+        for (Runnable notStarted : executor.shutdownNow()) {
+            PendingStore store = (PendingStore) notStarted;
+            finish(store.key, store.file);
+        }
+    }
+
+    private boolean awaitUploads() throws InterruptedException {
+        long deadline = System.nanoTime() + closeTimeout.toNanos();
+        while (true) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return executor.isTerminated();
+            }
+            if (executor.awaitTermination(Math.min(remaining, TimeUnit.SECONDS.toNanos(PROGRESS_INTERVAL_SECONDS)), TimeUnit.NANOSECONDS)) {
+                return true;
+            }
+            LOGGER.info("Waiting for {} pending stores to the remote build cache", pendingKeys.size());
+        }
+    }
+
+    private class PendingStore implements Runnable {
+        private final BuildCacheKey key;
+        private final File file;
+        private final BuildOperationRef parent;
+
+        PendingStore(BuildCacheKey key, File file, BuildOperationRef parent) {
+            this.key = key;
+            this.file = file;
+            this.parent = parent;
+        }
+
+        @Override
+        public void run() {
+            try {
+                CurrentBuildOperationRef.instance().with(parent, () -> remote.maybeStore(key, file));
+            } finally {
+                finish(key, file);
+            }
+        }
+    }
+}
@@ -20,6 +20,7 @@
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.Interner;
 import com.google.common.io.Closer;
+import org.apache.commons.io.FileUtils;
 import org.gradle.caching.BuildCacheKey;
 import org.gradle.caching.BuildCacheService;
 import org.gradle.caching.internal.BuildCacheKeyInternal;
@@ -52,6 +53,7 @@
 import org.gradle.internal.operations.BuildOperationContext;
 import org.gradle.internal.operations.BuildOperationDescriptor;
 import org.gradle.internal.operations.BuildOperationProgressEventEmitter;
+import org.gradle.internal.operations.BuildOperationRef;
 import org.gradle.internal.operations.BuildOperationRunner;
 import org.gradle.internal.operations.CallableBuildOperation;
 import org.gradle.internal.operations.RunnableBuildOperation;
@@ -65,8 +67,11 @@
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.time.Duration;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -79,7 +84,11 @@ public class DefaultBuildCacheController implements BuildCacheController {
     final LocalBuildCacheServiceHandle local;
 
     private final BuildCacheTempFileStore tmp;
+    private final TemporaryFileFactory temporaryFileFactory;
     private final PackOperationExecutor packExecutor;
+    private final BuildOperationRunner buildOperationRunner;
+    @Nullable
+    private final AsyncRemoteStoreQueue asyncRemoteStores;
 
     private boolean closed;
 
@@ -93,10 +102,31 @@ public DefaultBuildCacheController(
         BuildCacheEntryPacker packer,
         OriginMetadataFactory originMetadataFactory,
         Interner<String> stringInterner
+    ) {
+        this(config, buildOperationRunner, buildOperationProgressEventEmitter, temporaryFileFactory, logStackTraces, disableRemoteOnError, false, null, packer, originMetadataFactory, stringInterner);
+    }
+
+    public DefaultBuildCacheController(
+        BuildCacheServicesConfiguration config,
+        BuildOperationRunner buildOperationRunner,
+        BuildOperationProgressEventEmitter buildOperationProgressEventEmitter,
+        TemporaryFileFactory temporaryFileFactory,
+        boolean logStackTraces,
+        boolean disableRemoteOnError,
+        boolean asyncRemoteStore,
+        @Nullable BuildOperationRef asyncRemoteStoreParent,
+        BuildCacheEntryPacker packer,
+        OriginMetadataFactory originMetadataFactory,
+        Interner<String> stringInterner
     ) {
         this.local = toLocalHandle(config.getLocal(), config.isLocalPush(), buildOperationRunner);
         this.remote = toRemoteHandle(config.getBuildPath(), config.getRemote(), config.isRemotePush(), buildOperationRunner, buildOperationProgressEventEmitter, logStackTraces, disableRemoteOnError);
         this.tmp = toTempFileStore(config.getLocal(), temporaryFileFactory);
+        this.temporaryFileFactory = temporaryFileFactory;
+        this.buildOperationRunner = buildOperationRunner;
+        this.asyncRemoteStores = asyncRemoteStore && remote.canStore()
+            ? new AsyncRemoteStoreQueue(remote, buildOperationRunner, asyncRemoteStoreParent, AsyncRemoteStoreQueue.DEFAULT_THREADS, AsyncRemoteStoreQueue.DEFAULT_MAX_PENDING, AsyncRemoteStoreQueue.DEFAULT_CLOSE_TIMEOUT)
+            : null;
         this.packExecutor = new PackOperationExecutor(
             buildOperationRunner,
             packer,
@@ -154,15 +184,44 @@ public void store(BuildCacheKey key, CacheableEntity entity, Map<String, FileSys
         }
         tmp.withTempFile(((BuildCacheKeyInternal) key).getHashCodeInternal(), file -> {
             packExecutor.pack(file, key, entity, snapshots, executionTime);
-            remote.maybeStore(key, file);
+            if (asyncRemoteStores == null) {
+                remote.maybeStore(key, file);
+            } else if (remote.canStore() && asyncRemoteStores.claim(key)) {
+                storeRemoteAsync(key, file);
+            }
             local.maybeStore(key, file);
         });
     }
 
+    /**
+     * Hands a copy of the packed entry over to the background queue, as the local cache takes ownership of the original file.
+     */
+    private void storeRemoteAsync(BuildCacheKey key, File file) {
+        AsyncRemoteStoreQueue queue = Objects.requireNonNull(asyncRemoteStores);
+        File uploadFile = temporaryFileFactory.createTemporaryFile(((BuildCacheKeyInternal) key).getHashCodeInternal() + "-", BuildCacheTempFileStore.PARTIAL_FILE_SUFFIX);
+        try {
+            if (local.canStore()) {
+                Files.copy(file.toPath(), uploadFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                Files.move(file.toPath(), uploadFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            // Fall back to storing synchronously
+            FileUtils.deleteQuietly(uploadFile);
+            queue.release(key);
+            remote.maybeStore(key, file);
+            return;
+        }
+        queue.submit(key, uploadFile);
+    }
+
     @Override
     public void close() throws IOException {
         if (!closed) {
             closed = true;
+            if (asyncRemoteStores != null) {
+                finishRemoteStores(asyncRemoteStores);
+            }
             Closer closer = Closer.create();
             closer.register(local);
             closer.register(remote);
@@ -170,6 +229,21 @@ public void close() throws IOException {
         }
     }
 
+    private void finishRemoteStores(AsyncRemoteStoreQueue queue) {
+        buildOperationRunner.run(new RunnableBuildOperation() {
+            @Override
+            public void run(BuildOperationContext context) {
+                queue.close();
+            }
+
+            @Override
+            public BuildOperationDescriptor.Builder description() {
+                return BuildOperationDescriptor.displayName("Finish pending stores to remote build cache")
+                    .progressDisplayName("Uploading to remote build cache");
+            }
+        });
+    }
+
     @VisibleForTesting
     static class PackOperationExecutor {
         private final BuildOperationRunner buildOperationRunner;
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller
+
+import org.gradle.caching.internal.TestBuildCacheKey
+import org.gradle.caching.internal.controller.service.RemoteBuildCacheServiceHandle
+import org.gradle.internal.operations.BuildOperationContext
+import org.gradle.internal.operations.BuildOperationRef
+import org.gradle.internal.operations.BuildOperationRunner
+import org.gradle.internal.operations.CurrentBuildOperationRef
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class AsyncRemoteStoreQueueTest extends Specification {
+
+    @Rule
+    final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    def remote = Mock(RemoteBuildCacheServiceHandle)
+    def buildOperationRunner = Mock(BuildOperationRunner)
+    def buildOperation = Stub(BuildOperationRef)
+    def storesOperation = Mock(BuildOperationContext)
+    def storesOperationFinished = new CountDownLatch(1)
+
+    def "starts the stores operation under the build operation and finishes it once the uploads are done"() {
+        def queue = new AsyncRemoteStoreQueue(remote, buildOperationRunner, buildOperation, 2, 4, Duration.ofSeconds(10))
+        def key = new TestBuildCacheKey(1)
+        def file = tmpDir.file("entry").createFile()
+        BuildOperationRef parent = null
+
+        when:
+        queue.claim(key)
+        queue.submit(key, file)
+        queue.close()
+
+        then:
+        1 * buildOperationRunner.start(_) >> {
+            parent = CurrentBuildOperationRef.instance().get()
+            storesOperation
+        }
+        1 * remote.maybeStore(key, file) >> true
+        1 * storesOperation.setResult(null)
+
+        and:
+        parent.is(buildOperation)
+        !file.exists()
+        queue.claim(key)
+    }
+
+    def "discards pending uploads and finishes the stores operation once the running upload stopped when close times out"() {
+        def queue = new AsyncRemoteStoreQueue(remote, buildOperationRunner, buildOperation, 1, 4, Duration.ofMillis(100))
+        def uploadStarted = new CountDownLatch(1)
+        def keys = (1..3).collect { new TestBuildCacheKey(it) }
+        def files = keys.collect { tmpDir.file("entry-${it.hashCode}").createFile() }
+        buildOperationRunner.start(_) >> storesOperation
+        storesOperation.setResult(null) >> { storesOperationFinished.countDown() }
+
+        when:
+        keys.eachWithIndex { key, i ->
+            queue.claim(key)
+            queue.submit(key, files[i])
+        }
+        uploadStarted.await(10, TimeUnit.SECONDS)
+        queue.close()
+
+        then:
+        1 * remote.maybeStore(keys[0], files[0]) >> {
+            uploadStarted.countDown()
+            try {
+                Thread.sleep(10_000)
+            } catch (InterruptedException ignored) {
+            }
+            false
+        }
+        0 * remote.maybeStore(_, _)
+
+        and:
+        storesOperationFinished.await(10, TimeUnit.SECONDS)
+        files.every { !it.exists() }
+        keys.every { queue.claim(it) }
+    }
+}
@@ -39,6 +39,8 @@ import spock.lang.Specification
 
 import java.nio.file.Files
 import java.time.Duration
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
 import java.util.function.Consumer
 
 class DefaultBuildCacheControllerTest extends Specification {
@@ -72,7 +74,7 @@ class DefaultBuildCacheControllerTest extends Specification {
 
     interface Local extends BuildCacheService, LocalBuildCacheService {}
 
-    BuildCacheController getController(boolean disableRemoteOnError = true) {
+    BuildCacheController getController(boolean disableRemoteOnError = true, boolean asyncRemoteStore = false) {
         new DefaultBuildCacheController(
             new BuildCacheServicesConfiguration(
                 Path.ROOT.path,
@@ -86,6 +88,8 @@ class DefaultBuildCacheControllerTest extends Specification {
             { prefix, suffix -> Files.createTempFile(tmpDir.testDirectory.toPath(), prefix, suffix).toFile() } as TemporaryFileFactory,
             false,
             disableRemoteOnError,
+            asyncRemoteStore,
+            null,
             packer,
             originMetadataFactory,
             stringInterner
@@ -276,4 +280,73 @@ class DefaultBuildCacheControllerTest extends Specification {
         1 * local.close()
         1 * remote.close()
     }
+
+    def "stores to remote in the background when async remote store is enabled"() {
+        when:
+        def controller = getController(true, true)
+        controller.store(key, cacheableEntity, snapshots, executionTime)
+        controller.close()
+
+        then:
+        1 * remote.store(key, _)
+        1 * local.storeLocally(key, _)
+        1 * local.close()
+        1 * remote.close()
+
+        and:
+        tmpDir.testDirectory.listFiles().findAll { it.name.endsWith(".part") }.empty
+    }
+
+    def "reports async stores as part of a background operation"() {
+        when:
+        def controller = getController(true, true)
+        controller.store(key, cacheableEntity, snapshots, executionTime)
+        controller.close()
+
+        then:
+        1 * remote.store(key, _)
+        operations.log.descriptors*.displayName.containsAll([
+            "Store entries in remote build cache",
+            "Finish pending stores to remote build cache"
+        ])
+    }
+
+    def "deduplicates concurrent async stores of the same key"() {
+        local = null
+        def uploadStarted = new CountDownLatch(1)
+        def releaseUpload = new CountDownLatch(1)
+
+        when:
+        def controller = getController(true, true)
+        controller.store(key, cacheableEntity, snapshots, executionTime)
+        uploadStarted.await(10, TimeUnit.SECONDS)
+        controller.store(key, cacheableEntity, snapshots, executionTime)
+        releaseUpload.countDown()
+        controller.close()
+
+        then:
+        1 * remote.store(key, _) >> {
+            uploadStarted.countDown()
+            releaseUpload.await(10, TimeUnit.SECONDS)
+        }
+        1 * remote.close()
+    }
+
+    def "stops calling through after async write error"() {
+        local = null
+
+        when:
+        def controller = getController(true, true)
+        controller.store(key, cacheableEntity, snapshots, executionTime)
+        controller.close()
+
+        then:
+        1 * remote.store(key, _) >> { throw new RuntimeException() }
+
+        when:
+        controller.load(key, cacheableEntity)
+
+        then:
+        0 * remote.load(key, _)
+    }
 }
@@ -48,6 +48,13 @@ public final CachingState createCachingState(BeforeExecutionState beforeExecutio
     public HashCode calculateCacheKey(BeforeExecutionState beforeExecutionState) {
         final Hasher cacheKeyHasher = Hashing.newHasher();
 
+        String hashFunctionQualifier = Hashing.defaultFunctionQualifier();
+        if (!hashFunctionQualifier.isEmpty()) {
+            // Keep keys produced by a non-standard hash function apart from the keys of other builds
+            logger.warn("Appending hash function to build cache key: {}", Hashing.defaultFunction().getAlgorithm());
+            cacheKeyHasher.putString(hashFunctionQualifier);
+        }
+
         logger.warn("Appending implementation to build cache key: {}",
             beforeExecutionState.getImplementation());
         beforeExecutionState.getImplementation().appendToHasher(cacheKeyHasher);
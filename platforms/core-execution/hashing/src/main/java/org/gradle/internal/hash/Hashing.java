@@ -20,6 +20,7 @@
 import com.google.common.io.ByteStreams;
 import com.google.common.io.Files;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -28,6 +29,9 @@
 import java.nio.ByteOrder;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 
 import static org.gradle.internal.hash.HashCode.Usage.SAFE_TO_REUSE_BYTES;
 
@@ -47,7 +51,25 @@ private Hashing() {
 
     private static final HashFunction SHA512 = MessageDigestHashFunction.of("SHA-512");
 
-    private static final HashFunction DEFAULT = MD5;
+    private static final HashFunction MURMUR3 = new GuavaHashFunction("MURMUR3-128", com.google.common.hash.Hashing.murmur3_128());
+
+    /**
+     * System property to select the default hash function. Supported values are {@code md5} (the default) and {@code murmur3}.
+     * Can be set for all builds using a Gradle user home via {@code org.gradle.jvmargs} in its {@code gradle.properties}.
+     */
+    public static final String DEFAULT_FUNCTION_PROPERTY = "org.gradle.internal.hash.default-function";
+
+    private static final HashFunction DEFAULT = selectDefaultFunction(System.getProperty(DEFAULT_FUNCTION_PROPERTY));
+
+    static HashFunction selectDefaultFunction(@Nullable String name) {
+        if (name == null || name.isEmpty() || name.equalsIgnoreCase("md5")) {
+            return MD5;
+        }
+        if (name.equalsIgnoreCase("murmur3")) {
+            return MURMUR3;
+        }
+        throw new IllegalArgumentException(String.format("Unsupported value for %s: '%s'. Supported values are 'md5' and 'murmur3'.", DEFAULT_FUNCTION_PROPERTY, name));
+    }
 
     /**
      * Returns a new {@link Hasher} based on the default hashing implementation.
@@ -124,6 +146,27 @@ public static HashFunction defaultFunction() {
         return DEFAULT;
     }
 
+    /**
+     * Returns a qualifier to separate persistent state that depends on the default hashing function,
+     * or an empty string when the standard default hashing function is used.
+     */
+    public static String defaultFunctionQualifier() {
+        return qualifierOf(DEFAULT);
+    }
+
+    /**
+     * Returns the qualifiers of all the hashing functions that can be selected as the default, starting with the one of the standard default.
+     *
+     * @see #defaultFunctionQualifier()
+     */
+    public static List<String> defaultFunctionQualifiers() {
+        return Arrays.asList(qualifierOf(MD5), qualifierOf(MURMUR3));
+    }
+
+    private static String qualifierOf(HashFunction function) {
+        return function == MD5 ? "" : "-" + function.getAlgorithm().toLowerCase(Locale.ROOT);
+    }
+
     /**
      * MD5 hashing function.
      */
@@ -152,6 +195,13 @@ public static HashFunction sha512() {
         return SHA512;
     }
 
+    /**
+     * 128-bit MurmurHash3 hashing function. Not cryptographically secure, but considerably faster than the message digest based functions.
+     */
+    public static HashFunction murmur3() {
+        return MURMUR3;
+    }
+
     private static abstract class MessageDigestHashFunction implements HashFunction {
         private final int hexDigits;
 
@@ -362,6 +412,138 @@ public HashCode hash() {
         }
     }
 
+    private static class GuavaHashFunction implements HashFunction {
+        private final String algorithm;
+        private final com.google.common.hash.HashFunction delegate;
+
+        public GuavaHashFunction(String algorithm, com.google.common.hash.HashFunction delegate) {
+            this.algorithm = algorithm;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String getAlgorithm() {
+            return algorithm;
+        }
+
+        @Override
+        public PrimitiveHasher newPrimitiveHasher() {
+            return new GuavaHasher(delegate.newHasher());
+        }
+
+        @Override
+        public Hasher newHasher() {
+            return new DefaultHasher(newPrimitiveHasher());
+        }
+
+        @Override
+        public HashCode hashBytes(byte[] bytes) {
+            return HashCode.fromBytes(delegate.hashBytes(bytes).asBytes(), SAFE_TO_REUSE_BYTES);
+        }
+
+        @Override
+        public HashCode hashString(CharSequence string) {
+            PrimitiveHasher hasher = newPrimitiveHasher();
+            hasher.putString(string);
+            return hasher.hash();
+        }
+
+        @Override
+        public HashCode hashStream(InputStream stream) throws IOException {
+            HashingOutputStream hashingOutputStream = primitiveStreamHasher();
+            ByteStreams.copy(stream, hashingOutputStream);
+            return hashingOutputStream.hash();
+        }
+
+        @Override
+        public HashCode hashFile(File file) throws IOException {
+            HashingOutputStream hashingOutputStream = primitiveStreamHasher();
+            Files.copy(file, hashingOutputStream);
+            return hashingOutputStream.hash();
+        }
+
+        private HashingOutputStream primitiveStreamHasher() {
+            return new HashingOutputStream(this, ByteStreams.nullOutputStream());
+        }
+
+        @Override
+        public int getHexDigits() {
+            return delegate.bits() / 4;
+        }
+
+        @Override
+        public String toString() {
+            return getAlgorithm();
+        }
+    }
+
+    private static class GuavaHasher implements PrimitiveHasher {
+        private com.google.common.hash.Hasher hasher;
+
+        public GuavaHasher(com.google.common.hash.Hasher hasher) {
+            this.hasher = hasher;
+        }
+
+        private com.google.common.hash.Hasher getHasher() {
+            if (hasher == null) {
+                throw new IllegalStateException("Cannot reuse hasher!");
+            }
+            return hasher;
+        }
+
+        @Override
+        public void putByte(byte b) {
+            getHasher().putByte(b);
+        }
+
+        @Override
+        public void putBytes(byte[] bytes) {
+            getHasher().putBytes(bytes);
+        }
+
+        @Override
+        public void putBytes(byte[] bytes, int off, int len) {
+            getHasher().putBytes(bytes, off, len);
+        }
+
+        @Override
+        public void putInt(int value) {
+            getHasher().putInt(value);
+        }
+
+        @Override
+        public void putLong(long value) {
+            getHasher().putLong(value);
+        }
+
+        @Override
+        public void putDouble(double value) {
+            putLong(Double.doubleToRawLongBits(value));
+        }
+
+        @Override
+        public void putBoolean(boolean value) {
+            putByte((byte) (value ? 1 : 0));
+        }
+
+        @Override
+        public void putString(CharSequence value) {
+            putBytes(value.toString().getBytes(Charsets.UTF_8));
+        }
+
+        @Override
+        public void putHash(HashCode hashCode) {
+            hashCode.appendToHasher(this);
+        }
+
+        @Override
+        public HashCode hash() {
+            byte[] bytes = getHasher().hash().asBytes();
+            hasher = null;
+            return HashCode.fromBytes(bytes, SAFE_TO_REUSE_BYTES);
+        }
+    }
+
     private static class DefaultHasher implements Hasher {
         private final PrimitiveHasher hasher;
 
@@ -109,6 +109,58 @@ class HashingTest extends Specification {
         hashStrings(["abc", "de"]) != hashStrings(["ab", "cde"])
     }
 
+    def 'murmur3 produces stable 128-bit hashes'() {
+        given:
+        def function = Hashing.murmur3()
+
+        expect:
+        function.getHexDigits() == 32
+        function.hashString("abc") == function.hashString("abc")
+        function.hashString("abc") != function.hashString("abd")
+        function.hashString("abc") != Hashing.md5().hashString("abc")
+        function.hashBytes("abc".getBytes("UTF-8")) == function.hashString("abc")
+        function.hashStream(new ByteArrayInputStream("abc".getBytes("UTF-8"))) == function.hashString("abc")
+    }
+
+    def 'murmur3 hasher cannot be reused'() {
+        given:
+        def hasher = Hashing.murmur3().newPrimitiveHasher()
+        hasher.putInt(1)
+        hasher.hash()
+
+        when:
+        hasher.putInt(2)
+
+        then:
+        thrown(IllegalStateException)
+    }
+
+    def 'selects default function by name'() {
+        expect:
+        Hashing.selectDefaultFunction(name) == function
+
+        where:
+        name      | function
+        null      | Hashing.md5()
+        ""        | Hashing.md5()
+        "MD5"     | Hashing.md5()
+        "murmur3" | Hashing.murmur3()
+    }
+
+    def 'fails on unknown default function'() {
+        when:
+        Hashing.selectDefaultFunction("crc32")
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message.contains("crc32")
+    }
+
+    def 'standard default function does not qualify persistent state'() {
+        expect:
+        Hashing.defaultFunctionQualifier() == ""
+    }
+
     def hashStrings(List<String> strings) {
         def hasher = Hashing.newHasher()
         strings.each { hasher.putString(it) }
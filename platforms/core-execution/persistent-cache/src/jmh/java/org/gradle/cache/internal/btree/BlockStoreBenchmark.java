@@ -0,0 +1,106 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.internal.btree;
+
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.serialize.Serializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Compares the block stores backing {@link BTreePersistentIndexedCache} on random mixes of gets and puts.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class BlockStoreBenchmark {
+    private static final Serializer<String> STRING_SERIALIZER = BaseSerializerFactory.STRING_SERIALIZER;
+
+    @Param({"file", "mapped"})
+    String store;
+
+    @Param({"100000"})
+    int entries;
+
+    @Param({"100", "90", "50"})
+    int readPercentage;
+
+    File cacheFile;
+    BTreePersistentIndexedCache<String, String> cache;
+    Random random;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        cacheFile = Files.createTempFile("block-store", ".bin").toFile();
+        cacheFile.delete();
+        cache = new BTreePersistentIndexedCache<>(cacheFile, STRING_SERIALIZER, STRING_SERIALIZER, (short) 512, 512, createStore());
+        for (int i = 0; i < entries; i++) {
+            cache.put(key(i), value(i));
+        }
+        cache.reset();
+        random = new Random(1234L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cache.close();
+        cacheFile.delete();
+    }
+
+    private BlockStore createStore() {
+        switch (store) {
+            case "file":
+                return new FileBackedBlockStore(cacheFile);
+            case "mapped":
+                return new MemoryMappedBlockStore(cacheFile);
+            default:
+                throw new IllegalArgumentException(store);
+        }
+    }
+
+    @Benchmark
+    public void randomGetPutMix(Blackhole bh) {
+        int index = random.nextInt(entries);
+        if (random.nextInt(100) < readPercentage) {
+            bh.consume(cache.get(key(index)));
+        } else {
+            cache.put(key(index), value(random.nextInt()));
+        }
+    }
+
+    private static String key(int index) {
+        return "/some/project/build/classes/java/main/org/gradle/Class" + index + ".class";
+    }
+
+    private static String value(int index) {
+        return "value-" + index;
+    }
+}
@@ -19,13 +19,25 @@
 import org.gradle.cache.AsyncCacheAccess;
 import org.gradle.cache.FileLock;
 import org.gradle.cache.MultiProcessSafeIndexedCache;
+import org.gradle.internal.UncheckedException;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
 
+/**
+ * Applies the updates to a cache asynchronously.
+ *
+ * Updates of a key that are submitted while an earlier update of the key is still queued are coalesced into the queued update, so that only the latest value is written to the backing cache.
+ * Reads of a key with a pending update return the latest value submitted for the key, so that a read always sees the preceding writes.
+ */
 public class AsyncCacheAccessDecoratedCache<K, V> implements MultiProcessSafeAsyncPersistentIndexedCache<K, V> {
     private final AsyncCacheAccess asyncCacheAccess;
     private final MultiProcessSafeIndexedCache<K, V> indexedCache;
+    private final ConcurrentMap<K, PendingUpdate<V>> pendingUpdates = new ConcurrentHashMap<>();
 
     public AsyncCacheAccessDecoratedCache(AsyncCacheAccess asyncCacheAccess, MultiProcessSafeIndexedCache<K, V> indexedCache) {
         this.asyncCacheAccess = asyncCacheAccess;
@@ -40,6 +52,11 @@ public String toString() {
     @Nullable
     @Override
     public V get(final K key) {
+        PendingUpdate<V> pendingUpdate = pendingUpdates.get(key);
+        if (pendingUpdate != null) {
+            // The latest value of the key may not have been written to the backing cache yet
+            return pendingUpdate.getValue();
+        }
         return asyncCacheAccess.read(() -> indexedCache.getIfPresent(key));
     }
 
@@ -50,34 +67,52 @@ public V get(K key, Function<? super K, ? extends V> producer, Runnable completi
 
     @Override
     public void putLater(final K key, final V value, final Runnable completion) {
-        try {
-            asyncCacheAccess.enqueue(() -> {
-                try {
-                    indexedCache.put(key, value);
-                } finally {
-                    completion.run();
-                }
-            });
-        } catch (RuntimeException e) {
-            completion.run();
-            throw e;
-        }
+        updateLater(key, value, completion);
     }
 
     @Override
     public void removeLater(final K key, final Runnable completion) {
+        updateLater(key, null, completion);
+    }
+
+    private void updateLater(K key, @Nullable V value, Runnable completion) {
+        PendingUpdate<V> update = new PendingUpdate<>(value, completion);
+        while (true) {
+            PendingUpdate<V> queued = pendingUpdates.putIfAbsent(key, update);
+            if (queued == null) {
+                break;
+            }
+            if (queued.replaceValue(value, completion)) {
+                return;
+            }
+            // The queued update is being applied or could not be queued, so queue a new one
+            pendingUpdates.remove(key, queued);
+        }
         try {
-            asyncCacheAccess.enqueue(() -> {
-                try {
-                    indexedCache.remove(key);
-                } finally {
-                    completion.run();
-                }
-            });
+            asyncCacheAccess.enqueue(() -> apply(key, update));
         } catch (RuntimeException e) {
-            completion.run();
+            pendingUpdates.remove(key, update);
+            if (update.failToEnqueue()) {
+                update.complete();
+            }
             throw e;
         }
+        update.enqueued();
+    }
+
+    private void apply(K key, PendingUpdate<V> update) {
+        V value = update.take();
+        try {
+            if (value != null) {
+                indexedCache.put(key, value);
+            } else {
+                indexedCache.remove(key);
+            }
+        } finally {
+            // Only forget the update once written, so that reads in the meantime still see its value
+            pendingUpdates.remove(key, update);
+            update.complete();
+        }
     }
 
     @Override
@@ -94,4 +129,93 @@ public void finishWork() {
     public void beforeLockRelease(FileLock.State currentCacheState) {
         indexedCache.beforeLockRelease(currentCacheState);
     }
+
+    /**
+     * The latest value of a key that is waiting to be written, along with the completions of all the updates coalesced into it.
+     */
+    private static class PendingUpdate<V> {
+        private enum State {
+            ENQUEUEING, QUEUED, TAKEN, FAILED
+        }
+
+        @Nullable
+        private V value;
+        private final List<Runnable> completions = new ArrayList<>(1);
+        private State state = State.ENQUEUEING;
+
+        PendingUpdate(@Nullable V value, Runnable completion) {
+            this.value = value;
+            completions.add(completion);
+        }
+
+        @Nullable
+        synchronized V getValue() {
+            return value;
+        }
+
+        /**
+         * Replaces the value of this update, unless the update could not be queued or has already been taken to be applied.
+         * Waits for the update to be queued, so that no value is coalesced into an update that then fails to be queued.
+         */
+        synchronized boolean replaceValue(@Nullable V value, Runnable completion) {
+            while (state == State.ENQUEUEING) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+            if (state != State.QUEUED) {
+                return false;
+            }
+            this.value = value;
+            completions.add(completion);
+            return true;
+        }
+
+        synchronized void enqueued() {
+            if (state == State.ENQUEUEING) {
+                state = State.QUEUED;
+            }
+            notifyAll();
+        }
+
+        /**
+         * Marks this update as not queued, returning {@code false} when it has already been applied while it was queued.
+         */
+        synchronized boolean failToEnqueue() {
+            boolean failed = state == State.ENQUEUEING;
+            if (failed) {
+                state = State.FAILED;
+            }
+            notifyAll();
+            return failed;
+        }
+
+        /**
+         * Marks this update as being applied and returns its value. No further values can be coalesced into this update once taken.
+         */
+        @Nullable
+        synchronized V take() {
+            state = State.TAKEN;
+            notifyAll();
+            return value;
+        }
+
+        void complete() {
+            Throwable failure = null;
+            for (Runnable completion : completions) {
+                try {
+                    completion.run();
+                } catch (Throwable t) {
+                    if (failure == null) {
+                        failure = t;
+                    }
+                }
+            }
+            if (failure != null) {
+                throw UncheckedException.throwAsUncheckedException(failure);
+            }
+        }
+    }
 }
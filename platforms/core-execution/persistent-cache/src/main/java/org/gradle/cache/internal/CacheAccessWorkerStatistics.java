@@ -0,0 +1,115 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+import java.text.MessageFormat;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * How the workers that apply the asynchronous updates of caches kept up with the updates.
+ */
+public interface CacheAccessWorkerStatistics {
+    /**
+     * Number of operations run by the workers.
+     */
+    long getOperationCount();
+
+    /**
+     * Number of times a worker acquired a cache to run a batch of operations.
+     */
+    long getBatchCount();
+
+    /**
+     * Largest number of operations waiting for a worker.
+     */
+    int getMaxQueueDepth();
+
+    /**
+     * Number of flushes that had to wait for a worker.
+     */
+    long getFlushCount();
+
+    /**
+     * Total time spent waiting for the workers by flushes, in milliseconds.
+     */
+    long getFlushWaitTimeMillis();
+
+    class Collector {
+        private final AtomicLong operationCount = new AtomicLong();
+        private final AtomicLong batchCount = new AtomicLong();
+        private final AtomicInteger maxQueueDepth = new AtomicInteger();
+        private final AtomicLong flushCount = new AtomicLong();
+        private final AtomicLong flushWaitNanos = new AtomicLong();
+
+        public void reportBatch(long operations) {
+            batchCount.incrementAndGet();
+            operationCount.addAndGet(operations);
+        }
+
+        public void reportQueueDepth(int depth) {
+            maxQueueDepth.accumulateAndGet(depth, Math::max);
+        }
+
+        public void reportFlush(long waitNanos) {
+            flushCount.incrementAndGet();
+            flushWaitNanos.addAndGet(waitNanos);
+        }
+
+        public CacheAccessWorkerStatistics collect() {
+            long operationCount = this.operationCount.getAndSet(0);
+            long batchCount = this.batchCount.getAndSet(0);
+            int maxQueueDepth = this.maxQueueDepth.getAndSet(0);
+            long flushCount = this.flushCount.getAndSet(0);
+            long flushWaitTimeMillis = TimeUnit.NANOSECONDS.toMillis(this.flushWaitNanos.getAndSet(0));
+            return new CacheAccessWorkerStatistics() {
+                @Override
+                public long getOperationCount() {
+                    return operationCount;
+                }
+
+                @Override
+                public long getBatchCount() {
+                    return batchCount;
+                }
+
+                @Override
+                public int getMaxQueueDepth() {
+                    return maxQueueDepth;
+                }
+
+                @Override
+                public long getFlushCount() {
+                    return flushCount;
+                }
+
+                @Override
+                public long getFlushWaitTimeMillis() {
+                    return flushWaitTimeMillis;
+                }
+
+                @Override
+                public String toString() {
+                    return MessageFormat.format("Ran {0,number,integer} operations in {1,number,integer} batches, with at most {2,number,integer} operations queued. {3,number,integer} flushes waited {4,number,integer}ms in total",
+                        operationCount, batchCount, maxQueueDepth, flushCount, flushWaitTimeMillis
+                    );
+                }
+            };
+        }
+    }
+}
@@ -74,6 +74,7 @@ public class DefaultCacheCoordinator implements CacheCreationCoordinator, Exclus
     private final Map<String, IndexedCacheEntry<?, ?>> caches = new HashMap<String, IndexedCacheEntry<?, ?>>();
     private final AbstractCrossProcessCacheAccess crossProcessCacheAccess;
     private final CacheAccessOperationsStack operations;
+    private final CacheAccessWorkerStatistics.Collector workerStatisticsCollector;
 
     private ManagedExecutor cacheUpdateExecutor;
     private ExclusiveCacheAccessingWorker cacheAccessWorker;
@@ -89,7 +90,22 @@ public class DefaultCacheCoordinator implements CacheCreationCoordinator, Exclus
     private boolean alreadyCleaned;
 
     public DefaultCacheCoordinator(String cacheDisplayName, File lockTarget, LockOptions lockOptions, File baseDir, FileLockManager lockManager, CacheInitializationAction initializationAction, CacheCleanupExecutor cleanupAction, ExecutorFactory executorFactory) {
+        this(cacheDisplayName, lockTarget, lockOptions, baseDir, lockManager, initializationAction, cleanupAction, executorFactory, new CacheAccessWorkerStatistics.Collector());
+    }
+
+    public DefaultCacheCoordinator(
+        String cacheDisplayName,
+        File lockTarget,
+        LockOptions lockOptions,
+        File baseDir,
+        FileLockManager lockManager,
+        CacheInitializationAction initializationAction,
+        CacheCleanupExecutor cleanupAction,
+        ExecutorFactory executorFactory,
+        CacheAccessWorkerStatistics.Collector workerStatisticsCollector
+    ) {
         this.cacheDisplayName = cacheDisplayName;
+        this.workerStatisticsCollector = workerStatisticsCollector;
         this.baseDir = baseDir;
         this.cleanupAction = cleanupAction;
         this.executorFactory = executorFactory;
@@ -122,7 +138,7 @@ public DefaultCacheCoordinator(String cacheDisplayName, File lockTarget, LockOpt
 
     private synchronized AsyncCacheAccess getCacheAccessWorker() {
         if (cacheAccessWorker == null) {
-            cacheAccessWorker = new ExclusiveCacheAccessingWorker(cacheDisplayName, this);
+            cacheAccessWorker = new ExclusiveCacheAccessingWorker(cacheDisplayName, this, workerStatisticsCollector);
             cacheUpdateExecutor = executorFactory.create("Cache worker for " + cacheDisplayName);
             cacheUpdateExecutor.execute(cacheAccessWorker);
         }
@@ -46,12 +46,18 @@ public class DefaultCacheFactory implements CacheFactory, Closeable {
     private final FileLockManager lockManager;
     private final ExecutorFactory executorFactory;
     private final ProgressLoggerFactory progressLoggerFactory;
+    private final CacheAccessWorkerStatistics.Collector workerStatisticsCollector;
     private final Lock lock = new ReentrantLock();
 
     public DefaultCacheFactory(FileLockManager fileLockManager, ExecutorFactory executorFactory, ProgressLoggerFactory progressLoggerFactory) {
+        this(fileLockManager, executorFactory, progressLoggerFactory, new CacheAccessWorkerStatistics.Collector());
+    }
+
+    public DefaultCacheFactory(FileLockManager fileLockManager, ExecutorFactory executorFactory, ProgressLoggerFactory progressLoggerFactory, CacheAccessWorkerStatistics.Collector workerStatisticsCollector) {
         this.lockManager = fileLockManager;
         this.executorFactory = executorFactory;
         this.progressLoggerFactory = progressLoggerFactory;
+        this.workerStatisticsCollector = workerStatisticsCollector;
     }
 
     void onOpen(Object cache) {
@@ -99,9 +105,9 @@ private PersistentCache doOpen(
         if (dirCacheReference == null) {
             ReferencablePersistentCache cache;
             if (!properties.isEmpty() || initializer != null) {
-                cache = new DefaultPersistentDirectoryCache(canonicalDir, displayName, properties, lockOptions, initializer, cacheCleanupStrategy, lockManager, executorFactory, progressLoggerFactory);
+                cache = new DefaultPersistentDirectoryCache(canonicalDir, displayName, properties, lockOptions, initializer, cacheCleanupStrategy, lockManager, executorFactory, progressLoggerFactory, workerStatisticsCollector);
             } else {
-                cache = new DefaultPersistentDirectoryStore(canonicalDir, displayName, lockOptions, cacheCleanupStrategy, lockManager, executorFactory, progressLoggerFactory);
+                cache = new DefaultPersistentDirectoryStore(canonicalDir, displayName, lockOptions, cacheCleanupStrategy, lockManager, executorFactory, progressLoggerFactory, workerStatisticsCollector);
             }
             cache.open();
             dirCacheReference = new DirCacheReference(cache, properties, lockOptions);
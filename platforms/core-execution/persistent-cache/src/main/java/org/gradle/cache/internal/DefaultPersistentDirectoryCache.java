@@ -42,7 +42,22 @@ public class DefaultPersistentDirectoryCache extends DefaultPersistentDirectoryS
     private final Action<? super PersistentCache> initAction;
 
     public DefaultPersistentDirectoryCache(File dir, String displayName, Map<String, ?> properties, LockOptions lockOptions, @Nullable Action<? super PersistentCache> initAction, @Nullable CacheCleanupStrategy cacheCleanupStrategy, FileLockManager lockManager, ExecutorFactory executorFactory, ProgressLoggerFactory progressLoggerFactory) {
-        super(dir, displayName, lockOptions, cacheCleanupStrategy, lockManager, executorFactory, progressLoggerFactory);
+        this(dir, displayName, properties, lockOptions, initAction, cacheCleanupStrategy, lockManager, executorFactory, progressLoggerFactory, new CacheAccessWorkerStatistics.Collector());
+    }
+
+    public DefaultPersistentDirectoryCache(
+        File dir,
+        String displayName,
+        Map<String, ?> properties,
+        LockOptions lockOptions,
+        @Nullable Action<? super PersistentCache> initAction,
+        @Nullable CacheCleanupStrategy cacheCleanupStrategy,
+        FileLockManager lockManager,
+        ExecutorFactory executorFactory,
+        ProgressLoggerFactory progressLoggerFactory,
+        CacheAccessWorkerStatistics.Collector workerStatisticsCollector
+    ) {
+        super(dir, displayName, lockOptions, cacheCleanupStrategy, lockManager, executorFactory, progressLoggerFactory, workerStatisticsCollector);
         this.initAction = initAction;
         this.properties.putAll(properties);
     }
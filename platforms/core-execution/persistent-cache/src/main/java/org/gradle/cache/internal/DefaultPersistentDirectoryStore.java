@@ -52,6 +52,7 @@ public class DefaultPersistentDirectoryStore implements ReferencablePersistentCa
     private final CacheCleanupStrategy cacheCleanupStrategy;
     private final FileLockManager lockManager;
     private final ExecutorFactory executorFactory;
+    private final CacheAccessWorkerStatistics.Collector workerStatisticsCollector;
     private final String displayName;
 
     protected final File propertiesFile;
@@ -67,12 +68,26 @@ public DefaultPersistentDirectoryStore(
         FileLockManager fileLockManager,
         ExecutorFactory executorFactory,
         ProgressLoggerFactory progressLoggerFactory
+    ) {
+        this(dir, displayName, lockOptions, cacheCleanupStrategy, fileLockManager, executorFactory, progressLoggerFactory, new CacheAccessWorkerStatistics.Collector());
+    }
+
+    public DefaultPersistentDirectoryStore(
+        File dir,
+        @Nullable String displayName,
+        LockOptions lockOptions,
+        @Nullable CacheCleanupStrategy cacheCleanupStrategy,
+        FileLockManager fileLockManager,
+        ExecutorFactory executorFactory,
+        ProgressLoggerFactory progressLoggerFactory,
+        CacheAccessWorkerStatistics.Collector workerStatisticsCollector
     ) {
         this.dir = dir;
         this.lockOptions = lockOptions;
         this.cacheCleanupStrategy = cacheCleanupStrategy;
         this.lockManager = fileLockManager;
         this.executorFactory = executorFactory;
+        this.workerStatisticsCollector = workerStatisticsCollector;
         this.propertiesFile = new File(dir, "cache.properties");
         this.gcFile = new File(dir, "gc.properties");
         this.progressLoggerFactory = progressLoggerFactory;
@@ -93,7 +108,7 @@ public DefaultPersistentDirectoryStore open() {
     }
 
     private DefaultCacheCoordinator createCacheAccess() {
-        return new DefaultCacheCoordinator(displayName, getLockTarget(), lockOptions, dir, lockManager, getInitAction(), getCleanupExecutor(), executorFactory);
+        return new DefaultCacheCoordinator(displayName, getLockTarget(), lockOptions, dir, lockManager, getInitAction(), getCleanupExecutor(), executorFactory, workerStatisticsCollector);
     }
 
     private File getLockTarget() {
@@ -24,37 +24,87 @@
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.time.CountdownTimer;
 import org.gradle.internal.time.Time;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
+import java.util.Queue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Runs the operations submitted to a cache on a single worker thread, batching as many operations as possible under a single hold of the cache lock.
+ *
+ * Operations are appended to a lock-free queue. The queue is bounded, so that producers are held back when the worker cannot keep up.
+ */
 public class ExclusiveCacheAccessingWorker implements Runnable, Stoppable, AsyncCacheAccess {
-    private final BlockingQueue<Runnable> workQueue;
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExclusiveCacheAccessingWorker.class);
+
+    private final Queue<Runnable> workQueue = new ConcurrentLinkedQueue<Runnable>();
+    private final Semaphore freeSlots;
+    private final Semaphore queuedItems = new Semaphore(0);
+    private final AtomicInteger pendingOperations = new AtomicInteger();
     private final String displayName;
     private final ExclusiveCacheAccessCoordinator cacheAccess;
     private final long batchWindowMillis;
     private final long maximumLockingTimeMillis;
-    private boolean closed;
-    private boolean workerCompleted;
+    private volatile boolean closed;
+    private volatile boolean workerCompleted;
+    private volatile boolean inBatch;
     private boolean stopSeen;
+    private int maxQueueDepth;
+    private long completedOperations;
+    private long batches;
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushWaitNanos = new AtomicLong();
+    private long maxFlushWaitNanos;
     private final CountDownLatch doneSignal = new CountDownLatch(1);
     private final ExecutorPolicy.CatchAndRecordFailures failureHandler = new ExecutorPolicy.CatchAndRecordFailures();
+    private final CacheAccessWorkerStatistics.Collector statisticsCollector;
 
     public ExclusiveCacheAccessingWorker(String displayName, ExclusiveCacheAccessCoordinator cacheAccess) {
+        this(displayName, cacheAccess, new CacheAccessWorkerStatistics.Collector());
+    }
+
+    public ExclusiveCacheAccessingWorker(String displayName, ExclusiveCacheAccessCoordinator cacheAccess, CacheAccessWorkerStatistics.Collector statisticsCollector) {
         this.displayName = displayName;
         this.cacheAccess = cacheAccess;
+        this.statisticsCollector = statisticsCollector;
         this.batchWindowMillis = 200;
         this.maximumLockingTimeMillis = 5000;
         HeapProportionalCacheSizer heapProportionalCacheSizer = new HeapProportionalCacheSizer();
         int queueCapacity = Math.min(4000, heapProportionalCacheSizer.scaleCacheSize(40000));
-        workQueue = new ArrayBlockingQueue<Runnable>(queueCapacity, true);
+        freeSlots = new Semaphore(queueCapacity);
+    }
+
+    /**
+     * Returns the number of operations that are waiting for the worker.
+     */
+    public int getQueueDepth() {
+        return queuedItems.availablePermits();
+    }
+
+    /**
+     * Returns the number of flushes that had to wait for the worker.
+     */
+    public long getFlushCount() {
+        return flushes.get();
+    }
+
+    /**
+     * Returns the total time spent waiting for the worker in {@link #flush()}.
+     */
+    public long getFlushWaitTime(TimeUnit unit) {
+        return unit.convert(flushWaitNanos.get(), TimeUnit.NANOSECONDS);
     }
 
     @Override
@@ -66,13 +116,41 @@ private void addToQueue(Runnable task) {
         if (closed) {
             throw new IllegalStateException("The worker has already been closed. Cannot add more work to queue.");
         }
+        pendingOperations.incrementAndGet();
         try {
-            workQueue.put(task);
+            put(task);
         } catch (InterruptedException e) {
+            pendingOperations.decrementAndGet();
             throw UncheckedException.throwAsUncheckedException(e);
         }
     }
 
+    private void put(Runnable runnable) throws InterruptedException {
+        freeSlots.acquire();
+        workQueue.add(runnable);
+        queuedItems.release();
+    }
+
+    private Runnable take() throws InterruptedException {
+        queuedItems.acquire();
+        return removeHead();
+    }
+
+    @Nullable
+    private Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!queuedItems.tryAcquire(timeout, unit)) {
+            return null;
+        }
+        return removeHead();
+    }
+
+    private Runnable removeHead() {
+        // Only the worker thread removes elements and an element is always added before its permit is released
+        Runnable runnable = workQueue.remove();
+        freeSlots.release();
+        return runnable;
+    }
+
     @Override
     public <T> T read(final Factory<T> task) {
         FutureTask<T> futureTask = new FutureTask<T>(new Callable<T>() {
@@ -93,10 +171,23 @@ public T call() throws Exception {
 
     @Override
     public synchronized void flush() {
-        if (!workerCompleted && !closed) {
+        // Nothing to wait for when every submitted operation has completed and the worker does not hold the cache lock.
+        // The order of the checks matters, as the worker only leaves a batch once it has completed the operations of the batch
+        boolean idle = pendingOperations.get() == 0 && !inBatch;
+        if (!idle && !workerCompleted && !closed) {
+            long start = System.nanoTime();
             FlushOperationsCommand flushOperationsCommand = new FlushOperationsCommand();
-            addToQueue(flushOperationsCommand);
+            try {
+                put(flushOperationsCommand);
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
             flushOperationsCommand.await();
+            long waited = System.nanoTime() - start;
+            flushes.incrementAndGet();
+            flushWaitNanos.addAndGet(waited);
+            maxFlushWaitNanos = Math.max(maxFlushWaitNanos, waited);
+            statisticsCollector.reportFlush(waited);
         }
         rethrowFailure();
     }
@@ -152,43 +243,63 @@ public void run() {
             failureHandler.onFailure("Failed to execute cache operations on " + displayName, t);
         } finally {
             // Notify any waiting flush threads that the worker is done, possibly with a failure
+            workerCompleted = true;
             List<Runnable> runnables = new ArrayList<Runnable>();
-            workQueue.drainTo(runnables);
+            while (queuedItems.tryAcquire()) {
+                runnables.add(removeHead());
+            }
             for (Runnable runnable : runnables) {
                 if (runnable instanceof FlushOperationsCommand) {
                     FlushOperationsCommand flushOperationsCommand = (FlushOperationsCommand) runnable;
                     flushOperationsCommand.completed();
                 }
             }
-            workerCompleted = true;
             doneSignal.countDown();
         }
     }
 
     private Runnable takeFromQueue() throws InterruptedException {
-        return workQueue.take();
+        Runnable runnable = take();
+        int depth = queuedItems.availablePermits() + 1;
+        if (depth > maxQueueDepth) {
+            maxQueueDepth = depth;
+        }
+        statisticsCollector.reportQueueDepth(depth);
+        return runnable;
+    }
+
+    private void runOperation(Runnable operation) {
+        try {
+            failureHandler.onExecute(operation);
+        } finally {
+            completedOperations++;
+            pendingOperations.decrementAndGet();
+        }
     }
 
     private void flushOperations(final Runnable updateOperation) {
         final List<FlushOperationsCommand> flushOperations = new ArrayList<FlushOperationsCommand>();
+        inBatch = true;
+        batches++;
+        long operationsBefore = completedOperations;
         try {
             cacheAccess.useCache(new Runnable() {
                 @Override
                 public void run() {
                     CountdownTimer timer = Time.startCountdownTimer(maximumLockingTimeMillis, TimeUnit.MILLISECONDS);
                     if (updateOperation != null) {
-                        failureHandler.onExecute(updateOperation);
+                        runOperation(updateOperation);
                     }
                     Runnable otherOperation;
                     try {
-                        while ((otherOperation = workQueue.poll(batchWindowMillis, TimeUnit.MILLISECONDS)) != null) {
-                            failureHandler.onExecute(otherOperation);
+                        while ((otherOperation = poll(batchWindowMillis, TimeUnit.MILLISECONDS)) != null) {
                             final Class<? extends Runnable> runnableClass = otherOperation.getClass();
                             if (runnableClass == FlushOperationsCommand.class) {
                                 flushOperations.add((FlushOperationsCommand) otherOperation);
-                            }
-                            if (runnableClass == ShutdownOperationsCommand.class) {
+                            } else if (runnableClass == ShutdownOperationsCommand.class) {
                                 stopSeen = true;
+                            } else {
+                                runOperation(otherOperation);
                             }
                             if (runnableClass == ShutdownOperationsCommand.class
                                     || runnableClass == FlushOperationsCommand.class
@@ -202,6 +313,8 @@ public void run() {
                 }
             });
         } finally {
+            inBatch = false;
+            statisticsCollector.reportBatch(completedOperations - operationsBefore);
             for (FlushOperationsCommand flushOperation : flushOperations) {
                 flushOperation.completed();
             }
@@ -213,7 +326,7 @@ public synchronized void stop() {
         if (!closed && !workerCompleted) {
             closed = true;
             try {
-                workQueue.put(new ShutdownOperationsCommand());
+                put(new ShutdownOperationsCommand());
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
             }
@@ -222,6 +335,11 @@ public synchronized void stop() {
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
             }
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Completed {} operations on {} in {} batches, with at most {} operations queued. {} flushes waited {}ms in total, {}ms at most.",
+                    completedOperations, displayName, batches, maxQueueDepth,
+                    flushes.get(), getFlushWaitTime(TimeUnit.MILLISECONDS), TimeUnit.NANOSECONDS.toMillis(maxFlushWaitNanos));
+            }
         }
         rethrowFailure();
     }
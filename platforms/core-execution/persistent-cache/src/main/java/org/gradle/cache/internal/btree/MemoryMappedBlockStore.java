@@ -0,0 +1,459 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.internal.btree;
+
+import com.google.common.io.CountingInputStream;
+import org.gradle.api.UncheckedIOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A {@link BlockStore} that reads and writes blocks through a memory mapping of the cache file, so that
+ * looking up a block that is already mapped does not need a system call.
+ *
+ * <p>The on-disk format is the same as the one used by {@link FileBackedBlockStore}, so the two stores can be used interchangeably on the same file.
+ * The length of the file always matches the end of the last block. The mapping grows on demand: accesses beyond the mapped region are served
+ * through the file channel until the file has grown enough to make remapping worthwhile.</p>
+ *
+ * <p>Like {@link FileBackedBlockStore}, this store is not thread-safe, and relies on {@link BTreePersistentIndexedCache} being used by one thread at a time.
+ * A mapping is released as soon as it is replaced, when the file is truncated and when the store is closed, rather than when it is garbage collected,
+ * so that the file is not kept open after the store has been closed.</p>
+ *
+ * <p>Truncating a file that is still mapped is not supported on Windows, so this store should not be used there.</p>
+ */
+public class MemoryMappedBlockStore implements BlockStore {
+    private static final int MIN_REMAP_GROWTH = 64 * 1024;
+    private static final long MAX_MAPPED_SIZE = Integer.MAX_VALUE;
+    private static final Logger LOGGER = LoggerFactory.getLogger(MemoryMappedBlockStore.class);
+
+    private final File cacheFile;
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private FileChannel.MapMode mapMode;
+    @Nullable
+    private MappedByteBuffer mapping;
+    private long currentFileSize;
+    private long nextBlock;
+    private Factory factory;
+
+    public MemoryMappedBlockStore(File cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    @Override
+    public String toString() {
+        return "cache '" + cacheFile + "'";
+    }
+
+    @Override
+    public void open(Runnable runnable, Factory factory) {
+        this.factory = factory;
+        try {
+            cacheFile.getParentFile().mkdirs();
+            openRandomAccessFile();
+            channel = file.getChannel();
+            mapping = null;
+            currentFileSize = file.length();
+            nextBlock = currentFileSize;
+            if (currentFileSize == 0) {
+                runnable.run();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void openRandomAccessFile() throws FileNotFoundException {
+        try {
+            file = new RandomAccessFile(cacheFile, "rw");
+            mapMode = FileChannel.MapMode.READ_WRITE;
+        } catch (FileNotFoundException e) {
+            file = new RandomAccessFile(cacheFile, "r");
+            mapMode = FileChannel.MapMode.READ_ONLY;
+        }
+    }
+
+    @Override
+    public void close() {
+        unmap();
+        try {
+            file.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void clear() {
+        unmap();
+        try {
+            file.setLength(0);
+            currentFileSize = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        nextBlock = 0;
+    }
+
+    @Override
+    public void attach(BlockPayload block) {
+        if (block.getBlock() == null) {
+            block.setBlock(new BlockImpl(block));
+        }
+    }
+
+    @Override
+    public void remove(BlockPayload block) {
+        BlockImpl blockImpl = (BlockImpl) block.getBlock();
+        blockImpl.detach();
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public <T extends BlockPayload> T readFirst(Class<T> payloadType) {
+        return read(BlockPointer.pos(0), payloadType);
+    }
+
+    @Override
+    public <T extends BlockPayload> T read(BlockPointer pos, Class<T> payloadType) {
+        assert !pos.isNull();
+        try {
+            T payload = payloadType.cast(factory.create(payloadType));
+            BlockImpl block = new BlockImpl(payload, pos);
+            block.read();
+            return payload;
+        } catch (CorruptedCacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void write(BlockPayload block) {
+        BlockImpl blockImpl = (BlockImpl) block.getBlock();
+        try {
+            blockImpl.write();
+        } catch (CorruptedCacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long alloc(long length) {
+        long pos = nextBlock;
+        nextBlock += length;
+        return pos;
+    }
+
+    /**
+     * Returns the mapping if it covers the given region, remapping the file when it has grown enough since the last mapping.
+     * Returns {@code null} when the region should be accessed through the file channel instead.
+     */
+    @Nullable
+    private ByteBuffer mappedRegion(long pos, int length) throws IOException {
+        long end = pos + length;
+        MappedByteBuffer current = mapping;
+        if (current != null && end <= current.capacity()) {
+            return current;
+        }
+        if (end > currentFileSize || end > MAX_MAPPED_SIZE) {
+            return null;
+        }
+        long mappedSize = current == null ? 0 : current.capacity();
+        if (currentFileSize - mappedSize < Math.max(mappedSize / 8, MIN_REMAP_GROWTH) && mappedSize > 0) {
+            return null;
+        }
+        unmap();
+        mapping = channel.map(mapMode, 0, Math.min(currentFileSize, MAX_MAPPED_SIZE));
+        return mapping;
+    }
+
+    /**
+     * Releases the current mapping. Views of the mapping are only used while a block is read or written, so none of them is left once this is called.
+     */
+    private void unmap() {
+        MappedByteBuffer current = mapping;
+        mapping = null;
+        if (current != null) {
+            Unmapper.unmap(current);
+        }
+    }
+
+    private ByteBuffer readRegion(long pos, int length) throws IOException {
+        ByteBuffer region = mappedRegion(pos, length);
+        if (region != null) {
+            ByteBuffer view = region.duplicate();
+            ((Buffer) view).position((int) pos);
+            ((Buffer) view).limit((int) pos + length);
+            return view;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, pos + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        ((Buffer) buffer).flip();
+        return buffer;
+    }
+
+    private void writeRegion(long pos, byte[] bytes, int length) throws IOException {
+        ByteBuffer region = mapMode == FileChannel.MapMode.READ_WRITE ? mappedRegion(pos, length) : null;
+        if (region != null) {
+            ByteBuffer view = region.duplicate();
+            ((Buffer) view).position((int) pos);
+            view.put(bytes, 0, length);
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, pos + buffer.position());
+        }
+    }
+
+    private final class BlockImpl extends Block {
+        private static final int HEADER_SIZE = 1 + INT_SIZE; // type, payload size
+        private static final int TAIL_SIZE = INT_SIZE;
+
+        private BlockPointer pos;
+        private int payloadSize;
+
+        private BlockImpl(BlockPayload payload, BlockPointer pos) {
+            this(payload);
+            setPos(pos);
+        }
+
+        public BlockImpl(BlockPayload payload) {
+            super(payload);
+            pos = null;
+            payloadSize = -1;
+        }
+
+        @Override
+        public boolean hasPos() {
+            return pos != null;
+        }
+
+        @Override
+        public BlockPointer getPos() {
+            if (pos == null) {
+                pos = BlockPointer.pos(alloc(getSize()));
+            }
+            return pos;
+        }
+
+        @Override
+        public void setPos(BlockPointer pos) {
+            assert this.pos == null && !pos.isNull();
+            this.pos = pos;
+        }
+
+        @Override
+        public int getSize() {
+            if (payloadSize < 0) {
+                payloadSize = getPayload().getSize();
+            }
+            return payloadSize + HEADER_SIZE + TAIL_SIZE;
+        }
+
+        @Override
+        public void setSize(int size) {
+            int newPayloadSize = size - HEADER_SIZE - TAIL_SIZE;
+            assert newPayloadSize >= payloadSize;
+            payloadSize = newPayloadSize;
+        }
+
+        public void write() throws Exception {
+            long pos = getPos().getPos();
+
+            BlockOutputStream bytes = new BlockOutputStream(getSize());
+            DataOutputStream outputStream = new DataOutputStream(bytes);
+
+            BlockPayload payload = getPayload();
+
+            // Write header
+            outputStream.writeByte(payload.getType());
+            outputStream.writeInt(payloadSize);
+            long finalSize = pos + HEADER_SIZE + TAIL_SIZE + payloadSize;
+
+            // Write body
+            payload.write(outputStream);
+
+            // Write count
+            outputStream.writeInt(bytes.size());
+            outputStream.flush();
+
+            // Pad
+            if (currentFileSize < finalSize) {
+                file.setLength(finalSize);
+                currentFileSize = finalSize;
+            }
+
+            writeRegion(pos, bytes.buffer(), bytes.size());
+        }
+
+        public void read() throws Exception {
+            long pos = getPos().getPos();
+            assert pos >= 0;
+            if (pos + HEADER_SIZE >= currentFileSize) {
+                throw blockCorruptedException();
+            }
+
+            ByteBuffer header = readRegion(pos, HEADER_SIZE);
+
+            BlockPayload payload = getPayload();
+
+            // Read header
+            byte type = header.get();
+            if (type != payload.getType()) {
+                throw blockCorruptedException();
+            }
+
+            // Read body
+            payloadSize = header.getInt();
+            if (payloadSize < 0 || pos + HEADER_SIZE + TAIL_SIZE + payloadSize > currentFileSize) {
+                throw blockCorruptedException();
+            }
+            ByteBuffer body = readRegion(pos + HEADER_SIZE, payloadSize + TAIL_SIZE);
+            CountingInputStream countingInputStream = new CountingInputStream(new ByteBufferInputStream(body));
+            DataInputStream inputStream = new DataInputStream(countingInputStream);
+            payload.read(inputStream);
+
+            // Read and verify count
+            long actualCount = HEADER_SIZE + countingInputStream.getCount();
+            long count = inputStream.readInt();
+            if (actualCount != count) {
+                throw blockCorruptedException();
+            }
+        }
+
+        @Override
+        public RuntimeException blockCorruptedException() {
+            return new CorruptedCacheException(String.format("Corrupted %s found in %s.", this,
+                MemoryMappedBlockStore.this));
+        }
+    }
+
+    /**
+     * Releases mapped buffers through the JDK internals, as there is no public API for it.
+     * When these are not accessible, the mapping is released once the buffer has been garbage collected.
+     */
+    private static class Unmapper {
+        @Nullable
+        private static final Object UNSAFE;
+        @Nullable
+        private static final Method INVOKE_CLEANER;
+
+        static {
+            Object unsafe = null;
+            Method invokeCleaner = null;
+            try {
+                // Java 9 and later
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                unsafe = theUnsafe.get(null);
+                invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            } catch (Exception e) {
+                unsafe = null;
+                invokeCleaner = null;
+            }
+            UNSAFE = unsafe;
+            INVOKE_CLEANER = invokeCleaner;
+        }
+
+        static void unmap(MappedByteBuffer buffer) {
+            try {
+                if (INVOKE_CLEANER != null) {
+                    INVOKE_CLEANER.invoke(UNSAFE, buffer);
+                } else {
+                    // Java 8
+                    Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                    cleanerMethod.setAccessible(true);
+                    Object cleaner = cleanerMethod.invoke(buffer);
+                    if (cleaner != null) {
+                        cleaner.getClass().getMethod("clean").invoke(cleaner);
+                    }
+                }
+            } catch (Exception e) {
+                LOGGER.debug("Could not release mapped buffer, leaving it to the garbage collector.", e);
+            }
+        }
+    }
+
+    private static class BlockOutputStream extends ByteArrayOutputStream {
+        BlockOutputStream(int size) {
+            super(size);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(bytes, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal
+
+import org.gradle.cache.AsyncCacheAccess
+import org.gradle.cache.MultiProcessSafeIndexedCache
+import org.gradle.internal.Factory
+import spock.lang.Specification
+
+class AsyncCacheAccessDecoratedCacheTest extends Specification {
+    def queued = []
+    def asyncCacheAccess = Stub(AsyncCacheAccess) {
+        enqueue(_) >> { Runnable action -> queued << action }
+    }
+    def target = Mock(MultiProcessSafeIndexedCache)
+    def cache = new AsyncCacheAccessDecoratedCache(asyncCacheAccess, target)
+
+    def "writes only the latest value of a key updated while queued"() {
+        def completion1 = Mock(Runnable)
+        def completion2 = Mock(Runnable)
+        def completion3 = Mock(Runnable)
+
+        when:
+        cache.putLater("key", "value 1", completion1)
+        cache.putLater("key", "value 2", completion2)
+        cache.putLater("other", "value 3", completion3)
+
+        then:
+        queued.size() == 2
+        0 * _
+
+        when:
+        queued*.run()
+
+        then:
+        1 * target.put("key", "value 2")
+
+        then:
+        1 * completion1.run()
+        1 * completion2.run()
+
+        then:
+        1 * target.put("other", "value 3")
+        1 * completion3.run()
+        0 * _
+    }
+
+    def "removal replaces queued value"() {
+        def completion1 = Mock(Runnable)
+        def completion2 = Mock(Runnable)
+
+        when:
+        cache.putLater("key", "value", completion1)
+        cache.removeLater("key", completion2)
+        queued*.run()
+
+        then:
+        1 * target.remove("key")
+        1 * completion1.run()
+        1 * completion2.run()
+        0 * _
+    }
+
+    def "queues a new update for a key once the queued update has been applied"() {
+        when:
+        cache.putLater("key", "value 1", Stub(Runnable))
+        queued[0].run()
+        cache.putLater("key", "value 2", Stub(Runnable))
+
+        then:
+        queued.size() == 2
+        1 * target.put("key", "value 1")
+
+        when:
+        queued[1].run()
+
+        then:
+        1 * target.put("key", "value 2")
+    }
+
+    def "runs completions when update fails"() {
+        def completion1 = Mock(Runnable)
+        def completion2 = Mock(Runnable)
+        def failure = new RuntimeException()
+
+        when:
+        cache.putLater("key", "value 1", completion1)
+        cache.putLater("key", "value 2", completion2)
+        queued*.run()
+
+        then:
+        def e = thrown(RuntimeException)
+        e == failure
+        1 * target.put("key", "value 2") >> { throw failure }
+        1 * completion1.run()
+        1 * completion2.run()
+    }
+
+    def "runs completion when update cannot be queued"() {
+        def completion = Mock(Runnable)
+        def failure = new IllegalStateException()
+        def closedCacheAccess = Stub(AsyncCacheAccess) {
+            enqueue(_) >> { throw failure }
+        }
+        def cache = new AsyncCacheAccessDecoratedCache(closedCacheAccess, target)
+
+        when:
+        cache.putLater("key", "value", completion)
+
+        then:
+        def e = thrown(IllegalStateException)
+        e == failure
+        1 * completion.run()
+
+        when:
+        cache.putLater("key", "value", completion)
+
+        then:
+        thrown(IllegalStateException)
+        1 * completion.run()
+    }
+
+    def "reads latest value of a key with a queued update"() {
+        when:
+        cache.putLater("key", "value 1", Stub(Runnable))
+        cache.putLater("key", "value 2", Stub(Runnable))
+
+        then:
+        cache.get("key") == "value 2"
+        0 * target._
+
+        when:
+        cache.removeLater("key", Stub(Runnable))
+
+        then:
+        cache.get("key") == null
+        0 * target._
+    }
+
+    def "reads value of a key from the backing cache once its update has been applied"() {
+        def readingCacheAccess = Stub(AsyncCacheAccess) {
+            enqueue(_) >> { Runnable action -> queued << action }
+            read(_) >> { Factory factory -> factory.create() }
+        }
+        def cache = new AsyncCacheAccessDecoratedCache(readingCacheAccess, target)
+
+        when:
+        cache.putLater("key", "value", Stub(Runnable))
+        queued*.run()
+        def value = cache.get("key")
+
+        then:
+        value == "stored"
+        1 * target.put("key", "value")
+        1 * target.getIfPresent("key") >> "stored"
+    }
+}
@@ -199,4 +199,76 @@ class ExclusiveCacheAccessingWorkerTest extends ConcurrentSpec {
         def e = thrown(RuntimeException)
         e == failure
     }
+
+    def "flush does not wait for the worker when all operations have completed"() {
+        given:
+        def counter = 0
+        start(cacheAccessWorker)
+
+        when:
+        cacheAccessWorker.enqueue { ++counter }
+        cacheAccessWorker.flush()
+
+        then:
+        counter == 1
+        cacheAccessWorker.queueDepth == 0
+
+        when:
+        def flushCount = cacheAccessWorker.flushCount
+        cacheAccessWorker.flush()
+
+        then:
+        cacheAccessWorker.flushCount == flushCount
+
+        cleanup:
+        cacheAccessWorker?.stop()
+    }
+
+    def "reports operations waiting for the worker"() {
+        given:
+        cacheAccessWorker.enqueue { }
+        cacheAccessWorker.enqueue { }
+
+        expect:
+        cacheAccessWorker.queueDepth == 2
+
+        when:
+        start(cacheAccessWorker)
+        cacheAccessWorker.flush()
+
+        then:
+        cacheAccessWorker.queueDepth == 0
+
+        cleanup:
+        cacheAccessWorker?.stop()
+    }
+
+    def "reports statistics to the collector"() {
+        given:
+        def collector = new CacheAccessWorkerStatistics.Collector()
+        def worker = new ExclusiveCacheAccessingWorker("<cache>", cacheAccess, collector)
+        worker.enqueue { }
+        worker.enqueue { }
+
+        when:
+        start(worker)
+        worker.flush()
+        def statistics = collector.collect()
+
+        then:
+        statistics.operationCount == 2
+        statistics.batchCount >= 1
+        statistics.maxQueueDepth >= 2
+        statistics.flushCount == 1
+
+        when:
+        statistics = collector.collect()
+
+        then:
+        statistics.operationCount == 0
+        statistics.flushCount == 0
+
+        cleanup:
+        worker?.stop()
+    }
 }
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree
+
+import org.gradle.internal.serialize.DefaultSerializer
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class MemoryMappedBlockStoreTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+    TestFile cacheFile
+
+    def setup() {
+        cacheFile = tmpDir.file("cache.bin")
+    }
+
+    def "persists entries across reopen"() {
+        given:
+        def cache = mappedCache()
+
+        when:
+        (0..<2000).each { cache.put("key_$it".toString(), "value_$it".toString()) }
+        cache.reset()
+
+        then:
+        (0..<2000).every { cache.get("key_$it".toString()) == "value_$it".toString() }
+        cache.verify()
+
+        cleanup:
+        cache?.close()
+    }
+
+    def "file length matches the end of the last block"() {
+        given:
+        def cache = mappedCache()
+
+        when:
+        cache.put("key_1", "abcd")
+        def len = cacheFile.length()
+        cache.put("key_1", "1234")
+
+        then:
+        cacheFile.length() == len
+
+        when:
+        cache.put("key_1", "longer value")
+
+        then:
+        cacheFile.length() > len
+
+        cleanup:
+        cache?.close()
+    }
+
+    def "reads and updates entries written after the file was mapped"() {
+        given:
+        def cache = mappedCache()
+        (0..<100).each { cache.put("key_$it".toString(), "value_$it".toString()) }
+        cache.get("key_0")
+
+        when:
+        (100..<5000).each { cache.put("key_$it".toString(), "value_$it".toString() * 10) }
+        (0..<5000).step(7) { cache.put("key_$it".toString(), "updated_$it".toString()) }
+
+        then:
+        (0..<5000).every { cache.get("key_$it".toString()) == (it % 7 == 0 ? "updated_$it".toString() : (it < 100 ? "value_$it".toString() : "value_$it".toString() * 10)) }
+        cache.verify()
+
+        cleanup:
+        cache?.close()
+    }
+
+    def "uses the same file format as the file backed store"() {
+        given:
+        def fileBacked = new BTreePersistentIndexedCache<String, String>(cacheFile, new DefaultSerializer<String>(), new DefaultSerializer<String>(), (short) 4, 100, new FileBackedBlockStore(cacheFile))
+        (0..<200).each { fileBacked.put("key_$it".toString(), "value_$it".toString()) }
+        fileBacked.close()
+
+        when:
+        def mapped = mappedCache()
+        (200..<400).each { mapped.put("key_$it".toString(), "value_$it".toString()) }
+        mapped.close()
+        fileBacked = new BTreePersistentIndexedCache<String, String>(cacheFile, new DefaultSerializer<String>(), new DefaultSerializer<String>(), (short) 4, 100, new FileBackedBlockStore(cacheFile))
+
+        then:
+        (0..<400).every { fileBacked.get("key_$it".toString()) == "value_$it".toString() }
+        fileBacked.verify()
+
+        cleanup:
+        fileBacked?.close()
+    }
+
+    def "rebuilds a badly formed cache file"() {
+        given:
+        cacheFile.write("some junk")
+        def cache = mappedCache()
+
+        expect:
+        cache.get("key_1") == null
+
+        when:
+        cache.put("key_1", "value")
+        cache.reset()
+
+        then:
+        cache.get("key_1") == "value"
+        cache.verify()
+
+        cleanup:
+        cache?.close()
+    }
+
+    def "releases the cache file when closed"() {
+        given:
+        def cache = mappedCache()
+        (0..<2000).each { cache.put("key_$it".toString(), "value_$it".toString()) }
+        cache.get("key_0")
+
+        when:
+        cache.close()
+
+        then:
+        cacheFile.delete()
+
+        when:
+        cache = mappedCache()
+
+        then:
+        cache.get("key_0") == null
+
+        cleanup:
+        cache?.close()
+    }
+
+    private BTreePersistentIndexedCache<String, String> mappedCache() {
+        return new BTreePersistentIndexedCache<String, String>(cacheFile, new DefaultSerializer<String>(), new DefaultSerializer<String>(), (short) 4, 100, new MemoryMappedBlockStore(cacheFile))
+    }
+}
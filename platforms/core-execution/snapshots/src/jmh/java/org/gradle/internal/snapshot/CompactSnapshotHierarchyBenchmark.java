@@ -0,0 +1,150 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot;
+
+import org.gradle.internal.file.FileMetadata.AccessType;
+import org.gradle.internal.file.impl.DefaultFileMetadata;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.vfs.impl.DefaultSnapshotHierarchy;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Compares the retained heap and the lookup cost of a snapshot hierarchy with and without {@link CompactFileSnapshotChildMap}.
+ *
+ * The retained heap is reported by the {@code retainedBytesPerFile} counter. Run with {@code -Xmx4g} or more for the larger file counts.
+ */
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 5, time = 1, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = SECONDS)
+@State(Scope.Benchmark)
+public class CompactSnapshotHierarchyBenchmark {
+    private static final int FILES_PER_DIRECTORY = 50;
+    private static final String ROOT = new File("/benchmark/root").getAbsolutePath();
+
+    @Param({"100000", "1000000"})
+    int fileCount;
+
+    @Param({"false", "true"})
+    boolean compact;
+
+    private SnapshotHierarchy hierarchy;
+    private String[] filePaths;
+    private long retainedBytes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        long usedBefore = usedHeapAfterGc();
+        hierarchy = createHierarchy();
+        retainedBytes = usedHeapAfterGc() - usedBefore;
+        // Created separately, so the paths are not shared with the snapshots
+        filePaths = new String[fileCount];
+        for (int fileIndex = 0; fileIndex < fileCount; fileIndex++) {
+            filePaths[fileIndex] = filePath(directoryPath(fileIndex / FILES_PER_DIRECTORY), fileName(fileIndex % FILES_PER_DIRECTORY));
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long retainedBytesPerFile;
+    }
+
+    @Benchmark
+    public void findFile(Footprint footprint, Blackhole blackhole) {
+        footprint.retainedBytesPerFile = retainedBytes / fileCount;
+        next = (next + 7919) % filePaths.length;
+        blackhole.consume(hierarchy.findMetadata(filePaths[next]));
+    }
+
+    @Benchmark
+    public void visitAllFiles(Blackhole blackhole) {
+        hierarchy.rootSnapshots().forEach(snapshot -> snapshot.accept((FileSystemSnapshotHierarchyVisitor) entry -> {
+            blackhole.consume(entry.getHash());
+            return SnapshotVisitResult.CONTINUE;
+        }));
+    }
+
+    private SnapshotHierarchy createHierarchy() {
+        Random random = new Random(1234);
+        List<FileSystemLocationSnapshot> directories = new ArrayList<>();
+        int fileIndex = 0;
+        for (int directoryIndex = 0; fileIndex < fileCount; directoryIndex++) {
+            String directoryName = directoryName(directoryIndex);
+            String directoryPath = directoryPath(directoryIndex);
+            List<FileSystemLocationSnapshot> files = new ArrayList<>(FILES_PER_DIRECTORY);
+            for (int i = 0; i < FILES_PER_DIRECTORY && fileIndex < fileCount; i++, fileIndex++) {
+                String fileName = fileName(i);
+                String filePath = filePath(directoryPath, fileName);
+                HashCode hash = Hashing.hashString(filePath);
+                files.add(new RegularFileSnapshot(filePath, fileName, hash, DefaultFileMetadata.file(random.nextLong(), random.nextInt(100000), AccessType.DIRECT)));
+            }
+            directories.add(new DirectorySnapshot(directoryPath, directoryName, AccessType.DIRECT, Hashing.hashString(directoryPath), children(directoryPath, files)));
+        }
+        DirectorySnapshot root = new DirectorySnapshot(ROOT, "root", AccessType.DIRECT, Hashing.hashString(ROOT), children(ROOT, directories));
+        return DefaultSnapshotHierarchy.empty(CaseSensitivity.CASE_SENSITIVE).store(ROOT, root, SnapshotHierarchy.NodeDiffListener.NOOP);
+    }
+
+    private static String directoryName(int directoryIndex) {
+        return String.format("dir%06d", directoryIndex);
+    }
+
+    private static String directoryPath(int directoryIndex) {
+        return ROOT + File.separatorChar + directoryName(directoryIndex);
+    }
+
+    private static String fileName(int index) {
+        return String.format("SomeSourceFile%03d.java", index);
+    }
+
+    private static String filePath(String directoryPath, String fileName) {
+        return directoryPath + File.separatorChar + fileName;
+    }
+
+    private ChildMap<FileSystemLocationSnapshot> children(String parentPath, List<FileSystemLocationSnapshot> children) {
+        return compact
+            ? CompactFileSnapshotChildMap.of(parentPath, children)
+            : ChildMapFactory.childMapFromSorted(children.stream().map(child -> new ChildMap.Entry<>(child.getName(), child)).collect(Collectors.toList()));
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot;
+
+import org.gradle.internal.file.FileMetadata.AccessType;
+import org.gradle.internal.file.impl.DefaultFileMetadata;
+import org.gradle.internal.hash.HashCode;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * The children of a {@link DirectorySnapshot}, where the regular files are stored in packed arrays instead of as separate snapshot objects.
+ *
+ * <p>For each regular file, only its name, content hash, length and modification time are kept.
+ * The absolute path, the hash and the metadata are shared with no other object, so dropping them saves about two thirds of the heap used by a file in the virtual file system.
+ * Snapshots of the regular files are created again whenever they are accessed, which trades allocations during lookups for a smaller retained heap.
+ * Other children, like directories, are kept as they are.</p>
+ *
+ * <p>The map is immutable. Invalidating or storing a child creates a regular child map, like for the other child map implementations.</p>
+ */
+public class CompactFileSnapshotChildMap implements ChildMap<FileSystemLocationSnapshot> {
+    /**
+     * When set, directory snapshots store their regular files in a compact form.
+     */
+    public static final String COMPACT_SNAPSHOTS_PROPERTY = "org.gradle.internal.vfs.compact-snapshots";
+
+    static final boolean ENABLED = Boolean.getBoolean(COMPACT_SNAPSHOTS_PROPERTY);
+
+    /**
+     * Packing a few files does not save enough to make up for the arrays.
+     */
+    private static final int MINIMUM_FILE_COUNT = 4;
+    private static final int HASH_LENGTH = 16;
+
+    private final String parentPath;
+    private final String[] names;
+    // Children that are not packed, null for packed regular files
+    private final FileSystemLocationSnapshot[] unpackedChildren;
+    private final byte[] hashes;
+    private final long[] lengths;
+    private final long[] lastModifiedTimes;
+    private final BitSet accessedViaSymlink;
+
+    private CompactFileSnapshotChildMap(String parentPath, String[] names, FileSystemLocationSnapshot[] unpackedChildren, byte[] hashes, long[] lengths, long[] lastModifiedTimes, BitSet accessedViaSymlink) {
+        this.parentPath = parentPath;
+        this.names = names;
+        this.unpackedChildren = unpackedChildren;
+        this.hashes = hashes;
+        this.lengths = lengths;
+        this.lastModifiedTimes = lastModifiedTimes;
+        this.accessedViaSymlink = accessedViaSymlink;
+    }
+
+    /**
+     * Creates the child map for the given children of the directory with the given absolute path.
+     * Falls back to a regular child map when there are not enough regular files to pack.
+     *
+     * @param sortedChildren children, sorted by name
+     */
+    public static ChildMap<FileSystemLocationSnapshot> of(String parentPath, List<FileSystemLocationSnapshot> sortedChildren) {
+        int size = sortedChildren.size();
+        int packableCount = 0;
+        for (FileSystemLocationSnapshot child : sortedChildren) {
+            if (isPackable(parentPath, child)) {
+                packableCount++;
+            }
+        }
+        if (packableCount < MINIMUM_FILE_COUNT) {
+            return ChildMapFactory.childMapFromSorted(sortedChildren.stream()
+                .map(child -> new Entry<>(child.getName(), child))
+                .collect(Collectors.toList()));
+        }
+
+        String[] names = new String[size];
+        FileSystemLocationSnapshot[] unpackedChildren = new FileSystemLocationSnapshot[size];
+        byte[] hashes = new byte[size * HASH_LENGTH];
+        long[] lengths = new long[size];
+        long[] lastModifiedTimes = new long[size];
+        BitSet accessedViaSymlink = new BitSet();
+        for (int i = 0; i < size; i++) {
+            FileSystemLocationSnapshot child = sortedChildren.get(i);
+            names[i] = child.getName();
+            if (isPackable(parentPath, child)) {
+                RegularFileSnapshot file = (RegularFileSnapshot) child;
+                System.arraycopy(file.getHash().toByteArray(), 0, hashes, i * HASH_LENGTH, HASH_LENGTH);
+                lengths[i] = file.getMetadata().getLength();
+                lastModifiedTimes[i] = file.getMetadata().getLastModified();
+                if (file.getAccessType() == AccessType.VIA_SYMLINK) {
+                    accessedViaSymlink.set(i);
+                }
+            } else {
+                unpackedChildren[i] = child;
+            }
+        }
+        return new CompactFileSnapshotChildMap(parentPath, names, unpackedChildren, hashes, lengths, lastModifiedTimes, accessedViaSymlink);
+    }
+
+    private static boolean isPackable(String parentPath, FileSystemLocationSnapshot child) {
+        if (!(child instanceof RegularFileSnapshot)) {
+            return false;
+        }
+        RegularFileSnapshot file = (RegularFileSnapshot) child;
+        String absolutePath = file.getAbsolutePath();
+        String name = file.getName();
+        // The absolute path must be derivable from the parent path and the name
+        return file.getHash().length() == HASH_LENGTH
+            && absolutePath.length() == parentPath.length() + 1 + name.length()
+            && absolutePath.startsWith(parentPath)
+            && absolutePath.charAt(parentPath.length()) == File.separatorChar
+            && absolutePath.endsWith(name);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return names.length;
+    }
+
+    @Override
+    public Stream<Entry<FileSystemLocationSnapshot>> stream() {
+        return IntStream.range(0, names.length).mapToObj(this::getEntry);
+    }
+
+    private Entry<FileSystemLocationSnapshot> getEntry(int index) {
+        return new Entry<>(names[index], getChild(index));
+    }
+
+    private FileSystemLocationSnapshot getChild(int index) {
+        FileSystemLocationSnapshot unpackedChild = unpackedChildren[index];
+        if (unpackedChild != null) {
+            return unpackedChild;
+        }
+        String name = names[index];
+        AccessType accessType = accessedViaSymlink.get(index) ? AccessType.VIA_SYMLINK : AccessType.DIRECT;
+        HashCode hash = HashCode.fromBytes(Arrays.copyOfRange(hashes, index * HASH_LENGTH, (index + 1) * HASH_LENGTH));
+        return new RegularFileSnapshot(
+            parentPath + File.separatorChar + name,
+            name,
+            hash,
+            DefaultFileMetadata.file(lastModifiedTimes[index], lengths[index], accessType)
+        );
+    }
+
+    @Override
+    public <RESULT> RESULT withNode(VfsRelativePath targetPath, CaseSensitivity caseSensitivity, NodeHandler<FileSystemLocationSnapshot, RESULT> handler) {
+        int childIndex = SearchUtil.binarySearch(
+            Arrays.asList(names),
+            candidate -> targetPath.compareToFirstSegment(candidate, caseSensitivity)
+        );
+        if (childIndex >= 0) {
+            return getEntry(childIndex).withNode(targetPath, caseSensitivity, handler);
+        }
+        return handler.handleUnrelatedToAnyChild();
+    }
+
+    @Override
+    public <RESULT> ChildMap<RESULT> invalidate(VfsRelativePath targetPath, CaseSensitivity caseSensitivity, InvalidationHandler<FileSystemLocationSnapshot, RESULT> handler) {
+        return unpack().invalidate(targetPath, caseSensitivity, handler);
+    }
+
+    @Override
+    public ChildMap<FileSystemLocationSnapshot> store(VfsRelativePath targetPath, CaseSensitivity caseSensitivity, StoreHandler<FileSystemLocationSnapshot> storeHandler) {
+        return unpack().store(targetPath, caseSensitivity, storeHandler);
+    }
+
+    /**
+     * Creates a regular child map with the same children.
+     */
+    public ChildMap<FileSystemLocationSnapshot> unpack() {
+        List<Entry<FileSystemLocationSnapshot>> entries = new ArrayList<>(names.length);
+        for (int i = 0; i < names.length; i++) {
+            entries.add(getEntry(i));
+        }
+        return ChildMapFactory.childMapFromSorted(entries);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        CompactFileSnapshotChildMap that = (CompactFileSnapshotChildMap) o;
+
+        return parentPath.equals(that.parentPath)
+            && Arrays.equals(names, that.names)
+            && Arrays.equals(unpackedChildren, that.unpackedChildren)
+            && Arrays.equals(hashes, that.hashes)
+            && Arrays.equals(lengths, that.lengths)
+            && Arrays.equals(lastModifiedTimes, that.lastModifiedTimes)
+            && accessedViaSymlink.equals(that.accessedViaSymlink);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = parentPath.hashCode();
+        result = 31 * result + Arrays.hashCode(names);
+        result = 31 * result + Arrays.hashCode(hashes);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return stream().collect(Collectors.toList()).toString();
+    }
+}
@@ -42,9 +42,11 @@ public class DirectorySnapshot extends AbstractFileSystemLocationSnapshot {
     private final HashCode contentHash;
 
     public DirectorySnapshot(String absolutePath, String name, AccessType accessType, HashCode contentHash, List<FileSystemLocationSnapshot> children) {
-        this(absolutePath, name, accessType, contentHash, childMapFromSorted(children.stream()
-            .map(it -> new ChildMap.Entry<>(it.getName(), it))
-            .collect(Collectors.toList())));
+        this(absolutePath, name, accessType, contentHash, CompactFileSnapshotChildMap.ENABLED
+            ? CompactFileSnapshotChildMap.of(absolutePath, children)
+            : childMapFromSorted(children.stream()
+                .map(it -> new ChildMap.Entry<>(it.getName(), it))
+                .collect(Collectors.toList())));
     }
 
     public DirectorySnapshot(String absolutePath, String name, AccessType accessType, HashCode contentHash, ChildMap<FileSystemLocationSnapshot> children) {
@@ -174,6 +176,10 @@ protected FileSystemNode getChildNode(VfsRelativePath targetPath, CaseSensitivit
 
     @Override
     public Optional<FileSystemNode> invalidate(VfsRelativePath targetPath, CaseSensitivity caseSensitivity, SnapshotHierarchy.NodeDiffListener diffListener) {
+        // A compact child map creates new snapshots for its files on each access, so unpack it to be able to compare the children by identity below
+        ChildMap<FileSystemLocationSnapshot> children = this.children instanceof CompactFileSnapshotChildMap
+            ? ((CompactFileSnapshotChildMap) this.children).unpack()
+            : this.children;
         ChildMap<FileSystemNode> newChildren = children.invalidate(targetPath, caseSensitivity, new ChildMap.InvalidationHandler<FileSystemLocationSnapshot, FileSystemNode>() {
             @Override
             public Optional<FileSystemNode> handleAsDescendantOfChild(VfsRelativePath pathInChild, FileSystemLocationSnapshot child) {
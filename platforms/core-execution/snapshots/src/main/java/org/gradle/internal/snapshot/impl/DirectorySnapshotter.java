@@ -56,6 +56,9 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
@@ -66,6 +69,11 @@
  * For creating {@link DirectorySnapshot}s of directories.
  */
 public class DirectorySnapshotter {
+    /**
+     * When set to {@code true}, the snapshotters of the build are given an executor to hash regular files on while the directory is walked.
+     */
+    public static final String PARALLEL_HASHING_PROPERTY = "org.gradle.internal.snapshot.parallel-hashing";
+
     private static final EnumSet<FileVisitOption> DONT_FOLLOW_SYMLINKS = EnumSet.noneOf(FileVisitOption.class);
     private static final SymbolicLinkMapping EMPTY_SYMBOLIC_LINK_MAPPING = new SymbolicLinkMapping() {
 
@@ -89,12 +97,25 @@ public Iterable<String> getRemappedSegments(Iterable<String> segments) {
     private final Interner<String> stringInterner;
     private final DefaultExcludes defaultExcludes;
     private final DirectorySnapshotterStatistics.Collector collector;
+    @Nullable
+    private final Executor hashingExecutor;
 
     public DirectorySnapshotter(FileHasher hasher, Interner<String> stringInterner, Collection<String> defaultExcludes, DirectorySnapshotterStatistics.Collector collector) {
+        this(hasher, stringInterner, defaultExcludes, collector, null);
+    }
+
+    /**
+     * Creates a snapshotter that hashes regular files on the given executor when it is not {@code null}.
+     *
+     * The walk submits each regular file to the executor as it visits it, and only waits for the hashes of the files in a directory when it leaves that directory.
+     * The files of a directory are therefore hashed while the walk continues with its subdirectories, and the resulting snapshot is the same as without the executor.
+     */
+    public DirectorySnapshotter(FileHasher hasher, Interner<String> stringInterner, Collection<String> defaultExcludes, DirectorySnapshotterStatistics.Collector collector, @Nullable Executor hashingExecutor) {
         this.hasher = hasher;
         this.stringInterner = stringInterner;
         this.defaultExcludes = new DefaultExcludes(defaultExcludes);
         this.collector = collector;
+        this.hashingExecutor = hashingExecutor;
     }
 
     /**
@@ -122,7 +143,7 @@ public FileSystemLocationSnapshot snapshot(
         try {
             AtomicBoolean hasBeenFiltered = new AtomicBoolean();
             Path rootPath = Paths.get(absolutePath);
-            PathVisitor visitor = new PathVisitor(predicate, hasBeenFiltered, hasher, stringInterner, defaultExcludes, collector, EMPTY_SYMBOLIC_LINK_MAPPING, previouslyKnownSnapshots, unfilteredSnapshotRecorder);
+            PathVisitor visitor = new PathVisitor(predicate, hasBeenFiltered, hasher, hashingExecutor, stringInterner, defaultExcludes, collector, EMPTY_SYMBOLIC_LINK_MAPPING, previouslyKnownSnapshots, unfilteredSnapshotRecorder);
             Files.walkFileTree(rootPath, DONT_FOLLOW_SYMLINKS, Integer.MAX_VALUE, visitor);
             FileSystemLocationSnapshot result = visitor.getResult();
             if (!hasBeenFiltered.get()) {
@@ -259,10 +280,13 @@ private static class PathVisitor extends DirectorySnapshotterStatistics.Collecti
         private final SnapshottingFilter.DirectoryWalkerPredicate predicate;
         private final AtomicBoolean hasBeenFiltered;
         private final FileHasher hasher;
+        @Nullable
+        private final Executor hashingExecutor;
         private final Interner<String> stringInterner;
         private final DefaultExcludes defaultExcludes;
         private final SymbolicLinkMapping symbolicLinkMapping;
         private final Deque<String> parentDirectories = new ArrayDeque<>();
+        private final Deque<List<PendingFileHash>> pendingFileHashes = new ArrayDeque<>();
         private final Set<FileSystemLocationSnapshot> filteredDirectorySnapshots = new HashSet<>();
         private final ImmutableMap<String, ? extends FileSystemLocationSnapshot> previouslyKnownSnapshots;
         private final Consumer<FileSystemLocationSnapshot> unfilteredSnapshotRecorder;
@@ -271,6 +295,7 @@ public PathVisitor(
             @Nullable SnapshottingFilter.DirectoryWalkerPredicate predicate,
             AtomicBoolean hasBeenFiltered,
             FileHasher hasher,
+            @Nullable Executor hashingExecutor,
             Interner<String> stringInterner,
             DefaultExcludes defaultExcludes,
             DirectorySnapshotterStatistics.Collector statisticsCollector,
@@ -283,6 +308,7 @@ public PathVisitor(
             this.predicate = predicate;
             this.hasBeenFiltered = hasBeenFiltered;
             this.hasher = hasher;
+            this.hashingExecutor = hashingExecutor;
             this.stringInterner = stringInterner;
             this.defaultExcludes = defaultExcludes;
             this.symbolicLinkMapping = symbolicLinkMapping;
@@ -317,6 +343,7 @@ protected FileVisitResult doPreVisitDirectory(Path dir, BasicFileAttributes attr
 
                 builder.enterDirectory(AccessType.DIRECT, internedRemappedAbsolutePath, fileName, INCLUDE_EMPTY_DIRS);
                 parentDirectories.addFirst(dir.toString());
+                pendingFileHashes.addFirst(new ArrayList<>());
                 return FileVisitResult.CONTINUE;
             } else {
                 pathTracker.leave();
@@ -333,6 +360,9 @@ protected FileVisitResult doPostVisitDirectory(Path dir, IOException exc) {
             if (isNotFileSystemLoopException(exc)) {
                 throw new UncheckedIOException(String.format("Could not read directory path '%s'.", dir), exc);
             }
+            for (PendingFileHash pending : pendingFileHashes.removeFirst()) {
+                builder.visitLeafElement(pending.complete());
+            }
             boolean currentLevelComplete = builder.isCurrentLevelUnfiltered();
             FileSystemLocationSnapshot currentLevel = builder.leaveDirectory();
             if (!currentLevelComplete) {
@@ -390,6 +420,7 @@ private DirectorySnapshot followSymlink(Path file, String internedFileName, Atom
                         predicate,
                         symlinkHasBeenFiltered,
                         hasher,
+                        hashingExecutor,
                         stringInterner,
                         defaultExcludes,
                         collector,
@@ -413,7 +444,10 @@ private boolean introducesCycle(String targetDirString) {
         private void visitResolvedFile(Path file, BasicFileAttributes targetAttributes, AccessType accessType) {
             String internedName = intern(file.getFileName().toString());
             if (shouldVisitFile(file, internedName)) {
-                builder.visitLeafElement(snapshotFile(file, internedName, targetAttributes, accessType));
+                FileSystemLeafSnapshot snapshot = snapshotFile(file, internedName, targetAttributes, accessType);
+                if (snapshot != null) {
+                    builder.visitLeafElement(snapshot);
+                }
             }
         }
 
@@ -435,6 +469,10 @@ private static BasicFileAttributes readAttributesOfSymlinkTarget(Path symlink, B
             }
         }
 
+        /**
+         * Returns the snapshot of the file, or {@code null} when the file is hashed on the hashing executor. The snapshot is then visited when leaving the directory.
+         */
+        @Nullable
         private FileSystemLeafSnapshot snapshotFile(Path absoluteFilePath, String internedName, BasicFileAttributes attrs, AccessType accessType) {
             String internedRemappedAbsoluteFilePath = intern(symbolicLinkMapping.remapAbsolutePath(absoluteFilePath));
             FileSystemLocationSnapshot previouslyKnownSnapshot = previouslyKnownSnapshots.get(internedRemappedAbsoluteFilePath);
@@ -452,7 +490,14 @@ private FileSystemLeafSnapshot snapshotFile(Path absoluteFilePath, String intern
             long lastModified = attrs.lastModifiedTime().toMillis();
             long fileLength = attrs.size();
             FileMetadata metadata = DefaultFileMetadata.file(lastModified, fileLength, accessType);
-            HashCode hash = hasher.hash(absoluteFilePath.toFile(), fileLength, lastModified);
+            File file = absoluteFilePath.toFile();
+            List<PendingFileHash> pendingInDirectory = pendingFileHashes.peekFirst();
+            if (hashingExecutor != null && pendingInDirectory != null) {
+                CompletableFuture<HashCode> hash = CompletableFuture.supplyAsync(() -> hasher.hash(file, fileLength, lastModified), hashingExecutor);
+                pendingInDirectory.add(new PendingFileHash(internedRemappedAbsoluteFilePath, internedName, metadata, hash));
+                return null;
+            }
+            HashCode hash = hasher.hash(file, fileLength, lastModified);
             return new RegularFileSnapshot(internedRemappedAbsoluteFilePath, internedName, hash, metadata);
         }
 
@@ -521,4 +566,36 @@ public FileSystemLocationSnapshot getResult() {
             return builder.getResult();
         }
     }
+
+    private static class PendingFileHash {
+        private final String absolutePath;
+        private final String name;
+        private final FileMetadata metadata;
+        private final CompletableFuture<HashCode> hash;
+
+        PendingFileHash(String absolutePath, String name, FileMetadata metadata, CompletableFuture<HashCode> hash) {
+            this.absolutePath = absolutePath;
+            this.name = name;
+            this.metadata = metadata;
+            this.hash = hash;
+        }
+
+        /**
+         * Waits for the file to be hashed, rethrowing the failure to hash it, if any.
+         */
+        RegularFileSnapshot complete() {
+            try {
+                return new RegularFileSnapshot(absolutePath, name, hash.join(), metadata);
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw e;
+            }
+        }
+    }
 }
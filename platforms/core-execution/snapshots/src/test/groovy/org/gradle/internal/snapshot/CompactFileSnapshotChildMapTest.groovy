@@ -0,0 +1,113 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot
+
+import org.gradle.internal.file.FileMetadata.AccessType
+import org.gradle.internal.file.FileType
+import org.gradle.internal.file.impl.DefaultFileMetadata
+import org.gradle.internal.hash.TestHashCodes
+import org.gradle.internal.vfs.impl.DefaultSnapshotHierarchy
+import spock.lang.Specification
+
+import static org.gradle.internal.snapshot.CaseSensitivity.CASE_SENSITIVE
+
+class CompactFileSnapshotChildMapTest extends Specification {
+    def parentPath = new File("/root/dir").absolutePath
+    def removed = []
+    def added = []
+    def diffListener = new SnapshotHierarchy.NodeDiffListener() {
+        @Override
+        void nodeRemoved(FileSystemNode node) {
+            removed.add(node)
+        }
+
+        @Override
+        void nodeAdded(FileSystemNode node) {
+            added.add(node)
+        }
+    }
+
+    def "recreates the packed children"() {
+        def children = [
+            file("a.txt", 1),
+            file("b.txt", 2, AccessType.VIA_SYMLINK),
+            directory("c"),
+            file("d.txt", 4),
+            file("e.txt", 5),
+            new MissingFileSnapshot(childPath("f.txt"), "f.txt", AccessType.VIA_SYMLINK)
+        ]
+
+        when:
+        def childMap = CompactFileSnapshotChildMap.of(parentPath, children)
+
+        then:
+        childMap instanceof CompactFileSnapshotChildMap
+        childMap.size() == 6
+        childMap.stream().collect()*.path == ["a.txt", "b.txt", "c", "d.txt", "e.txt", "f.txt"]
+        childMap.stream().collect()*.value == children
+        childMap.stream().collect()*.value*.accessType == children*.accessType
+        childMap.stream().collect()*.value.findAll { it instanceof RegularFileSnapshot }*.metadata == children.findAll { it instanceof RegularFileSnapshot }*.metadata
+        (childMap as CompactFileSnapshotChildMap).unpack().stream().collect() == childMap.stream().collect()
+    }
+
+    def "uses a regular child map when there are only a few files"() {
+        def children = [file("a.txt", 1), directory("b"), file("c.txt", 3), directory("d"), file("e.txt", 5)]
+
+        when:
+        def childMap = CompactFileSnapshotChildMap.of(parentPath, children)
+
+        then:
+        childMap instanceof MediumChildMap
+        childMap.stream().collect()*.value == children
+    }
+
+    def "can find and invalidate files of a compact directory snapshot"() {
+        given:
+        def children = (1..20).collect { file("file${it}.txt", it) }.sort { it.name }
+        def directorySnapshot = new DirectorySnapshot(parentPath, "dir", AccessType.DIRECT, TestHashCodes.hashCodeFrom(1234), CompactFileSnapshotChildMap.of(parentPath, children))
+
+        when:
+        def hierarchy = DefaultSnapshotHierarchy.empty(CASE_SENSITIVE).store(parentPath, directorySnapshot, diffListener)
+
+        then:
+        children.every { hierarchy.findMetadata(it.absolutePath).get() == it }
+        hierarchy.findMetadata(childPath("unknown.txt")).get().type == FileType.Missing
+
+        when:
+        removed.clear()
+        added.clear()
+        def invalidated = hierarchy.invalidate(childPath("file7.txt"), diffListener)
+
+        then:
+        !invalidated.findMetadata(childPath("file7.txt")).present
+        children.findAll { it.name != "file7.txt" }.every { invalidated.findMetadata(it.absolutePath).get() == it }
+        removed.contains(directorySnapshot)
+        added as Set == children.findAll { it.name != "file7.txt" } as Set
+    }
+
+    private RegularFileSnapshot file(String name, long hash, AccessType accessType = AccessType.DIRECT) {
+        new RegularFileSnapshot(childPath(name), name, TestHashCodes.hashCodeFrom(hash), DefaultFileMetadata.file(hash * 1000, hash * 10, accessType))
+    }
+
+    private DirectorySnapshot directory(String name) {
+        new DirectorySnapshot(childPath(name), name, AccessType.DIRECT, TestHashCodes.hashCodeFrom(0), [])
+    }
+
+    private String childPath(String name) {
+        parentPath + File.separator + name
+    }
+}
@@ -23,6 +23,8 @@ import org.gradle.api.tasks.util.PatternSet
 import org.gradle.internal.file.FileMetadata
 import org.gradle.internal.file.FileMetadata.AccessType
 import org.gradle.internal.fingerprint.impl.PatternSetSnapshottingFilter
+import org.gradle.internal.hash.FileHasher
+import org.gradle.internal.hash.HashCode
 import org.gradle.internal.hash.TestFileHasher
 import org.gradle.internal.hash.TestHashCodes
 import org.gradle.internal.snapshot.DirectorySnapshot
@@ -42,6 +44,8 @@ import spock.lang.Issue
 import spock.lang.Specification
 
 import java.nio.file.Paths
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executors
 import java.util.function.Consumer
 
 @UsesNativeServices
@@ -530,6 +534,58 @@ class DirectorySnapshotterTest extends Specification {
         pipe.delete()
     }
 
+    def "parallel hashing produces the same snapshot"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        (1..5).each { dir ->
+            (1..50).each { file ->
+                rootDir.file("dir$dir/sub$file/file${file}.txt").text = "content $dir $file"
+            }
+            rootDir.file("dir$dir/.git/ignored.txt").text = "ignored"
+        }
+        def knownFile = rootDir.file("dir1/sub1/file1.txt")
+        def countingHasher = new CountingFileHasher(fileHasher)
+        def executor = Executors.newFixedThreadPool(4)
+        def parallelSnapshotter = new DirectorySnapshotter(countingHasher, new StringInterner(), DirectoryScanner.getDefaultExcludes() as List, statisticsCollector, executor)
+        def sequentialSnapshotter = new DirectorySnapshotter(fileHasher, new StringInterner(), DirectoryScanner.getDefaultExcludes() as List, statisticsCollector, null)
+        def knownSnapshot = new RegularFileSnapshot(knownFile.absolutePath, knownFile.name, TestHashCodes.hashCodeFrom(1234), Stub(FileMetadata))
+
+        when:
+        def parallelSnapshot = parallelSnapshotter.snapshot(rootDir.absolutePath, null, [(knownFile.absolutePath): knownSnapshot], {})
+        def sequentialSnapshot = sequentialSnapshotter.snapshot(rootDir.absolutePath, null, [(knownFile.absolutePath): knownSnapshot], {})
+
+        then:
+        parallelSnapshot.hash == sequentialSnapshot.hash
+        SnapshotVisitorUtil.getRelativePaths(parallelSnapshot, true) == SnapshotVisitorUtil.getRelativePaths(sequentialSnapshot, true)
+        countingHasher.hashedFiles.size() == 249
+        countingHasher.hashedFiles.every { it.value == 1 }
+
+        cleanup:
+        executor?.shutdownNow()
+    }
+
+    def "parallel hashing rethrows failure to hash a file"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        rootDir.file("dir/file.txt").text = "content"
+        def failure = new UncheckedIOException(new IOException("broken"))
+        def failingHasher = Stub(FileHasher) {
+            hash(_ as File, _ as Long, _ as Long) >> { throw failure }
+        }
+        def executor = Executors.newFixedThreadPool(2)
+        def parallelSnapshotter = new DirectorySnapshotter(failingHasher, new StringInterner(), [], statisticsCollector, executor)
+
+        when:
+        parallelSnapshotter.snapshot(rootDir.absolutePath, null, [:], {})
+
+        then:
+        def e = thrown(UncheckedIOException)
+        e.is(failure)
+
+        cleanup:
+        executor?.shutdownNow()
+    }
+
     def "default excludes are correctly parsed"() {
         def defaultExcludes = new DirectorySnapshotter.DefaultExcludes(DirectoryScanner.getDefaultExcludes() as List)
 
@@ -551,6 +607,27 @@ class DirectorySnapshotterTest extends Specification {
         !defaultExcludes.excludeFile('#some')
     }
 
+    private static class CountingFileHasher implements FileHasher {
+        private final FileHasher delegate
+        final Map<File, Integer> hashedFiles = new ConcurrentHashMap<>()
+
+        CountingFileHasher(FileHasher delegate) {
+            this.delegate = delegate
+        }
+
+        @Override
+        HashCode hash(File file) {
+            hashedFiles.merge(file, 1, Integer::sum)
+            return delegate.hash(file)
+        }
+
+        @Override
+        HashCode hash(File file, long length, long lastModified) {
+            hashedFiles.merge(file, 1, Integer::sum)
+            return delegate.hash(file, length, lastModified)
+        }
+    }
+
     private static String fileSystemRoot() {
         "${Paths.get("").toAbsolutePath().root}"
     }
@@ -38,8 +38,8 @@ class WorkerDaemonLifecycleTest extends AbstractDaemonWorkerExecutorIntegrationS
             task runInWorker2(type: WorkerTask) {
                 isolationMode = 'processIsolation'
                 doFirst {
-                    def all = services.get(WorkerDaemonFactory.class).clientsManager.allClients.size()
-                    def idle = services.get(WorkerDaemonFactory.class).clientsManager.idleClients.size()
+                    def all = services.get(WorkerDaemonFactory.class).clientsManager.pool.allWorkers.size()
+                    def idle = services.get(WorkerDaemonFactory.class).clientsManager.pool.idleWorkers.size()
                     println "Existing worker daemons: \${idle} idle out of \${all} total"
                 }
             }
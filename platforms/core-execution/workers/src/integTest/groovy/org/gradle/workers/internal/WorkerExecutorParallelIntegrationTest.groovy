@@ -447,7 +447,7 @@ class WorkerExecutorParallelIntegrationTest extends AbstractWorkerExecutorIntegr
                     }
                 }
                 doLast {
-                    assert services.get(WorkerDaemonClientsManager).allClients.size() == 3
+                    assert services.get(WorkerDaemonClientsManager).pool.allWorkers.size() == 3
                 }
             }
         """
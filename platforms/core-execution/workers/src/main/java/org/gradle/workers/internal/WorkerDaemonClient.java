@@ -16,17 +16,17 @@
 
 package org.gradle.workers.internal;
 
-import org.gradle.api.Describable;
 import org.gradle.api.logging.LogLevel;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.process.ExecResult;
 import org.gradle.process.internal.health.memory.JvmMemoryStatus;
 import org.gradle.process.internal.worker.MultiRequestClient;
+import org.gradle.process.internal.worker.PooledWorkerProcess;
 import org.gradle.process.internal.worker.WorkerProcess;
 
 import java.util.Optional;
 
-class WorkerDaemonClient implements Stoppable, Describable {
+class WorkerDaemonClient implements Stoppable, PooledWorkerProcess {
     public static final String DISABLE_EXPIRATION_PROPERTY_KEY = "org.gradle.workers.internal.disable-daemons-expiration";
     private final DaemonForkOptions forkOptions;
     private final MultiRequestClient<TransportableActionExecutionSpec, DefaultWorkResult> workerClient;
@@ -53,7 +53,8 @@ public boolean isCompatibleWith(DaemonForkOptions required) {
         return forkOptions.isCompatibleWith(required);
     }
 
-    JvmMemoryStatus getJvmMemoryStatus() {
+    @Override
+    public JvmMemoryStatus getJvmMemoryStatus() {
         return workerProcess.getJvmMemoryStatus();
     }
 
@@ -66,6 +67,7 @@ DaemonForkOptions getForkOptions() {
         return forkOptions;
     }
 
+    @Override
     public int getUses() {
         return uses;
     }
@@ -74,18 +76,22 @@ public KeepAliveMode getKeepAliveMode() {
         return forkOptions.getKeepAliveMode();
     }
 
+    @Override
     public LogLevel getLogLevel() {
         return logLevel;
     }
 
+    @Override
     public boolean isFailed() {
         return workerProcess.getExecResult().map(execResult -> execResult.getExitValue() != 0).orElse(false);
     }
 
+    @Override
     public Optional<Integer> getExitCode() {
         return workerProcess.getExecResult().map(ExecResult::getExitValue);
     }
 
+    @Override
     public boolean isNotExpirable() {
         return cannotBeExpired;
     }
@@ -17,137 +17,62 @@
 package org.gradle.workers.internal;
 
 import org.gradle.api.Transformer;
-import org.gradle.api.logging.LogLevel;
-import org.gradle.api.logging.Logger;
-import org.gradle.api.logging.Logging;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.logging.LoggingManagerInternal;
-import org.gradle.internal.logging.events.LogLevelChangeEvent;
-import org.gradle.internal.logging.events.OutputEvent;
-import org.gradle.internal.logging.events.OutputEventListener;
-import org.gradle.internal.os.OperatingSystem;
 import org.gradle.internal.session.BuildSessionLifecycleListener;
 import org.gradle.process.internal.health.memory.MemoryManager;
 import org.gradle.process.internal.health.memory.OsMemoryInfo;
-import org.gradle.util.internal.CollectionUtils;
+import org.gradle.process.internal.worker.WorkerProcessExpiration;
+import org.gradle.process.internal.worker.WorkerProcessPool;
 
-import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
-import static java.util.Comparator.comparingInt;
-
 public class WorkerDaemonClientsManager implements Stoppable {
 
-    private static final Logger LOGGER = Logging.getLogger(WorkerDaemonClientsManager.class);
-
-    private final Object lock = new Object();
-    private final List<WorkerDaemonClient> allClients = new ArrayList<WorkerDaemonClient>();
-    private final List<WorkerDaemonClient> idleClients = new ArrayList<WorkerDaemonClient>();
-
+    private final WorkerProcessPool<WorkerDaemonClient> pool;
     private final WorkerDaemonStarter workerDaemonStarter;
     private final ListenerManager listenerManager;
-    private final LoggingManagerInternal loggingManager;
-    private final OsMemoryInfo memoryInfo;
     private final BuildSessionLifecycleListener stopSessionScopeWorkers;
-    private final OutputEventListener logLevelChangeEventListener;
     private final WorkerDaemonExpiration workerDaemonExpiration;
     private final MemoryManager memoryManager;
-    private volatile LogLevel currentLogLevel;
 
     public WorkerDaemonClientsManager(WorkerDaemonStarter workerDaemonStarter, ListenerManager listenerManager, LoggingManagerInternal loggingManager, MemoryManager memoryManager, OsMemoryInfo memoryInfo) {
+        this.pool = new WorkerProcessPool<WorkerDaemonClient>("worker daemon", Integer.MAX_VALUE, loggingManager);
         this.workerDaemonStarter = workerDaemonStarter;
         this.listenerManager = listenerManager;
-        this.loggingManager = loggingManager;
-        this.memoryInfo = memoryInfo;
         this.stopSessionScopeWorkers = new StopSessionScopedWorkers();
         listenerManager.addListener(stopSessionScopeWorkers);
-        this.logLevelChangeEventListener = new LogLevelChangeEventListener();
-        loggingManager.addOutputEventListener(logLevelChangeEventListener);
-        this.currentLogLevel = loggingManager.getLevel();
         this.memoryManager = memoryManager;
-        this.workerDaemonExpiration = new WorkerDaemonExpiration(this, getTotalPhysicalMemory());
+        this.workerDaemonExpiration = new WorkerDaemonExpiration(this, WorkerProcessExpiration.getTotalPhysicalMemory(memoryInfo));
         memoryManager.addMemoryHolder(workerDaemonExpiration);
     }
 
     // TODO - should supply and check for the same parameters as passed to reserveNewClient()
     public WorkerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions) {
-        return reserveIdleClient(forkOptions, idleClients);
+        return pool.reserveIdleWorker(client -> client.isCompatibleWith(forkOptions));
     }
 
     WorkerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions, List<WorkerDaemonClient> clients) {
-        synchronized (lock) {
-            Iterator<WorkerDaemonClient> it = clients.iterator();
-            while (it.hasNext()) {
-                WorkerDaemonClient candidate = it.next();
-                if (candidate.isFailed()) {
-                    emitUnexpectedWorkerFailureWarning(candidate);
-                    it.remove();
-                } else {
-                    if (candidate.isCompatibleWith(forkOptions)) {
-                        it.remove();
-                        if (candidate.getLogLevel() != currentLogLevel) {
-                            // TODO: Send a message to workers to change their log level rather than stopping
-                            LOGGER.info("Log level has changed, stopping idle worker daemon with out-of-date log level.");
-                            candidate.stop();
-                        } else {
-                            return candidate;
-                        }
-                    }
-                }
-            }
-            return null;
-        }
-    }
-
-    private static void emitUnexpectedWorkerFailureWarning(WorkerDaemonClient candidate) {
-        if (candidate.getExitCode().isPresent()) {
-            int exitCode = candidate.getExitCode().get();
-            if (OperatingSystem.current().isUnix() && exitCode > 127) {
-                LOGGER.warn("Worker daemon '" + candidate.getDisplayName() + "' exited unexpectedly after being killed with signal " + (exitCode - 128) + ".  This is likely because an external process has killed the worker.");
-            } else {
-                LOGGER.warn("Worker daemon '" + candidate.getDisplayName() + "' exited unexpectedly with exit code " + exitCode + ".");
-            }
-        }
+        return pool.reserveIdleWorker(client -> client.isCompatibleWith(forkOptions), clients);
     }
 
     public WorkerDaemonClient reserveNewClient(DaemonForkOptions forkOptions) {
         //allow the daemon to be started concurrently
         WorkerDaemonClient client = workerDaemonStarter.startDaemon(forkOptions);
-        synchronized (lock) {
-            allClients.add(client);
-        }
+        pool.add(client);
         return client;
     }
 
     public void release(WorkerDaemonClient client) {
-        synchronized (lock) {
-            if (!client.isFailed()) {
-                idleClients.add(client);
-            }
-        }
+        pool.release(client);
     }
 
     @Override
     public void stop() {
-        synchronized (lock) {
-            stopWorkers(allClients);
-            allClients.clear();
-            idleClients.clear();
-            listenerManager.removeListener(stopSessionScopeWorkers);
-            memoryManager.removeMemoryHolder(workerDaemonExpiration);
-        }
-        // Do not hold lock while removing listener, as the listener may still be receiving events on another thread and will need to acquire the lock to handle these events
-        loggingManager.removeOutputEventListener(logLevelChangeEventListener);
-    }
-
-    private long getTotalPhysicalMemory() {
-        try {
-            return memoryInfo.getOsSnapshot().getPhysicalMemory().getTotal();
-        } catch (UnsupportedOperationException e) {
-            return -1;
-        }
+        listenerManager.removeListener(stopSessionScopeWorkers);
+        memoryManager.removeMemoryHolder(workerDaemonExpiration);
+        pool.stop();
     }
 
     /**
@@ -156,59 +81,13 @@ private long getTotalPhysicalMemory() {
      * @param selectionFunction Gets all idle daemon clients, daemons of returned clients are stopped
      */
     public void selectIdleClientsToStop(Transformer<List<WorkerDaemonClient>, List<WorkerDaemonClient>> selectionFunction) {
-        synchronized (lock) {
-            List<WorkerDaemonClient> sortedClients = CollectionUtils.sort(idleClients, comparingInt(WorkerDaemonClient::getUses));
-            List<WorkerDaemonClient> clientsToStop = selectionFunction.transform(new ArrayList<>(sortedClients));
-            if (!clientsToStop.isEmpty()) {
-                stopWorkers(clientsToStop);
-            }
-        }
-    }
-
-    private void stopWorkers(List<WorkerDaemonClient> clientsToStop) {
-        if (clientsToStop.size() > 0) {
-            int clientCount = clientsToStop.size();
-            LOGGER.debug("Stopping {} worker daemon(s).", clientCount);
-            int failureCount = 0;
-            for (WorkerDaemonClient client : clientsToStop) {
-                try {
-                    if (client.isFailed()) {
-                        emitUnexpectedWorkerFailureWarning(client);
-                    } else {
-                        client.stop();
-                    }
-                } catch (Exception e) {
-                    failureCount++;
-                    LOGGER.warn("Failed to stop worker daemon '" + client.getDisplayName() + "'", e);
-                }
-            }
-            idleClients.removeAll(clientsToStop);
-            allClients.removeAll(clientsToStop);
-            if (failureCount > 0) {
-                LOGGER.info("Stopped {} worker daemon(s).  {} worker daemons had failures while stopping.", clientCount, failureCount);
-            } else {
-                LOGGER.info("Stopped {} worker daemon(s).", clientCount);
-            }
-        }
+        pool.selectIdleWorkersToStop(selectionFunction);
     }
 
     private class StopSessionScopedWorkers implements BuildSessionLifecycleListener {
         @Override
         public void beforeComplete() {
-            synchronized (lock) {
-                List<WorkerDaemonClient> sessionScopedClients = CollectionUtils.filter(allClients, client -> client.getKeepAliveMode() == KeepAliveMode.SESSION);
-                stopWorkers(sessionScopedClients);
-            }
-        }
-    }
-
-    private class LogLevelChangeEventListener implements OutputEventListener {
-        @Override
-        public void onOutput(OutputEvent event) {
-            if (event instanceof LogLevelChangeEvent) {
-                LogLevelChangeEvent logLevelChangeEvent = (LogLevelChangeEvent) event;
-                currentLogLevel = logLevelChangeEvent.getNewLogLevel();
-            }
+            pool.stopWorkers(client -> client.getKeepAliveMode() == KeepAliveMode.SESSION);
         }
     }
 }
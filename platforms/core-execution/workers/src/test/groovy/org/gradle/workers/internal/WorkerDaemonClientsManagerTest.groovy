@@ -123,7 +123,7 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
         1 * client2.stop()
 
         and:
-        manager.allClients.size() == 0
+        manager.pool.allWorkers.size() == 0
     }
 
     def "does not stop an already failed client"() {
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resources;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.gradle.internal.resources.DefaultResourceLockCoordinationService.lock;
+import static org.gradle.internal.resources.DefaultResourceLockCoordinationService.unlock;
+
+/**
+ * Simulates many worker threads that each acquire a worker lease and the lock of a random project, as happens when executing a large build.
+ */
+@Fork(2)
+@Threads(16)
+@Warmup(iterations = 5)
+@State(Scope.Benchmark)
+public class ResourceLockCoordinationBenchmark {
+
+    @Param({"1", "10", "1000"})
+    int projects;
+
+    @Param({"4", "16"})
+    int maxWorkers;
+
+    private DefaultResourceLockCoordinationService coordinationService;
+    private LeaseHolder leaseHolder;
+    private ProjectLock[] projectLocks;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        coordinationService = new DefaultResourceLockCoordinationService();
+        leaseHolder = new LeaseHolder(maxWorkers);
+        AllProjectsLock allProjectsLock = new AllProjectsLock("all projects", coordinationService, NoOpContainer.INSTANCE);
+        projectLocks = new ProjectLock[projects];
+        for (int i = 0; i < projects; i++) {
+            projectLocks[i] = new ProjectLock("project " + i, coordinationService, NoOpContainer.INSTANCE, allProjectsLock);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        coordinationService.close();
+    }
+
+    @Benchmark
+    public void acquireWorkerLeaseAndProjectLock() {
+        DefaultLease workerLease = new DefaultLease("worker", coordinationService, NoOpContainer.INSTANCE, leaseHolder);
+        ProjectLock projectLock = projectLocks[ThreadLocalRandom.current().nextInt(projectLocks.length)];
+        coordinationService.withStateLock(lock(workerLease, projectLock));
+        coordinationService.withStateLock(unlock(projectLock, workerLease));
+    }
+
+    private static class NoOpContainer implements ResourceLockContainer {
+        static final NoOpContainer INSTANCE = new NoOpContainer();
+
+        @Override
+        public void lockAcquired(ResourceLock lock) {
+        }
+
+        @Override
+        public void lockReleased(ResourceLock lock) {
+        }
+    }
+}
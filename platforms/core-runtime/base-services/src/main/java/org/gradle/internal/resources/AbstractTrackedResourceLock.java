@@ -19,6 +19,8 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
+
 public abstract class AbstractTrackedResourceLock implements ResourceLock {
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractTrackedResourceLock.class);
 
@@ -52,6 +54,7 @@ public boolean tryLock() {
                 coordinationService.getCurrent().registerLocked(this);
                 return true;
             } else {
+                coordinationService.getCurrent().registerContended(this);
                 return false;
             }
         } else {
@@ -90,6 +93,20 @@ private void failIfNotInResourceLockStateChange() {
         }
     }
 
+    /**
+     * Returns the object that is signalled when this lock is released.
+     */
+    Object getContentionKey() {
+        return this;
+    }
+
+    /**
+     * Collects the objects that, when signalled, may allow this lock to be acquired.
+     */
+    void collectContentionKeys(Collection<Object> keys) {
+        keys.add(getContentionKey());
+    }
+
     abstract protected boolean acquireLock();
 
     abstract protected void releaseLock();
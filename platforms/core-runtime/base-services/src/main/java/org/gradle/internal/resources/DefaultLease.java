@@ -35,6 +35,12 @@ protected boolean doIsLockedByCurrentThread() {
         return Thread.currentThread() == ownerThread;
     }
 
+    @Override
+    Object getContentionKey() {
+        // Any lease of the parent becoming available may allow this lease to be granted
+        return parent;
+    }
+
     @Override
     protected boolean acquireLock() {
         if (parent.grantLease()) {
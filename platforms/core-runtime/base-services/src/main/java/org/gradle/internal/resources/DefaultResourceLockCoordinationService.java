@@ -25,48 +25,81 @@
 import javax.annotation.Nullable;
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Coordinates changes to the state of resource locks.
+ *
+ * <p>All state changes happen while holding a single state lock. A thread that needs to retry a state change waits until a state change
+ * happens that may allow it to make progress: the release of a resource lock it failed to acquire, a notification for a condition it waits for,
+ * or a notification that does not name a condition. A thread that neither failed to acquire a resource lock nor waits for a condition
+ * is woken up by any of these state changes.
+ * This avoids waking up every waiting thread whenever some resource lock is released.</p>
+ */
 public class DefaultResourceLockCoordinationService implements ResourceLockCoordinationService, Closeable {
-    private final Object lock = new Object();
+    private final ReentrantLock lock = new ReentrantLock();
     private final Set<Action<ResourceLock>> releaseHandlers = new LinkedHashSet<Action<ResourceLock>>();
+    private final Map<Object, Set<Waiter>> waitersByContentionKey = new HashMap<Object, Set<Waiter>>();
+    private final Set<Waiter> untargetedWaiters = new LinkedHashSet<Waiter>();
+    private final ResourceLockWaitObserver waitObserver;
     private Thread currentOwner;
     private DefaultResourceLockState currentState;
 
+    public DefaultResourceLockCoordinationService() {
+        this(ResourceLockWaitObserver.NONE);
+    }
+
+    public DefaultResourceLockCoordinationService(ResourceLockWaitObserver waitObserver) {
+        this.waitObserver = waitObserver;
+    }
+
     @Override
     public void close() throws IOException {
-        synchronized (lock) {
+        lock.lock();
+        try {
             if (!releaseHandlers.isEmpty()) {
                 throw new IllegalStateException("Some lock release listeners have not been removed.");
             }
+        } finally {
+            lock.unlock();
         }
     }
 
     @Override
     public void assertHasStateLock() {
-        synchronized (lock) {
-            if (getCurrent() == null) {
-                throw new IllegalStateException();
-            }
+        if (getCurrent() == null) {
+            throw new IllegalStateException();
         }
     }
 
     @Override
     public void addLockReleaseListener(Action<ResourceLock> listener) {
-        synchronized (lock) {
+        lock.lock();
+        try {
             releaseHandlers.add(listener);
+        } finally {
+            lock.unlock();
         }
     }
 
     @Override
     public void removeLockReleaseListener(Action<ResourceLock> listener) {
-        synchronized (lock) {
+        lock.lock();
+        try {
             releaseHandlers.remove(listener);
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -96,8 +129,12 @@ public ResourceLockState.Disposition transform(ResourceLockState resourceLockSta
 
     @Override
     public boolean withStateLock(InternalTransformer<ResourceLockState.Disposition, ResourceLockState> stateLockAction) {
-        synchronized (lock) {
-            DefaultResourceLockState resourceLockState = new DefaultResourceLockState();
+        DefaultResourceLockState resourceLockState = null;
+        lock.lock();
+        try {
+            // Nested operations share the contention keys of the outermost operation
+            DefaultResourceLockState outer = currentOwner == Thread.currentThread() ? currentState : null;
+            resourceLockState = new DefaultResourceLockState(outer == null ? new HashSet<Object>() : outer.contentionKeys);
             DefaultResourceLockState previous = startOperation(resourceLockState);
             try {
                 while (true) {
@@ -109,10 +146,11 @@ public boolean withStateLock(InternalTransformer<ResourceLockState.Disposition,
                             maybeNotifyStateChange(resourceLockState);
                             resourceLockState.reset();
                             finishOperation(previous);
-                            try {
-                                lock.wait();
-                            } catch (InterruptedException e) {
-                                throw UncheckedException.throwAsUncheckedException(e);
+                            resourceLockState.startWaiting(waitObserver);
+                            awaitStateChange(resourceLockState.contentionKeys);
+                            if (previous == null) {
+                                // The action starts over
+                                resourceLockState.contentionKeys.clear();
                             }
                             startOperation(resourceLockState);
                             break;
@@ -132,6 +170,11 @@ public boolean withStateLock(InternalTransformer<ResourceLockState.Disposition,
             } finally {
                 finishOperation(previous);
             }
+        } finally {
+            lock.unlock();
+            if (resourceLockState != null) {
+                resourceLockState.finishWaiting();
+            }
         }
     }
 
@@ -156,21 +199,68 @@ private void finishOperation(@Nullable DefaultResourceLockState previous) {
         }
     }
 
+    /**
+     * Waits until a state change happens that may allow the current thread to make progress.
+     */
+    private void awaitStateChange(Set<Object> contentionKeys) {
+        Waiter waiter = new Waiter(lock.newCondition(), new ArrayList<Object>(contentionKeys));
+        if (waiter.contentionKeys.isEmpty()) {
+            untargetedWaiters.add(waiter);
+        } else {
+            for (Object key : waiter.contentionKeys) {
+                Set<Waiter> waiters = waitersByContentionKey.get(key);
+                if (waiters == null) {
+                    waiters = new LinkedHashSet<Waiter>();
+                    waitersByContentionKey.put(key, waiters);
+                }
+                waiters.add(waiter);
+            }
+        }
+        try {
+            while (!waiter.signalled) {
+                waiter.condition.await();
+            }
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            removeWaiter(waiter);
+        }
+    }
+
+    private void removeWaiter(Waiter waiter) {
+        if (waiter.contentionKeys.isEmpty()) {
+            untargetedWaiters.remove(waiter);
+        } else {
+            for (Object key : waiter.contentionKeys) {
+                Set<Waiter> waiters = waitersByContentionKey.get(key);
+                if (waiters != null) {
+                    waiters.remove(waiter);
+                    if (waiters.isEmpty()) {
+                        waitersByContentionKey.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
     @Override
     public ResourceLockState getCurrent() {
-        synchronized (lock) {
+        lock.lock();
+        try {
             if (currentOwner != Thread.currentThread()) {
                 return null;
             } else {
                 return currentState;
             }
+        } finally {
+            lock.unlock();
         }
     }
 
     private void maybeNotifyStateChange(DefaultResourceLockState resourceLockState) {
         Collection<ResourceLock> unlockedResources = resourceLockState.getUnlockedResources();
         if (!unlockedResources.isEmpty()) {
-            notifyStateChange();
+            signalWaitersFor(unlockedResources);
             for (ResourceLock resource : unlockedResources) {
                 for (Action<ResourceLock> releaseHandler : releaseHandlers) {
                     releaseHandler.execute(resource);
@@ -179,18 +269,105 @@ private void maybeNotifyStateChange(DefaultResourceLockState resourceLockState)
         }
     }
 
+    private void signalWaitersFor(Collection<ResourceLock> unlockedResources) {
+        for (Waiter waiter : untargetedWaiters) {
+            waiter.signal();
+        }
+        for (ResourceLock resource : unlockedResources) {
+            Set<Waiter> waiters = waitersByContentionKey.get(contentionKeyOf(resource));
+            if (waiters != null) {
+                for (Waiter waiter : waiters) {
+                    waiter.signal();
+                }
+            }
+        }
+    }
+
     @Override
     public void notifyStateChange() {
-        synchronized (lock) {
-            lock.notifyAll();
+        lock.lock();
+        try {
+            for (Waiter waiter : untargetedWaiters) {
+                waiter.signal();
+            }
+            for (Set<Waiter> waiters : waitersByContentionKey.values()) {
+                for (Waiter waiter : waiters) {
+                    waiter.signal();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void notifyStateChange(Object condition) {
+        lock.lock();
+        try {
+            for (Waiter waiter : untargetedWaiters) {
+                waiter.signal();
+            }
+            Set<Waiter> waiters = waitersByContentionKey.get(condition);
+            if (waiters != null) {
+                for (Waiter waiter : waiters) {
+                    waiter.signal();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static Object contentionKeyOf(ResourceLock resourceLock) {
+        return resourceLock instanceof AbstractTrackedResourceLock ? ((AbstractTrackedResourceLock) resourceLock).getContentionKey() : resourceLock;
+    }
+
+    private static class Waiter {
+        private final Condition condition;
+        private final List<Object> contentionKeys;
+        private boolean signalled;
+
+        Waiter(Condition condition, List<Object> contentionKeys) {
+            this.condition = condition;
+            this.contentionKeys = contentionKeys;
+        }
+
+        void signal() {
+            if (!signalled) {
+                signalled = true;
+                condition.signal();
+            }
         }
     }
 
     private static class DefaultResourceLockState implements ResourceLockState {
+        private final Set<Object> contentionKeys;
         private Set<ResourceLock> lockedResources;
         private Set<ResourceLock> unlockedResources;
+        private ResourceLockWaitObserver.Wait wait;
+        private Set<Object> waitedFor;
         boolean rollback;
 
+        DefaultResourceLockState(Set<Object> contentionKeys) {
+            this.contentionKeys = contentionKeys;
+        }
+
+        void startWaiting(ResourceLockWaitObserver waitObserver) {
+            if (wait == null) {
+                wait = waitObserver.startWaiting();
+                waitedFor = new LinkedHashSet<Object>();
+            }
+            waitedFor.addAll(contentionKeys);
+        }
+
+        void finishWaiting() {
+            if (wait != null) {
+                wait.finished(waitedFor);
+                wait = null;
+                waitedFor = null;
+            }
+        }
+
         @Override
         public void registerLocked(ResourceLock resourceLock) {
             if (!rollback && (unlockedResources == null || !unlockedResources.remove(resourceLock))) {
@@ -211,6 +388,20 @@ public void registerUnlocked(ResourceLock resourceLock) {
             }
         }
 
+        @Override
+        public void registerContended(ResourceLock resourceLock) {
+            if (resourceLock instanceof AbstractTrackedResourceLock) {
+                ((AbstractTrackedResourceLock) resourceLock).collectContentionKeys(contentionKeys);
+            } else {
+                contentionKeys.add(resourceLock);
+            }
+        }
+
+        @Override
+        public void registerWaitingFor(Object condition) {
+            contentionKeys.add(condition);
+        }
+
         Collection<ResourceLock> getUnlockedResources() {
             return unlockedResources == null ? Collections.<ResourceLock>emptyList() : unlockedResources;
         }
@@ -65,6 +65,12 @@ public interface ResourceLockCoordinationService {
      */
     void notifyStateChange();
 
+    /**
+     * Notify the threads waiting for the given condition, registered using {@link ResourceLockState#registerWaitingFor(Object)},
+     * and the threads that are not waiting for anything in particular.
+     */
+    void notifyStateChange(Object condition);
+
     void assertHasStateLock();
 
     /**
@@ -38,6 +38,22 @@ enum Disposition { FAILED, FINISHED, RETRY }
      */
     void registerUnlocked(ResourceLock resourceLock);
 
+    /**
+     * Registers a resource lock that could not be acquired during the transform, so that the coordination service
+     * can wake the thread when the lock is released, should the transform be retried.
+     *
+     * @param resourceLock
+     */
+    void registerContended(ResourceLock resourceLock);
+
+    /**
+     * Registers a condition that the transform is waiting for, so that the coordination service can wake the thread
+     * when the condition is signalled using {@link ResourceLockCoordinationService#notifyStateChange(Object)}, should the transform be retried.
+     *
+     * @param condition
+     */
+    void registerWaitingFor(Object condition);
+
     /**
      * Release any locks that have been acquired during the transform.
      */
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resources;
+
+import java.util.Collection;
+
+/**
+ * Observes the threads of a {@link DefaultResourceLockCoordinationService} that block waiting for a resource lock state change,
+ * such as a thread waiting for a worker lease, a project lock or work to run.
+ */
+public interface ResourceLockWaitObserver {
+    ResourceLockWaitObserver NONE = new ResourceLockWaitObserver() {
+        @Override
+        public Wait startWaiting() {
+            return Wait.NONE;
+        }
+    };
+
+    /**
+     * Called when the current thread first blocks during a state change. The returned wait is finished once the state change completes.
+     */
+    Wait startWaiting();
+
+    interface Wait {
+        Wait NONE = new Wait() {
+            @Override
+            public void finished(Collection<?> waitedFor) {
+            }
+        };
+
+        /**
+         * Called by the thread that waited, once it no longer holds the state lock.
+         *
+         * @param waitedFor the resource locks and conditions that the thread waited for.
+         */
+        void finished(Collection<?> waitedFor);
+    }
+}
@@ -21,6 +21,8 @@ import org.gradle.internal.InternalTransformer
 import org.gradle.test.fixtures.ConcurrentTestUtil
 import org.gradle.test.fixtures.concurrent.ConcurrentSpec
 
+import java.util.concurrent.atomic.AtomicInteger
+
 import static org.gradle.internal.resources.DefaultResourceLockCoordinationService.lock
 import static org.gradle.internal.resources.DefaultResourceLockCoordinationService.tryLock
 import static org.gradle.internal.resources.DefaultResourceLockCoordinationService.unlock
@@ -403,6 +405,139 @@ class DefaultResourceLockCoordinationServiceTest extends ConcurrentSpec {
         0 * listener._
     }
 
+    def "retrying action is only woken up when a lock it failed to acquire is released"() {
+        def lock1 = resourceLock("lock1", true)
+        def lock2 = resourceLock("lock2", true)
+        def attempts = new AtomicInteger()
+
+        when:
+        async {
+            start {
+                coordinationService.withStateLock { state ->
+                    attempts.incrementAndGet()
+                    instant."attempt${attempts.get()}"
+                    return lock1.tryLock() ? FINISHED : RETRY
+                }
+                assert lock1.doIsLockedByCurrentThread()
+            }
+
+            thread.blockUntil.attempt1
+            lock2.lockedState = false
+            coordinationService.withStateLock { state ->
+                state.registerUnlocked(lock2)
+                return FINISHED
+            }
+            thread.block()
+            assert attempts.get() == 1
+
+            lock1.lockedState = false
+            coordinationService.withStateLock { state ->
+                state.registerUnlocked(lock1)
+                return FINISHED
+            }
+            thread.blockUntil.attempt2
+        }
+
+        then:
+        attempts.get() == 2
+        lock1.lockedState
+    }
+
+    def "retrying action that did not fail to acquire a lock is woken up by any release"() {
+        def lock = resourceLock("lock1", true)
+        def attempts = new AtomicInteger()
+
+        when:
+        async {
+            start {
+                coordinationService.withStateLock { state ->
+                    attempts.incrementAndGet()
+                    instant."attempt${attempts.get()}"
+                    return attempts.get() > 1 ? FINISHED : RETRY
+                }
+            }
+
+            thread.blockUntil.attempt1
+            lock.lockedState = false
+            coordinationService.withStateLock { state ->
+                state.registerUnlocked(lock)
+                return FINISHED
+            }
+            thread.blockUntil.attempt2
+        }
+
+        then:
+        attempts.get() == 2
+    }
+
+    def "retrying action that waits for a condition is only woken up when the condition is signalled"() {
+        def lock = resourceLock("lock1", true)
+        def condition = new Object()
+        def attempts = new AtomicInteger()
+
+        when:
+        async {
+            start {
+                coordinationService.withStateLock { state ->
+                    attempts.incrementAndGet()
+                    instant."attempt${attempts.get()}"
+                    if (attempts.get() > 1) {
+                        return FINISHED
+                    }
+                    state.registerWaitingFor(condition)
+                    return RETRY
+                }
+            }
+
+            thread.blockUntil.attempt1
+            lock.lockedState = false
+            coordinationService.withStateLock { state ->
+                state.registerUnlocked(lock)
+                return FINISHED
+            }
+            coordinationService.notifyStateChange(new Object())
+            thread.block()
+            assert attempts.get() == 1
+
+            coordinationService.notifyStateChange(condition)
+            thread.blockUntil.attempt2
+        }
+
+        then:
+        attempts.get() == 2
+    }
+
+    def "reports waits to observer"() {
+        def wait = Mock(ResourceLockWaitObserver.Wait)
+        def observer = Mock(ResourceLockWaitObserver)
+        def coordinationService = new DefaultResourceLockCoordinationService(observer)
+        def lock = new TestTrackedResourceLock("lock1", coordinationService, Mock(ResourceLockContainer), true, false)
+        def attempts = new AtomicInteger()
+
+        when:
+        async {
+            start {
+                coordinationService.withStateLock { state ->
+                    attempts.incrementAndGet()
+                    instant."attempt${attempts.get()}"
+                    return lock.tryLock() ? FINISHED : RETRY
+                }
+            }
+
+            thread.blockUntil.attempt1
+            lock.lockedState = false
+            coordinationService.withStateLock { state ->
+                state.registerUnlocked(lock)
+                return FINISHED
+            }
+            thread.blockUntil.attempt2
+        }
+
+        then:
+        1 * observer.startWaiting() >> wait
+        1 * wait.finished([lock] as Set)
+    }
+
     TestTrackedResourceLock resourceLock(String displayName, boolean locked, boolean hasLock = false) {
         return new TestTrackedResourceLock(displayName, coordinationService, Mock(ResourceLockContainer), locked, hasLock)
     }
@@ -0,0 +1,380 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive.impl;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.io.ByteStreams;
+import org.gradle.api.internal.file.archive.ZipEntry;
+import org.gradle.api.internal.file.archive.ZipInput;
+import org.gradle.internal.file.FileException;
+import org.gradle.internal.io.IoFunction;
+
+import javax.annotation.Nullable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Reads the entries of a zip file through a {@link FileChannel}, starting from its central directory.
+ *
+ * <p>Unlike {@link FileZipInput}, the entries can be read concurrently, from any thread, as long as the input is open,
+ * as their data is read with positional reads of the channel. Deflated entries are inflated straight from the channel.
+ * The file is released as soon as the input is closed.</p>
+ *
+ * <p>Only plain zip files are supported, see {@link #open(File)}.</p>
+ */
+public class FileChannelZipInput implements ZipInput {
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int CENTRAL_DIRECTORY_HEADER_SIGNATURE = 0x02014b50;
+    private static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIZE = 20;
+    private static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+    private static final int LOCAL_FILE_HEADER_SIZE = 30;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+    private static final int ENCRYPTED_FLAG = 1;
+
+    private final FileChannel channel;
+    private final ByteBuffer centralDirectory;
+    private final int entryCount;
+
+    private FileChannelZipInput(FileChannel channel, ByteBuffer centralDirectory, int entryCount) {
+        this.channel = channel;
+        this.centralDirectory = centralDirectory;
+        this.entryCount = entryCount;
+    }
+
+    /**
+     * Opens the given zip file, returning {@code null} when it is a Zip64 or otherwise unusual archive.
+     * Callers fall back to {@link FileZipInput} in these cases. Caller is responsible for closing the return value.
+     *
+     * @throws IOException on failure to read the file
+     */
+    @Nullable
+    public static FileChannelZipInput open(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            FileChannelZipInput input = fromCentralDirectory(channel);
+            if (input == null) {
+                channel.close();
+            }
+            return input;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Nullable
+    private static FileChannelZipInput fromCentralDirectory(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < END_OF_CENTRAL_DIRECTORY_SIZE) {
+            return null;
+        }
+        int tailSize = (int) Math.min(size, ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIZE + END_OF_CENTRAL_DIRECTORY_SIZE + MAX_COMMENT_SIZE);
+        long tailOffset = size - tailSize;
+        ByteBuffer tail = read(channel, tailOffset, tailSize);
+        int end = findEndOfCentralDirectory(tail);
+        if (end < 0) {
+            return null;
+        }
+        if (end >= ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIZE && tail.getInt(end - ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIZE) == ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE) {
+            return null;
+        }
+        int entryCount = unsignedShort(tail, end + 10);
+        long centralDirectorySize = unsignedInt(tail, end + 12);
+        long centralDirectoryOffset = unsignedInt(tail, end + 16);
+        if (centralDirectoryOffset + centralDirectorySize > tailOffset + end) {
+            return null;
+        }
+        return new FileChannelZipInput(channel, read(channel, centralDirectoryOffset, (int) centralDirectorySize), entryCount);
+    }
+
+    private static int findEndOfCentralDirectory(ByteBuffer buffer) {
+        int last = buffer.limit() - END_OF_CENTRAL_DIRECTORY_SIZE;
+        int first = Math.max(0, last - MAX_COMMENT_SIZE);
+        for (int offset = last; offset >= first; offset--) {
+            if (buffer.getInt(offset) == END_OF_CENTRAL_DIRECTORY_SIGNATURE && offset + END_OF_CENTRAL_DIRECTORY_SIZE + unsignedShort(buffer, offset + 20) == buffer.limit()) {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads the given range of the channel, without changing the position of the channel so that it can be called concurrently.
+     */
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of zip file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    @Override
+    public Iterator<ZipEntry> iterator() {
+        return new AbstractIterator<ZipEntry>() {
+            private int offset;
+            private int remaining = entryCount;
+
+            @Override
+            protected ZipEntry computeNext() {
+                if (remaining == 0) {
+                    return endOfData();
+                }
+                remaining--;
+                if (offset + CENTRAL_DIRECTORY_HEADER_SIZE > centralDirectory.limit() || centralDirectory.getInt(offset) != CENTRAL_DIRECTORY_HEADER_SIGNATURE) {
+                    throw new FileException(new ZipException("Invalid central directory header at offset " + offset));
+                }
+                int nameLength = unsignedShort(centralDirectory, offset + 28);
+                ChannelZipEntry entry = new ChannelZipEntry(
+                    readName(offset + CENTRAL_DIRECTORY_HEADER_SIZE, nameLength),
+                    unsignedShort(centralDirectory, offset + 8),
+                    unsignedShort(centralDirectory, offset + 10),
+                    unsignedInt(centralDirectory, offset + 20),
+                    unsignedInt(centralDirectory, offset + 24),
+                    unsignedInt(centralDirectory, offset + 42)
+                );
+                offset += CENTRAL_DIRECTORY_HEADER_SIZE + nameLength + unsignedShort(centralDirectory, offset + 30) + unsignedShort(centralDirectory, offset + 32);
+                return entry;
+            }
+        };
+    }
+
+    private String readName(int offset, int length) {
+        // Names are decoded as UTF-8, like java.util.zip.ZipFile does by default
+        byte[] name = new byte[length];
+        ByteBuffer source = centralDirectory.duplicate();
+        source.position(offset);
+        source.get(name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static int unsignedShort(ByteBuffer buffer, int offset) {
+        return buffer.getShort(offset) & 0xFFFF;
+    }
+
+    private static long unsignedInt(ByteBuffer buffer, int offset) {
+        return buffer.getInt(offset) & 0xFFFFFFFFL;
+    }
+
+    private class ChannelZipEntry implements ZipEntry {
+        private final String name;
+        private final int flags;
+        private final int method;
+        private final long compressedSize;
+        private final long size;
+        private final long localHeaderOffset;
+
+        ChannelZipEntry(String name, int flags, int method, long compressedSize, long size, long localHeaderOffset) {
+            this.name = name;
+            this.flags = flags;
+            this.method = method;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+
+        @Override
+        public boolean isDirectory() {
+            return name.endsWith("/");
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int size() {
+            return (int) size;
+        }
+
+        @Override
+        public boolean canReopen() {
+            return true;
+        }
+
+        @Override
+        public ZipCompressionMethod getCompressionMethod() {
+            switch (method) {
+                case java.util.zip.ZipEntry.STORED:
+                    return ZipCompressionMethod.STORED;
+                case java.util.zip.ZipEntry.DEFLATED:
+                    return ZipCompressionMethod.DEFLATED;
+                default:
+                    return ZipCompressionMethod.OTHER;
+            }
+        }
+
+        @Override
+        public byte[] getContent() throws IOException {
+            return withInputStream(inputStream -> {
+                byte[] content = new byte[size()];
+                ByteStreams.readFully(inputStream, content);
+                return content;
+            });
+        }
+
+        @Override
+        public <T> T withInputStream(IoFunction<InputStream, T> action) throws IOException {
+            InputStream inputStream = openStream();
+            try {
+                return action.apply(inputStream);
+            } finally {
+                inputStream.close();
+            }
+        }
+
+        private InputStream openStream() throws IOException {
+            if ((flags & ENCRYPTED_FLAG) != 0) {
+                throw new ZipException("Encrypted zip entry '" + name + "' is not supported");
+            }
+            InputStream data = data();
+            switch (method) {
+                case java.util.zip.ZipEntry.STORED:
+                    return data;
+                case java.util.zip.ZipEntry.DEFLATED:
+                    return new ChannelInflaterInputStream(data);
+                default:
+                    throw new ZipException("Unsupported compression method " + method + " of zip entry '" + name + "'");
+            }
+        }
+
+        /**
+         * Returns a stream of its own over the compressed data of this entry, which follows the local file header of the entry.
+         */
+        private InputStream data() throws IOException {
+            if (localHeaderOffset + LOCAL_FILE_HEADER_SIZE > channel.size()) {
+                throw new ZipException("Invalid local file header of zip entry '" + name + "'");
+            }
+            ByteBuffer header = read(channel, localHeaderOffset, LOCAL_FILE_HEADER_SIZE);
+            if (header.getInt(0) != LOCAL_FILE_HEADER_SIGNATURE) {
+                throw new ZipException("Invalid local file header of zip entry '" + name + "'");
+            }
+            long start = localHeaderOffset + LOCAL_FILE_HEADER_SIZE + unsignedShort(header, 26) + unsignedShort(header, 28);
+            if (start + compressedSize > channel.size()) {
+                throw new ZipException("Truncated zip entry '" + name + "'");
+            }
+            return new ChannelRangeInputStream(start, compressedSize);
+        }
+    }
+
+    /**
+     * Reads a range of the channel with positional reads, so that several streams can read the channel concurrently.
+     */
+    private class ChannelRangeInputStream extends InputStream {
+        private long position;
+        private long remaining;
+
+        ChannelRangeInputStream(long position, long length) {
+            this.position = position;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (remaining == 0) {
+                return -1;
+            }
+            int count = channel.read(ByteBuffer.wrap(bytes, off, (int) Math.min(len, remaining)), position);
+            if (count < 0) {
+                throw new EOFException("Unexpected end of zip file");
+            }
+            position += count;
+            remaining -= count;
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            long count = Math.min(Math.max(n, 0), remaining);
+            position += count;
+            remaining -= count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(remaining, Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Inflates raw deflate data, releasing the native memory of its inflater when closed.
+     */
+    private static class ChannelInflaterInputStream extends InflaterInputStream {
+        private boolean eof;
+
+        ChannelInflaterInputStream(InputStream in) {
+            super(in, new Inflater(true), 8192);
+        }
+
+        @Override
+        protected void fill() throws IOException {
+            if (eof) {
+                throw new EOFException("Unexpected end of ZLIB input stream");
+            }
+            len = in.read(buf, 0, buf.length);
+            if (len == -1) {
+                // The inflater may need an extra dummy byte when the data has no trailer, like java.util.zip.ZipFile provides
+                buf[0] = 0;
+                len = 1;
+                eof = true;
+            }
+            inf.setInput(buf, 0, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                inf.end();
+            }
+        }
+    }
+}
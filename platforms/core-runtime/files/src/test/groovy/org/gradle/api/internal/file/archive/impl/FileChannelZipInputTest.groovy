@@ -0,0 +1,109 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive.impl
+
+import org.gradle.api.internal.file.archive.ZipEntry
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.nio.channels.ClosedChannelException
+import java.util.zip.CRC32
+import java.util.zip.ZipOutputStream
+
+class FileChannelZipInputTest extends Specification implements ZipFileFixture {
+    @Rule
+    TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+
+    def "reads deflated and stored entries"() {
+        def file = temporaryFolder.file("entries.zip")
+        def storedContent = "stored".bytes
+        file.withOutputStream { out ->
+            def zipStream = new ZipOutputStream(out)
+            zipStream.putNextEntry(new java.util.zip.ZipEntry("dir/"))
+            zipStream.putNextEntry(new java.util.zip.ZipEntry("dir/deflated.txt"))
+            zipStream.write(("deflated" * 100).bytes)
+            def stored = new java.util.zip.ZipEntry("stored.txt")
+            stored.method = java.util.zip.ZipEntry.STORED
+            stored.size = storedContent.length
+            def crc = new CRC32()
+            crc.update(storedContent)
+            stored.crc = crc.value
+            zipStream.putNextEntry(stored)
+            zipStream.write(storedContent)
+            zipStream.close()
+        }
+
+        when:
+        def zipInput = FileChannelZipInput.open(file)
+        def entries = zipInput.collect()
+
+        then:
+        entries*.name == ["dir/", "dir/deflated.txt", "stored.txt"]
+        entries*.directory == [true, false, false]
+        entries[1].compressionMethod == ZipEntry.ZipCompressionMethod.DEFLATED
+        new String(entries[1].content) == "deflated" * 100
+        entries[2].compressionMethod == ZipEntry.ZipCompressionMethod.STORED
+        entries[2].size() == storedContent.length
+        entries[2].content == storedContent
+
+        cleanup:
+        zipInput?.close()
+    }
+
+    def "can read entry content a second time"() {
+        def file = makeZip("foo.zip")
+        def zipInput = FileChannelZipInput.open(file)
+
+        when:
+        def zipEntry = zipInput.iterator().next()
+
+        then:
+        zipEntry.canReopen()
+        zipEntry.withInputStream { readAllBytes(it) } == ZIP_ENTRY_CONTENT.bytes
+        zipEntry.content == ZIP_ENTRY_CONTENT.bytes
+
+        cleanup:
+        zipInput?.close()
+    }
+
+    def "releases file when closed"() {
+        def file = makeZip("foo.zip")
+        def zipInput = FileChannelZipInput.open(file)
+        def zipEntry = zipInput.iterator().next()
+
+        when:
+        zipInput.close()
+
+        then:
+        file.delete()
+
+        when:
+        zipEntry.content
+
+        then:
+        thrown(ClosedChannelException)
+    }
+
+    def "does not open file that is not a zip"() {
+        def file = temporaryFolder.file("badly-formed")
+        file.text = "not a zip file, but long enough to hold an end of central directory record"
+
+        expect:
+        FileChannelZipInput.open(file) == null
+    }
+}
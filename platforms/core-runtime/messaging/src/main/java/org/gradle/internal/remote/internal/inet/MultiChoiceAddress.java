@@ -15,9 +15,11 @@
  */
 package org.gradle.internal.remote.internal.inet;
 
+import com.google.common.base.Objects;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 
+import javax.annotation.Nullable;
 import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.List;
@@ -27,15 +29,24 @@ public class MultiChoiceAddress implements InetEndpoint {
     private final UUID canonicalAddress;
     private final int port;
     private final List<InetAddress> candidates;
+    private final String unixSocketPath;
 
     public MultiChoiceAddress(UUID canonicalAddress, int port, List<InetAddress> candidates) {
+        this(canonicalAddress, port, candidates, null);
+    }
+
+    public MultiChoiceAddress(UUID canonicalAddress, int port, List<InetAddress> candidates, @Nullable String unixSocketPath) {
         this.canonicalAddress = canonicalAddress;
         this.port = port;
         this.candidates = new ArrayList<InetAddress>(candidates);
+        this.unixSocketPath = unixSocketPath;
     }
 
     @Override
     public String getDisplayName() {
+        if (unixSocketPath != null) {
+            return "[" + canonicalAddress + " port:" + port + ", addresses:" + candidates + ", socket:" + unixSocketPath + "]";
+        }
         return "[" + canonicalAddress + " port:" + port + ", addresses:" + candidates + "]";
     }
 
@@ -53,6 +64,14 @@ public int getPort() {
         return port;
     }
 
+    /**
+     * Returns the path of the Unix domain socket that can be connected to instead of the TCP port, if any.
+     */
+    @Nullable
+    public String getUnixSocketPath() {
+        return unixSocketPath;
+    }
+
     @Override
     public String toString() {
         return getDisplayName();
@@ -67,7 +86,7 @@ public boolean equals(Object o) {
             return false;
         }
         MultiChoiceAddress other = (MultiChoiceAddress) o;
-        return other.canonicalAddress.equals(canonicalAddress) && port == other.port && candidates.equals(other.candidates);
+        return other.canonicalAddress.equals(canonicalAddress) && port == other.port && candidates.equals(other.candidates) && Objects.equal(unixSocketPath, other.unixSocketPath);
     }
 
     @Override
@@ -76,6 +95,10 @@ public int hashCode() {
     }
 
     public MultiChoiceAddress addAddresses(Iterable<InetAddress> candidates) {
-        return new MultiChoiceAddress(canonicalAddress, port, Lists.newArrayList(Iterables.concat(candidates, this.candidates)));
+        return new MultiChoiceAddress(canonicalAddress, port, Lists.newArrayList(Iterables.concat(candidates, this.candidates)), unixSocketPath);
+    }
+
+    public MultiChoiceAddress withUnixSocketPath(String unixSocketPath) {
+        return new MultiChoiceAddress(canonicalAddress, port, candidates, unixSocketPath);
     }
 }
@@ -33,6 +33,7 @@
 
 import java.io.*;
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedSelectorException;
 import java.nio.channels.SelectionKey;
@@ -42,8 +43,8 @@
 public class SocketConnection<T> implements RemoteConnection<T> {
     private static final Logger LOGGER = LoggerFactory.getLogger(SocketConnection.class);
     private final SocketChannel socket;
-    private final SocketInetAddress localAddress;
-    private final SocketInetAddress remoteAddress;
+    private final Object localAddress;
+    private final Object remoteAddress;
     private final ObjectWriter<T> objectWriter;
     private final ObjectReader<T> objectReader;
     private final InputStream instr;
@@ -61,10 +62,12 @@ public SocketConnection(SocketChannel socket, MessageSerializer streamSerializer
         } catch (IOException e) {
             throw UncheckedException.throwAsUncheckedException(e);
         }
-        InetSocketAddress localSocketAddress = (InetSocketAddress) socket.socket().getLocalSocketAddress();
-        localAddress = new SocketInetAddress(localSocketAddress.getAddress(), localSocketAddress.getPort());
-        InetSocketAddress remoteSocketAddress = (InetSocketAddress) socket.socket().getRemoteSocketAddress();
-        remoteAddress = new SocketInetAddress(remoteSocketAddress.getAddress(), remoteSocketAddress.getPort());
+        try {
+            localAddress = displayAddressOf(socket.getLocalAddress());
+            remoteAddress = displayAddressOf(socket.getRemoteAddress());
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
         objectReader = messageSerializer.newReader(streamSerializer.newDecoder(instr));
         encoder = streamSerializer.newEncoder(outstr);
         objectWriter = messageSerializer.newWriter(encoder);
@@ -75,6 +78,17 @@ public String toString() {
         return "socket connection from " + localAddress + " to " + remoteAddress;
     }
 
+    /**
+     * Returns the address to use in messages for the given socket address, which is not an internet address for Unix domain sockets.
+     */
+    private static Object displayAddressOf(SocketAddress socketAddress) {
+        if (socketAddress instanceof InetSocketAddress) {
+            InetSocketAddress inetSocketAddress = (InetSocketAddress) socketAddress;
+            return new SocketInetAddress(inetSocketAddress.getAddress(), inetSocketAddress.getPort());
+        }
+        return socketAddress;
+    }
+
     @Override
     public T receive() throws MessageIOException {
         try {
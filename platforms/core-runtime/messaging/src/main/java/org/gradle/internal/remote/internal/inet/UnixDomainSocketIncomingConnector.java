@@ -0,0 +1,143 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.inet;
+
+import org.gradle.api.Action;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.remote.Address;
+import org.gradle.internal.remote.ConnectionAcceptor;
+import org.gradle.internal.remote.internal.ConnectCompletion;
+import org.gradle.internal.remote.internal.IncomingConnector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+/**
+ * Accepts local connections on a Unix domain socket, in addition to the connections accepted by a TCP connector.
+ *
+ * The path of the socket is added to the address of the TCP connector, so that clients that cannot use the socket connect over TCP instead.
+ */
+public class UnixDomainSocketIncomingConnector implements IncomingConnector {
+    private static final Logger LOGGER = LoggerFactory.getLogger(UnixDomainSocketIncomingConnector.class);
+    private final ExecutorFactory executorFactory;
+    private final IncomingConnector tcpConnector;
+
+    public UnixDomainSocketIncomingConnector(ExecutorFactory executorFactory, IncomingConnector tcpConnector) {
+        this.executorFactory = executorFactory;
+        this.tcpConnector = tcpConnector;
+    }
+
+    @Override
+    public ConnectionAcceptor accept(Action<ConnectCompletion> action, boolean allowRemote) {
+        final ConnectionAcceptor tcpAcceptor = tcpConnector.accept(action, allowRemote);
+        if (!(tcpAcceptor.getAddress() instanceof MultiChoiceAddress)) {
+            return tcpAcceptor;
+        }
+
+        final Path socketDir;
+        final Path socketPath;
+        final ServerSocketChannel serverSocket;
+        try {
+            // Only the current user may connect to the socket
+            socketDir = Files.createTempDirectory("gradle-", PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+            socketPath = socketDir.resolve("socket");
+            try {
+                serverSocket = UnixDomainSockets.openServerSocketChannel(socketPath);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(socketDir);
+                throw e;
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.debug("Could not listen on a Unix domain socket, accepting TCP connections only.", e);
+            return tcpAcceptor;
+        }
+
+        final Address address = ((MultiChoiceAddress) tcpAcceptor.getAddress()).withUnixSocketPath(socketPath.toString());
+        LOGGER.debug("Listening on {}.", address);
+
+        final ManagedExecutor executor = executorFactory.create("Incoming local Unix domain socket Connector on " + socketPath);
+        executor.execute(new Receiver(serverSocket, action));
+
+        return new ConnectionAcceptor() {
+            @Override
+            public Address getAddress() {
+                return address;
+            }
+
+            @Override
+            public void requestStop() {
+                CompositeStoppable.stoppable(serverSocket).stop();
+                try {
+                    Files.deleteIfExists(socketPath);
+                    Files.deleteIfExists(socketDir);
+                } catch (IOException e) {
+                    LOGGER.debug("Could not delete Unix domain socket {}.", socketPath, e);
+                }
+                tcpAcceptor.requestStop();
+            }
+
+            @Override
+            public void stop() {
+                requestStop();
+                CompositeStoppable.stoppable(executor, tcpAcceptor).stop();
+            }
+        };
+    }
+
+    private static class Receiver implements Runnable {
+        private final ServerSocketChannel serverSocket;
+        private final Action<ConnectCompletion> action;
+
+        public Receiver(ServerSocketChannel serverSocket, Action<ConnectCompletion> action) {
+            this.serverSocket = serverSocket;
+            this.action = action;
+        }
+
+        @Override
+        public void run() {
+            try {
+                try {
+                    while (true) {
+                        final SocketChannel socket = serverSocket.accept();
+                        LOGGER.debug("Accepted connection on {}.", socket.getLocalAddress());
+                        try {
+                            action.execute(new SocketConnectCompletion(socket));
+                        } catch (Throwable t) {
+                            socket.close();
+                            throw t;
+                        }
+                    }
+                } catch (ClosedChannelException e) {
+                    // Ignore
+                } catch (Throwable e) {
+                    LOGGER.error("Could not accept local connection.", e);
+                }
+            } finally {
+                CompositeStoppable.stoppable(serverSocket).stop();
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.inet;
+
+import org.gradle.internal.os.OperatingSystem;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+/**
+ * Opens Unix domain socket channels, which are available on JDK 16 and later.
+ *
+ * The channels are created reflectively, as this code also runs in worker processes on older JDKs.
+ */
+public class UnixDomainSockets {
+    /**
+     * Enables accepting local connections on Unix domain sockets, in addition to TCP.
+     */
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.remote.unix-domain-sockets";
+
+    private static final Support SUPPORT = Support.detect();
+
+    private UnixDomainSockets() {
+    }
+
+    /**
+     * Returns whether connections can be accepted on Unix domain sockets.
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY) && isSupported();
+    }
+
+    /**
+     * Returns whether this process can connect to a Unix domain socket.
+     */
+    public static boolean isSupported() {
+        return SUPPORT != null;
+    }
+
+    static ServerSocketChannel openServerSocketChannel(Path path) throws IOException {
+        Support support = getSupport();
+        ServerSocketChannel channel = (ServerSocketChannel) invoke(support.openServerSocketChannel, support.protocolFamily);
+        try {
+            channel.bind((SocketAddress) invoke(support.addressOf, path));
+            return channel;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    static SocketChannel openSocketChannel(Path path) throws IOException {
+        Support support = getSupport();
+        SocketChannel channel = (SocketChannel) invoke(support.openSocketChannel, support.protocolFamily);
+        try {
+            channel.connect((SocketAddress) invoke(support.addressOf, path));
+            return channel;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static Support getSupport() {
+        if (SUPPORT == null) {
+            throw new UnsupportedOperationException("Unix domain sockets are not supported by this JVM.");
+        }
+        return SUPPORT;
+    }
+
+    private static Object invoke(Method method, Object argument) throws IOException {
+        try {
+            return method.invoke(null, argument);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static class Support {
+        private final ProtocolFamily protocolFamily;
+        private final Method openServerSocketChannel;
+        private final Method openSocketChannel;
+        private final Method addressOf;
+
+        private Support(ProtocolFamily protocolFamily, Method openServerSocketChannel, Method openSocketChannel, Method addressOf) {
+            this.protocolFamily = protocolFamily;
+            this.openServerSocketChannel = openServerSocketChannel;
+            this.openSocketChannel = openSocketChannel;
+            this.addressOf = addressOf;
+        }
+
+        @Nullable
+        static Support detect() {
+            if (!OperatingSystem.current().isLinux()) {
+                return null;
+            }
+            try {
+                ProtocolFamily protocolFamily = StandardProtocolFamily.valueOf("UNIX");
+                Method openServerSocketChannel = ServerSocketChannel.class.getMethod("open", ProtocolFamily.class);
+                Method openSocketChannel = SocketChannel.class.getMethod("open", ProtocolFamily.class);
+                Method addressOf = Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", Path.class);
+                return new Support(protocolFamily, openServerSocketChannel, openSocketChannel, addressOf);
+            } catch (IllegalArgumentException | ReflectiveOperationException e) {
+                return null;
+            }
+        }
+    }
+}
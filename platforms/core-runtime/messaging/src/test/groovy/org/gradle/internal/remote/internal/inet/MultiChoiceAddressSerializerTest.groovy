@@ -24,4 +24,11 @@ class MultiChoiceAddressSerializerTest extends SerializerSpec {
         expect:
         serialize(address, new MultiChoiceAddressSerializer()) == address
     }
+
+    def "serializes an address with a Unix domain socket"() {
+        def address = new MultiChoiceAddress(UUID.randomUUID(), 1234, [InetAddress.getByName(null)], "/tmp/gradle-123/socket")
+
+        expect:
+        serialize(address, new MultiChoiceAddressSerializer()) == address
+    }
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.inet
+
+import org.gradle.api.Action
+import org.gradle.internal.id.UUIDGenerator
+import org.gradle.internal.remote.internal.ConnectCompletion
+import org.gradle.internal.serialize.BaseSerializerFactory
+import org.gradle.internal.serialize.Serializers
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+import org.gradle.test.precondition.Requires
+import org.gradle.test.preconditions.UnitTestPreconditions
+import spock.lang.Shared
+import spock.lang.Timeout
+
+@Timeout(60)
+@Requires([UnitTestPreconditions.Linux, UnitTestPreconditions.Jdk16OrLater])
+class UnixDomainSocketConnectorTest extends ConcurrentSpec {
+    @Shared def serializer = Serializers.stateful(BaseSerializerFactory.STRING_SERIALIZER)
+    final def tcpIncomingConnector = new TcpIncomingConnector(executorFactory, new InetAddressFactory(), new UUIDGenerator())
+    final def incomingConnector = new UnixDomainSocketIncomingConnector(executorFactory, tcpIncomingConnector)
+    final def outgoingConnector = new UnixDomainSocketOutgoingConnector(new TcpOutgoingConnector())
+
+    def "client connects to server over Unix domain socket"() {
+        Action action = Mock()
+
+        when:
+        def acceptor = incomingConnector.accept(action, false)
+        def connection = outgoingConnector.connect(acceptor.address).create(serializer)
+        thread.blockUntil.connected
+
+        then:
+        acceptor.address.unixSocketPath != null
+        connection.toString().contains(acceptor.address.unixSocketPath)
+        1 * action.execute(!null) >> { instant.connected }
+
+        cleanup:
+        acceptor?.stop()
+        connection?.stop()
+    }
+
+    def "client and server exchange messages over Unix domain socket"() {
+        when:
+        def acceptor = incomingConnector.accept({ ConnectCompletion completion ->
+            def connection = completion.create(serializer)
+            connection.dispatch(connection.receive().toUpperCase())
+            connection.flush()
+            connection.stop()
+        } as Action, false)
+        def connection = outgoingConnector.connect(acceptor.address).create(serializer)
+        connection.dispatch("hello")
+        connection.flush()
+
+        then:
+        connection.receive() == "HELLO"
+
+        cleanup:
+        acceptor?.stop()
+        connection?.stop()
+    }
+
+    def "client connects over TCP when Unix domain socket is not available"() {
+        Action action = Mock()
+
+        when:
+        def acceptor = incomingConnector.accept(action, false)
+        def address = acceptor.address.withUnixSocketPath("/does-not-exist/socket")
+        def connection = outgoingConnector.connect(address).create(serializer)
+        thread.blockUntil.connected
+
+        then:
+        !connection.toString().contains(acceptor.address.unixSocketPath)
+        1 * action.execute(!null) >> { instant.connected }
+
+        cleanup:
+        acceptor?.stop()
+        connection?.stop()
+    }
+
+    def "deletes socket when server stopped"() {
+        Action action = Mock()
+
+        when:
+        def acceptor = incomingConnector.accept(action, false)
+        def socketFile = new File(acceptor.address.unixSocketPath)
+
+        then:
+        socketFile.exists()
+
+        when:
+        acceptor.stop()
+
+        then:
+        !socketFile.exists()
+        !socketFile.parentFile.exists()
+    }
+}
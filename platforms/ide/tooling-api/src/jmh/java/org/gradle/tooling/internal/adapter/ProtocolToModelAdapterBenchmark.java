@@ -0,0 +1,174 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.tooling.internal.adapter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Traverses a model adapted by {@link ProtocolToModelAdapter}, the way an IDE traverses the project model it has fetched.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+public class ProtocolToModelAdapterBenchmark {
+    @Param({"100", "1500"})
+    int modules;
+
+    @Param({"50"})
+    int dependencies;
+
+    private final ProtocolToModelAdapter adapter = new ProtocolToModelAdapter();
+    private ProtocolModel protocolModel;
+    private Model adaptedModel;
+
+    @Setup
+    public void setup() {
+        List<ProtocolModule> protocolModules = new ArrayList<>(modules);
+        for (int i = 0; i < modules; i++) {
+            List<ProtocolDependency> protocolDependencies = new ArrayList<>(dependencies);
+            for (int j = 0; j < dependencies; j++) {
+                protocolDependencies.add(new ProtocolDependency("library-" + j, new File("library-" + j + ".jar"), j % 2 == 0));
+            }
+            protocolModules.add(new ProtocolModule("module-" + i, new File("module-" + i), protocolDependencies));
+        }
+        protocolModel = new ProtocolModel(protocolModules);
+        adaptedModel = adapter.adapt(Model.class, protocolModel);
+    }
+
+    /**
+     * Adapts the model and traverses it for the first time, which creates the views.
+     */
+    @Benchmark
+    public void adaptAndTraverse(Blackhole blackhole) {
+        traverse(adapter.adapt(Model.class, protocolModel), blackhole);
+    }
+
+    /**
+     * Traverses a model that has already been traversed, which reuses the views.
+     */
+    @Benchmark
+    public void traverseAdapted(Blackhole blackhole) {
+        traverse(adaptedModel, blackhole);
+    }
+
+    private static void traverse(Model model, Blackhole blackhole) {
+        for (Module module : model.getModules()) {
+            blackhole.consume(module.getName());
+            blackhole.consume(module.getProjectDir());
+            for (Dependency dependency : module.getDependencies()) {
+                blackhole.consume(dependency.getName());
+                blackhole.consume(dependency.getFile());
+                blackhole.consume(dependency.isExported());
+            }
+        }
+    }
+
+    public interface Model {
+        List<? extends Module> getModules();
+    }
+
+    public interface Module {
+        String getName();
+
+        File getProjectDir();
+
+        List<? extends Dependency> getDependencies();
+    }
+
+    public interface Dependency {
+        String getName();
+
+        File getFile();
+
+        boolean isExported();
+    }
+
+    public static class ProtocolModel {
+        private final List<ProtocolModule> modules;
+
+        ProtocolModel(List<ProtocolModule> modules) {
+            this.modules = modules;
+        }
+
+        public List<ProtocolModule> getModules() {
+            return modules;
+        }
+    }
+
+    public static class ProtocolModule {
+        private final String name;
+        private final File projectDir;
+        private final List<ProtocolDependency> dependencies;
+
+        ProtocolModule(String name, File projectDir, List<ProtocolDependency> dependencies) {
+            this.name = name;
+            this.projectDir = projectDir;
+            this.dependencies = dependencies;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public File getProjectDir() {
+            return projectDir;
+        }
+
+        public List<ProtocolDependency> getDependencies() {
+            return dependencies;
+        }
+    }
+
+    public static class ProtocolDependency {
+        private final String name;
+        private final File file;
+        private final boolean exported;
+
+        ProtocolDependency(String name, File file, boolean exported) {
+            this.name = name;
+            this.file = file;
+            this.exported = exported;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public boolean isExported() {
+            return exported;
+        }
+    }
+}
@@ -44,10 +44,18 @@ class MethodInvocation {
     }
 
     public boolean isGetter() {
-        return parameterTypes.length == 0 && isIsOrGet();
+        return isGetter(name, parameterTypes);
     }
 
     public boolean isIsOrGet() {
+        return isIsOrGet(name);
+    }
+
+    static boolean isGetter(String name, Class<?>[] parameterTypes) {
+        return parameterTypes.length == 0 && isIsOrGet(name);
+    }
+
+    private static boolean isIsOrGet(String name) {
         return (name.startsWith("get") && name.length() > 3) || (name.startsWith("is") && name.length() > 2);
     }
 
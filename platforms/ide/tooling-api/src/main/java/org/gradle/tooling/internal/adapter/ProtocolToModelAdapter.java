@@ -30,9 +30,11 @@
 import java.io.Serializable;
 import java.lang.ref.SoftReference;
 import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Proxy;
 import java.lang.reflect.Type;
@@ -47,6 +49,8 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -69,6 +73,17 @@ public <T> Class<? extends T> getTargetType(Class<T> initialTargetType, Object p
     private static final CollectionMapper COLLECTION_MAPPER = new CollectionMapper();
     private static final Object[] EMPTY = new Object[0];
     private static final Class[] EMPTY_CLASS_ARRAY = new Class[0];
+    private static final ClassValue<Constructor<?>> PROXY_CONSTRUCTORS = new ClassValue<Constructor<?>>() {
+        @Override
+        protected Constructor<?> computeValue(Class<?> viewType) {
+            Class<?> proxyClass = Proxy.getProxyClass(viewType.getClassLoader(), viewType);
+            try {
+                return proxyClass.getConstructor(InvocationHandler.class);
+            } catch (NoSuchMethodException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+    };
     private static final Method EQUALS_METHOD;
     private static final Method HASHCODE_METHOD;
 
@@ -159,7 +174,7 @@ private static <T> T createView(Class<T> targetType, @Nullable Object sourceObje
 
         // Create a proxy
         InvocationHandlerImpl handler = new InvocationHandlerImpl(targetType, sourceObject, decorationsForThisType, graphDetails);
-        Object proxy = Proxy.newProxyInstance(viewType.getClassLoader(), new Class<?>[]{viewType}, handler);
+        Object proxy = newProxy(viewType, handler);
         handler.attachProxy(proxy);
 
         graphDetails.putViewFor(sourceObject, viewKey, proxy);
@@ -167,6 +182,16 @@ private static <T> T createView(Class<T> targetType, @Nullable Object sourceObje
         return viewType.cast(proxy);
     }
 
+    private static Object newProxy(Class<?> viewType, InvocationHandler handler) {
+        try {
+            return PROXY_CONSTRUCTORS.get(viewType).newInstance(handler);
+        } catch (InvocationTargetException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
     private static <T, S> T adaptToEnum(Class<T> targetType, S sourceObject) {
         String literal;
         if (sourceObject instanceof Enum) {
@@ -332,6 +357,8 @@ public Object unpack(Object viewObject) {
     private static class ViewGraphDetails implements Serializable {
         // Transient, don't serialize all the views that happen to have been visited, recreate them when visited via the deserialized view
         private transient WeakIdentityHashMap<Object, HashMap<ViewKey, WeakReference<Object>>> views = new WeakIdentityHashMap<>();
+        // Transient, resolve the methods of the source types again when the views are used after deserialization
+        private transient ConcurrentMap<Class<?>, SourceTypeDispatch> dispatches = new ConcurrentHashMap<>();
         private final TargetTypeProvider typeProvider;
 
         ViewGraphDetails(TargetTypeProvider typeProvider) {
@@ -366,9 +393,77 @@ private Object getViewFor(Object sourceObject, ViewKey key) {
             return viewWeakRef.get();
         }
 
+        private SourceTypeDispatch getDispatchFor(Class<?> sourceType) {
+            SourceTypeDispatch dispatch = dispatches.get(sourceType);
+            if (dispatch == null) {
+                dispatch = new SourceTypeDispatch(sourceType);
+                SourceTypeDispatch previous = dispatches.putIfAbsent(sourceType, dispatch);
+                if (previous != null) {
+                    dispatch = previous;
+                }
+            }
+            return dispatch;
+        }
+
         private void readObject(java.io.ObjectInputStream in) throws IOException, ClassNotFoundException {
             in.defaultReadObject();
             views = new WeakIdentityHashMap<>();
+            dispatches = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * The methods of a source type that implement the methods of views directly, resolved once for each view method rather than on each invocation.
+     */
+    private static class SourceTypeDispatch {
+        private final Class<?> sourceType;
+        private final ConcurrentMap<Method, DirectMethod> methods = new ConcurrentHashMap<>();
+
+        SourceTypeDispatch(Class<?> sourceType) {
+            this.sourceType = sourceType;
+        }
+
+        DirectMethod get(Method viewMethod) {
+            DirectMethod directMethod = methods.get(viewMethod);
+            if (directMethod == null) {
+                directMethod = DirectMethod.resolve(sourceType, viewMethod);
+                methods.putIfAbsent(viewMethod, directMethod);
+            }
+            return directMethod;
+        }
+    }
+
+    private static class DirectMethod {
+        private static final DirectMethod NOT_FOUND = new DirectMethod(null, false, null);
+
+        @Nullable
+        private final Method sourceMethod;
+        private final boolean getter;
+        // The return type of the view method, when values of this type never need to be adapted
+        @Nullable
+        private final Class<?> unadaptedReturnType;
+
+        private DirectMethod(@Nullable Method sourceMethod, boolean getter, @Nullable Class<?> unadaptedReturnType) {
+            this.sourceMethod = sourceMethod;
+            this.getter = getter;
+            this.unadaptedReturnType = unadaptedReturnType;
+        }
+
+        static DirectMethod resolve(Class<?> sourceType, Method viewMethod) {
+            Method sourceMethod = MethodInvocationCache.lookup(sourceType, viewMethod.getName(), viewMethod.getParameterTypes()).orNull();
+            if (sourceMethod == null) {
+                return NOT_FOUND;
+            }
+            Class<?> returnType = viewMethod.getReturnType();
+            boolean unadapted = returnType.isPrimitive() || (viewMethod.getGenericReturnType() instanceof Class && Modifier.isFinal(returnType.getModifiers()));
+            return new DirectMethod(sourceMethod, MethodInvocation.isGetter(viewMethod.getName(), viewMethod.getParameterTypes()), unadapted ? returnType : null);
+        }
+
+        /**
+         * Returns whether the given value, returned by the source method, can be returned by the view method as is, without adapting it.
+         */
+        boolean returnsAsIs(Object value) {
+            return unadaptedReturnType != null && (unadaptedReturnType.isPrimitive() || unadaptedReturnType.isInstance(value));
         }
     }
 
@@ -401,6 +496,8 @@ private static class InvocationHandlerImpl implements InvocationHandler, Seriali
         private Object proxy;
         // Recreate the invoker when deserialized, rather than serialize all its state
         private transient MethodInvoker invoker;
+        private transient PropertyCachingMethodInvoker propertyCache;
+        private transient SourceTypeDispatch dispatch;
 
         InvocationHandlerImpl(Class<?> targetType, Object sourceObject, ViewDecoration decoration, ViewGraphDetails graphDetails) {
             this.targetType = targetType;
@@ -423,11 +520,13 @@ private void setup() {
 
             MethodInvoker mixInMethodInvoker = invokers.size() == 1 ? invokers.get(0) : new ChainedMethodInvoker(invokers);
 
+            propertyCache = new PropertyCachingMethodInvoker(
+                new AdaptingMethodInvoker(decoration, graphDetails,
+                    mixInMethodInvoker));
             invoker = new SupportedPropertyInvoker(
                 new SafeMethodInvoker(
-                    new PropertyCachingMethodInvoker(
-                        new AdaptingMethodInvoker(decoration, graphDetails,
-                            mixInMethodInvoker))));
+                    propertyCache));
+            dispatch = graphDetails.getDispatchFor(sourceObject.getClass());
         }
 
         @Override
@@ -461,6 +560,12 @@ public Object invoke(Object target, Method method, Object[] params) throws Throw
                 return hashCode();
             }
 
+            // Methods of the source object take precedence over mix-ins, so call them directly when present
+            DirectMethod directMethod = dispatch.get(method);
+            if (directMethod.sourceMethod != null) {
+                return invokeDirect(directMethod, method, params);
+            }
+
             MethodInvocation invocation = new MethodInvocation(method.getName(), method.getReturnType(), method.getGenericReturnType(), method.getParameterTypes(), target, targetType, sourceObject, params);
             invoker.invoke(invocation);
             if (!invocation.found()) {
@@ -470,6 +575,29 @@ public Object invoke(Object target, Method method, Object[] params) throws Throw
             return invocation.getResult();
         }
 
+        /**
+         * Invokes the method of the source object that implements the given view method, with the same outcome as the invoker chain.
+         */
+        @Nullable
+        private Object invokeDirect(DirectMethod directMethod, Method method, Object[] params) throws Throwable {
+            if (directMethod.getter && propertyCache.hasCachedValue(method.getName())) {
+                return propertyCache.getCachedValue(method.getName());
+            }
+            Object result;
+            try {
+                result = directMethod.sourceMethod.invoke(sourceObject, params);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result != null && !directMethod.returnsAsIs(result)) {
+                result = convert(method.getGenericReturnType(), result, decoration, graphDetails);
+            }
+            if (directMethod.getter) {
+                propertyCache.cachePropertyValue(method.getName(), result);
+            }
+            return result;
+        }
+
         void attachProxy(Object proxy) {
             this.proxy = proxy;
         }
@@ -749,6 +877,15 @@ public void invoke(MethodInvocation method) throws Throwable {
             next.invoke(method);
         }
 
+        boolean hasCachedValue(String methodName) {
+            return properties.containsKey(methodName);
+        }
+
+        @Nullable
+        Object getCachedValue(String methodName) {
+            return properties.get(methodName);
+        }
+
         private void markUnknown(String methodName) {
             if (unknown.isEmpty()) {
                 unknown = new HashSet<String>();
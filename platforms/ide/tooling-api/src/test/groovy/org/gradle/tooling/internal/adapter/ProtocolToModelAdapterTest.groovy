@@ -167,6 +167,36 @@ class ProtocolToModelAdapterTest extends Specification {
         model.children.is(model.children)
     }
 
+    def "invokes methods that are not properties on backing object each time they are called"() {
+        TestProtocolModel protocolModel = Mock()
+        TestProtocolProject protocolProject = Mock()
+
+        given:
+        def model = adapter.adapt(TestModel.class, protocolModel)
+
+        when:
+        def first = model.find("a")
+        def second = model.find("a")
+
+        then:
+        2 * protocolModel.find("a") >> protocolProject
+        first instanceof TestProject
+        first.is(second)
+    }
+
+    def "rethrows failure thrown by backing object"() {
+        TestProtocolModel protocolModel = Mock()
+        def failure = new IllegalStateException("broken")
+        _ * protocolModel.getName() >> { throw failure }
+
+        when:
+        adapter.adapt(TestModel.class, protocolModel).name
+
+        then:
+        def e = thrown(IllegalStateException)
+        e.is(failure)
+    }
+
     def "reuses views for each object in backing graph"() {
         TestProtocolModel protocolModel = Mock()
         TestProtocolProject protocolProject = Mock()
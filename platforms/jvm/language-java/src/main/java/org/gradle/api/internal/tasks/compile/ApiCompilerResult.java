@@ -20,6 +20,7 @@
 import org.gradle.api.internal.tasks.compile.incremental.processing.AnnotationProcessingResult;
 import org.gradle.workers.internal.DefaultWorkResult;
 
+import javax.annotation.Nullable;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -30,6 +31,7 @@ public class ApiCompilerResult extends DefaultWorkResult {
     private final ConstantsAnalysisResult constantsAnalysisResult = new ConstantsAnalysisResult();
     private final Map<String, Set<String>> sourceToClassMapping = new HashMap<>();
     private final Map<String, String> backupClassFiles = new HashMap<>();
+    private JavaFileManagerCache.Statistics fileManagerCacheStatistics;
 
     public ApiCompilerResult() {
         super(true, null);
@@ -50,4 +52,13 @@ public Map<String, Set<String>> getSourceClassesMapping() {
     public Map<String, String> getBackupClassFiles() {
         return backupClassFiles;
     }
+
+    @Nullable
+    JavaFileManagerCache.Statistics getFileManagerCacheStatistics() {
+        return fileManagerCacheStatistics;
+    }
+
+    void setFileManagerCacheStatistics(JavaFileManagerCache.Statistics fileManagerCacheStatistics) {
+        this.fileManagerCacheStatistics = fileManagerCacheStatistics;
+    }
 }
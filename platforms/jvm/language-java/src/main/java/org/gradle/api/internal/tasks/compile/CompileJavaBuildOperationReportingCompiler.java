@@ -18,6 +18,7 @@
 
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.tasks.compile.CompileJavaBuildOperationType.Result.AnnotationProcessorDetails;
+import org.gradle.api.internal.tasks.compile.CompileJavaBuildOperationType.Result.FileManagerCacheDetails;
 import org.gradle.api.internal.tasks.compile.incremental.processing.AnnotationProcessingResult;
 import org.gradle.api.internal.tasks.compile.incremental.processing.AnnotationProcessorResult;
 import org.gradle.api.internal.tasks.compile.incremental.processing.IncrementalAnnotationProcessorType;
@@ -68,14 +69,16 @@ public WorkResult call(BuildOperationContext context) {
 
             private Result toBuildOperationResult(WorkResult result) {
                 if (result instanceof ApiCompilerResult) {
-                    AnnotationProcessingResult annotationProcessingResult = ((ApiCompilerResult) result).getAnnotationProcessingResult();
+                    ApiCompilerResult apiCompilerResult = (ApiCompilerResult) result;
+                    AnnotationProcessingResult annotationProcessingResult = apiCompilerResult.getAnnotationProcessingResult();
                     List<AnnotationProcessorDetails> details = new ArrayList<AnnotationProcessorDetails>();
                     for (AnnotationProcessorResult processorResult : annotationProcessingResult.getAnnotationProcessorResults()) {
                         details.add(toAnnotationProcessorDetails(processorResult));
                     }
-                    return new Result(details);
+                    JavaFileManagerCache.Statistics statistics = apiCompilerResult.getFileManagerCacheStatistics();
+                    return new Result(details, statistics == null ? null : new DefaultFileManagerCacheDetails(statistics.getHits(), statistics.getMisses()));
                 }
-                return new Result(null);
+                return new Result(null, null);
             }
 
             private DefaultAnnotationProcessorDetails toAnnotationProcessorDetails(AnnotationProcessorResult result) {
@@ -97,9 +100,11 @@ private AnnotationProcessorDetails.Type toType(IncrementalAnnotationProcessorTyp
     private static class Result implements CompileJavaBuildOperationType.Result {
 
         private final List<AnnotationProcessorDetails> annotationProcessorDetails;
+        private final FileManagerCacheDetails fileManagerCacheDetails;
 
-        Result(List<AnnotationProcessorDetails> annotationProcessorDetails) {
+        Result(List<AnnotationProcessorDetails> annotationProcessorDetails, FileManagerCacheDetails fileManagerCacheDetails) {
             this.annotationProcessorDetails = annotationProcessorDetails;
+            this.fileManagerCacheDetails = fileManagerCacheDetails;
         }
 
         @Override
@@ -107,6 +112,33 @@ public List<AnnotationProcessorDetails> getAnnotationProcessorDetails() {
             return annotationProcessorDetails;
         }
 
+        @Override
+        public FileManagerCacheDetails getFileManagerCacheDetails() {
+            return fileManagerCacheDetails;
+        }
+
+    }
+
+    private static class DefaultFileManagerCacheDetails implements FileManagerCacheDetails {
+
+        private final int hitCount;
+        private final int missCount;
+
+        DefaultFileManagerCacheDetails(int hitCount, int missCount) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+        }
+
+        @Override
+        public int getHitCount() {
+            return hitCount;
+        }
+
+        @Override
+        public int getMissCount() {
+            return missCount;
+        }
+
     }
 
     private static class DefaultAnnotationProcessorDetails implements AnnotationProcessorDetails {
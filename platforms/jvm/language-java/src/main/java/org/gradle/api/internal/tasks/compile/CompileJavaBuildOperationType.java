@@ -48,6 +48,17 @@ public interface Result {
         @Nullable
         List<AnnotationProcessorDetails> getAnnotationProcessorDetails();
 
+        /**
+         * Returns how the classpath archives of the compilation were served by the file manager cache of the compiler daemon.
+         *
+         * <p>Details are only available if the compiler daemon reuses file managers across compilations.
+         *
+         * @return details about the use of the file manager cache; {@code null} if no cache was used.
+         * @since 8.8
+         */
+        @Nullable
+        FileManagerCacheDetails getFileManagerCacheDetails();
+
         /**
          * Details about an annotation processor used during compilation.
          */
@@ -79,6 +90,25 @@ enum Type {
 
         }
 
+        /**
+         * Details about the use of the file manager cache by a compilation.
+         *
+         * @since 8.8
+         */
+        interface FileManagerCacheDetails {
+
+            /**
+             * Returns the number of classpath archives that had already been opened by a previous compilation.
+             */
+            int getHitCount();
+
+            /**
+             * Returns the number of classpath archives that had to be opened for this compilation.
+             */
+            int getMissCount();
+
+        }
+
     }
 
 }
@@ -64,6 +64,9 @@ protected DaemonForkOptions toDaemonForkOptions(JavaCompileSpec spec) {
         JavaForkOptions javaForkOptions = new BaseForkOptionsConverter(forkOptionsFactory).transform(forkOptions);
         javaForkOptions.setWorkingDir(daemonWorkingDir);
         javaForkOptions.setExecutable(executable);
+        if (JavaFileManagerCache.isEnabled()) {
+            javaForkOptions.systemProperty(JavaFileManagerCache.COMPILER_DAEMON_PROPERTY, true);
+        }
 
         ClassPath compilerClasspath = classPathRegistry.getClassPath("JAVA-COMPILER");
         FlatClassLoaderStructure classLoaderStructure = new FlatClassLoaderStructure(new VisitableURLClassLoader.Spec("compiler", compilerClasspath.getAsURLs()));
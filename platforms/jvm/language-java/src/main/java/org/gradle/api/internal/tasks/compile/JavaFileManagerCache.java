@@ -0,0 +1,406 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the file managers of finished compilations, so that later compilations in the same process can reuse the classpath archives they have already opened and indexed.
+ *
+ * <p>A file manager is only reused by a compilation whose options set the same locations as the compilation it was created for,
+ * as the compiler only sets the locations present in the options and a location cannot be reset to its initial, unset state.
+ * It is also only reused when none of the archives it has opened has changed since. Archives are compared by their size, modification time and file key.
+ * Idle file managers are closed when the heap is running full, when they have opened too many archives, or when there are too many of them.
+ * As they keep the archives they have opened open, all idle file managers are also closed once no compilation has used the cache for a while,
+ * which is typically the end of the build.</p>
+ *
+ * <p>Only used in compiler daemons, never in the Gradle daemon, as it would keep archives of the build open for the lifetime of the daemon.
+ * Enabled by the {@value #ENABLED_PROPERTY} system property of the build, which makes {@link DaemonJavaCompiler} set the {@value #COMPILER_DAEMON_PROPERTY} system property for the compiler daemons.</p>
+ */
+class JavaFileManagerCache {
+    static final String ENABLED_PROPERTY = "org.gradle.internal.java.compile.file-manager-cache";
+    static final String COMPILER_DAEMON_PROPERTY = "org.gradle.internal.java.compile.file-manager-cache.compiler-daemon";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JavaFileManagerCache.class);
+    private static final int MAX_IDLE_FILE_MANAGERS = 2;
+    private static final int MAX_ARCHIVES_PER_FILE_MANAGER = 5000;
+    private static final double MAX_HEAP_USAGE = 0.7;
+    private static final long IDLE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10);
+    private static final JavaFileManagerCache INSTANCE = new JavaFileManagerCache(MAX_IDLE_FILE_MANAGERS, MAX_ARCHIVES_PER_FILE_MANAGER, MAX_HEAP_USAGE, IDLE_TIMEOUT_MILLIS,
+        Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("javac file manager cache")
+            .setDaemon(true)
+            .build()));
+
+    private final int maxIdleFileManagers;
+    private final int maxArchivesPerFileManager;
+    private final double maxHeapUsage;
+    private final long idleTimeoutMillis;
+    private final ScheduledExecutorService scheduler;
+    private final Deque<CachedFileManager> idle = new ArrayDeque<>();
+    private int leased;
+    @Nullable
+    private ScheduledFuture<?> scheduledClose;
+
+    @VisibleForTesting
+    JavaFileManagerCache(int maxIdleFileManagers, int maxArchivesPerFileManager, double maxHeapUsage, long idleTimeoutMillis, ScheduledExecutorService scheduler) {
+        this.maxIdleFileManagers = maxIdleFileManagers;
+        this.maxArchivesPerFileManager = maxArchivesPerFileManager;
+        this.maxHeapUsage = maxHeapUsage;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Returns whether the cache is enabled for the compiler daemons of the build.
+     */
+    static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    /**
+     * Returns whether this process is a compiler daemon that uses the cache.
+     */
+    static boolean isEnabledInThisProcess() {
+        return Boolean.getBoolean(COMPILER_DAEMON_PROPERTY);
+    }
+
+    static JavaFileManagerCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns a file manager for a compilation with the given options and classpath, reusing the matching idle file manager that has already opened the most of its archives.
+     * The file manager is returned to the cache when the lease is closed.
+     */
+    Lease acquire(JavaCompiler compiler, @Nullable Charset charset, List<String> options, Collection<File> classpath) {
+        Map<File, ArchiveState> archives = archivesOf(classpath);
+        CachedFileManager fileManager = startLease(compiler, charset, options, archives);
+        int hits = 0;
+        if (fileManager == null) {
+            StandardJavaFileManager standardFileManager = compiler.getStandardFileManager(null, null, charset);
+            fileManager = new CachedFileManager(compiler.getClass(), charset, locationOptionsOf(standardFileManager, options), standardFileManager);
+        } else {
+            hits = fileManager.countOpened(archives);
+        }
+        return new Lease(fileManager, archives, new Statistics(hits, archives.size() - hits));
+    }
+
+    /**
+     * Starts a lease and takes the idle file manager to use for it, if any.
+     */
+    @Nullable
+    private synchronized CachedFileManager startLease(JavaCompiler compiler, @Nullable Charset charset, List<String> options, Map<File, ArchiveState> archives) {
+        leased++;
+        cancelScheduledClose();
+        CachedFileManager best = null;
+        int bestHits = -1;
+        Iterator<CachedFileManager> iterator = idle.iterator();
+        while (iterator.hasNext()) {
+            CachedFileManager candidate = iterator.next();
+            if (!candidate.isUpToDate()) {
+                iterator.remove();
+                candidate.close();
+                continue;
+            }
+            if (candidate.compilerType == compiler.getClass()
+                && Objects.equals(candidate.charset, charset)
+                && candidate.locationOptions.equals(locationOptionsOf(candidate.fileManager, options))) {
+                int hits = candidate.countOpened(archives);
+                if (hits > bestHits) {
+                    best = candidate;
+                    bestHits = hits;
+                }
+            }
+        }
+        if (best != null) {
+            idle.remove(best);
+        }
+        return best;
+    }
+
+    private synchronized void release(CachedFileManager fileManager) {
+        leased--;
+        if (fileManager.archives.size() > maxArchivesPerFileManager || isHeapRunningFull()) {
+            LOGGER.debug("Closing idle javac file managers to free up memory.");
+            fileManager.close();
+            closeAll();
+            return;
+        }
+        idle.addFirst(fileManager);
+        while (idle.size() > maxIdleFileManagers) {
+            idle.removeLast().close();
+        }
+        if (leased == 0) {
+            scheduledClose = scheduler.schedule(this::closeAllWhenUnused, idleTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void closeAllWhenUnused() {
+        if (leased == 0) {
+            LOGGER.debug("Closing idle javac file managers that have not been used for {}ms.", idleTimeoutMillis);
+            closeAll();
+        }
+    }
+
+    @VisibleForTesting
+    synchronized void closeAll() {
+        cancelScheduledClose();
+        while (!idle.isEmpty()) {
+            idle.removeFirst().close();
+        }
+    }
+
+    private void cancelScheduledClose() {
+        if (scheduledClose != null) {
+            scheduledClose.cancel(false);
+            scheduledClose = null;
+        }
+    }
+
+    @VisibleForTesting
+    synchronized int getIdleCount() {
+        return idle.size();
+    }
+
+    private boolean isHeapRunningFull() {
+        long max = Runtime.getRuntime().maxMemory();
+        return max != Long.MAX_VALUE && heapUsedAfterLastCollection() >= max * maxHeapUsage;
+    }
+
+    /**
+     * Returns the heap in use after the last garbage collection, which leaves out the garbage left behind by the compilation.
+     */
+    private static long heapUsedAfterLastCollection() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                MemoryUsage usage = pool.getCollectionUsage();
+                used += usage != null ? usage.getUsed() : pool.getUsage().getUsed();
+            }
+        }
+        return used;
+    }
+
+    /**
+     * Returns the options that set the locations of the file manager, along with the release to compile for, which determines the platform classes.
+     */
+    private static Set<String> locationOptionsOf(StandardJavaFileManager fileManager, List<String> options) {
+        Set<String> locationOptions = new TreeSet<>();
+        Iterator<String> iterator = options.iterator();
+        while (iterator.hasNext()) {
+            String option = iterator.next();
+            if (!option.startsWith("-")) {
+                continue;
+            }
+            int separator = option.indexOf('=');
+            String name = separator < 0 ? option : option.substring(0, separator);
+            if (name.equals("--release")) {
+                locationOptions.add(separator < 0 && iterator.hasNext() ? name + "=" + iterator.next() : option);
+            } else if (fileManager.isSupportedOption(name) >= 0) {
+                locationOptions.add(name);
+            }
+        }
+        return locationOptions;
+    }
+
+    private static Map<File, ArchiveState> archivesOf(Collection<File> classpath) {
+        Map<File, ArchiveState> archives = new LinkedHashMap<>();
+        for (File file : classpath) {
+            ArchiveState state = ArchiveState.of(file);
+            if (state != null && state.isFile) {
+                archives.put(file, state);
+            }
+        }
+        return archives;
+    }
+
+    /**
+     * A file manager taken from the cache for the duration of a compilation.
+     */
+    class Lease implements Closeable {
+        private final CachedFileManager fileManager;
+        private final Map<File, ArchiveState> archives;
+        private final Statistics statistics;
+
+        private Lease(CachedFileManager fileManager, Map<File, ArchiveState> archives, Statistics statistics) {
+            this.fileManager = fileManager;
+            this.archives = archives;
+            this.statistics = statistics;
+        }
+
+        StandardJavaFileManager getFileManager() {
+            return fileManager.fileManager;
+        }
+
+        Statistics getStatistics() {
+            return statistics;
+        }
+
+        /**
+         * Returns the file manager to the cache.
+         */
+        @Override
+        public void close() {
+            // Record the state the archives had before the compilation, so that any change made during the compilation invalidates the file manager
+            fileManager.archives.putAll(archives);
+            release(fileManager);
+        }
+    }
+
+    /**
+     * How the classpath archives of a compilation were served by the cache.
+     */
+    static class Statistics implements Serializable {
+        private final int hits;
+        private final int misses;
+
+        Statistics(int hits, int misses) {
+            this.hits = hits;
+            this.misses = misses;
+        }
+
+        /**
+         * Returns the number of classpath archives that had already been opened by the reused file manager.
+         */
+        int getHits() {
+            return hits;
+        }
+
+        /**
+         * Returns the number of classpath archives that had to be opened for the compilation.
+         */
+        int getMisses() {
+            return misses;
+        }
+    }
+
+    private static class CachedFileManager {
+        private final Class<?> compilerType;
+        @Nullable
+        private final Charset charset;
+        private final Set<String> locationOptions;
+        private final StandardJavaFileManager fileManager;
+        private final Map<File, ArchiveState> archives = new HashMap<>();
+
+        CachedFileManager(Class<?> compilerType, @Nullable Charset charset, Set<String> locationOptions, StandardJavaFileManager fileManager) {
+            this.compilerType = compilerType;
+            this.charset = charset;
+            this.locationOptions = locationOptions;
+            this.fileManager = fileManager;
+        }
+
+        int countOpened(Map<File, ArchiveState> classpath) {
+            int count = 0;
+            for (File file : classpath.keySet()) {
+                if (archives.containsKey(file)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        boolean isUpToDate() {
+            for (Map.Entry<File, ArchiveState> entry : archives.entrySet()) {
+                if (!entry.getValue().equals(ArchiveState.of(entry.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void close() {
+            CompositeStoppable.stoppable(fileManager).stop();
+        }
+    }
+
+    private static class ArchiveState {
+        private final boolean isFile;
+        private final long size;
+        private final long lastModified;
+        @Nullable
+        private final Object fileKey;
+
+        private ArchiveState(boolean isFile, long size, long lastModified, @Nullable Object fileKey) {
+            this.isFile = isFile;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.fileKey = fileKey;
+        }
+
+        @Nullable
+        static ArchiveState of(File file) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+                return new ArchiveState(attributes.isRegularFile(), attributes.size(), attributes.lastModifiedTime().toMillis(), attributes.fileKey());
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ArchiveState that = (ArchiveState) o;
+            return isFile == that.isFile && size == that.size && lastModified == that.lastModified && Objects.equals(fileKey, that.fileKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(isFile, size, lastModified, fileKey);
+        }
+    }
+}
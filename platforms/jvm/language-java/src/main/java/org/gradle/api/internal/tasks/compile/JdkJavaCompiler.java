@@ -32,8 +32,11 @@
 import javax.tools.JavaFileManager;
 import javax.tools.JavaFileObject;
 import javax.tools.StandardJavaFileManager;
+import java.io.Closeable;
+import java.io.File;
 import java.io.Serializable;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
@@ -72,10 +75,22 @@ private JavaCompiler.CompilationTask createCompileTask(JavaCompileSpec spec, Api
         JavaCompiler compiler = javaHomeBasedJavaCompilerFactory.create();
         MinimalJavaCompileOptions compileOptions = spec.getCompileOptions();
         Charset charset = compileOptions.getEncoding() != null ? Charset.forName(compileOptions.getEncoding()) : null;
-        StandardJavaFileManager standardFileManager = compiler.getStandardFileManager(diagnosticListener, null, charset);
+        StandardJavaFileManager standardFileManager;
+        Closeable fileManagerResource = null;
+        if (diagnosticListener == null && JavaFileManagerCache.isEnabledInThisProcess() && JavaVersion.current().isJava9Compatible() && !patchesModulesIn(options)) {
+            JavaFileManagerCache.Lease lease = JavaFileManagerCache.getInstance().acquire(compiler, charset, options, classpathArchivesOf(spec));
+            result.setFileManagerCacheStatistics(lease.getStatistics());
+            standardFileManager = lease.getFileManager();
+            fileManagerResource = lease;
+        } else {
+            standardFileManager = compiler.getStandardFileManager(diagnosticListener, null, charset);
+        }
         Iterable<? extends JavaFileObject> compilationUnits = standardFileManager.getJavaFileObjectsFromFiles(spec.getSourceFiles());
         boolean hasEmptySourcepaths = JavaVersion.current().isJava9Compatible() && emptySourcepathIn(options);
         JavaFileManager fileManager = GradleStandardJavaFileManager.wrap(standardFileManager, DefaultClassPath.of(spec.getAnnotationProcessorPath()), hasEmptySourcepaths);
+        if (fileManagerResource == null) {
+            fileManagerResource = fileManager;
+        }
         JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnosticListener, options, spec.getClassesToProcess(), compilationUnits);
         if (compiler instanceof IncrementalCompilationAwareJavaCompiler) {
             task = ((IncrementalCompilationAwareJavaCompiler) compiler).makeIncremental(
@@ -88,10 +103,28 @@ private JavaCompiler.CompilationTask createCompileTask(JavaCompileSpec spec, Api
         }
         Set<AnnotationProcessorDeclaration> annotationProcessors = spec.getEffectiveAnnotationProcessors();
         task = new AnnotationProcessingCompileTask(task, annotationProcessors, spec.getAnnotationProcessorPath(), result.getAnnotationProcessingResult());
-        task = new ResourceCleaningCompilationTask(task, fileManager);
+        task = new ResourceCleaningCompilationTask(task, fileManagerResource);
         return task;
     }
 
+    private static List<File> classpathArchivesOf(JavaCompileSpec spec) {
+        List<File> classpath = new ArrayList<>(spec.getCompileClasspath());
+        classpath.addAll(spec.getModulePath());
+        return classpath;
+    }
+
+    /**
+     * Returns whether the options patch modules, which a later compilation with the same options might not patch in the same way.
+     */
+    private static boolean patchesModulesIn(List<String> options) {
+        for (String option : options) {
+            if (option.equals("--patch-module") || option.startsWith("--patch-module=")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private static boolean shouldUseProblemsApiReporting() {
         String property = System.getProperty("org.gradle.internal.emit-compiler-problems");
         return Boolean.parseBoolean(property);
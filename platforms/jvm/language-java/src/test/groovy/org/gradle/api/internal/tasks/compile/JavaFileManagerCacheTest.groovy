@@ -0,0 +1,207 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.JarUtils
+import org.junit.Rule
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import javax.tools.JavaCompiler
+import javax.tools.ToolProvider
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+
+class JavaFileManagerCacheTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler()
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor()
+    JavaFileManagerCache cache = new JavaFileManagerCache(2, 100, 1.0, 60000, scheduler)
+
+    def options = ["-classpath", "ignored", "-d", "out"]
+    File a
+    File b
+    File c
+
+    def setup() {
+        a = jar("a.jar")
+        b = jar("b.jar")
+        c = jar("c.jar")
+    }
+
+    def cleanup() {
+        cache.closeAll()
+        scheduler.shutdownNow()
+    }
+
+    def "reuses file manager of previous compilation"() {
+        when:
+        def first = cache.acquire(compiler, null, options, [a, b, tmpDir.file("classes")])
+        first.close()
+        def second = cache.acquire(compiler, null, options, [a, c])
+
+        then:
+        first.statistics.hits == 0
+        first.statistics.misses == 2
+        second.fileManager.is(first.fileManager)
+        second.statistics.hits == 1
+        second.statistics.misses == 1
+    }
+
+    def "does not reuse file manager that is in use"() {
+        when:
+        def first = cache.acquire(compiler, null, options, [a])
+        def second = cache.acquire(compiler, null, options, [a])
+
+        then:
+        !second.fileManager.is(first.fileManager)
+        second.statistics.hits == 0
+    }
+
+    def "reuses file manager that has opened the most archives of the classpath"() {
+        def first = cache.acquire(compiler, null, options, [a])
+        def second = cache.acquire(compiler, null, options, [b, c])
+        first.close()
+        second.close()
+
+        when:
+        def lease = cache.acquire(compiler, null, options, [a, b, c])
+
+        then:
+        lease.fileManager.is(second.fileManager)
+        lease.statistics.hits == 2
+        lease.statistics.misses == 1
+    }
+
+    def "does not reuse file manager when an archive it has opened has changed"() {
+        def first = cache.acquire(compiler, null, options, [a, b])
+        first.close()
+
+        when:
+        b << JarUtils.jarWithContents("other.txt": "changed")
+        def second = cache.acquire(compiler, null, options, [a])
+
+        then:
+        !second.fileManager.is(first.fileManager)
+        second.statistics.hits == 0
+        cache.idleCount == 0
+    }
+
+    def "does not reuse file manager for compilation that sets other locations"() {
+        def first = cache.acquire(compiler, null, options, [a])
+        first.close()
+
+        when:
+        def second = cache.acquire(compiler, null, options + otherOptions, [a])
+
+        then:
+        !second.fileManager.is(first.fileManager)
+
+        where:
+        otherOptions << [
+            ["-sourcepath", ""],
+            ["-processorpath", "processors"],
+            ["--release", "11"]
+        ]
+    }
+
+    def "does not reuse file manager for compilation with other encoding"() {
+        def first = cache.acquire(compiler, null, options, [a])
+        first.close()
+
+        when:
+        def second = cache.acquire(compiler, StandardCharsets.UTF_8, options, [a])
+
+        then:
+        !second.fileManager.is(first.fileManager)
+    }
+
+    def "closes file managers beyond the maximum number of idle file managers"() {
+        def leases = (1..3).collect { cache.acquire(compiler, null, options, [a]) }
+
+        when:
+        leases*.close()
+
+        then:
+        cache.idleCount == 2
+    }
+
+    def "closes file managers when the heap is running full"() {
+        def cache = new JavaFileManagerCache(2, 100, 0.0, 60000, scheduler)
+        def first = cache.acquire(compiler, null, options, [a])
+
+        when:
+        first.close()
+
+        then:
+        cache.idleCount == 0
+    }
+
+    def "closes file manager that has opened too many archives"() {
+        def cache = new JavaFileManagerCache(2, 2, 1.0, 60000, scheduler)
+        def first = cache.acquire(compiler, null, options, [a, b, c])
+
+        when:
+        first.close()
+
+        then:
+        cache.idleCount == 0
+    }
+
+    def "closes idle file managers once the cache has not been used for a while"() {
+        def cache = new JavaFileManagerCache(2, 100, 1.0, 100, scheduler)
+        def first = cache.acquire(compiler, null, options, [a])
+        def second = cache.acquire(compiler, null, options, [b])
+
+        when:
+        first.close()
+        second.close()
+
+        then:
+        cache.idleCount == 2
+        new PollingConditions().within(5) {
+            assert cache.idleCount == 0
+        }
+    }
+
+    def "does not close idle file managers while a file manager is in use"() {
+        def cache = new JavaFileManagerCache(2, 100, 1.0, 100, scheduler)
+        def first = cache.acquire(compiler, null, options, [a])
+        def second = cache.acquire(compiler, null, options, [b])
+
+        when:
+        first.close()
+        Thread.sleep(500)
+
+        then:
+        cache.idleCount == 1
+
+        cleanup:
+        second.close()
+        cache.closeAll()
+    }
+
+    private File jar(String name) {
+        def jar = tmpDir.file(name)
+        jar << JarUtils.jarWithContents((name + ".txt"): name)
+        return jar
+    }
+}
@@ -20,6 +20,7 @@
 import org.apache.commons.io.FilenameUtils;
 import org.gradle.api.internal.file.archive.ZipEntry;
 import org.gradle.api.internal.file.archive.ZipInput;
+import org.gradle.api.internal.file.archive.impl.FileChannelZipInput;
 import org.gradle.api.internal.file.archive.impl.FileZipInput;
 import org.gradle.api.internal.file.archive.impl.StreamZipInput;
 import org.gradle.internal.file.FileType;
@@ -41,17 +42,34 @@
 import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class ZipHasher implements RegularFileSnapshotContextHasher, ConfigurableNormalizer {
 
+    /**
+     * When set to {@code true}, Gradle provides an executor to the classpath hashers, which read zip files through a file channel and hash their entries in parallel.
+     */
+    public static final String PARALLEL_HASHING_PROPERTY = "org.gradle.internal.zip-hasher.parallel-hashing";
+    private static final int ENTRIES_PER_TASK = 64;
+
     private static final Set<String> KNOWN_ZIP_EXTENSIONS = ImmutableSet.of("zip", "jar", "war", "rar", "ear", "apk", "aar", "klib");
     private static final Logger LOGGER = LoggerFactory.getLogger(ZipHasher.class);
     private static final HashCode EMPTY_HASH_MARKER = Hashing.signature(ZipHasher.class);
 
+    /**
+     * Logs malformed archives at debug level, hashing them by their full content instead.
+     */
+    public static final HashingExceptionReporter DEFAULT_HASHING_EXCEPTION_REPORTER =
+        (s, e) -> LOGGER.debug("Malformed archive '{}'. Falling back to full content hash instead of entry hashing.", s.getName(), e);
+
     public static boolean isZipFile(final String name) {
         return KNOWN_ZIP_EXTENSIONS.contains(FilenameUtils.getExtension(name).toLowerCase(Locale.ROOT));
     }
@@ -59,19 +77,27 @@ public static boolean isZipFile(final String name) {
     private final ResourceHasher resourceHasher;
     private final ZipHasher fallbackZipHasher;
     private final HashingExceptionReporter hashingExceptionReporter;
+    @Nullable
+    private final Executor hashingExecutor;
 
     public ZipHasher(ResourceHasher resourceHasher) {
-        this(
-            resourceHasher,
-            null,
-            (s, e) -> LOGGER.debug("Malformed archive '{}'. Falling back to full content hash instead of entry hashing.", s.getName(), e)
-        );
+        this(resourceHasher, null, DEFAULT_HASHING_EXCEPTION_REPORTER);
     }
 
     public ZipHasher(ResourceHasher resourceHasher, @Nullable ZipHasher fallbackZipHasher, HashingExceptionReporter hashingExceptionReporter) {
+        this(resourceHasher, fallbackZipHasher, hashingExceptionReporter, null);
+    }
+
+    /**
+     * Creates a hasher that hashes the entries of plain zip files in parallel on the given executor when it is not {@code null}.
+     * The calling thread takes part in the hashing, so the executor may run fewer threads than requested or none at all.
+     * The resulting hashes are the same as when hashing sequentially.
+     */
+    public ZipHasher(ResourceHasher resourceHasher, @Nullable ZipHasher fallbackZipHasher, HashingExceptionReporter hashingExceptionReporter, @Nullable Executor hashingExecutor) {
         this.resourceHasher = resourceHasher;
         this.fallbackZipHasher = fallbackZipHasher;
         this.hashingExceptionReporter = hashingExceptionReporter;
+        this.hashingExecutor = hashingExecutor;
     }
 
     @Nullable
@@ -106,6 +132,14 @@ private HashCode hashZipContents(RegularFileSnapshot zipFileSnapshot) {
     }
 
     private List<FileSystemLocationFingerprint> fingerprintZipEntries(String zipFile) throws IOException {
+        if (hashingExecutor != null) {
+            FileChannelZipInput channelInput = FileChannelZipInput.open(new File(zipFile));
+            if (channelInput != null) {
+                try (ZipInput input = channelInput) {
+                    return fingerprintZipEntriesInParallel(zipFile, input, hashingExecutor);
+                }
+            }
+        }
         try (ZipInput input = FileZipInput.create(new File(zipFile))) {
             List<FileSystemLocationFingerprint> fingerprints = new ArrayList<>();
             fingerprintZipEntries("", zipFile, fingerprints, input);
@@ -132,6 +166,102 @@ private void fingerprintZipEntries(String parentName, String rootParentName, Lis
         }
     }
 
+    /**
+     * Hashes the entries of the given zip in parallel, except for nested zips which are hashed on the calling thread.
+     * The entries of the input must be readable concurrently.
+     */
+    private List<FileSystemLocationFingerprint> fingerprintZipEntriesInParallel(String zipFile, ZipInput input, Executor executor) throws IOException {
+        List<FileSystemLocationFingerprint> fingerprints = new ArrayList<>();
+        fingerprints.add(newZipMarker(""));
+        List<ZipEntryContext> entries = new ArrayList<>();
+        for (ZipEntry zipEntry : input) {
+            if (zipEntry.isDirectory()) {
+                continue;
+            }
+            ZipEntryContext zipEntryContext = new DefaultZipEntryContext(zipEntry, zipEntry.getName(), zipFile);
+            if (isZipFile(zipEntry.getName())) {
+                zipEntry.withInputStream(inputStream -> {
+                    fingerprintZipEntries(zipEntry.getName(), zipFile, fingerprints, new StreamZipInput(inputStream));
+                    return null;
+                });
+            } else {
+                entries.add(zipEntryContext);
+            }
+        }
+        HashCode[] hashes = new HashCode[entries.size()];
+        HashZipEntries hashZipEntries = new HashZipEntries(entries, hashes);
+        int helpers = Math.min(hashZipEntries.chunkCount, Runtime.getRuntime().availableProcessors()) - 1;
+        for (int i = 0; i < helpers; i++) {
+            executor.execute(hashZipEntries);
+        }
+        hashZipEntries.run();
+        hashZipEntries.await();
+        for (int i = 0; i < hashes.length; i++) {
+            if (hashes[i] != null) {
+                fingerprints.add(new DefaultFileSystemLocationFingerprint(entries.get(i).getFullName(), FileType.RegularFile, hashes[i]));
+            }
+        }
+        return fingerprints;
+    }
+
+    /**
+     * Hashes chunks of entries until none are left. Run by the calling thread and by any number of executor threads,
+     * so that executor threads that only start after all chunks have been taken do nothing.
+     */
+    private class HashZipEntries implements Runnable {
+        private final List<ZipEntryContext> entries;
+        private final HashCode[] hashes;
+        private final int chunkCount;
+        private final AtomicInteger nextChunk = new AtomicInteger();
+        private final CountDownLatch pendingChunks;
+        private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+        HashZipEntries(List<ZipEntryContext> entries, HashCode[] hashes) {
+            this.entries = entries;
+            this.hashes = hashes;
+            this.chunkCount = (entries.size() + ENTRIES_PER_TASK - 1) / ENTRIES_PER_TASK;
+            this.pendingChunks = new CountDownLatch(chunkCount);
+        }
+
+        @Override
+        public void run() {
+            int chunk;
+            while ((chunk = nextChunk.getAndIncrement()) < chunkCount) {
+                try {
+                    if (failure.get() == null) {
+                        int to = Math.min(entries.size(), (chunk + 1) * ENTRIES_PER_TASK);
+                        for (int i = chunk * ENTRIES_PER_TASK; i < to; i++) {
+                            hashes[i] = resourceHasher.hash(entries.get(i));
+                        }
+                    }
+                } catch (IOException | RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    pendingChunks.countDown();
+                }
+            }
+        }
+
+        /**
+         * Waits for the chunks taken by executor threads, and rethrows the first failure.
+         */
+        void await() throws IOException {
+            try {
+                pendingChunks.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while hashing zip entries");
+            }
+            Exception e = failure.get();
+            if (e instanceof IOException) {
+                throw (IOException) e;
+            }
+            if (e != null) {
+                throw (RuntimeException) e;
+            }
+        }
+    }
+
     private void fingerprintZipEntry(ZipEntryContext zipEntryContext, List<FileSystemLocationFingerprint> fingerprints) throws IOException {
         HashCode hash = resourceHasher.hash(zipEntryContext);
         if (hash != null) {
@@ -56,6 +56,7 @@
 import java.io.UncheckedIOException;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import static org.gradle.internal.fingerprint.classpath.impl.ClasspathFingerprintingStrategy.NonJarFingerprintingStrategy.IGNORE;
 import static org.gradle.internal.fingerprint.classpath.impl.ClasspathFingerprintingStrategy.NonJarFingerprintingStrategy.USE_FILE_HASH;
@@ -108,14 +109,37 @@ public static ClasspathFingerprintingStrategy runtimeClasspath(
         ResourceSnapshotterCacheService cacheService,
         Interner<String> stringInterner,
         LineEndingSensitivity lineEndingSensitivity
+    ) {
+        return runtimeClasspath(classpathResourceFilter, manifestAttributeResourceEntryFilter, propertiesFileFilters, runtimeClasspathResourceHasher, cacheService, stringInterner, lineEndingSensitivity, null);
+    }
+
+    /**
+     * Creates a runtime classpath strategy that hashes the entries of zip files in parallel on the given executor, when not {@code null}.
+     */
+    public static ClasspathFingerprintingStrategy runtimeClasspath(
+        ResourceFilter classpathResourceFilter,
+        ResourceEntryFilter manifestAttributeResourceEntryFilter,
+        Map<String, ResourceEntryFilter> propertiesFileFilters,
+        RuntimeClasspathResourceHasher runtimeClasspathResourceHasher,
+        ResourceSnapshotterCacheService cacheService,
+        Interner<String> stringInterner,
+        LineEndingSensitivity lineEndingSensitivity,
+        @Nullable Executor zipEntryHashingExecutor
     ) {
         ResourceHasher resourceHasher = runtimeClasspathResourceHasher(runtimeClasspathResourceHasher, lineEndingSensitivity, propertiesFileFilters, manifestAttributeResourceEntryFilter, classpathResourceFilter);
-        ZipHasher zipHasher = new ZipHasher(resourceHasher);
+        ZipHasher zipHasher = new ZipHasher(resourceHasher, null, ZipHasher.DEFAULT_HASHING_EXCEPTION_REPORTER, zipEntryHashingExecutor);
         return new ClasspathFingerprintingStrategy(CLASSPATH_IDENTIFIER, USE_FILE_HASH, resourceHasher, zipHasher, cacheService, stringInterner);
     }
 
     public static ClasspathFingerprintingStrategy compileClasspath(ResourceHasher classpathResourceHasher, ResourceSnapshotterCacheService cacheService, Interner<String> stringInterner) {
-        ZipHasher zipHasher = new ZipHasher(classpathResourceHasher);
+        return compileClasspath(classpathResourceHasher, cacheService, stringInterner, null);
+    }
+
+    /**
+     * Creates a compile classpath strategy that hashes the entries of zip files in parallel on the given executor, when not {@code null}.
+     */
+    public static ClasspathFingerprintingStrategy compileClasspath(ResourceHasher classpathResourceHasher, ResourceSnapshotterCacheService cacheService, Interner<String> stringInterner, @Nullable Executor zipEntryHashingExecutor) {
+        ZipHasher zipHasher = new ZipHasher(classpathResourceHasher, null, ZipHasher.DEFAULT_HASHING_EXCEPTION_REPORTER, zipEntryHashingExecutor);
         return new ClasspathFingerprintingStrategy(COMPILE_CLASSPATH_IDENTIFIER, IGNORE, classpathResourceHasher, zipHasher, cacheService, stringInterner);
     }
 
@@ -28,6 +28,7 @@ import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.junit.Rule
 import spock.lang.Specification
 
+import java.util.concurrent.Executors
 import java.util.jar.Attributes
 import java.util.jar.JarEntry
 import java.util.jar.JarOutputStream
@@ -175,6 +176,25 @@ class ZipHasherTest extends Specification {
         jarOutput.close()
     }
 
+    def "hashing entries in parallel produces the same hash"() {
+        given:
+        def innerContent = tmpDir.createDir("inner")
+        innerContent.file("inner.txt") << "inner"
+        def outerContent = tmpDir.createDir("outer")
+        (1..200).each { outerContent.file("dir${it % 7}/file${it}.txt") << "content $it" }
+        innerContent.zipTo(outerContent.file("lib/inner.jar"))
+        def outer = tmpDir.file("outer.jar")
+        outerContent.zipTo(outer)
+        def executor = Executors.newFixedThreadPool(2)
+        def parallelZipHasher = new ZipHasher(resourceHasher(ResourceEntryFilter.FILTER_NOTHING, ResourceEntryFilter.FILTER_NOTHING), null, { s, e -> throw e }, executor)
+
+        expect:
+        parallelZipHasher.hash(snapshotContext(outer)) == zipHasher.hash(snapshotContext(outer))
+
+        cleanup:
+        executor?.shutdown()
+    }
+
     private static RegularFileSnapshotContext snapshotContext(TestFile file) {
         return new DefaultRegularFileSnapshotContext({ }, new RegularFileSnapshot(file.path, file.name, TestHashCodes.hashCodeFrom(0), DefaultFileMetadata.file(0, 0, AccessType.DIRECT)))
     }
@@ -117,6 +117,15 @@ default List<TestFrameworkDistributionModule> getWorkerImplementationModulepathM
         return Collections.emptyList();
     }
 
+    /**
+     * Whether the test processor in the worker runs each test class as it receives it, rather than collecting the test classes
+     * and running them once it is stopped. Test classes are then handed to a worker once it has finished its previous test class.
+     */
+    @Internal
+    default boolean isRunningTestClassesAsReceived() {
+        return false;
+    }
+
     /**
      * Whether the legacy behavior of loading test framework dependencies from the Gradle distribution
      * is enabled. If true, jars specified by this framework are loaded from the Gradle distribution
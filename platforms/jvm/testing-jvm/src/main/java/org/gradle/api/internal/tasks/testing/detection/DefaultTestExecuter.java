@@ -29,10 +29,12 @@
 import org.gradle.api.internal.tasks.testing.processors.MaxNParallelTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.PatternMatchTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.RestartEveryNTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.processors.RunLongestFirstTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.RunPreviousFailedFirstTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.TestMainAction;
 import org.gradle.api.internal.tasks.testing.worker.ForkingTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.worker.ForkedTestClasspath;
+import org.gradle.api.internal.tasks.testing.worker.TestWorkerPool;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.internal.Factory;
@@ -41,6 +43,7 @@
 import org.gradle.internal.work.WorkerLeaseService;
 import org.gradle.process.internal.worker.WorkerProcessFactory;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.ArrayList;
 
@@ -59,12 +62,23 @@ public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
     private final Clock clock;
     private final DocumentationRegistry documentationRegistry;
     private final DefaultTestFilter testFilter;
+    @Nullable
+    private final TestWorkerPool testWorkerPool;
     private TestClassProcessor processor;
 
     public DefaultTestExecuter(
         WorkerProcessFactory workerFactory, ActorFactory actorFactory, ModuleRegistry moduleRegistry,
         WorkerLeaseService workerLeaseService, int maxWorkerCount,
         Clock clock, DocumentationRegistry documentationRegistry, DefaultTestFilter testFilter
+    ) {
+        this(workerFactory, actorFactory, moduleRegistry, workerLeaseService, maxWorkerCount, clock, documentationRegistry, testFilter, null);
+    }
+
+    public DefaultTestExecuter(
+        WorkerProcessFactory workerFactory, ActorFactory actorFactory, ModuleRegistry moduleRegistry,
+        WorkerLeaseService workerLeaseService, int maxWorkerCount,
+        Clock clock, DocumentationRegistry documentationRegistry, DefaultTestFilter testFilter,
+        @Nullable TestWorkerPool testWorkerPool
     ) {
         this.workerFactory = workerFactory;
         this.actorFactory = actorFactory;
@@ -74,6 +88,7 @@ public DefaultTestExecuter(
         this.clock = clock;
         this.documentationRegistry = documentationRegistry;
         this.testFilter = testFilter;
+        this.testWorkerPool = testWorkerPool;
     }
 
     @Override
@@ -86,11 +101,13 @@ public void execute(final JvmTestExecutionSpec testExecutionSpec, TestResultProc
             testFramework, testExecutionSpec.getTestIsModule()
         );
 
+        // Workers restarted every N test classes are meant to be isolated, so are never reused
+        final TestWorkerPool workerPool = testExecutionSpec.getForkEvery() == 0 ? testWorkerPool : null;
         final Factory<TestClassProcessor> forkingProcessorFactory = new Factory<TestClassProcessor>() {
             @Override
             public TestClassProcessor create() {
                 return new ForkingTestClassProcessor(workerLeaseService, workerFactory, testInstanceFactory, testExecutionSpec.getJavaForkOptions(),
-                    classpath, testFramework.getWorkerConfigurationAction(), documentationRegistry);
+                    classpath, testFramework.getWorkerConfigurationAction(), documentationRegistry, workerPool);
             }
         };
         final Factory<TestClassProcessor> reforkingProcessorFactory = new Factory<TestClassProcessor>() {
@@ -101,8 +118,9 @@ public TestClassProcessor create() {
         };
         processor =
             new PatternMatchTestClassProcessor(testFilter,
-                new RunPreviousFailedFirstTestClassProcessor(testExecutionSpec.getPreviousFailedTestClasses(),
-                    new MaxNParallelTestClassProcessor(getMaxParallelForks(testExecutionSpec), reforkingProcessorFactory, actorFactory)));
+                new RunLongestFirstTestClassProcessor(testExecutionSpec.getPreviousTestClassDurations(),
+                    new RunPreviousFailedFirstTestClassProcessor(testExecutionSpec.getPreviousFailedTestClasses(),
+                        new MaxNParallelTestClassProcessor(getMaxParallelForks(testExecutionSpec), reforkingProcessorFactory, actorFactory, testExecutionSpec.getPreviousTestClassDurations(), testFramework.isRunningTestClassesAsReceived()))));
 
         final FileTree testClassFiles = testExecutionSpec.getCandidateClassFiles();
 
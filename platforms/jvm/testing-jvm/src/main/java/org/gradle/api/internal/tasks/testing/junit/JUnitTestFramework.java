@@ -108,6 +108,11 @@ public List<TestFrameworkDistributionModule> getWorkerImplementationClasspathMod
         return DISTRIBUTION_MODULES;
     }
 
+    @Override
+    public boolean isRunningTestClassesAsReceived() {
+        return true;
+    }
+
     @Override
     public boolean getUseDistributionDependencies() {
         return useImplementationDependencies;
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.integtests.resolve.caching
+
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.PersistentResolutionResultsCache
+import org.gradle.integtests.fixtures.AbstractHttpDependencyResolutionTest
+import org.gradle.integtests.fixtures.ToBeFixedForConfigurationCache
+import org.gradle.test.fixtures.server.http.MavenHttpRepository
+
+class PersistentResolutionResultsIntegrationTest extends AbstractHttpDependencyResolutionTest {
+    private static final String REUSED = "Reusing the dependency graph of "
+
+    def setup() {
+        executer.requireOwnGradleUserHomeDir()
+        buildFile << '''
+            plugins {
+                id("java-library")
+            }
+
+            tasks.register("report") {
+                def outputFile = file("build/resolution.txt")
+                doLast {
+                    def configuration = configurations.runtimeClasspath
+                    def lines = []
+                    configuration.incoming.resolutionResult.allComponents.each { component ->
+                        lines << "component:${component.id} ${component.moduleVersion} ${component.selectionReason.descriptions*.description}"
+                        component.variants.each { variant ->
+                            lines << "variant:${component.id} ${variant.displayName} ${variant.attributes}"
+                        }
+                        component.dependencies.each { dependency ->
+                            def selected = dependency instanceof ResolvedDependencyResult ? "${dependency.selected.id} (${dependency.resolvedVariant.displayName})" : "unresolved"
+                            lines << "dependency:${component.id} ${dependency.requested} -> ${selected}"
+                        }
+                    }
+                    configuration.incoming.artifacts.each { artifact ->
+                        lines << "artifact:${artifact.id} ${artifact.file.name} ${artifact.variant.attributes}"
+                    }
+                    def visit
+                    visit = { ResolvedDependency dependency, String indent ->
+                        lines << "legacy:${indent}${dependency.name} ${dependency.configuration} ${dependency.moduleArtifacts*.file*.name}"
+                        dependency.children.each { visit(it, indent + "  ") }
+                    }
+                    configuration.resolvedConfiguration.firstLevelModuleDependencies.each { visit(it, "") }
+                    configuration.resolvedConfiguration.resolvedArtifacts.each { artifact ->
+                        lines << "legacy-artifact:${artifact.id} ${artifact.file.name}"
+                    }
+                    configuration.files.each {
+                        lines << "file:${it.name}"
+                    }
+                    outputFile.text = lines.join("\\n")
+                }
+            }
+        '''
+    }
+
+    @ToBeFixedForConfigurationCache(because = "task uses Configuration API")
+    def "reused graph has the same results as a fresh resolution"() {
+        def repo = mavenHttpRepo("repo")
+        def b = repo.module("org", "b", "1.0").withModuleMetadata().publish().allowAll()
+        repo.module("org", "a", "1.0").withModuleMetadata().dependsOn(b).publish().allowAll()
+        repo.module("org", "c", "1.0").publish().allowAll()
+        withRepository(repo)
+        withDependencies("org:a:1.0", "org:c:1.0")
+
+        when:
+        report()
+
+        then:
+        outputDoesNotContain(REUSED)
+        def resolved = reportText()
+        resolved.contains("component:org:a:1.0 ")
+        resolved.contains("dependency:org:a:1.0 org:b:1.0 -> org:b:1.0")
+        resolved.contains("legacy:  org:b:1.0 ")
+        resolved.contains("legacy-artifact:")
+        resolved.contains("file:c-1.0.jar")
+
+        when:
+        report()
+
+        then:
+        outputContains(REUSED)
+        reportText() == resolved
+
+        when:
+        report(false)
+
+        then:
+        outputDoesNotContain(REUSED)
+        reportText() == resolved
+    }
+
+    @ToBeFixedForConfigurationCache(because = "task uses Configuration API")
+    def "does not reuse the graph when a substitution rule is added or changed"() {
+        def repo = mavenHttpRepo("repo")
+        def b = repo.module("org", "b", "1.0").publish().allowAll()
+        repo.module("org", "c", "1.0").publish().allowAll()
+        repo.module("org", "d", "1.0").publish().allowAll()
+        repo.module("org", "a", "1.0").dependsOn(b).publish().allowAll()
+        withRepository(repo)
+        withDependencies("org:a:1.0")
+        report()
+
+        when:
+        buildFile << substitute("org:b", "org:c:1.0")
+        report()
+
+        then:
+        outputDoesNotContain(REUSED)
+        reportText().contains("dependency:org:a:1.0 org:b:1.0 -> org:c:1.0")
+
+        when:
+        buildFile.text = buildFile.text.replace(substitute("org:b", "org:c:1.0"), substitute("org:b", "org:d:1.0"))
+        report()
+
+        then:
+        outputDoesNotContain(REUSED)
+        reportText().contains("dependency:org:a:1.0 org:b:1.0 -> org:d:1.0")
+    }
+
+    @ToBeFixedForConfigurationCache(because = "task uses Configuration API")
+    def "does not reuse the graph when a repository changes"() {
+        def repo1 = mavenHttpRepo("repo1")
+        def b = repo1.module("org", "b", "1.0").publish().allowAll()
+        repo1.module("org", "a", "1.0").dependsOn(b).publish().allowAll()
+        def repo2 = mavenHttpRepo("repo2")
+        def c = repo2.module("org", "c", "1.0").publish().allowAll()
+        repo2.module("org", "a", "1.0").dependsOn(c).publish().allowAll()
+        withRepository(repo1)
+        withDependencies("org:a:1.0")
+        report()
+
+        when:
+        buildFile.text = buildFile.text.replace(repo1.uri.toString(), repo2.uri.toString())
+        report()
+
+        then:
+        outputDoesNotContain(REUSED)
+        reportText().contains("dependency:org:a:1.0 org:c:1.0 -> org:c:1.0")
+        !reportText().contains("org:b:1.0")
+    }
+
+    @ToBeFixedForConfigurationCache(because = "task uses Configuration API")
+    def "does not reuse the graph when a dynamic version selects a newer module"() {
+        def repo = mavenHttpRepo("repo")
+        repo.module("org", "a", "1.0").publish().allowAll()
+        repo.getModuleMetaData("org", "a").allowGetOrHead()
+        withRepository(repo)
+        withDependencies("org:a:1.+")
+        buildFile << """
+            configurations.all {
+                resolutionStrategy.cacheDynamicVersionsFor(0, "seconds")
+            }
+        """
+        report()
+
+        when:
+        repo.module("org", "a", "1.1").publish().allowAll()
+        report()
+
+        then:
+        outputDoesNotContain(REUSED)
+        reportText().contains(" org:a:1.+ -> org:a:1.1")
+        reportText().contains("file:a-1.1.jar")
+    }
+
+    @ToBeFixedForConfigurationCache(because = "task uses Configuration API")
+    def "does not reuse the graph when a module in a local repository changes"() {
+        def repo = mavenRepo("local")
+        def b = repo.module("org", "b", "1.0").publish()
+        def c = repo.module("org", "c", "1.0").publish()
+        def a = repo.module("org", "a", "1.0").dependsOn(b).publish()
+        buildFile << """
+            repositories {
+                maven { url = "${repo.uri}" }
+            }
+        """
+        withDependencies("org:a:1.0")
+        report()
+
+        when:
+        a.dependsOn(c).publish()
+        report()
+
+        then:
+        outputDoesNotContain(REUSED)
+        reportText().contains("dependency:org:a:1.0 org:c:1.0 -> org:c:1.0")
+    }
+
+    private void report(boolean persistentResults = true) {
+        executer.withArgument("--info")
+        if (persistentResults) {
+            executer.withArgument("-D${PersistentResolutionResultsCache.ENABLED_PROPERTY}=true")
+        }
+        succeeds("report")
+    }
+
+    private String reportText() {
+        file("build/resolution.txt").text
+    }
+
+    private void withRepository(MavenHttpRepository repo) {
+        buildFile << """
+            repositories {
+                maven { url = "${repo.uri}" }
+            }
+        """
+    }
+
+    private void withDependencies(String... notations) {
+        buildFile << """
+            dependencies {
+                ${notations.collect { "implementation(\"$it\")" }.join("\n")}
+            }
+        """
+    }
+
+    private static String substitute(String from, String to) {
+        """
+            configurations.all {
+                resolutionStrategy.dependencySubstitution {
+                    substitute(module("$from")).using(module("$to"))
+                }
+            }
+        """
+    }
+}
@@ -72,6 +72,7 @@
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentDetailsSerializer;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentSelectionDescriptorFactory;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.SelectedVariantSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.PersistentResolutionResultsCache;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ResolutionResultsStoreFactory;
 import org.gradle.api.internal.artifacts.mvnsettings.LocalMavenRepositoryLocator;
 import org.gradle.api.internal.artifacts.query.ArtifactResolutionQueryFactory;
@@ -532,7 +533,10 @@ ConfigurationResolver createDependencyResolver(
             LocalComponentRegistry localComponentRegistry,
             List<ResolverProviderFactory> resolverFactories,
             ExternalModuleComponentResolverFactory moduleDependencyResolverFactory,
-            ProjectDependencyResolver projectDependencyResolver
+            ProjectDependencyResolver projectDependencyResolver,
+            PersistentResolutionResultsCache persistentResolutionResultsCache,
+            VersionSelectorScheme versionSelectorScheme,
+            ClassLoaderHierarchyHasher classLoaderHierarchyHasher
         ) {
             DefaultConfigurationResolver defaultResolver = new DefaultConfigurationResolver(
                 dependencyGraphResolver,
@@ -561,7 +565,10 @@ ConfigurationResolver createDependencyResolver(
                 localComponentRegistry,
                 resolverFactories,
                 moduleDependencyResolverFactory,
-                projectDependencyResolver
+                projectDependencyResolver,
+                persistentResolutionResultsCache,
+                versionSelectorScheme,
+                classLoaderHierarchyHasher
             );
 
             return new ShortCircuitEmptyConfigurationResolver(
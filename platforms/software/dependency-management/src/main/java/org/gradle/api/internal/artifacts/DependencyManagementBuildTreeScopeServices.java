@@ -25,6 +25,7 @@
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleDescriptorHashCodec;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleDescriptorHashModuleSource;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.StartParameterResolutionOverride;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.verification.DependencyVerificationOverride;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.AbstractModuleMetadataCache;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.FileStoreAndIndexProvider;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.InMemoryModuleMetadataCache;
@@ -54,6 +55,7 @@
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.AttributeContainerSerializer;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ThisBuildOnlyComponentDetailsSerializer;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ThisBuildOnlySelectedVariantSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.PersistentResolutionResultsCache;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ResolutionResultsStoreFactory;
 import org.gradle.api.internal.artifacts.repositories.metadata.DefaultMetadataFileSourceCodec;
 import org.gradle.api.internal.artifacts.repositories.metadata.IvyMutableModuleMetadataFactory;
@@ -118,6 +120,15 @@ ResolutionResultsStoreFactory createResolutionResultsStoreFactory(TemporaryFileP
         return new ResolutionResultsStoreFactory(temporaryFileProvider);
     }
 
+    PersistentResolutionResultsCache createPersistentResolutionResultsCache(ArtifactCachesProvider artifactCaches, StartParameter startParameter, BuildLayout buildLayout) {
+        // Graphs are not reused when dependency verification is in use, as verification happens while resolving the graph
+        File verificationsFile = DependencyVerificationOverride.dependencyVerificationsFile(new File(buildLayout.getRootDirectory(), "gradle"));
+        boolean enabled = PersistentResolutionResultsCache.isEnabledByProperty()
+            && startParameter.getWriteDependencyVerifications().isEmpty()
+            && !verificationsFile.exists();
+        return new PersistentResolutionResultsCache(artifactCaches.getWritableCacheAccessCoordinator(), enabled, startParameter.isRefreshDependencies());
+    }
+
     private ByUrlCachedExternalResourceIndex prepareArtifactUrlCachedResolutionIndex(BuildCommencedTimeProvider timeProvider, ArtifactCacheLockingAccessCoordinator cacheAccessCoordinator, ExternalResourceFileStore externalResourceFileStore, ArtifactCacheMetadata artifactCacheMetadata) {
         return new ByUrlCachedExternalResourceIndex(
             "resource-at-url",
@@ -213,6 +213,11 @@ public int getRulesHash() {
         return metadataRuleContainer.getRulesHash();
     }
 
+    @Override
+    public boolean hasRules() {
+        return !metadataRuleContainer.isEmpty();
+    }
+
     private void processAllRules(ModuleComponentResolveMetadata metadata, ComponentMetadataDetails details, ModuleVersionIdentifier id) {
         for (MetadataRuleWrapper wrapper : metadataRuleContainer) {
             if (wrapper.isClassBased()) {
@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.artifacts.ivyservice;
 
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleMetadataSegmentStore;
 import org.gradle.cache.ExclusiveCacheAccessCoordinator;
 import org.gradle.cache.IndexedCache;
 import org.gradle.internal.serialize.Serializer;
@@ -34,4 +35,11 @@ public interface ArtifactCacheLockingAccessCoordinator extends ExclusiveCacheAcc
      *
      */
     <K, V> IndexedCache<K, V> createCache(String cacheName, Serializer<K> keySerializer, Serializer<V> valueSerializer);
+
+    /**
+     * Returns the module metadata segments of this cache, which are closed along with it.
+     *
+     * <p>The returned store may only be used by an action being run from {@link #useCache(org.gradle.internal.Factory)}.</p>
+     */
+    ModuleMetadataSegmentStore getModuleMetadataSegments();
 }
@@ -44,6 +44,13 @@ public interface ArtifactCacheMetadata {
      */
     File getMetaDataStoreDirectory();
 
+    /**
+     * Returns the directory of the segment files holding module metadata, when module metadata is stored in segments.
+     *
+     * @return Metadata segments location
+     */
+    File getMetaDataSegmentsDirectory();
+
     /**
      * Returns the root directory for the transforms cache.
      */
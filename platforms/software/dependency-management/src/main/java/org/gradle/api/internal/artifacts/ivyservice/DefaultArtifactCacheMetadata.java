@@ -65,6 +65,11 @@ public File getMetaDataStoreDirectory() {
         return new File(createCacheRelativeDir(CacheLayout.META_DATA), "descriptors");
     }
 
+    @Override
+    public File getMetaDataSegmentsDirectory() {
+        return new File(createCacheRelativeDir(CacheLayout.META_DATA), "descriptor-segments");
+    }
+
     private File createCacheRelativeDir(CacheLayout cacheLayout) {
         return cacheLayout.getPath(getCacheDir());
     }
@@ -18,6 +18,7 @@
 import com.google.common.collect.ImmutableList;
 import org.apache.commons.lang.StringUtils;
 import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleMetadataSegmentStore;
 import org.gradle.api.internal.cache.CacheConfigurationsInternal;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
@@ -182,5 +183,10 @@ public void useCache(Runnable action) {
         public <K, V> IndexedCache<K, V> createCache(String cacheName, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
             return getDelegate().createCache(cacheName, keySerializer, valueSerializer);
         }
+
+        @Override
+        public ModuleMetadataSegmentStore getModuleMetadataSegments() {
+            return getDelegate().getModuleMetadataSegments();
+        }
     }
 }
@@ -20,6 +20,7 @@
 import com.google.common.collect.ImmutableSet;
 import org.gradle.api.InvalidUserCodeException;
 import org.gradle.api.artifacts.ResolutionStrategy;
+import org.gradle.api.artifacts.Dependency;
 import org.gradle.api.artifacts.ResolveException;
 import org.gradle.api.artifacts.UnresolvedDependency;
 import org.gradle.api.artifacts.component.BuildIdentifier;
@@ -43,14 +44,20 @@
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ComponentResolvers;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ExternalModuleComponentResolverFactory;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ResolverProviderFactory;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
 import org.gradle.api.internal.artifacts.ivyservice.projectmodule.LocalComponentRegistry;
 import org.gradle.api.internal.artifacts.ivyservice.projectmodule.ProjectDependencyResolver;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.ComponentResolversChain;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.DependencyGraphResolver;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ArtifactSelectionSpec;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ArtifactSet;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DefaultResolvedArtifactsBuilder;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DefaultVisitedArtifactSet;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DefaultVisitedArtifactResults;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.NoBuildDependenciesArtifactSet;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.PersistableArtifactsVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ReplayedVariantArtifactSet;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvedArtifactSetResolver;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvedArtifactsGraphVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvedVariantCache;
@@ -64,6 +71,7 @@
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.results.DefaultVisitedGraphResults;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.results.VisitedGraphResults;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.DefaultResolvedConfigurationBuilder;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.DefaultResolvedGraphResults;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.ResolutionFailureCollector;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.ResolvedConfigurationDependencyGraphVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.ResolvedGraphResults;
@@ -72,11 +80,17 @@
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.TransientConfigurationResultsLoader;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.projectresult.ResolvedLocalComponentsResultGraphVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.AttributeContainerSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.CompleteComponentDetailsSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.CompleteSelectedVariantSerializer;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentDetailsSerializer;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentSelectionDescriptorFactory;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.FileDependencyCollectingGraphVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.PersistableGraphVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.SelectedVariantSerializer;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.StreamingResolutionResultBuilder;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ByteArrayBinaryStore;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.PersistedResolverResults;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.PersistentResolutionResultsCache;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ResolutionResultsStoreFactory;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.StoreSet;
 import org.gradle.api.internal.artifacts.repositories.ContentFilteringRepository;
@@ -93,22 +107,31 @@
 import org.gradle.api.specs.Specs;
 import org.gradle.cache.internal.BinaryStore;
 import org.gradle.cache.internal.Store;
+import org.gradle.internal.component.local.model.DslOriginDependencyMetadata;
 import org.gradle.internal.component.model.DependencyMetadata;
 import org.gradle.internal.component.model.GraphVariantSelector;
+import org.gradle.internal.hash.ClassLoaderHierarchyHasher;
+import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.locking.DependencyLockingGraphVisitor;
 import org.gradle.internal.model.CalculatedValueContainerFactory;
 import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.resolve.resolver.DefaultVariantArtifactResolver;
+import org.gradle.internal.resolve.resolver.VariantArtifactResolver;
 import org.gradle.util.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 public class DefaultConfigurationResolver implements ConfigurationResolver {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultConfigurationResolver.class);
     private static final Spec<DependencyMetadata> IS_LOCAL_EDGE = element -> element.getSelector() instanceof ProjectComponentSelector;
     private final DependencyGraphResolver dependencyGraphResolver;
     private final RepositoriesSupplier repositoriesSupplier;
@@ -137,6 +160,11 @@ public class DefaultConfigurationResolver implements ConfigurationResolver {
     private final List<ResolverProviderFactory> resolverFactories;
     private final ExternalModuleComponentResolverFactory externalResolverFactory;
     private final ProjectDependencyResolver projectDependencyResolver;
+    private final PersistentResolutionResultsCache persistentResultsCache;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final ResolutionInputsFingerprinter inputsFingerprinter;
+    private final CompleteComponentDetailsSerializer persistentComponentDetailsSerializer;
+    private final CompleteSelectedVariantSerializer persistentSelectedVariantSerializer;
 
     public DefaultConfigurationResolver(
         DependencyGraphResolver dependencyGraphResolver,
@@ -164,7 +192,10 @@ public DefaultConfigurationResolver(
         LocalComponentRegistry localComponentRegistry,
         List<ResolverProviderFactory> resolverFactories,
         ExternalModuleComponentResolverFactory externalResolverFactory,
-        ProjectDependencyResolver projectDependencyResolver
+        ProjectDependencyResolver projectDependencyResolver,
+        PersistentResolutionResultsCache persistentResultsCache,
+        VersionSelectorScheme versionSelectorScheme,
+        ClassLoaderHierarchyHasher classLoaderHierarchyHasher
     ) {
         this.dependencyGraphResolver = dependencyGraphResolver;
         this.repositoriesSupplier = repositoriesSupplier;
@@ -193,6 +224,11 @@ public DefaultConfigurationResolver(
         this.resolverFactories = resolverFactories;
         this.externalResolverFactory = externalResolverFactory;
         this.projectDependencyResolver = projectDependencyResolver;
+        this.persistentResultsCache = persistentResultsCache;
+        this.versionSelectorScheme = versionSelectorScheme;
+        this.inputsFingerprinter = new ResolutionInputsFingerprinter(metadataHandler, consumerSchema, attributeContainerSerializer, moduleIdentifierFactory, classLoaderHierarchyHasher);
+        this.persistentSelectedVariantSerializer = new CompleteSelectedVariantSerializer(attributeContainerSerializer);
+        this.persistentComponentDetailsSerializer = new CompleteComponentDetailsSerializer(moduleIdentifierFactory, persistentSelectedVariantSerializer);
     }
 
     @Override
@@ -229,9 +265,77 @@ public ResolverResults resolveBuildDependencies(ResolveContext resolveContext) {
 
     @Override
     public ResolverResults resolveGraph(ResolveContext resolveContext) {
+        HashCode fingerprint = null;
+        if (persistentResultsCache.isEnabled()) {
+            fingerprint = inputsFingerprinter.fingerprint(resolveContext, getFilteredRepositories(resolveContext));
+            if (fingerprint != null) {
+                PersistedResolverResults results = persistentResultsCache.load(fingerprint);
+                if (results != null) {
+                    Map<Long, Dependency> firstLevelDependencies = firstLevelDependenciesOf(resolveContext, results);
+                    if (firstLevelDependencies != null) {
+                        return replayGraph(resolveContext, results, firstLevelDependencies);
+                    }
+                }
+            }
+        }
+        return resolveGraph(resolveContext, fingerprint);
+    }
+
+    /**
+     * Creates the results from a graph resolved by an earlier build, without resolving the graph again.
+     * The artifact sets are recreated from the variants they were created for, and resolve the components of these variants when first used.
+     */
+    private ResolverResults replayGraph(ResolveContext resolveContext, PersistedResolverResults results, Map<Long, Dependency> firstLevelDependencies) {
+        LOGGER.info("Reusing the dependency graph of {} resolved by an earlier build.", resolveContext.getResolutionHost().getDisplayName());
+        ResolutionStrategyInternal resolutionStrategy = resolveContext.getResolutionStrategy();
+        resolutionStrategy.confirmUnlockedConfigurationResolved(resolveContext.getName());
+
+        StoreSet stores = storeFactory.createStoreSet();
+        StreamingResolutionResultBuilder newModelBuilder = new StreamingResolutionResultBuilder(new ByteArrayBinaryStore(results.getGraph()), stores.newModelCache(), attributeContainerSerializer, persistentComponentDetailsSerializer, persistentSelectedVariantSerializer, attributeDesugaring, componentSelectionDescriptorFactory, resolutionStrategy.getReturnAllVariants());
+        ImmutableAttributes rootAttributes = attributeDesugaring.desugar(resolveContext.toRootComponent().getRootVariant().getAttributes());
+        VisitedGraphResults graphResults = new DefaultVisitedGraphResults(newModelBuilder.replay(rootAttributes), Collections.emptySet(), null);
+
+        ComponentResolvers resolvers = getResolvers(resolveContext, getFilteredRepositories(resolveContext));
+        VariantArtifactResolver variantResolver = new DefaultVariantArtifactResolver(resolvers.getArtifactResolver(), artifactTypeRegistry, resolvedVariantCache);
+        List<ArtifactSet> artifactSetsById = new ArrayList<>(results.getArtifactSets().size());
+        for (PersistableArtifactsVisitor.VariantReference variant : results.getArtifactSets()) {
+            ArtifactSet artifacts = new ReplayedVariantArtifactSet(variant.getComponentId(), variant.getVariantName(), resolvers.getComponentResolver(), variantResolver, graphVariantSelector, consumerSchema);
+            // Don't collect build dependencies if not required
+            artifactSetsById.add(buildProjectDependencies ? artifacts : new NoBuildDependenciesArtifactSet(artifacts));
+        }
+        VisitedArtifactResults artifactsResults = new DefaultVisitedArtifactResults(Collections.unmodifiableList(artifactSetsById));
+
+        TransientConfigurationResultsBuilder oldTransientModelBuilder = new TransientConfigurationResultsBuilder(new ByteArrayBinaryStore(results.getLegacyGraph()), stores.oldModelCache(), moduleIdentifierFactory, buildOperationExecutor);
+        oldTransientModelBuilder.reload();
+        ResolvedGraphResults legacyGraphResults = new DefaultResolvedGraphResults(firstLevelDependencies);
+
+        return graphResolved(resolveContext, graphResults, artifactsResults, new FileDependencyCollectingGraphVisitor().complete(), oldTransientModelBuilder, legacyGraphResults);
+    }
+
+    /**
+     * Returns the declared dependency of each first level node of a graph resolved by an earlier build, or null when the dependencies
+     * of the root variant no longer match those of the earlier build.
+     */
+    @Nullable
+    private static Map<Long, Dependency> firstLevelDependenciesOf(ResolveContext resolveContext, PersistedResolverResults results) {
+        List<? extends DependencyMetadata> rootDependencies = resolveContext.toRootComponent().getRootVariant().getMetadata().getDependencies();
+        Map<Long, Dependency> firstLevelDependencies = new HashMap<>();
+        for (Map.Entry<Long, Integer> entry : results.getFirstLevelDependencies().entrySet()) {
+            int index = entry.getValue();
+            if (index >= rootDependencies.size() || !(rootDependencies.get(index) instanceof DslOriginDependencyMetadata)) {
+                return null;
+            }
+            firstLevelDependencies.put(entry.getKey(), ((DslOriginDependencyMetadata) rootDependencies.get(index)).getSource());
+        }
+        return firstLevelDependencies;
+    }
+
+    private ResolverResults resolveGraph(ResolveContext resolveContext, @Nullable HashCode fingerprint) {
         StoreSet stores = storeFactory.createStoreSet();
 
-        BinaryStore oldModelStore = stores.nextBinaryStore();
+        // Keep the legacy results in memory when they may be persisted
+        ByteArrayBinaryStore persistentOldModelStore = fingerprint != null ? new ByteArrayBinaryStore() : null;
+        BinaryStore oldModelStore = persistentOldModelStore != null ? persistentOldModelStore : stores.nextBinaryStore();
         Store<TransientConfigurationResults> oldModelCache = stores.oldModelCache();
         TransientConfigurationResultsBuilder oldTransientModelBuilder = new TransientConfigurationResultsBuilder(oldModelStore, oldModelCache, moduleIdentifierFactory, buildOperationExecutor);
         DefaultResolvedConfigurationBuilder oldModelBuilder = new DefaultResolvedConfigurationBuilder(oldTransientModelBuilder);
@@ -253,6 +357,23 @@ public ResolverResults resolveGraph(ResolveContext resolveContext) {
         graphVisitors.add(localComponentsVisitor);
         graphVisitors.add(failureCollector);
 
+        ImmutableList.Builder<DependencyArtifactsVisitor> artifactsVisitors = ImmutableList.builder();
+        artifactsVisitors.add(oldModelVisitor);
+        artifactsVisitors.add(fileDependencyVisitor);
+        artifactsVisitors.add(artifactsBuilder);
+
+        ByteArrayBinaryStore persistentModelStore = null;
+        PersistableGraphVisitor persistableGraphVisitor = null;
+        PersistableArtifactsVisitor persistableArtifactsVisitor = null;
+        if (fingerprint != null) {
+            persistentModelStore = new ByteArrayBinaryStore();
+            persistableGraphVisitor = new PersistableGraphVisitor(versionSelectorScheme);
+            persistableArtifactsVisitor = new PersistableArtifactsVisitor(resolveContext.toRootComponent().getRootVariant().getMetadata().getDependencies());
+            graphVisitors.add(new StreamingResolutionResultBuilder(persistentModelStore, stores.newModelCache(), attributeContainerSerializer, persistentComponentDetailsSerializer, persistentSelectedVariantSerializer, attributeDesugaring, componentSelectionDescriptorFactory, resolutionStrategy.getReturnAllVariants()));
+            graphVisitors.add(persistableGraphVisitor);
+            artifactsVisitors.add(persistableArtifactsVisitor);
+        }
+
         FailOnVersionConflictGraphVisitor versionConflictVisitor = null;
         if (resolutionStrategy.getConflictResolution() == ConflictResolution.strict) {
             Path projectPath = resolveContext.getDomainObjectContext().getProjectPath();
@@ -271,9 +392,7 @@ public ResolverResults resolveGraph(ResolveContext resolveContext) {
         }
 
         ComponentResolvers resolvers = getResolvers(resolveContext, getFilteredRepositories(resolveContext));
-        CompositeDependencyArtifactsVisitor artifactVisitors = new CompositeDependencyArtifactsVisitor(ImmutableList.of(
-            oldModelVisitor, fileDependencyVisitor, artifactsBuilder
-        ));
+        CompositeDependencyArtifactsVisitor artifactVisitors = new CompositeDependencyArtifactsVisitor(artifactsVisitors.build());
         graphVisitors.add(artifactVisitorFor(artifactVisitors, resolvers));
 
         doResolve(resolveContext, resolvers, true, Specs.satisfyAll(), graphVisitors.build());
@@ -308,6 +427,27 @@ public ResolverResults resolveGraph(ResolveContext resolveContext) {
             lockingVisitor.writeLocks();
         }
 
+        if (persistentModelStore != null && persistableGraphVisitor.isPersistable() && persistableArtifactsVisitor.isPersistable() && !graphResults.hasAnyFailure()) {
+            persistentResultsCache.store(fingerprint, new PersistedResolverResults(
+                persistentModelStore.toByteArray(),
+                persistentOldModelStore.toByteArray(),
+                persistableArtifactsVisitor.getArtifactSets(),
+                persistableArtifactsVisitor.getFirstLevelDependencies()
+            ));
+        }
+
+        return graphResolved(resolveContext, graphResults, artifactsResults, fileDependencyResults, oldTransientModelBuilder, legacyGraphResults);
+    }
+
+    private ResolverResults graphResolved(
+        ResolveContext resolveContext,
+        VisitedGraphResults graphResults,
+        VisitedArtifactResults artifactsResults,
+        VisitedFileDependencyResults fileDependencyResults,
+        TransientConfigurationResultsBuilder oldTransientModelBuilder,
+        ResolvedGraphResults legacyGraphResults
+    ) {
+        ResolutionHost resolutionHost = resolveContext.getResolutionHost();
         ArtifactVariantSelector artifactVariantSelector = variantSelectorFactory.create(resolveContext.getDependenciesResolverFactory());
         VisitedArtifactSet visitedArtifacts = new DefaultVisitedArtifactSet(graphResults, resolutionHost, artifactsResults, artifactSetResolver, artifactVariantSelector);
 
@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.artifacts.ivyservice;
 
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleMetadataSegmentStore;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.cache.FileLockManager;
@@ -41,6 +42,7 @@ public class ReadOnlyArtifactCacheLockingAccessCoordinator implements ArtifactCa
     private final static Logger LOGGER = Logging.getLogger(ReadOnlyArtifactCacheLockingAccessCoordinator.class);
 
     private final PersistentCache cache;
+    private final ModuleMetadataSegmentStore moduleMetadataSegments;
 
     public ReadOnlyArtifactCacheLockingAccessCoordinator(
             UnscopedCacheBuilderFactory unscopedCacheBuilderFactory,
@@ -50,11 +52,13 @@ public ReadOnlyArtifactCacheLockingAccessCoordinator(
             .withDisplayName("read only artifact cache")
             .withInitialLockMode(FileLockManager.LockMode.None) // Don't need to lock anything, it's read-only
             .open();
+        moduleMetadataSegments = new ModuleMetadataSegmentStore(cacheMetaData.getMetaDataSegmentsDirectory());
     }
 
     @Override
     public void close() {
         cache.close();
+        moduleMetadataSegments.close();
     }
 
     @Override
@@ -87,6 +91,11 @@ public <K, V> IndexedCache<K, V> createCache(String cacheName, Serializer<K> key
         return new EmptyIndexedCache<>();
     }
 
+    @Override
+    public ModuleMetadataSegmentStore getModuleMetadataSegments() {
+        return moduleMetadataSegments;
+    }
+
     private static class EmptyIndexedCache<K, V> implements IndexedCache<K, V> {
         @Nullable
         @Override
@@ -0,0 +1,389 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.gradle.api.Action;
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.attributes.Attribute;
+import org.gradle.api.capabilities.Capability;
+import org.gradle.api.internal.artifacts.ComponentMetadataProcessor;
+import org.gradle.api.internal.artifacts.GlobalDependencyResolutionRules;
+import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
+import org.gradle.api.internal.artifacts.MetadataResolutionContext;
+import org.gradle.api.internal.artifacts.ModuleVersionIdentifierSerializer;
+import org.gradle.api.internal.artifacts.ResolveContext;
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal;
+import org.gradle.api.internal.artifacts.configurations.dynamicversion.CachePolicy;
+import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.RootComponentMetadataBuilder;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.AttributeContainerSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.CapabilitySerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentIdentifierSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentSelectorSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.IvyArtifactNameSerializer;
+import org.gradle.api.internal.artifacts.repositories.ContentFilteringRepository;
+import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository;
+import org.gradle.api.internal.artifacts.repositories.descriptor.FlatDirRepositoryDescriptor;
+import org.gradle.api.internal.artifacts.repositories.descriptor.RepositoryDescriptor;
+import org.gradle.api.internal.artifacts.repositories.descriptor.UrlRepositoryDescriptor;
+import org.gradle.api.internal.artifacts.repositories.resolver.ResourcePattern;
+import org.gradle.api.internal.attributes.AttributesSchemaInternal;
+import org.gradle.api.internal.attributes.CompatibilityRule;
+import org.gradle.api.internal.attributes.DefaultCompatibilityRuleChain;
+import org.gradle.api.internal.attributes.DefaultDisambiguationRuleChain;
+import org.gradle.api.internal.attributes.DefaultOrderedCompatibilityRule;
+import org.gradle.api.internal.attributes.DefaultOrderedDisambiguationRule;
+import org.gradle.api.internal.attributes.DisambiguationRule;
+import org.gradle.internal.Actions;
+import org.gradle.internal.action.ConfigurableRule;
+import org.gradle.internal.action.InstantiatingAction;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.component.model.ExcludeMetadata;
+import org.gradle.internal.component.model.ForcingDependencyMetadata;
+import org.gradle.internal.component.model.IvyArtifactName;
+import org.gradle.internal.component.model.VariantGraphResolveMetadata;
+import org.gradle.internal.hash.ClassLoaderHierarchyHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.reflect.DirectInstantiator;
+import org.gradle.internal.reflect.Instantiator;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.util.GradleVersion;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URI;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Calculates a fingerprint of the inputs to the resolution of a dependency graph, for use as the key of the {@link org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.PersistentResolutionResultsCache}.
+ *
+ * <p>Only graphs whose inputs can be fully described by data are fingerprinted. A resolution that depends on user code,
+ * such as substitution, selection, capability or metadata rules, or on other projects of the build, is not fingerprinted at all.
+ * Neither is a resolution from a local repository, as the metadata in a local repository can change without any change to the build.</p>
+ *
+ * <p>The compatibility and disambiguation rules of the attributes schema are fingerprinted by their implementation and parameters.
+ * A rule implemented by a class that Gradle cannot hash, or an ordering whose comparator holds state that cannot be serialized, prevents the fingerprint.</p>
+ */
+class ResolutionInputsFingerprinter {
+    private final GlobalDependencyResolutionRules metadataHandler;
+    private final AttributesSchemaInternal consumerSchema;
+    private final AttributeContainerSerializer attributeContainerSerializer;
+    private final ComponentIdentifierSerializer componentIdSerializer = new ComponentIdentifierSerializer();
+    private final ModuleVersionIdentifierSerializer moduleVersionIdSerializer;
+    private final CapabilitySerializer capabilitySerializer = new CapabilitySerializer();
+    private final ClassLoaderHierarchyHasher classLoaderHierarchyHasher;
+
+    ResolutionInputsFingerprinter(GlobalDependencyResolutionRules metadataHandler, AttributesSchemaInternal consumerSchema, AttributeContainerSerializer attributeContainerSerializer, ImmutableModuleIdentifierFactory moduleIdentifierFactory, ClassLoaderHierarchyHasher classLoaderHierarchyHasher) {
+        this.metadataHandler = metadataHandler;
+        this.consumerSchema = consumerSchema;
+        this.attributeContainerSerializer = attributeContainerSerializer;
+        this.moduleVersionIdSerializer = new ModuleVersionIdentifierSerializer(moduleIdentifierFactory);
+        this.classLoaderHierarchyHasher = classLoaderHierarchyHasher;
+    }
+
+    /**
+     * Returns the fingerprint of the inputs for resolving the graph of the given context from the given repositories, or null when the graph cannot be reused.
+     */
+    @Nullable
+    HashCode fingerprint(ResolveContext resolveContext, List<ResolutionAwareRepository> repositories) {
+        ResolutionStrategyInternal resolutionStrategy = resolveContext.getResolutionStrategy();
+        if (resolutionStrategy.isDependencyLockingEnabled()
+            || resolutionStrategy.resolveGraphToDetermineTaskDependencies()
+            || !resolutionStrategy.getDependencySubstitutionRule().isEmpty()
+            || !resolutionStrategy.getComponentSelection().getRules().isEmpty()
+            || resolutionStrategy.getCapabilitiesResolutionRules().hasRules()
+            || !metadataHandler.getModuleMetadataProcessor().getModuleReplacements().isEmpty()
+            || !resolveContext.getSyntheticDependencies().isEmpty()) {
+            return null;
+        }
+        for (ResolutionAwareRepository repository : repositories) {
+            if (repository instanceof ContentFilteringRepository && ((ContentFilteringRepository) repository).getContentFilter() != Actions.doNothing()) {
+                return null;
+            }
+            if (isLocal(repository.getDescriptor())) {
+                return null;
+            }
+        }
+        ComponentMetadataProcessor metadataProcessor = metadataHandler.getComponentMetadataProcessorFactory().createComponentMetadataProcessor(new FingerprintMetadataResolutionContext(resolutionStrategy.getCachePolicy()));
+        if (metadataProcessor.hasRules()) {
+            return null;
+        }
+
+        RootComponentMetadataBuilder.RootComponentState root = resolveContext.toRootComponent();
+        VariantGraphResolveMetadata rootVariant = root.getRootVariant().getMetadata();
+        for (DependencyMetadata dependency : rootVariant.getDependencies()) {
+            if (!(dependency.getSelector() instanceof ModuleComponentSelector)) {
+                return null;
+            }
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (KryoBackedEncoder encoder = new KryoBackedEncoder(output)) {
+            encoder.writeString(GradleVersion.current().getVersion());
+            componentIdSerializer.write(encoder, root.getRootComponent().getId());
+            moduleVersionIdSerializer.write(encoder, root.getRootComponent().getModuleVersionId());
+            encoder.writeString(rootVariant.getName());
+            attributeContainerSerializer.write(encoder, rootVariant.getAttributes());
+            writeCapabilities(encoder, rootVariant.getCapabilities().asSet());
+            writeDependencies(encoder, rootVariant.getDependencies());
+            writeExcludes(encoder, rootVariant.getExcludes());
+            encoder.writeSmallInt(repositories.size());
+            for (ResolutionAwareRepository repository : repositories) {
+                encoder.writeString(repository.getDescriptor().getId());
+            }
+            encoder.writeString(resolutionStrategy.getConflictResolution().name());
+            encoder.writeBoolean(resolutionStrategy.isFailingOnDynamicVersions());
+            encoder.writeBoolean(resolutionStrategy.isFailingOnChangingVersions());
+            encoder.writeInt(metadataProcessor.getRulesHash());
+            List<Attribute<?>> schemaAttributes = consumerSchema.getAttributes().stream()
+                .sorted(Comparator.comparing(Attribute::getName))
+                .collect(Collectors.toList());
+            encoder.writeSmallInt(schemaAttributes.size());
+            for (Attribute<?> attribute : schemaAttributes) {
+                encoder.writeString(attribute.getName());
+                encoder.writeString(attribute.getType().getName());
+                if (!writeRules(encoder, consumerSchema.compatibilityRules(attribute)) || !writeRules(encoder, consumerSchema.disambiguationRules(attribute))) {
+                    return null;
+                }
+            }
+            List<Attribute<?>> precedence = consumerSchema.getAttributeDisambiguationPrecedence();
+            encoder.writeSmallInt(precedence.size());
+            for (Attribute<?> attribute : precedence) {
+                encoder.writeString(attribute.getName());
+            }
+            encoder.flush();
+        } catch (Exception e) {
+            throw new RuntimeException("Could not fingerprint the inputs to resolve " + resolveContext.getName() + ".", e);
+        }
+        return Hashing.hashBytes(output.toByteArray());
+    }
+
+    /**
+     * Returns true when the given repository is backed by the local file system.
+     */
+    private static boolean isLocal(RepositoryDescriptor descriptor) {
+        if (descriptor instanceof FlatDirRepositoryDescriptor) {
+            return true;
+        }
+        if (descriptor instanceof UrlRepositoryDescriptor) {
+            UrlRepositoryDescriptor urlDescriptor = (UrlRepositoryDescriptor) descriptor;
+            URI url = urlDescriptor.url;
+            if (url != null && "file".equalsIgnoreCase(url.getScheme())) {
+                return true;
+            }
+            for (ResourcePattern pattern : urlDescriptor.getMetadataResources()) {
+                if (isLocal(pattern)) {
+                    return true;
+                }
+            }
+            for (ResourcePattern pattern : urlDescriptor.getArtifactResources()) {
+                if (isLocal(pattern)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isLocal(ResourcePattern pattern) {
+        String location = pattern.getPattern();
+        return location.indexOf(':') < 0 || location.regionMatches(true, 0, "file:", 0, 5);
+    }
+
+    private boolean writeRules(Encoder encoder, CompatibilityRule<Object> rules) throws Exception {
+        if (!rules.doesSomething()) {
+            encoder.writeSmallInt(0);
+            return true;
+        }
+        if (!(rules instanceof DefaultCompatibilityRuleChain)) {
+            return false;
+        }
+        List<? extends Action<?>> chain = ((DefaultCompatibilityRuleChain<Object>) rules).getRules();
+        encoder.writeSmallInt(chain.size());
+        for (Action<?> rule : chain) {
+            if (rule instanceof DefaultOrderedCompatibilityRule) {
+                DefaultOrderedCompatibilityRule<?> orderedRule = (DefaultOrderedCompatibilityRule<?>) rule;
+                encoder.writeBoolean(orderedRule.isReverse());
+                if (!writeComparator(encoder, orderedRule.getComparator())) {
+                    return false;
+                }
+            } else if (!writeInstantiatingRule(encoder, rule)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean writeRules(Encoder encoder, DisambiguationRule<Object> rules) throws Exception {
+        if (!rules.doesSomething()) {
+            encoder.writeSmallInt(0);
+            return true;
+        }
+        if (!(rules instanceof DefaultDisambiguationRuleChain)) {
+            return false;
+        }
+        List<? extends Action<?>> chain = ((DefaultDisambiguationRuleChain<Object>) rules).getRules();
+        encoder.writeSmallInt(chain.size());
+        for (Action<?> rule : chain) {
+            if (rule instanceof DefaultOrderedDisambiguationRule) {
+                DefaultOrderedDisambiguationRule<?> orderedRule = (DefaultOrderedDisambiguationRule<?>) rule;
+                encoder.writeBoolean(orderedRule.isPickFirst());
+                if (!writeComparator(encoder, orderedRule.getComparator())) {
+                    return false;
+                }
+            } else if (!writeInstantiatingRule(encoder, rule)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean writeInstantiatingRule(Encoder encoder, Action<?> rule) throws Exception {
+        if (!(rule instanceof InstantiatingAction)) {
+            return false;
+        }
+        List<? extends ConfigurableRule<?>> configurableRules = ((InstantiatingAction<?>) rule).getRules().getConfigurableRules();
+        encoder.writeSmallInt(configurableRules.size());
+        for (ConfigurableRule<?> configurableRule : configurableRules) {
+            if (!writeImplementation(encoder, configurableRule.getRuleClass())) {
+                return false;
+            }
+            Hasher hasher = Hashing.newHasher();
+            configurableRule.getRuleParams().appendToHasher(hasher);
+            encoder.writeBinary(hasher.hash().toByteArray());
+        }
+        return true;
+    }
+
+    /**
+     * Writes the implementation and state of the given comparator. Comparators that are not serializable are only accepted when they hold no state.
+     */
+    private boolean writeComparator(Encoder encoder, Comparator<?> comparator) throws Exception {
+        Class<?> type = comparator.getClass();
+        if (!writeImplementation(encoder, type)) {
+            return false;
+        }
+        if (comparator instanceof Serializable) {
+            ByteArrayOutputStream state = new ByteArrayOutputStream();
+            try (ObjectOutputStream objectOutput = new ObjectOutputStream(state)) {
+                objectOutput.writeObject(comparator);
+            }
+            encoder.writeBinary(state.toByteArray());
+            return true;
+        }
+        // The names of lambda classes are not stable
+        return !type.isSynthetic() && !hasInstanceFields(type);
+    }
+
+    private static boolean hasInstanceFields(Class<?> type) {
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean writeImplementation(Encoder encoder, Class<?> type) throws Exception {
+        encoder.writeString(type.getName());
+        ClassLoader classLoader = type.getClassLoader();
+        if (classLoader == null) {
+            // A class of the platform
+            encoder.writeBoolean(false);
+            return true;
+        }
+        HashCode classLoaderHash = classLoaderHierarchyHasher.getClassLoaderHash(classLoader);
+        if (classLoaderHash == null) {
+            return false;
+        }
+        encoder.writeBoolean(true);
+        encoder.writeBinary(classLoaderHash.toByteArray());
+        return true;
+    }
+
+    private void writeCapabilities(Encoder encoder, Iterable<? extends Capability> capabilities) throws Exception {
+        for (Capability capability : capabilities) {
+            encoder.writeBoolean(true);
+            capabilitySerializer.write(encoder, capability);
+        }
+        encoder.writeBoolean(false);
+    }
+
+    private void writeDependencies(Encoder encoder, List<? extends DependencyMetadata> dependencies) throws Exception {
+        ComponentSelectorSerializer selectorSerializer = new ComponentSelectorSerializer(attributeContainerSerializer);
+        encoder.writeSmallInt(dependencies.size());
+        for (DependencyMetadata dependency : dependencies) {
+            selectorSerializer.write(encoder, dependency.getSelector());
+            encoder.writeBoolean(dependency.isConstraint());
+            encoder.writeBoolean(dependency instanceof ForcingDependencyMetadata && ((ForcingDependencyMetadata) dependency).isForce());
+            encoder.writeBoolean(dependency.isTransitive());
+            encoder.writeBoolean(dependency.isChanging());
+            encoder.writeBoolean(dependency.isEndorsingStrictVersions());
+            encoder.writeNullableString(dependency.getReason());
+            writeExcludes(encoder, dependency.getExcludes());
+            List<IvyArtifactName> artifacts = dependency.getArtifacts();
+            encoder.writeSmallInt(artifacts.size());
+            for (IvyArtifactName artifact : artifacts) {
+                IvyArtifactNameSerializer.INSTANCE.write(encoder, artifact);
+            }
+        }
+    }
+
+    private static void writeExcludes(Encoder encoder, List<? extends ExcludeMetadata> excludes) throws Exception {
+        encoder.writeSmallInt(excludes.size());
+        for (ExcludeMetadata exclude : excludes) {
+            ModuleIdentifier moduleId = exclude.getModuleId();
+            encoder.writeNullableString(moduleId.getGroup());
+            encoder.writeNullableString(moduleId.getName());
+            IvyArtifactName artifact = exclude.getArtifact();
+            encoder.writeBoolean(artifact != null);
+            if (artifact != null) {
+                IvyArtifactNameSerializer.INSTANCE.write(encoder, artifact);
+            }
+            encoder.writeNullableString(exclude.getMatcher());
+        }
+    }
+
+    private static class FingerprintMetadataResolutionContext implements MetadataResolutionContext {
+        private final CachePolicy cachePolicy;
+
+        private FingerprintMetadataResolutionContext(CachePolicy cachePolicy) {
+            this.cachePolicy = cachePolicy;
+        }
+
+        @Override
+        public CachePolicy getCachePolicy() {
+            return cachePolicy;
+        }
+
+        @Override
+        public Instantiator getInjectingInstantiator() {
+            return DirectInstantiator.INSTANCE;
+        }
+    }
+}
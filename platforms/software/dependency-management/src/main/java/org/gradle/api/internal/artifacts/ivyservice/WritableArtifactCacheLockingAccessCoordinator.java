@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.artifacts.ivyservice;
 
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleMetadataSegmentStore;
 import org.gradle.api.internal.cache.CacheConfigurationsInternal;
 import org.gradle.api.internal.filestore.DefaultArtifactIdentifierFileStore;
 import org.gradle.cache.CacheCleanupStrategy;
@@ -43,6 +44,7 @@
 
 public class WritableArtifactCacheLockingAccessCoordinator implements ArtifactCacheLockingAccessCoordinator, Closeable {
     private final PersistentCache cache;
+    private final ModuleMetadataSegmentStore moduleMetadataSegments;
 
     public WritableArtifactCacheLockingAccessCoordinator(
             UnscopedCacheBuilderFactory unscopedCacheBuilderFactory,
@@ -51,6 +53,7 @@ public WritableArtifactCacheLockingAccessCoordinator(
             UsedGradleVersions usedGradleVersions,
             CacheConfigurationsInternal cacheConfigurations
                                                ) {
+        moduleMetadataSegments = new ModuleMetadataSegmentStore(cacheMetaData.getMetaDataSegmentsDirectory());
         cache = unscopedCacheBuilderFactory
                 .cache(cacheMetaData.getCacheDir())
                 .withDisplayName("artifact cache")
@@ -77,6 +80,7 @@ private CleanupAction createCleanupAction(ArtifactCacheMetadata cacheMetaData, F
                     new LeastRecentlyUsedCacheCleanup(new SingleDepthFilesFinder(DefaultArtifactIdentifierFileStore.FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP), fileAccessTimeJournal, getMaxAgeTimestamp(cacheConfigurations)))
                 .add(cacheMetaData.getMetaDataStoreDirectory().getParentFile(),
                     UnusedVersionsCacheCleanup.create(CacheLayout.META_DATA.getName(), CacheLayout.META_DATA.getVersionMapping(), usedGradleVersions))
+                .add(cacheMetaData.getMetaDataSegmentsDirectory(), moduleMetadataSegments.compaction())
                 .build();
     }
 
@@ -92,6 +96,7 @@ private Supplier<Long> getMaxAgeTimestamp(CacheConfigurationsInternal cacheConfi
     @Override
     public void close() {
         cache.close();
+        moduleMetadataSegments.close();
     }
 
     @Override
@@ -121,6 +126,11 @@ public <K, V> IndexedCache<K, V> createCache(String cacheName, Serializer<K> key
         return new CacheLockingIndexedCache<>(indexedCache);
     }
 
+    @Override
+    public ModuleMetadataSegmentStore getModuleMetadataSegments() {
+        return moduleMetadataSegments;
+    }
+
     private class CacheLockingIndexedCache<K, V> implements IndexedCache<K, V> {
         private final IndexedCache<K, V> indexedCache;
 
@@ -0,0 +1,524 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import org.gradle.cache.CleanupAction;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only store of binary entries, kept in a few large segment files.
+ *
+ * Each segment file starts with a header, followed by records:
+ *
+ * - header: magic (int), version (int), base generation (long)
+ * - record length (int), covering the remaining fields
+ * - CRC32 of the key and value (int)
+ * - key length (int) and UTF-8 bytes of the key
+ * - bytes of the value
+ *
+ * Entries are appended to the segment with the highest generation, so a later record for a key replaces an earlier one.
+ * The in-memory index is built by scanning the record headers of the segments, without reading the values.
+ * Values are read with positional reads from a channel that is kept open for each segment.
+ * Unlike a memory mapping, the channel can be closed as soon as the segment is no longer used, so that it can be deleted on all platforms.
+ * The checksum of a value is verified when it is read, and a torn record at the end of a segment is truncated before the next append.
+ *
+ * Lookups that miss pick up the entries that other processes have appended since. The directory is only listed again when a segment has been added,
+ * which is detected by checking for the segment with the next generation, so a miss usually costs a single file system check.
+ *
+ * Replaced entries are removed by {@link #compaction()}, which runs as part of the cache cleanup.
+ * It rewrites the live entries into new segments, whose base generation is their own generation.
+ * Every store, in this process or another, then ignores and closes the segments below the highest base generation it has seen,
+ * and the compaction deletes them, either right away or during a later cleanup.
+ *
+ * Callers must hold the lock of the enclosing cache, so that only one process appends or compacts at a time.
+ * A single instance should be used for a directory within a process, and closed when the enclosing cache is closed.
+ */
+public class ModuleMetadataSegmentStore implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ModuleMetadataSegmentStore.class);
+
+    private static final int MAGIC = 0x474d4453;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_HEADER_SIZE = 12;
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".bin";
+    private static final long DEFAULT_MAX_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private final File dir;
+    private final long maxSegmentSize;
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final List<File> obsoleteFiles = new ArrayList<>();
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    private long baseGeneration;
+    private long listedDirModified = -1;
+
+    public ModuleMetadataSegmentStore(File dir) {
+        this(dir, DEFAULT_MAX_SEGMENT_SIZE);
+    }
+
+    ModuleMetadataSegmentStore(File dir, long maxSegmentSize) {
+        this.dir = dir;
+        this.maxSegmentSize = maxSegmentSize;
+    }
+
+    /**
+     * Returns a cleanup action that compacts this store. It must be applied to the directory of this store.
+     */
+    public CleanupAction compaction() {
+        return (cleanableStore, progressMonitor) -> {
+            int deleted = compact();
+            for (int i = 0; i < deleted; i++) {
+                progressMonitor.incrementDeleted();
+            }
+        };
+    }
+
+    /**
+     * Returns the value for the given key, or null if there is none or it is damaged.
+     */
+    @Nullable
+    public byte[] get(String key) {
+        Location location = index.get(key);
+        byte[] value = location == null ? null : location.read();
+        if (value == null) {
+            // Either a new entry or an entry moved by a compaction
+            Location current;
+            synchronized (this) {
+                refreshIfChanged(location != null && (location.segment.closed || !location.segment.file.exists()));
+                current = index.get(key);
+            }
+            if (current != null && current != location) {
+                value = current.read();
+            }
+        }
+        return value;
+    }
+
+    public synchronized void put(String key, byte[] value) {
+        // Pick up the records appended by other processes, so they are not truncated as a torn record
+        refreshIfChanged(false);
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int recordLength = RECORD_HEADER_SIZE - 4 + keyBytes.length + value.length;
+        ByteBuffer record = ByteBuffer.allocate(4 + recordLength);
+        record.putInt(recordLength);
+        record.putInt(checksum(keyBytes, value));
+        record.putInt(keyBytes.length);
+        record.put(keyBytes);
+        record.put(value);
+
+        Segment segment = segments.isEmpty() ? null : segments.lastEntry().getValue();
+        if (segment == null || segment.validLength + record.capacity() > maxSegmentSize) {
+            segment = createSegment(segments.isEmpty() ? 0 : segments.lastKey() + 1, baseGeneration);
+        }
+        long recordOffset = segment.append(record.array());
+        index.put(key, new Location(segment, recordOffset, record.capacity()));
+    }
+
+    /**
+     * Rewrites the segments when at least half of their content has been replaced, and deletes the segment files that are no longer used.
+     *
+     * @return the number of deleted segment files
+     */
+    public synchronized int compact() {
+        refresh();
+        long totalLength = 0;
+        for (Segment segment : segments.values()) {
+            totalLength += segment.validLength - HEADER_SIZE;
+        }
+        long liveLength = 0;
+        for (Location location : index.values()) {
+            liveLength += location.recordLength;
+        }
+        if (!segments.isEmpty() && liveLength * 2 < totalLength) {
+            List<Segment> replaced = new ArrayList<>(segments.values());
+            long generation = segments.lastKey() + 1;
+            Segment target = createSegment(generation, generation);
+            for (Map.Entry<String, Location> entry : new TreeMap<>(index).entrySet()) {
+                byte[] record = entry.getValue().record();
+                if (record == null) {
+                    // Deleted since the refresh, treat it as a miss
+                    index.remove(entry.getKey());
+                    continue;
+                }
+                if (target.validLength + record.length > maxSegmentSize) {
+                    target = createSegment(++generation, target.baseGeneration);
+                }
+                long recordOffset = target.append(record);
+                index.put(entry.getKey(), new Location(target, recordOffset, record.length));
+            }
+            baseGeneration = target.baseGeneration;
+            for (Segment segment : replaced) {
+                segments.remove(segment.generation);
+                segment.close();
+                obsoleteFiles.add(segment.file);
+            }
+        }
+
+        int deleted = 0;
+        Iterator<File> iterator = obsoleteFiles.iterator();
+        while (iterator.hasNext()) {
+            File file = iterator.next();
+            if (file.delete() || !file.exists()) {
+                iterator.remove();
+                deleted++;
+            } else {
+                // Still open by another process on some platforms, will be deleted by a later cleanup
+                LOGGER.debug("Could not delete obsolete module metadata segment {}.", file);
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Closes the segments and drops the index. The store can still be used afterwards, and lists and scans the segments again on the next lookup or append.
+     */
+    @Override
+    public synchronized void close() {
+        CompositeStoppable.stoppable(segments.values()).stop();
+        segments.clear();
+        index.clear();
+        listedDirModified = -1;
+    }
+
+    /**
+     * Picks up the records and segments written by other processes, when there are any.
+     *
+     * @param segmentMissing whether a segment known to the index has been deleted
+     */
+    private void refreshIfChanged(boolean segmentMissing) {
+        boolean segmentAdded = segments.isEmpty()
+            ? listedDirModified != dir.lastModified()
+            : segmentFile(segments.lastKey() + 1).exists();
+        if (segmentMissing || segmentAdded) {
+            refresh();
+        } else {
+            // Records appended to the current segment
+            segments.lastEntry().getValue().scan(index);
+        }
+    }
+
+    /**
+     * Picks up the segments and records written by other processes, and drops the segments replaced by a compaction.
+     */
+    private void refresh() {
+        listedDirModified = dir.lastModified();
+        File[] files = dir.listFiles((d, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) {
+            return;
+        }
+        TreeMap<Long, File> found = new TreeMap<>();
+        for (File file : files) {
+            String name = file.getName();
+            try {
+                found.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())), file);
+            } catch (NumberFormatException e) {
+                // Not a segment
+            }
+        }
+        // Segments deleted by a compaction in another process
+        Iterator<Segment> known = segments.values().iterator();
+        while (known.hasNext()) {
+            Segment segment = known.next();
+            if (!found.containsKey(segment.generation)) {
+                known.remove();
+                segment.close();
+            }
+        }
+        for (Map.Entry<Long, File> entry : found.entrySet()) {
+            if (entry.getKey() >= baseGeneration && !segments.containsKey(entry.getKey())) {
+                Segment segment = new Segment(entry.getKey(), entry.getValue());
+                if (segment.readHeader()) {
+                    segments.put(entry.getKey(), segment);
+                    baseGeneration = Math.max(baseGeneration, segment.baseGeneration);
+                }
+            }
+        }
+        // Segments replaced by a compaction, in this process or another
+        obsoleteFiles.clear();
+        for (Map.Entry<Long, File> entry : found.entrySet()) {
+            if (entry.getKey() < baseGeneration) {
+                obsoleteFiles.add(entry.getValue());
+                Segment segment = segments.remove(entry.getKey());
+                if (segment != null) {
+                    segment.close();
+                }
+            }
+        }
+        index.values().removeIf(location -> location.segment.closed);
+        for (Segment segment : segments.values()) {
+            segment.scan(index);
+        }
+    }
+
+    private File segmentFile(long generation) {
+        return new File(dir, SEGMENT_PREFIX + generation + SEGMENT_SUFFIX);
+    }
+
+    private Segment createSegment(long generation, long baseGeneration) {
+        File file = segmentFile(generation);
+        try {
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("Could not create directory " + dir);
+            }
+            try (FileOutputStream output = new FileOutputStream(file)) {
+                output.write(ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).putLong(baseGeneration).array());
+            }
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        Segment segment = new Segment(generation, file);
+        segment.baseGeneration = baseGeneration;
+        segment.validLength = HEADER_SIZE;
+        segments.put(generation, segment);
+        return segment;
+    }
+
+    private static int checksum(byte[] key, byte[] value) {
+        CRC32 crc = new CRC32();
+        crc.update(key);
+        crc.update(value);
+        return (int) crc.getValue();
+    }
+
+    private static final class Segment implements Closeable {
+        final long generation;
+        final File file;
+        long baseGeneration;
+        // The length of the well-formed records, anything after is a torn write
+        long validLength;
+        private FileChannel channel;
+        volatile boolean closed;
+
+        Segment(long generation, File file) {
+            this.generation = generation;
+            this.file = file;
+        }
+
+        /**
+         * Reads the header of a segment written by another store, returning false when the segment cannot be used.
+         */
+        boolean readHeader() {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            if (!read(header, 0) || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                LOGGER.debug("Ignoring module metadata segment {} with unknown format.", file);
+                close();
+                return false;
+            }
+            baseGeneration = header.getLong(8);
+            validLength = HEADER_SIZE;
+            return true;
+        }
+
+        /**
+         * Adds the records appended since the last scan to the index.
+         */
+        void scan(Map<String, Location> index) {
+            long length = file.length();
+            if (length <= validLength) {
+                return;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+            long bufferStart = validLength;
+            buffer.limit(0);
+            long position = validLength;
+            while (position + RECORD_HEADER_SIZE <= length) {
+                int offset = (int) (position - bufferStart);
+                if (offset + RECORD_HEADER_SIZE > buffer.limit()) {
+                    bufferStart = position;
+                    offset = 0;
+                    if (!fill(buffer, bufferStart, RECORD_HEADER_SIZE)) {
+                        break;
+                    }
+                }
+                int recordLength = buffer.getInt(offset);
+                int keyLength = buffer.getInt(offset + 8);
+                if (recordLength < RECORD_HEADER_SIZE - 4 || position + 4L + recordLength > length || keyLength < 0 || keyLength > recordLength - 8) {
+                    break;
+                }
+                byte[] key = new byte[keyLength];
+                if (offset + RECORD_HEADER_SIZE + keyLength <= buffer.limit()) {
+                    ByteBuffer keyBuffer = buffer.duplicate();
+                    keyBuffer.position(offset + RECORD_HEADER_SIZE);
+                    keyBuffer.get(key);
+                } else if (!read(ByteBuffer.wrap(key), position + RECORD_HEADER_SIZE)) {
+                    break;
+                }
+                index.put(new String(key, StandardCharsets.UTF_8), new Location(this, position, 4 + recordLength));
+                position += 4 + recordLength;
+            }
+            validLength = position;
+        }
+
+        private boolean fill(ByteBuffer buffer, long position, int minimum) {
+            buffer.clear();
+            try {
+                FileChannel channel = channel();
+                if (channel == null) {
+                    return false;
+                }
+                while (buffer.position() < minimum) {
+                    if (channel.read(buffer, position + buffer.position()) < 0) {
+                        return false;
+                    }
+                }
+            } catch (IOException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+            buffer.flip();
+            return true;
+        }
+
+        long append(byte[] record) {
+            try (RandomAccessFile output = new RandomAccessFile(file, "rw")) {
+                // Drop a torn record left by a process that failed while appending
+                output.setLength(validLength);
+                output.seek(validLength);
+                output.write(record);
+            } catch (IOException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+            long offset = validLength;
+            validLength += record.length;
+            return offset;
+        }
+
+        /**
+         * Reads the remaining bytes of the given buffer from the given position, returning false when the segment has been deleted or closed or is too short.
+         */
+        boolean read(ByteBuffer buffer, long position) {
+            try {
+                FileChannel channel = channel();
+                if (channel == null) {
+                    return false;
+                }
+                long current = position;
+                while (buffer.hasRemaining()) {
+                    int read = channel.read(buffer, current);
+                    if (read < 0) {
+                        throw new EOFException();
+                    }
+                    current += read;
+                }
+                return true;
+            } catch (EOFException e) {
+                return false;
+            } catch (IOException e) {
+                if (closed) {
+                    return false;
+                }
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+
+        @Nullable
+        private synchronized FileChannel channel() throws IOException {
+            if (closed) {
+                return null;
+            }
+            if (channel == null || !channel.isOpen()) {
+                // Also reopens a channel closed by an interrupted read
+                try {
+                    channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+                } catch (NoSuchFileException e) {
+                    return null;
+                }
+            }
+            return channel;
+        }
+
+        @Override
+        public synchronized void close() {
+            closed = true;
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    LOGGER.debug("Could not close module metadata segment {}.", file, e);
+                }
+                channel = null;
+            }
+        }
+    }
+
+    private static final class Location {
+        final Segment segment;
+        final long offset;
+        final int recordLength;
+
+        Location(Segment segment, long offset, int recordLength) {
+            this.segment = segment;
+            this.offset = offset;
+            this.recordLength = recordLength;
+        }
+
+        @Nullable
+        byte[] read() {
+            ByteBuffer record = ByteBuffer.allocate(recordLength);
+            if (!segment.read(record, offset)) {
+                return null;
+            }
+            int checksum = record.getInt(4);
+            int keyLength = record.getInt(8);
+            byte[] key = new byte[keyLength];
+            byte[] value = new byte[recordLength - RECORD_HEADER_SIZE - keyLength];
+            record.position(RECORD_HEADER_SIZE);
+            record.get(key);
+            record.get(value);
+            if (checksum(key, value) != checksum) {
+                LOGGER.debug("Ignoring damaged module metadata entry in {}.", segment.file);
+                return null;
+            }
+            return value;
+        }
+
+        /**
+         * Returns the whole record, or null when the segment has been deleted or closed.
+         */
+        @Nullable
+        byte[] record() {
+            ByteBuffer record = ByteBuffer.allocate(recordLength);
+            if (!segment.read(record, offset)) {
+                return null;
+            }
+            return record.array();
+        }
+    }
+}
@@ -29,6 +29,8 @@
 
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.HashMap;
 
 public class ModuleMetadataStore {
@@ -54,9 +56,7 @@ public MutableModuleComponentResolveMetadata getModuleDescriptor(ModuleComponent
         LocallyAvailableResource resource = metaDataStore.get(filePath);
         if (resource != null) {
             try {
-                try (StringDeduplicatingDecoder decoder = new StringDeduplicatingDecoder(new KryoBackedDecoder(new FileInputStream(resource.getFile())), stringInterner)) {
-                    return moduleMetadataSerializer.read(decoder, moduleIdentifierFactory, new HashMap<>());
-                }
+                return read(new FileInputStream(resource.getFile()));
             } catch (Exception e) {
                 throw new RuntimeException("Could not load module metadata from " + resource.getDisplayName(), e);
             }
@@ -64,20 +64,30 @@ public MutableModuleComponentResolveMetadata getModuleDescriptor(ModuleComponent
         return null;
     }
 
-    public LocallyAvailableResource putModuleDescriptor(ModuleComponentAtRepositoryKey component, final ModuleComponentResolveMetadata metadata) {
+    public void putModuleDescriptor(ModuleComponentAtRepositoryKey component, final ModuleComponentResolveMetadata metadata) {
         String[] filePath = getFilePath(component);
-        return metaDataStore.add(PATH_JOINER.join(filePath), moduleDescriptorFile -> {
+        metaDataStore.add(PATH_JOINER.join(filePath), moduleDescriptorFile -> {
             try {
-                try (KryoBackedEncoder encoder = new KryoBackedEncoder(new FileOutputStream(moduleDescriptorFile))) {
-                    moduleMetadataSerializer.write(encoder, metadata, new HashMap<>());
-                }
+                write(new FileOutputStream(moduleDescriptorFile), metadata);
             } catch (Exception e) {
                 throw UncheckedException.throwAsUncheckedException(e);
             }
         });
     }
 
-    private String[] getFilePath(ModuleComponentAtRepositoryKey componentId) {
+    MutableModuleComponentResolveMetadata read(InputStream inputStream) throws Exception {
+        try (StringDeduplicatingDecoder decoder = new StringDeduplicatingDecoder(new KryoBackedDecoder(inputStream), stringInterner)) {
+            return moduleMetadataSerializer.read(decoder, moduleIdentifierFactory, new HashMap<>());
+        }
+    }
+
+    void write(OutputStream outputStream, ModuleComponentResolveMetadata metadata) throws Exception {
+        try (KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream)) {
+            moduleMetadataSerializer.write(encoder, metadata, new HashMap<>());
+        }
+    }
+
+    String[] getFilePath(ModuleComponentAtRepositoryKey componentId) {
         ModuleComponentIdentifier moduleComponentIdentifier = componentId.getComponentId();
         return new String[] {
             moduleComponentIdentifier.getGroup(),
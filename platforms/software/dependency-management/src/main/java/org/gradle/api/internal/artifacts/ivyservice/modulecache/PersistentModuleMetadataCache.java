@@ -52,7 +52,13 @@ public PersistentModuleMetadataCache(BuildCommencedTimeProvider timeProvider,
                                          ModuleSourcesSerializer moduleSourcesSerializer,
                                          ChecksumService checksumService) {
         super(timeProvider);
-        moduleMetadataStore = new ModuleMetadataStore(new DefaultPathKeyFileStore(checksumService, artifactCacheMetadata.getMetaDataStoreDirectory()), new ModuleMetadataSerializer(attributeContainerSerializer, mavenMetadataFactory, ivyMetadataFactory, moduleSourcesSerializer), moduleIdentifierFactory, stringInterner);
+        DefaultPathKeyFileStore metaDataStore = new DefaultPathKeyFileStore(checksumService, artifactCacheMetadata.getMetaDataStoreDirectory());
+        ModuleMetadataSerializer moduleMetadataSerializer = new ModuleMetadataSerializer(attributeContainerSerializer, mavenMetadataFactory, ivyMetadataFactory, moduleSourcesSerializer);
+        if (SegmentedModuleMetadataStore.isEnabled()) {
+            moduleMetadataStore = new SegmentedModuleMetadataStore(metaDataStore, cacheAccessCoordinator::getModuleMetadataSegments, moduleMetadataSerializer, moduleIdentifierFactory, stringInterner);
+        } else {
+            moduleMetadataStore = new ModuleMetadataStore(metaDataStore, moduleMetadataSerializer, moduleIdentifierFactory, stringInterner);
+        }
         this.artifactCacheLockingManager = cacheAccessCoordinator;
     }
 
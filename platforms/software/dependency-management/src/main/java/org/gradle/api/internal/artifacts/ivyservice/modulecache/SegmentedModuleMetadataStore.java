@@ -0,0 +1,82 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import com.google.common.collect.Interner;
+import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.component.external.model.ModuleComponentResolveMetadata;
+import org.gradle.internal.component.external.model.MutableModuleComponentResolveMetadata;
+import org.gradle.internal.resource.local.PathKeyFileStore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.function.Supplier;
+
+/**
+ * A {@link ModuleMetadataStore} that keeps the serialized metadata in a {@link ModuleMetadataSegmentStore}, instead of one file per module version.
+ *
+ * Descriptors written to the file store by builds that did not use the segments are still read from there.
+ * This store is used when the {@value #ENABLED_PROPERTY} system property is set to true.
+ */
+public class SegmentedModuleMetadataStore extends ModuleMetadataStore {
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.dependency-metadata.segmented-store";
+
+    private final Supplier<ModuleMetadataSegmentStore> segments;
+
+    public SegmentedModuleMetadataStore(PathKeyFileStore metaDataStore,
+                                        Supplier<ModuleMetadataSegmentStore> segments,
+                                        ModuleMetadataSerializer moduleMetadataSerializer,
+                                        ImmutableModuleIdentifierFactory moduleIdentifierFactory,
+                                        Interner<String> stringInterner) {
+        super(metaDataStore, moduleMetadataSerializer, moduleIdentifierFactory, stringInterner);
+        this.segments = segments;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    @Override
+    public MutableModuleComponentResolveMetadata getModuleDescriptor(ModuleComponentAtRepositoryKey component) {
+        String key = getKey(component);
+        byte[] serialized = segments.get().get(key);
+        if (serialized == null) {
+            return super.getModuleDescriptor(component);
+        }
+        try {
+            return read(new ByteArrayInputStream(serialized));
+        } catch (Exception e) {
+            throw new RuntimeException("Could not load module metadata for " + key + " from the metadata segments", e);
+        }
+    }
+
+    @Override
+    public void putModuleDescriptor(ModuleComponentAtRepositoryKey component, ModuleComponentResolveMetadata metadata) {
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try {
+            write(serialized, metadata);
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        segments.get().put(getKey(component), serialized.toByteArray());
+    }
+
+    private String getKey(ModuleComponentAtRepositoryKey component) {
+        return String.join("/", getFilePath(component));
+    }
+}
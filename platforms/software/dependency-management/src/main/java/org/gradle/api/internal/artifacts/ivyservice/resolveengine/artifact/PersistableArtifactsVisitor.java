@@ -0,0 +1,138 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact;
+
+import org.gradle.api.artifacts.Dependency;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphEdge;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode;
+import org.gradle.internal.component.local.model.DslOriginDependencyMetadata;
+import org.gradle.internal.component.local.model.LocalFileDependencyMetadata;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.component.model.VariantGraphResolveState;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records what is needed to recreate the artifact sets and the first level dependencies of a dependency graph, so that a later build can recreate
+ * the artifact and legacy results of the graph without resolving it again.
+ *
+ * <p>Each artifact set is recorded as the variant it was created for, see {@link ReplayedVariantArtifactSet}. The artifacts cannot be recreated
+ * when the graph has file dependencies, or when a variant cannot be found again by its name. Dependencies that change the artifacts of a variant
+ * are rejected by the {@code PersistableGraphVisitor}.</p>
+ */
+public class PersistableArtifactsVisitor implements DependencyArtifactsVisitor {
+    private final List<? extends DependencyMetadata> rootDependencies;
+    private final List<VariantReference> artifactSets = new ArrayList<>();
+    private final Map<Long, Integer> firstLevelDependencies = new LinkedHashMap<>();
+    private boolean persistable = true;
+
+    public PersistableArtifactsVisitor(List<? extends DependencyMetadata> rootDependencies) {
+        this.rootDependencies = rootDependencies;
+    }
+
+    @Override
+    public void visitNode(DependencyGraphNode node) {
+        for (DependencyGraphEdge edge : node.getIncomingEdges()) {
+            if (edge.getFrom().isRoot()) {
+                Dependency dependency = edge.getOriginalDependency();
+                if (dependency != null) {
+                    int index = indexOfRootDependency(dependency);
+                    if (index < 0) {
+                        persistable = false;
+                    } else {
+                        firstLevelDependencies.put(node.getNodeId(), index);
+                    }
+                }
+            }
+        }
+    }
+
+    private int indexOfRootDependency(Dependency dependency) {
+        for (int i = 0; i < rootDependencies.size(); i++) {
+            DependencyMetadata candidate = rootDependencies.get(i);
+            if (candidate instanceof DslOriginDependencyMetadata && ((DslOriginDependencyMetadata) candidate).getSource() == dependency) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void visitArtifacts(DependencyGraphNode from, LocalFileDependencyMetadata fileDependency, int artifactSetId, ArtifactSet artifactSet) {
+        persistable = false;
+    }
+
+    @Override
+    public void visitArtifacts(DependencyGraphNode from, DependencyGraphNode to, int artifactSetId, ArtifactSet artifacts) {
+        if (artifactSetId != artifactSets.size()) {
+            // A set shared by several edges
+            return;
+        }
+        VariantGraphResolveState variant = to.getResolveState();
+        VariantGraphResolveState found = ReplayedVariantArtifactSet.findVariant(to.getOwner().getResolveState(), variant.getName());
+        if (found == null || found.getInstanceId() != variant.getInstanceId()) {
+            persistable = false;
+        }
+        artifactSets.add(new VariantReference(to.getOwner().getComponentId(), variant.getName()));
+    }
+
+    /**
+     * Returns true when the artifact sets and first level dependencies of the visited graph can be recreated by a later build.
+     */
+    public boolean isPersistable() {
+        return persistable;
+    }
+
+    /**
+     * Returns the variant of each artifact set, in the order of the artifact set ids.
+     */
+    public List<VariantReference> getArtifactSets() {
+        return artifactSets;
+    }
+
+    /**
+     * Returns the index in the root dependencies of the dependency declared for each first level node.
+     */
+    public Map<Long, Integer> getFirstLevelDependencies() {
+        return firstLevelDependencies;
+    }
+
+    /**
+     * Identifies a variant of a component in a dependency graph.
+     */
+    public static class VariantReference {
+        private final ComponentIdentifier componentId;
+        private final String variantName;
+
+        public VariantReference(ComponentIdentifier componentId, String variantName) {
+            this.componentId = componentId;
+            this.variantName = variantName;
+        }
+
+        public ComponentIdentifier getComponentId() {
+            return componentId;
+        }
+
+        public String getVariantName() {
+            return variantName;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact;
+
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.simple.DefaultExcludeNothing;
+import org.gradle.api.internal.artifacts.transform.ArtifactVariantSelector;
+import org.gradle.api.internal.attributes.AttributesSchemaInternal;
+import org.gradle.api.internal.attributes.ImmutableAttributes;
+import org.gradle.internal.component.model.ComponentGraphResolveState;
+import org.gradle.internal.component.model.ConfigurationGraphResolveState;
+import org.gradle.internal.component.model.DefaultComponentOverrideMetadata;
+import org.gradle.internal.component.model.GraphSelectionCandidates;
+import org.gradle.internal.component.model.GraphVariantSelector;
+import org.gradle.internal.component.model.VariantGraphResolveState;
+import org.gradle.internal.lazy.Lazy;
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
+import org.gradle.internal.resolve.resolver.VariantArtifactResolver;
+import org.gradle.internal.resolve.result.DefaultBuildableComponentResolveResult;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+
+/**
+ * An {@link ArtifactSet} for a variant in a dependency graph resolved by an earlier build, as recorded by {@link PersistableArtifactsVisitor}.
+ *
+ * <p>The component is resolved and the variant is looked up by its name when the artifacts are first selected.
+ * The artifacts are then selected in the same way as by a {@link VariantResolvingArtifactSet} for a dependency that does not change the artifacts of the variant.</p>
+ */
+public class ReplayedVariantArtifactSet implements ArtifactSet {
+    private final ComponentIdentifier componentId;
+    private final Lazy<ArtifactSet> artifacts;
+
+    public ReplayedVariantArtifactSet(
+        ComponentIdentifier componentId,
+        String variantName,
+        ComponentMetaDataResolver componentResolver,
+        VariantArtifactResolver variantResolver,
+        GraphVariantSelector graphVariantSelector,
+        AttributesSchemaInternal consumerSchema
+    ) {
+        this.componentId = componentId;
+        this.artifacts = Lazy.locking().of(() -> {
+            DefaultBuildableComponentResolveResult result = new DefaultBuildableComponentResolveResult();
+            componentResolver.resolve(componentId, DefaultComponentOverrideMetadata.EMPTY, result);
+            ComponentGraphResolveState component = result.getState();
+            VariantGraphResolveState variant = findVariant(component, variantName);
+            if (variant == null) {
+                throw new IllegalStateException(String.format("Could not find variant '%s' of %s.", variantName, componentId.getDisplayName()));
+            }
+            return new VariantResolvingArtifactSet(variantResolver, component, variant, ImmutableAttributes.EMPTY, Collections.emptyList(), DefaultExcludeNothing.get(), Collections.emptyList(), graphVariantSelector, consumerSchema);
+        });
+    }
+
+    /**
+     * Returns the variant of the given component with the given name, as selected for a node of a dependency graph.
+     */
+    @Nullable
+    public static VariantGraphResolveState findVariant(ComponentGraphResolveState component, String variantName) {
+        GraphSelectionCandidates candidates = component.getCandidatesForGraphVariantSelection();
+        if (candidates.isUseVariants()) {
+            for (VariantGraphResolveState variant : candidates.getVariants()) {
+                if (variant.getName().equals(variantName)) {
+                    return variant;
+                }
+            }
+        }
+        ConfigurationGraphResolveState configuration = component.getConfiguration(variantName);
+        return configuration == null ? null : configuration.asVariant();
+    }
+
+    @Override
+    public ResolvedArtifactSet select(ArtifactVariantSelector variantSelector, ArtifactSelectionSpec spec) {
+        if (!spec.getComponentFilter().isSatisfiedBy(componentId)) {
+            return ResolvedArtifactSet.EMPTY;
+        }
+        ArtifactSet artifactSet;
+        try {
+            artifactSet = artifacts.get();
+        } catch (Exception e) {
+            return new BrokenResolvedArtifactSet(e);
+        }
+        return artifactSet.select(variantSelector, spec);
+    }
+}
@@ -70,16 +70,40 @@ public VariantResolvingArtifactSet(
         DependencyGraphEdge dependency,
         GraphVariantSelector graphVariantSelector,
         AttributesSchemaInternal consumerSchema
+    ) {
+        this(
+            variantResolver,
+            component,
+            variant,
+            dependency.getAttributes(),
+            dependency.getDependencyMetadata().getArtifacts(),
+            dependency.getExclusions(),
+            dependency.getSelector().getRequested().getRequestedCapabilities(),
+            graphVariantSelector,
+            consumerSchema
+        );
+    }
+
+    public VariantResolvingArtifactSet(
+        VariantArtifactResolver variantResolver,
+        ComponentGraphResolveState component,
+        VariantGraphResolveState variant,
+        ImmutableAttributes overriddenAttributes,
+        List<IvyArtifactName> artifacts,
+        ExcludeSpec exclusions,
+        List<Capability> capabilities,
+        GraphVariantSelector graphVariantSelector,
+        AttributesSchemaInternal consumerSchema
     ) {
         this.variantResolver = variantResolver;
         this.component = component;
         this.variant = variant;
         this.componentId = component.getId();
         this.producerSchema = component.getMetadata().getAttributesSchema();
-        this.overriddenAttributes = dependency.getAttributes();
-        this.artifacts = dependency.getDependencyMetadata().getArtifacts();
-        this.exclusions = dependency.getExclusions();
-        this.capabilities = dependency.getSelector().getRequested().getRequestedCapabilities();
+        this.overriddenAttributes = overriddenAttributes;
+        this.artifacts = artifacts;
+        this.exclusions = exclusions;
+        this.capabilities = capabilities;
         this.graphVariantSelector = graphVariantSelector;
         this.consumerSchema = consumerSchema;
     }
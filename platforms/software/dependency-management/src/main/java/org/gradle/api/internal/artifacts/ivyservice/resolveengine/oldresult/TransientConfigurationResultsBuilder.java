@@ -86,6 +86,13 @@ public void done(final Long id) {
         binaryData = binaryStore.done();
     }
 
+    /**
+     * Uses the results already held by the binary store, written by an earlier resolution, instead of writing them.
+     */
+    public void reload() {
+        binaryData = binaryStore.done();
+    }
+
     public void firstLevelDependency(final Long id) {
         binaryStore.write(encoder -> {
             encoder.writeByte(FIRST_LEVEL);
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.result;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.result.ResolvedVariantResult;
+import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
+import org.gradle.api.internal.artifacts.ModuleVersionIdentifierSerializer;
+import org.gradle.internal.component.model.ComponentGraphResolveState;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Serializer;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.List;
+
+/**
+ * A serializer used for resolution results that are kept across Gradle invocations.
+ *
+ * <p>Always writes the data of the component, so that the result can be read without the {@link ComponentGraphResolveState} it was built from.</p>
+ */
+@ThreadSafe
+public class CompleteComponentDetailsSerializer implements ComponentDetailsSerializer {
+    private final Serializer<ComponentIdentifier> componentIdSerializer = new ComponentIdentifierSerializer();
+    private final Serializer<ModuleVersionIdentifier> moduleVersionIdSerializer;
+    private final CompleteSelectedVariantSerializer variantSerializer;
+
+    public CompleteComponentDetailsSerializer(ImmutableModuleIdentifierFactory moduleIdentifierFactory, CompleteSelectedVariantSerializer variantSerializer) {
+        this.moduleVersionIdSerializer = new ModuleVersionIdentifierSerializer(moduleIdentifierFactory);
+        this.variantSerializer = variantSerializer;
+    }
+
+    @Override
+    public void writeComponentDetails(ComponentGraphResolveState component, boolean requireAllVariants, Encoder encoder) throws Exception {
+        componentIdSerializer.write(encoder, component.getId());
+        moduleVersionIdSerializer.write(encoder, component.getMetadata().getModuleVersionId());
+        if (requireAllVariants) {
+            List<ResolvedVariantResult> variants = component.getAllSelectableVariantResults();
+            encoder.writeSmallInt(variants.size());
+            for (ResolvedVariantResult variant : variants) {
+                variantSerializer.writeVariant(encoder, variant);
+            }
+        } else {
+            encoder.writeSmallInt(0);
+        }
+    }
+
+    @Override
+    public void readComponentDetails(Decoder decoder, ResolvedComponentVisitor visitor) throws Exception {
+        ComponentIdentifier componentId = componentIdSerializer.read(decoder);
+        ModuleVersionIdentifier moduleVersionId = moduleVersionIdSerializer.read(decoder);
+        visitor.visitComponentDetails(componentId, moduleVersionId);
+        int variantCount = decoder.readSmallInt();
+        ImmutableList.Builder<ResolvedVariantResult> variants = ImmutableList.builderWithExpectedSize(variantCount);
+        for (int i = 0; i < variantCount; i++) {
+            variants.add(variantSerializer.readVariant(decoder));
+        }
+        visitor.visitComponentVariants(variants.build());
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.result;
+
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.result.ResolvedVariantResult;
+import org.gradle.api.attributes.AttributeContainer;
+import org.gradle.api.capabilities.Capability;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ResolvedGraphVariant;
+import org.gradle.api.internal.artifacts.result.DefaultResolvedVariantResult;
+import org.gradle.internal.Describables;
+import org.gradle.internal.component.external.model.ImmutableCapabilities;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.ListSerializer;
+import org.gradle.internal.serialize.Serializer;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A serializer used for resolution results that are kept across Gradle invocations.
+ *
+ * <p>Always writes the data of the selected variant, so that the result can be read without the {@link org.gradle.internal.component.model.VariantGraphResolveState} it was built from.</p>
+ */
+@ThreadSafe
+public class CompleteSelectedVariantSerializer implements SelectedVariantSerializer {
+    private final Serializer<ComponentIdentifier> componentIdSerializer = new ComponentIdentifierSerializer();
+    private final Serializer<List<Capability>> capabilitySerializer = new ListSerializer<>(new CapabilitySerializer());
+    private final AttributeContainerSerializer attributeContainerSerializer;
+
+    public CompleteSelectedVariantSerializer(AttributeContainerSerializer attributeContainerSerializer) {
+        this.attributeContainerSerializer = attributeContainerSerializer;
+    }
+
+    @Override
+    public void writeVariantResult(ResolvedGraphVariant variant, Encoder encoder) throws Exception {
+        encoder.writeSmallLong(variant.getNodeId());
+        ResolvedGraphVariant externalVariant = variant.getExternalVariant();
+        ResolvedVariantResult externalVariantResult = externalVariant == null ? null : externalVariant.getResolveState().getVariantResult(null);
+        writeVariant(encoder, variant.getResolveState().getVariantResult(externalVariantResult));
+    }
+
+    @Override
+    public void readSelectedVariant(Decoder decoder, ResolvedComponentVisitor visitor) throws Exception {
+        long nodeId = decoder.readSmallLong();
+        visitor.visitSelectedVariant(nodeId, readVariant(decoder));
+    }
+
+    void writeVariant(Encoder encoder, ResolvedVariantResult variant) throws Exception {
+        componentIdSerializer.write(encoder, variant.getOwner());
+        encoder.writeString(variant.getDisplayName());
+        attributeContainerSerializer.write(encoder, variant.getAttributes());
+        capabilitySerializer.write(encoder, variant.getCapabilities());
+        ResolvedVariantResult externalVariant = variant.getExternalVariant().orElse(null);
+        if (externalVariant == null) {
+            encoder.writeBoolean(false);
+        } else {
+            encoder.writeBoolean(true);
+            writeVariant(encoder, externalVariant);
+        }
+    }
+
+    ResolvedVariantResult readVariant(Decoder decoder) throws Exception {
+        ComponentIdentifier ownerId = componentIdSerializer.read(decoder);
+        String displayName = decoder.readString();
+        AttributeContainer attributes = attributeContainerSerializer.read(decoder);
+        List<Capability> capabilities = capabilitySerializer.read(decoder);
+        ResolvedVariantResult externalVariant = readExternalVariant(decoder);
+        return new DefaultResolvedVariantResult(ownerId, Describables.of(displayName), attributes, ImmutableCapabilities.of(capabilities), externalVariant);
+    }
+
+    @Nullable
+    private ResolvedVariantResult readExternalVariant(Decoder decoder) throws Exception {
+        if (decoder.readBoolean()) {
+            return readVariant(decoder);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.result;
+
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.internal.artifacts.dependencies.DefaultResolvedVersionConstraint;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphComponent;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphEdge;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphSelector;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.internal.component.model.ComponentGraphResolveMetadata;
+import org.gradle.internal.component.model.DefaultComponentOverrideMetadata;
+
+/**
+ * Determines whether a resolved graph only depends on inputs that can be fingerprinted, so that it can be reused by later builds.
+ *
+ * <p>A graph cannot be reused when it contains components other than the root that are not external modules,
+ * dynamic versions or changing modules, as the result for these can change without any change to the build.
+ * It also cannot be reused when it contains virtual platforms, client modules or dependencies that change the artifacts of a variant,
+ * as the artifacts of the graph are recreated from its components and variants alone.</p>
+ */
+public class PersistableGraphVisitor implements DependencyGraphVisitor {
+    private final VersionSelectorScheme versionSelectorScheme;
+    private boolean persistable = true;
+
+    public PersistableGraphVisitor(VersionSelectorScheme versionSelectorScheme) {
+        this.versionSelectorScheme = versionSelectorScheme;
+    }
+
+    @Override
+    public void visitNode(DependencyGraphNode node) {
+        if (!persistable || node.isRoot()) {
+            return;
+        }
+        DependencyGraphComponent component = node.getOwner();
+        if (!(component.getComponentId() instanceof ModuleComponentIdentifier)) {
+            persistable = false;
+            return;
+        }
+        ComponentGraphResolveMetadata metadata = component.getMetadataOrNull();
+        if (metadata == null || metadata.isChanging() || component.getResolveState().isAdHoc()) {
+            persistable = false;
+        }
+    }
+
+    @Override
+    public void visitSelector(DependencyGraphSelector selector) {
+        if (!persistable) {
+            return;
+        }
+        ComponentSelector requested = selector.getRequested();
+        if (!(requested instanceof ModuleComponentSelector)) {
+            persistable = false;
+            return;
+        }
+        ModuleComponentSelector moduleSelector = (ModuleComponentSelector) requested;
+        if (new DefaultResolvedVersionConstraint(moduleSelector.getVersionConstraint(), versionSelectorScheme).isDynamic()) {
+            persistable = false;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void visitEdges(DependencyGraphNode node) {
+        if (!persistable) {
+            return;
+        }
+        for (DependencyGraphEdge edge : node.getOutgoingEdges()) {
+            if (edge.getFailure() != null
+                || edge.getDependencyMetadata().isChanging()
+                || edge.isTargetVirtualPlatform()
+                || !edge.getDependencyMetadata().getArtifacts().isEmpty()
+                || DefaultComponentOverrideMetadata.extractClientModule(edge.getDependencyMetadata()) != null
+                || edge.contributesArtifacts() && changesArtifacts(edge)) {
+                persistable = false;
+                return;
+            }
+        }
+    }
+
+    private static boolean changesArtifacts(DependencyGraphEdge edge) {
+        return !edge.getAttributes().isEmpty()
+            || edge.getExclusions().mayExcludeArtifacts()
+            || !edge.getSelector().getRequested().getRequestedCapabilities().isEmpty();
+    }
+
+    /**
+     * Returns true when the visited graph can be reused by later builds with the same inputs.
+     */
+    public boolean isPersistable() {
+        return persistable;
+    }
+}
@@ -43,6 +43,7 @@
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -94,6 +95,16 @@ public MinimalResolutionResult complete(Set<UnresolvedDependency> dependencyLock
         return new DefaultMinimalResolutionResult(rootSource::create, rootAttributes);
     }
 
+    /**
+     * Creates the result from a graph that has already been written to the store of this builder, possibly by an earlier Gradle invocation, without visiting the graph.
+     * Only graphs that were resolved without failures can be replayed, as the failures are not part of the written graph.
+     */
+    public MinimalResolutionResult replay(ImmutableAttributes rootAttributes) {
+        BinaryStore.BinaryData data = store.done();
+        RootFactory rootSource = new RootFactory(data, failures, cache, componentSelectorSerializer, dependencyResultSerializer, componentResultSerializer, Collections.emptySet());
+        return new DefaultMinimalResolutionResult(rootSource::create, rootAttributes);
+    }
+
     @Override
     public void start(final RootGraphNode root) {
         rootAttributes = desugaring.desugar(root.getMetadata().getAttributes());
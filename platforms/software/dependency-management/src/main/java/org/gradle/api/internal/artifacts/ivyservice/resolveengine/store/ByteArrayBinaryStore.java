@@ -0,0 +1,115 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store;
+
+import org.gradle.cache.internal.BinaryStore;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.kryo.StringDeduplicatingKryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.StringDeduplicatingKryoBackedEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+/**
+ * A {@link BinaryStore} that keeps its content in memory, so that it can be persisted elsewhere once written.
+ *
+ * <p>Uses the same encoding as the file based stores. A store can be written once, or created from previously written content to read it again.</p>
+ */
+public class ByteArrayBinaryStore implements BinaryStore {
+    private final ByteArrayOutputStream output;
+    private StringDeduplicatingKryoBackedEncoder encoder;
+    private byte[] content;
+
+    public ByteArrayBinaryStore() {
+        this.output = new ByteArrayOutputStream();
+    }
+
+    public ByteArrayBinaryStore(byte[] content) {
+        this.output = null;
+        this.content = content;
+    }
+
+    @Override
+    public void write(WriteAction write) {
+        if (content != null) {
+            throw new IllegalStateException("Cannot write to " + this + " after it has been completed.");
+        }
+        if (encoder == null) {
+            encoder = new StringDeduplicatingKryoBackedEncoder(output);
+        }
+        try {
+            write.write(encoder);
+        } catch (Exception e) {
+            throw new RuntimeException("Problems writing to " + this, e);
+        }
+    }
+
+    @Override
+    public BinaryData done() {
+        return new ByteArrayBinaryData(toByteArray());
+    }
+
+    /**
+     * Completes this store, if not already done, and returns its content.
+     */
+    public byte[] toByteArray() {
+        if (content == null) {
+            if (encoder != null) {
+                encoder.done();
+                encoder.flush();
+            }
+            content = output.toByteArray();
+        }
+        return content;
+    }
+
+    @Override
+    public String toString() {
+        return "In-memory binary store";
+    }
+
+    private static class ByteArrayBinaryData implements BinaryStore.BinaryData {
+        private final byte[] content;
+        private Decoder decoder;
+
+        ByteArrayBinaryData(byte[] content) {
+            this.content = content;
+        }
+
+        @Override
+        public <T> T read(BinaryStore.ReadAction<T> readAction) {
+            try {
+                if (decoder == null) {
+                    decoder = new StringDeduplicatingKryoBackedDecoder(new ByteArrayInputStream(content));
+                }
+                return readAction.read(decoder);
+            } catch (Exception e) {
+                throw new RuntimeException("Problems reading data from " + this, e);
+            }
+        }
+
+        @Override
+        public void close() {
+            decoder = null;
+        }
+
+        @Override
+        public String toString() {
+            return "In-memory binary store of " + content.length + " bytes";
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store;
+
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.PersistableArtifactsVisitor.VariantReference;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentIdentifierSerializer;
+import org.gradle.internal.serialize.AbstractSerializer;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The results of resolving a dependency graph, as kept by the {@link PersistentResolutionResultsCache}.
+ *
+ * <p>Holds the serialized resolution result and legacy results of the graph, along with what is needed to recreate its artifact sets and first level dependencies.</p>
+ */
+public class PersistedResolverResults {
+    private final byte[] graph;
+    private final byte[] legacyGraph;
+    private final List<VariantReference> artifactSets;
+    private final Map<Long, Integer> firstLevelDependencies;
+
+    public PersistedResolverResults(byte[] graph, byte[] legacyGraph, List<VariantReference> artifactSets, Map<Long, Integer> firstLevelDependencies) {
+        this.graph = graph;
+        this.legacyGraph = legacyGraph;
+        this.artifactSets = artifactSets;
+        this.firstLevelDependencies = firstLevelDependencies;
+    }
+
+    /**
+     * Returns the resolution result, as written by a {@link org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.StreamingResolutionResultBuilder}.
+     */
+    public byte[] getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the legacy results, as written by a {@link org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.TransientConfigurationResultsBuilder}.
+     */
+    public byte[] getLegacyGraph() {
+        return legacyGraph;
+    }
+
+    /**
+     * Returns the variant of each artifact set, in the order of the artifact set ids.
+     */
+    public List<VariantReference> getArtifactSets() {
+        return artifactSets;
+    }
+
+    /**
+     * Returns the index in the root dependencies of the dependency declared for each first level node.
+     */
+    public Map<Long, Integer> getFirstLevelDependencies() {
+        return firstLevelDependencies;
+    }
+
+    public static class Serializer extends AbstractSerializer<PersistedResolverResults> {
+        private final ComponentIdentifierSerializer componentIdSerializer = new ComponentIdentifierSerializer();
+
+        @Override
+        public PersistedResolverResults read(Decoder decoder) throws Exception {
+            byte[] graph = decoder.readBinary();
+            byte[] legacyGraph = decoder.readBinary();
+            int artifactSetCount = decoder.readSmallInt();
+            List<VariantReference> artifactSets = new ArrayList<>(artifactSetCount);
+            for (int i = 0; i < artifactSetCount; i++) {
+                artifactSets.add(new VariantReference(componentIdSerializer.read(decoder), decoder.readString()));
+            }
+            int firstLevelCount = decoder.readSmallInt();
+            Map<Long, Integer> firstLevelDependencies = new LinkedHashMap<>();
+            for (int i = 0; i < firstLevelCount; i++) {
+                firstLevelDependencies.put(decoder.readSmallLong(), decoder.readSmallInt());
+            }
+            return new PersistedResolverResults(graph, legacyGraph, artifactSets, firstLevelDependencies);
+        }
+
+        @Override
+        public void write(Encoder encoder, PersistedResolverResults value) throws Exception {
+            encoder.writeBinary(value.graph);
+            encoder.writeBinary(value.legacyGraph);
+            encoder.writeSmallInt(value.artifactSets.size());
+            for (VariantReference artifactSet : value.artifactSets) {
+                componentIdSerializer.write(encoder, artifactSet.getComponentId());
+                encoder.writeString(artifactSet.getVariantName());
+            }
+            encoder.writeSmallInt(value.firstLevelDependencies.size());
+            for (Map.Entry<Long, Integer> entry : value.firstLevelDependencies.entrySet()) {
+                encoder.writeSmallLong(entry.getKey());
+                encoder.writeSmallInt(entry.getValue());
+            }
+        }
+    }
+}
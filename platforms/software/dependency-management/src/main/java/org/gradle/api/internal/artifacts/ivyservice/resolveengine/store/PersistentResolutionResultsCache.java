@@ -0,0 +1,78 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store;
+
+import org.gradle.api.internal.artifacts.ivyservice.ArtifactCacheLockingAccessCoordinator;
+import org.gradle.cache.IndexedCache;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.serialize.HashCodeSerializer;
+
+import javax.annotation.Nullable;
+
+/**
+ * Keeps the results of resolving dependency graphs in the dependency cache, keyed by a fingerprint of the inputs to the resolution,
+ * so that a later build can reuse the results instead of resolving the graph again.
+ *
+ * <p>The cache is opt-in, see {@link #ENABLED_PROPERTY}.</p>
+ */
+public class PersistentResolutionResultsCache {
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.dependency-resolution.persistent-results";
+
+    private final ArtifactCacheLockingAccessCoordinator cacheAccessCoordinator;
+    private final boolean enabled;
+    private final boolean refresh;
+    private IndexedCache<HashCode, PersistedResolverResults> cache;
+
+    public PersistentResolutionResultsCache(ArtifactCacheLockingAccessCoordinator cacheAccessCoordinator, boolean enabled, boolean refresh) {
+        this.cacheAccessCoordinator = cacheAccessCoordinator;
+        this.enabled = enabled;
+        this.refresh = refresh;
+    }
+
+    public static boolean isEnabledByProperty() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the results stored for the given fingerprint, or null when there are none or dependencies are being refreshed.
+     */
+    @Nullable
+    public PersistedResolverResults load(HashCode fingerprint) {
+        if (!enabled || refresh) {
+            return null;
+        }
+        return cacheAccessCoordinator.useCache(() -> getCache().getIfPresent(fingerprint));
+    }
+
+    public void store(HashCode fingerprint, PersistedResolverResults results) {
+        if (!enabled) {
+            return;
+        }
+        cacheAccessCoordinator.useCache(() -> getCache().put(fingerprint, results));
+    }
+
+    private IndexedCache<HashCode, PersistedResolverResults> getCache() {
+        if (cache == null) {
+            cache = cacheAccessCoordinator.createCache("resolution-results", new HashCodeSerializer(), new PersistedResolverResults.Serializer());
+        }
+        return cache;
+    }
+}
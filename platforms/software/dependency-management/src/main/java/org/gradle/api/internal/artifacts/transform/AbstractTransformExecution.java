@@ -183,11 +183,11 @@ public InputFingerprinter getInputFingerprinter() {
         return inputFingerprinter;
     }
 
-    private static File getOutputDir(File workspace) {
+    static File getOutputDir(File workspace) {
         return new File(workspace, "transformed");
     }
 
-    private static File getResultsFile(File workspace) {
+    static File getResultsFile(File workspace) {
         return new File(workspace, "results.bin");
     }
 
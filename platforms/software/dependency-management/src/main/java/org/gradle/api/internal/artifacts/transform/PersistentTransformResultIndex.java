@@ -0,0 +1,194 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.transform;
+
+import org.gradle.api.internal.artifacts.ivyservice.ArtifactCacheLockingAccessCoordinator;
+import org.gradle.api.internal.artifacts.transform.TransformExecutionResult.TransformWorkspaceResult;
+import org.gradle.cache.Cache;
+import org.gradle.cache.IndexedCache;
+import org.gradle.caching.internal.origin.OriginMetadata;
+import org.gradle.internal.Try;
+import org.gradle.internal.execution.ExecutionEngine.IdentityCacheResult;
+import org.gradle.internal.execution.UnitOfWork.Identity;
+import org.gradle.internal.execution.history.impl.OriginMetadataSerializer;
+import org.gradle.internal.execution.workspace.ImmutableWorkspaceProvider;
+import org.gradle.internal.serialize.AbstractSerializer;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * A cache of the results of immutable transform executions that falls back to a persistent index, so that the results of transforms
+ * executed by an earlier build are available without loading their workspace again.
+ *
+ * <p>The index maps the location of an immutable workspace to the outputs of the transform that produced it.
+ * An entry is only used while its workspace exists. Unlike loading the workspace, using an entry does not snapshot the outputs in the workspace
+ * to check that they have not been modified.</p>
+ *
+ * <p>The index is opt-in, see {@link #ENABLED_PROPERTY}.</p>
+ */
+public class PersistentTransformResultIndex implements Cache<Identity, IdentityCacheResult<TransformWorkspaceResult>> {
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.transforms.persistent-result-index";
+
+    private final Cache<Identity, IdentityCacheResult<TransformWorkspaceResult>> delegate;
+    private final ImmutableWorkspaceProvider workspaceProvider;
+    private final ArtifactCacheLockingAccessCoordinator cacheAccessCoordinator;
+    private final TransformExecutionResultSerializer resultSerializer = new TransformExecutionResultSerializer();
+    private IndexedCache<String, IndexEntry> index;
+
+    public PersistentTransformResultIndex(
+        Cache<Identity, IdentityCacheResult<TransformWorkspaceResult>> delegate,
+        ImmutableWorkspaceProvider workspaceProvider,
+        ArtifactCacheLockingAccessCoordinator cacheAccessCoordinator
+    ) {
+        this.delegate = delegate;
+        this.workspaceProvider = workspaceProvider;
+        this.cacheAccessCoordinator = cacheAccessCoordinator;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    @Override
+    public IdentityCacheResult<TransformWorkspaceResult> get(Identity identity, Function<? super Identity, ? extends IdentityCacheResult<TransformWorkspaceResult>> factory) {
+        return delegate.get(identity, key -> {
+            IdentityCacheResult<TransformWorkspaceResult> indexedResult = loadFromIndex(key);
+            if (indexedResult != null) {
+                return indexedResult;
+            }
+            IdentityCacheResult<TransformWorkspaceResult> result = factory.apply(key);
+            if (result.getResult().isSuccessful()) {
+                storeInIndex(key, result.getOriginMetadata().orElse(null));
+            }
+            return result;
+        });
+    }
+
+    @Nullable
+    @Override
+    public IdentityCacheResult<TransformWorkspaceResult> getIfPresent(Identity identity) {
+        IdentityCacheResult<TransformWorkspaceResult> result = delegate.getIfPresent(identity);
+        if (result == null) {
+            result = loadFromIndex(identity);
+            if (result != null) {
+                delegate.put(identity, result);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void put(Identity identity, IdentityCacheResult<TransformWorkspaceResult> result) {
+        delegate.put(identity, result);
+    }
+
+    @Nullable
+    private IdentityCacheResult<TransformWorkspaceResult> loadFromIndex(Identity identity) {
+        File workspace = workspaceProvider.getWorkspace(identity.getUniqueId()).getImmutableLocation();
+        IndexEntry entry = cacheAccessCoordinator.useCache(() -> getIndex().getIfPresent(workspace.getAbsolutePath()));
+        if (entry == null || !workspace.isDirectory()) {
+            // The workspace may have been removed by cache cleanup
+            return null;
+        }
+        TransformWorkspaceResult result = resultSerializer.fromPaths(entry.resultPaths)
+            .resolveForWorkspace(AbstractTransformExecution.getOutputDir(workspace));
+        return new IndexedResult(result, entry.originMetadata);
+    }
+
+    private void storeInIndex(Identity identity, @Nullable OriginMetadata originMetadata) {
+        File workspace = workspaceProvider.getWorkspace(identity.getUniqueId()).getImmutableLocation();
+        File resultsFile = AbstractTransformExecution.getResultsFile(workspace);
+        if (!resultsFile.isFile()) {
+            return;
+        }
+        List<String> resultPaths = resultSerializer.toPaths(resultSerializer.readResultsFile(resultsFile));
+        IndexEntry entry = new IndexEntry(resultPaths, originMetadata);
+        cacheAccessCoordinator.useCache(() -> getIndex().put(workspace.getAbsolutePath(), entry));
+    }
+
+    private synchronized IndexedCache<String, IndexEntry> getIndex() {
+        if (index == null) {
+            index = cacheAccessCoordinator.createCache("transform-results", BaseSerializerFactory.STRING_SERIALIZER, new IndexEntrySerializer());
+        }
+        return index;
+    }
+
+    private static class IndexedResult implements IdentityCacheResult<TransformWorkspaceResult> {
+        private final Try<TransformWorkspaceResult> result;
+        private final OriginMetadata originMetadata;
+
+        IndexedResult(TransformWorkspaceResult result, @Nullable OriginMetadata originMetadata) {
+            this.result = Try.successful(result);
+            this.originMetadata = originMetadata;
+        }
+
+        @Override
+        public Try<TransformWorkspaceResult> getResult() {
+            return result;
+        }
+
+        @Override
+        public Optional<OriginMetadata> getOriginMetadata() {
+            return Optional.ofNullable(originMetadata);
+        }
+    }
+
+    private static class IndexEntry {
+        private final List<String> resultPaths;
+        private final OriginMetadata originMetadata;
+
+        IndexEntry(List<String> resultPaths, @Nullable OriginMetadata originMetadata) {
+            this.resultPaths = resultPaths;
+            this.originMetadata = originMetadata;
+        }
+    }
+
+    private static class IndexEntrySerializer extends AbstractSerializer<IndexEntry> {
+        private final OriginMetadataSerializer originMetadataSerializer = new OriginMetadataSerializer();
+
+        @Override
+        public IndexEntry read(Decoder decoder) throws Exception {
+            int count = decoder.readSmallInt();
+            List<String> resultPaths = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                resultPaths.add(decoder.readString());
+            }
+            OriginMetadata originMetadata = decoder.readBoolean() ? originMetadataSerializer.read(decoder) : null;
+            return new IndexEntry(resultPaths, originMetadata);
+        }
+
+        @Override
+        public void write(Encoder encoder, IndexEntry entry) throws Exception {
+            encoder.writeSmallInt(entry.resultPaths.size());
+            for (String resultPath : entry.resultPaths) {
+                encoder.writeString(resultPath);
+            }
+            encoder.writeBoolean(entry.originMetadata != null);
+            if (entry.originMetadata != null) {
+                originMetadataSerializer.write(encoder, entry.originMetadata);
+            }
+        }
+    }
+}
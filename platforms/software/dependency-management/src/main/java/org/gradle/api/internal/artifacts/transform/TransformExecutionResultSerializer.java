@@ -33,49 +33,60 @@ public class TransformExecutionResultSerializer {
     private static final String OUTPUT_FILE_PATH_PREFIX = "o/";
 
     public void writeToFile(File target, TransformExecutionResult result) {
-        List<String> resultFileContents = new ArrayList<>(result.size());
+        List<String> resultFileContents = toPaths(result);
+        unchecked(() -> Files.write(target.toPath(), resultFileContents));
+    }
+
+    public TransformExecutionResult readResultsFile(File resultsFile) {
+        Path transformerResultsPath = resultsFile.toPath();
+        try {
+            return fromPaths(Files.readAllLines(transformerResultsPath, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Encodes the given result as a list of prefixed relative paths, the format of the results file.
+     */
+    public List<String> toPaths(TransformExecutionResult result) {
+        List<String> paths = new ArrayList<>(result.size());
 
         result.visitOutputs(new TransformExecutionResult.OutputVisitor() {
             @Override
             public void visitEntireInputArtifact() {
-                resultFileContents.add(INPUT_FILE_PATH_PREFIX);
+                paths.add(INPUT_FILE_PATH_PREFIX);
             }
 
             @Override
             public void visitPartOfInputArtifact(String relativePath) {
-                resultFileContents.add(INPUT_FILE_PATH_PREFIX + relativePath);
+                paths.add(INPUT_FILE_PATH_PREFIX + relativePath);
             }
 
             @Override
             public void visitProducedOutput(String relativePath) {
-                resultFileContents.add(OUTPUT_FILE_PATH_PREFIX + relativePath);
+                paths.add(OUTPUT_FILE_PATH_PREFIX + relativePath);
             }
         });
-        unchecked(() -> Files.write(target.toPath(), resultFileContents));
+        return paths;
     }
 
-    public TransformExecutionResult readResultsFile(File resultsFile) {
-        Path transformerResultsPath = resultsFile.toPath();
-        try {
-            TransformExecutionResult.Builder builder = TransformExecutionResult.builder();
-            List<String> paths = Files.readAllLines(transformerResultsPath, StandardCharsets.UTF_8);
-            for (String path : paths) {
-                if (path.startsWith(OUTPUT_FILE_PATH_PREFIX)) {
-                    builder.addProducedOutput(path.substring(2));
-                } else if (path.startsWith(INPUT_FILE_PATH_PREFIX)) {
-                    String relativePathString = path.substring(2);
-                    if (relativePathString.isEmpty()) {
-                        builder.addEntireInputArtifact();
-                    } else {
-                        builder.addPartOfInputArtifact(relativePathString);
-                    }
+    public TransformExecutionResult fromPaths(List<String> paths) {
+        TransformExecutionResult.Builder builder = TransformExecutionResult.builder();
+        for (String path : paths) {
+            if (path.startsWith(OUTPUT_FILE_PATH_PREFIX)) {
+                builder.addProducedOutput(path.substring(2));
+            } else if (path.startsWith(INPUT_FILE_PATH_PREFIX)) {
+                String relativePathString = path.substring(2);
+                if (relativePathString.isEmpty()) {
+                    builder.addEntireInputArtifact();
                 } else {
-                    throw new IllegalStateException("Cannot parse result path string: " + path);
+                    builder.addPartOfInputArtifact(relativePathString);
                 }
+            } else {
+                throw new IllegalStateException("Cannot parse result path string: " + path);
             }
-            return builder.build();
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
         }
+        return builder.build();
     }
 }
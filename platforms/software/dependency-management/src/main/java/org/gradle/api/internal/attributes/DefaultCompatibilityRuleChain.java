@@ -80,6 +80,13 @@ public boolean doesSomething() {
         return !rules.isEmpty();
     }
 
+    /**
+     * Returns the rules of this chain, in the order they are applied.
+     */
+    public List<Action<? super CompatibilityCheckDetails<T>>> getRules() {
+        return rules;
+    }
+
     private static class ExceptionHandler<T> implements InstantiatingAction.ExceptionHandler<CompatibilityCheckDetails<T>> {
 
         private final Class<? extends AttributeCompatibilityRule<T>> rule;
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.artifacts.ivyservice
 
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleMetadataSegmentStore
 import org.gradle.api.internal.cache.CacheConfigurationsInternal
 import org.gradle.api.internal.cache.CacheResourceConfigurationInternal
 import org.gradle.cache.internal.DefaultUnscopedCacheBuilderFactory
@@ -42,6 +43,7 @@ class DefaultArtifactCacheLockingAccessCoordinatorTest extends Specification {
         getExternalResourcesStoreDirectory() >> resourcesDir
         getFileStoreDirectory() >> filesDir
         getMetaDataStoreDirectory() >> metaDataDir.file("descriptors")
+        getMetaDataSegmentsDirectory() >> metaDataDir.file("descriptor-segments")
     }
     def fileAccessTimeJournal = new ModificationTimeFileAccessTimeJournal()
     def usedGradleVersions = Stub(UsedGradleVersions)
@@ -110,4 +112,20 @@ class DefaultArtifactCacheLockingAccessCoordinatorTest extends Specification {
         then:
         oldCacheDir.assertDoesNotExist()
     }
+
+    def "compacts module metadata segments"() {
+        given:
+        def segments = cacheLockingManager.moduleMetadataSegments
+        4.times {
+            segments.put("group/module/1.0/repo", "replaced".bytes)
+        }
+        segments.put("group/other/1.0/repo", "live".bytes)
+
+        when:
+        cacheLockingManager.close()
+
+        then:
+        metaDataDir.file("descriptor-segments").list() as List == ["segment-1.bin"]
+        new ModuleMetadataSegmentStore(metaDataDir.file("descriptor-segments")).get("group/other/1.0/repo") == "live".bytes
+    }
 }
@@ -51,4 +51,17 @@ class DefaultArtifactCacheMetadataTest extends Specification {
         then:
         metadataStore == new File(testCacheDir, CacheLayout.META_DATA.key + '/descriptors')
     }
+
+    def "calculates metadata segments directory"() {
+        given:
+        TestFile testCacheDir = temporaryFolder.file("test/cache")
+        cache.baseDirForCrossVersionCache(CacheLayout.ROOT.key) >> testCacheDir
+
+        when:
+        def metaData = new DefaultArtifactCacheMetadata(cache)
+        File metadataSegments = metaData.getMetaDataSegmentsDirectory()
+
+        then:
+        metadataSegments == new File(testCacheDir, CacheLayout.META_DATA.key + '/descriptor-segments')
+    }
 }
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class ModuleMetadataSegmentStoreTest extends Specification {
+
+    @Rule TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+
+    def dir = temporaryFolder.file("segments")
+    def store = new ModuleMetadataSegmentStore(dir)
+
+    def "returns null for missing entries"() {
+        expect:
+        store.get("org/test/1.0/repo") == null
+    }
+
+    def "reads stored entries"() {
+        when:
+        store.put("org/a/1.0/repo", bytes("a"))
+        store.put("org/b/1.0/repo", bytes("b"))
+
+        then:
+        store.get("org/a/1.0/repo") == bytes("a")
+        store.get("org/b/1.0/repo") == bytes("b")
+        dir.list() as List == ["segment-0.bin"]
+    }
+
+    def "later entry replaces earlier one"() {
+        when:
+        store.put("org/a/1.0/repo", bytes("first"))
+        store.put("org/a/1.0/repo", bytes("second"))
+
+        then:
+        store.get("org/a/1.0/repo") == bytes("second")
+        new ModuleMetadataSegmentStore(dir).get("org/a/1.0/repo") == bytes("second")
+    }
+
+    def "sees entries written by another store"() {
+        def other = new ModuleMetadataSegmentStore(dir)
+        store.get("org/a/1.0/repo")
+
+        when:
+        other.put("org/a/1.0/repo", bytes("a"))
+
+        then:
+        store.get("org/a/1.0/repo") == bytes("a")
+    }
+
+    def "starts a new segment when the current one is full"() {
+        def store = new ModuleMetadataSegmentStore(dir, 64)
+
+        when:
+        store.put("org/a/1.0/repo", new byte[30])
+        store.put("org/b/1.0/repo", new byte[30])
+
+        then:
+        dir.list() as Set == ["segment-0.bin", "segment-1.bin"] as Set
+        new ModuleMetadataSegmentStore(dir).get("org/a/1.0/repo") == new byte[30]
+        new ModuleMetadataSegmentStore(dir).get("org/b/1.0/repo") == new byte[30]
+    }
+
+    def "ignores and overwrites a torn record at the end of a segment"() {
+        store.put("org/a/1.0/repo", bytes("a"))
+        def segment = dir.file("segment-0.bin")
+        def validLength = segment.length()
+        segment << [0, 0, 0, 100, 0, 0, 0, 0, 0, 0, 0, 4, 1, 2] as byte[]
+
+        when:
+        def reopened = new ModuleMetadataSegmentStore(dir)
+
+        then:
+        reopened.get("org/a/1.0/repo") == bytes("a")
+
+        when:
+        reopened.put("org/b/1.0/repo", bytes("b"))
+
+        then:
+        new ModuleMetadataSegmentStore(dir).get("org/b/1.0/repo") == bytes("b")
+        segment.length() > validLength
+    }
+
+    def "ignores entries that do not match their checksum"() {
+        store.put("org/a/1.0/repo", bytes("value"))
+        def segment = dir.file("segment-0.bin")
+        def content = segment.bytes
+        content[content.length - 1] = 0
+        segment.bytes = content
+
+        expect:
+        new ModuleMetadataSegmentStore(dir).get("org/a/1.0/repo") == null
+    }
+
+    def "compaction rewrites the live entries when most of the content has been replaced"() {
+        store.put("org/a/1.0/repo", bytes("a1"))
+        store.put("org/a/1.0/repo", bytes("a2"))
+        store.put("org/a/1.0/repo", bytes("a3"))
+        store.put("org/a/1.0/repo", bytes("a4"))
+        store.put("org/b/1.0/repo", bytes("b"))
+
+        when:
+        def deleted = new ModuleMetadataSegmentStore(dir).compact()
+
+        then:
+        deleted == 1
+        dir.list() as List == ["segment-1.bin"]
+        def reopened = new ModuleMetadataSegmentStore(dir)
+        reopened.get("org/a/1.0/repo") == bytes("a4")
+        reopened.get("org/b/1.0/repo") == bytes("b")
+
+        and:
+        store.get("org/a/1.0/repo") == bytes("a4")
+        store.put("org/c/1.0/repo", bytes("c"))
+        new ModuleMetadataSegmentStore(dir).get("org/c/1.0/repo") == bytes("c")
+        dir.list() as List == ["segment-1.bin"]
+    }
+
+    def "compaction closes and deletes the segments it has replaced"() {
+        4.times {
+            store.put("org/a/1.0/repo", bytes("replaced"))
+        }
+        store.put("org/b/1.0/repo", bytes("b"))
+
+        when:
+        def deleted = store.compact()
+
+        then:
+        deleted == 1
+        dir.list() as List == ["segment-1.bin"]
+        store.get("org/a/1.0/repo") == bytes("replaced")
+        store.get("org/b/1.0/repo") == bytes("b")
+    }
+
+    def "ignores segments replaced by a compaction that could not be deleted yet"() {
+        4.times {
+            store.put("org/a/1.0/repo", bytes("replaced"))
+        }
+        store.put("org/b/1.0/repo", bytes("b"))
+        def replaced = dir.file("segment-0.bin").bytes
+        new ModuleMetadataSegmentStore(dir).compact()
+
+        when:
+        dir.file("segment-0.bin").bytes = replaced
+        store.put("org/a/1.0/repo", bytes("a"))
+
+        then:
+        new ModuleMetadataSegmentStore(dir).get("org/a/1.0/repo") == bytes("a")
+        store.get("org/a/1.0/repo") == bytes("a")
+
+        when:
+        def deleted = new ModuleMetadataSegmentStore(dir).compact()
+
+        then:
+        deleted == 1
+        dir.list() as List == ["segment-1.bin"]
+    }
+
+    def "compaction keeps the segments when most of the content is live"() {
+        store.put("org/a/1.0/repo", bytes("a"))
+        store.put("org/b/1.0/repo", bytes("b"))
+
+        expect:
+        store.compact() == 0
+        dir.list() as List == ["segment-0.bin"]
+    }
+
+    def "can be used after it has been closed"() {
+        store.put("org/a/1.0/repo", bytes("a"))
+        store.put("org/b/1.0/repo", bytes("b"))
+
+        when:
+        store.close()
+
+        then:
+        store.get("org/a/1.0/repo") == bytes("a")
+
+        when:
+        store.close()
+        store.put("org/b/1.0/repo", bytes("b2"))
+        store.put("org/c/1.0/repo", bytes("c"))
+
+        then:
+        store.get("org/b/1.0/repo") == bytes("b2")
+        store.get("org/c/1.0/repo") == bytes("c")
+
+        and:
+        def reopened = new ModuleMetadataSegmentStore(dir)
+        reopened.get("org/a/1.0/repo") == bytes("a")
+        reopened.get("org/b/1.0/repo") == bytes("b2")
+        reopened.get("org/c/1.0/repo") == bytes("c")
+        dir.list() as List == ["segment-0.bin"]
+    }
+
+    def "can be compacted after it has been closed"() {
+        4.times {
+            store.put("org/a/1.0/repo", bytes("replaced"))
+        }
+        store.put("org/b/1.0/repo", bytes("b"))
+        store.close()
+
+        when:
+        def deleted = store.compact()
+
+        then:
+        deleted == 1
+        store.get("org/a/1.0/repo") == bytes("replaced")
+        store.get("org/b/1.0/repo") == bytes("b")
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes("utf-8")
+    }
+}
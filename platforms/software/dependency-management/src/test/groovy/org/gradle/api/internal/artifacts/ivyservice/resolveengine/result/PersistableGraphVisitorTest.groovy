@@ -0,0 +1,163 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.result
+
+import org.gradle.api.artifacts.component.ComponentIdentifier
+import org.gradle.api.artifacts.component.ProjectComponentIdentifier
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
+import org.gradle.api.internal.artifacts.dependencies.DefaultMutableVersionConstraint
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionComparator
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionParser
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeSpec
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphComponent
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphEdge
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphSelector
+import org.gradle.api.internal.attributes.ImmutableAttributes
+import org.gradle.util.AttributeTestUtil
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector
+import org.gradle.internal.component.model.ComponentGraphResolveMetadata
+import org.gradle.internal.component.model.DependencyMetadata
+import spock.lang.Specification
+
+class PersistableGraphVisitorTest extends Specification {
+    def versionSelectorScheme = new DefaultVersionSelectorScheme(new DefaultVersionComparator(), new VersionParser())
+    def visitor = new PersistableGraphVisitor(versionSelectorScheme)
+
+    def "graph of fixed versions of external modules is persistable"() {
+        def node = node(moduleId("1.0"), false)
+        node.outgoingEdges >> [edge(false)]
+
+        when:
+        visitor.visitNode(node)
+        visitor.visitSelector(selector("1.0"))
+        visitor.visitEdges(node)
+
+        then:
+        visitor.persistable
+    }
+
+    def "graph with dynamic version is not persistable"() {
+        when:
+        visitor.visitSelector(selector(version))
+
+        then:
+        !visitor.persistable
+
+        where:
+        version << ["1.+", "latest.release", "[1.0,2.0)"]
+    }
+
+    def "graph with changing module is not persistable"() {
+        when:
+        visitor.visitNode(node(moduleId("1.0"), true))
+
+        then:
+        !visitor.persistable
+    }
+
+    def "graph with changing dependency is not persistable"() {
+        def node = node(moduleId("1.0"), false)
+        node.outgoingEdges >> [edge(true)]
+
+        when:
+        visitor.visitEdges(node)
+
+        then:
+        !visitor.persistable
+    }
+
+    def "graph with edge to virtual platform is not persistable"() {
+        def node = node(moduleId("1.0"), false)
+        def edge = edge(false)
+        edge.targetVirtualPlatform >> true
+        node.outgoingEdges >> [edge]
+
+        when:
+        visitor.visitEdges(node)
+
+        then:
+        !visitor.persistable
+    }
+
+    def "graph with dependency that changes the artifacts of a variant is not persistable"() {
+        def node = node(moduleId("1.0"), false)
+        def edge = edge(false)
+        edge.contributesArtifacts() >> true
+        edge.attributes >> (withAttributes ? AttributeTestUtil.attributes(usage: "test") : ImmutableAttributes.EMPTY)
+        edge.exclusions >> Stub(ExcludeSpec) {
+            mayExcludeArtifacts() >> excludesArtifacts
+        }
+        edge.selector >> selector("1.0")
+        node.outgoingEdges >> [edge]
+
+        when:
+        visitor.visitEdges(node)
+
+        then:
+        visitor.persistable == !(withAttributes || excludesArtifacts)
+
+        where:
+        withAttributes | excludesArtifacts
+        false          | false
+        true           | false
+        false          | true
+    }
+
+    def "graph with project component is not persistable"() {
+        when:
+        visitor.visitNode(node(Stub(ProjectComponentIdentifier), false))
+
+        then:
+        !visitor.persistable
+    }
+
+    private static ComponentIdentifier moduleId(String version) {
+        return DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId("org", "test"), version)
+    }
+
+    private DependencyGraphNode node(ComponentIdentifier id, boolean changing) {
+        def metadata = Stub(ComponentGraphResolveMetadata) {
+            isChanging() >> changing
+        }
+        def component = Stub(DependencyGraphComponent) {
+            getComponentId() >> id
+            getMetadataOrNull() >> metadata
+        }
+        def node = Stub(DependencyGraphNode)
+        node.owner >> component
+        return node
+    }
+
+    private DependencyGraphEdge edge(boolean changing) {
+        def metadata = Stub(DependencyMetadata) {
+            isChanging() >> changing
+        }
+        return Stub(DependencyGraphEdge) {
+            getFailure() >> null
+            getDependencyMetadata() >> metadata
+        }
+    }
+
+    private DependencyGraphSelector selector(String version) {
+        return Stub(DependencyGraphSelector) {
+            getRequested() >> DefaultModuleComponentSelector.newSelector(DefaultModuleIdentifier.newId("org", "test"), new DefaultMutableVersionConstraint(version))
+        }
+    }
+}
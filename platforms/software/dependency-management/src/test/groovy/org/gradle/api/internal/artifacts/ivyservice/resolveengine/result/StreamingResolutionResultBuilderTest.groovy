@@ -28,12 +28,19 @@ import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.Dependen
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphSelector
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ResolvedGraphVariant
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.RootGraphNode
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ByteArrayBinaryStore
+import org.gradle.api.internal.artifacts.result.DefaultResolvedVariantResult
 import org.gradle.api.internal.attributes.AttributeDesugaring
+import org.gradle.api.internal.attributes.ImmutableAttributes
+import org.gradle.cache.internal.BinaryStore
+import org.gradle.internal.Describables
 import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
 import org.gradle.internal.component.external.model.DefaultModuleComponentSelector
+import org.gradle.internal.component.external.model.ImmutableCapabilities
 import org.gradle.internal.component.local.model.LocalConfigurationGraphResolveMetadata
 import org.gradle.internal.component.model.ComponentGraphResolveMetadata
 import org.gradle.internal.component.model.ComponentGraphResolveState
+import org.gradle.internal.component.model.VariantGraphResolveState
 import org.gradle.internal.resolve.ModuleVersionResolveException
 import org.gradle.util.AttributeTestUtil
 import org.gradle.util.TestUtil
@@ -214,6 +221,51 @@ class StreamingResolutionResultBuilderTest extends Specification {
 """
     }
 
+    def "graph written with complete serializers can be replayed from its content"() {
+        def attributeContainerSerializer = new DesugaredAttributeContainerSerializer(AttributeTestUtil.attributesFactory(), TestUtil.objectInstantiator())
+        def variantSerializer = new CompleteSelectedVariantSerializer(attributeContainerSerializer)
+        def componentSerializer = new CompleteComponentDetailsSerializer(new DefaultImmutableModuleIdentifierFactory(), variantSerializer)
+        def store = new ByteArrayBinaryStore()
+        def writer = newBuilder(store, attributeContainerSerializer, componentSerializer, variantSerializer)
+
+        def root = rootNode(1, "org", "root", "1.0")
+        def selector1 = selector(10, "org", "dep1", "1.0")
+        root.outgoingEdges >> [dep(selector1, 1, 2)]
+        def dep1 = node(2, "org", "dep1", "1.0")
+
+        writer.start(root)
+        writer.visitNode(root)
+        writer.visitNode(dep1)
+        writer.visitSelector(selector1)
+        writer.visitEdges(root)
+        writer.finish(root)
+
+        when:
+        def reader = newBuilder(new ByteArrayBinaryStore(store.toByteArray()), attributeContainerSerializer, componentSerializer, variantSerializer)
+        def result = reader.replay(AttributeTestUtil.attributes(["org.foo": "v1"]))
+
+        then:
+        printGraph(result.rootSource.get()) == """org:root:1.0
+  org:dep1:1.0 [root]
+"""
+        result.rootSource.get().variants*.displayName == ["variant-1"]
+        result.rootSource.get().dependencies[0].resolvedVariant.displayName == "variant-2"
+        result.requestedAttributes == AttributeTestUtil.attributes(["org.foo": "v1"])
+    }
+
+    private static StreamingResolutionResultBuilder newBuilder(BinaryStore store, AttributeContainerSerializer attributeContainerSerializer, ComponentDetailsSerializer componentSerializer, SelectedVariantSerializer variantSerializer) {
+        return new StreamingResolutionResultBuilder(
+            store,
+            new DummyStore(),
+            attributeContainerSerializer,
+            componentSerializer,
+            variantSerializer,
+            new AttributeDesugaring(AttributeTestUtil.attributesFactory()),
+            DependencyManagementTestUtil.componentSelectionDescriptorFactory(),
+            false
+        )
+    }
+
     private DependencyGraphEdge dep(DependencyGraphSelector selector, Long fromVariant, Long selectedId) {
         def edge = Stub(DependencyGraphEdge)
         _ * edge.selector >> selector
@@ -246,6 +298,9 @@ class StreamingResolutionResultBuilderTest extends Specification {
 
         def variant = Stub(ResolvedGraphVariant)
         variant.nodeId >> componentId
+        variant.resolveState >> Stub(VariantGraphResolveState) {
+            getVariantResult(_) >> new DefaultResolvedVariantResult(componentState.id, Describables.of("variant-" + componentId), ImmutableAttributes.EMPTY, ImmutableCapabilities.EMPTY, null)
+        }
 
         def component = Stub(DependencyGraphComponent)
         _ * component.resultId >> componentId
@@ -268,6 +323,9 @@ class StreamingResolutionResultBuilderTest extends Specification {
 
         def variant = Stub(ResolvedGraphVariant)
         variant.nodeId >> componentId
+        variant.resolveState >> Stub(VariantGraphResolveState) {
+            getVariantResult(_) >> new DefaultResolvedVariantResult(componentState.id, Describables.of("variant-" + componentId), ImmutableAttributes.EMPTY, ImmutableCapabilities.EMPTY, null)
+        }
 
         def component = Stub(DependencyGraphComponent)
         _ * component.resultId >> componentId
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store
+
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.PersistableArtifactsVisitor.VariantReference
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.serialize.SerializerSpec
+
+class PersistedResolverResultsSerializerTest extends SerializerSpec {
+    def serializer = new PersistedResolverResults.Serializer()
+
+    def "serializes results"() {
+        def componentId = DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId("org", "test"), "1.0")
+        def results = new PersistedResolverResults(
+            [1, 2, 3] as byte[],
+            [4, 5] as byte[],
+            [new VariantReference(componentId, "runtime"), new VariantReference(componentId, "api")],
+            [(2L): 0, (5L): 1]
+        )
+
+        when:
+        def result = serialize(results, serializer)
+
+        then:
+        result.graph == [1, 2, 3] as byte[]
+        result.legacyGraph == [4, 5] as byte[]
+        result.artifactSets*.componentId == [componentId, componentId]
+        result.artifactSets*.variantName == ["runtime", "api"]
+        result.firstLevelDependencies == [(2L): 0, (5L): 1]
+    }
+}
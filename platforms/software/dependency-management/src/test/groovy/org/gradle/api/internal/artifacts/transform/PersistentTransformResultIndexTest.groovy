@@ -0,0 +1,137 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.transform
+
+import org.gradle.api.internal.artifacts.ivyservice.ArtifactCacheLockingAccessCoordinator
+import org.gradle.cache.ManualEvictionInMemoryCache
+import org.gradle.caching.internal.origin.OriginMetadata
+import org.gradle.internal.Try
+import org.gradle.internal.execution.ExecutionEngine
+import org.gradle.internal.execution.UnitOfWork
+import org.gradle.internal.execution.workspace.ImmutableWorkspaceProvider
+import org.gradle.internal.hash.TestHashCodes
+import org.gradle.test.fixtures.file.CleanupTestDirectory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.testfixtures.internal.TestInMemoryIndexedCache
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.function.Function
+
+@CleanupTestDirectory
+class PersistentTransformResultIndexTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider temporaryFolder = TestNameTestDirectoryProvider.newInstance(getClass())
+
+    def identity = Stub(UnitOfWork.Identity) {
+        getUniqueId() >> "workspace"
+    }
+    def workspaceDir = temporaryFolder.file("workspace")
+    def workspaceProvider = Stub(ImmutableWorkspaceProvider) {
+        getWorkspace("workspace") >> Stub(ImmutableWorkspaceProvider.ImmutableWorkspace) {
+            getImmutableLocation() >> workspaceDir
+        }
+    }
+    TestInMemoryIndexedCache indexedCache
+    def cacheAccessCoordinator = Stub(ArtifactCacheLockingAccessCoordinator) {
+        createCache(_, _, _) >> { name, keySerializer, valueSerializer ->
+            if (indexedCache == null) {
+                indexedCache = new TestInMemoryIndexedCache(valueSerializer)
+            }
+            return indexedCache
+        }
+        useCache(_) >> { args -> args[0].create() }
+    }
+    def originMetadata = new OriginMetadata("build", TestHashCodes.hashCodeFrom(1234), Duration.ofMillis(12))
+
+    def "uses result stored by earlier build while workspace exists"() {
+        def index = newIndex()
+        def factory = Mock(Function)
+
+        given:
+        index.get(identity, { key -> executeTransform(["o/output.txt", "i/"]) } as Function)
+
+        when:
+        def result = newIndex().getIfPresent(identity)
+
+        then:
+        result.result.get().resolveForInputArtifact(new File("input.jar")) == [new File(workspaceDir, "transformed/output.txt"), new File("input.jar")]
+        result.originMetadata.get() == originMetadata
+
+        when:
+        result = newIndex().get(identity, factory)
+
+        then:
+        result.result.get().resolveForInputArtifact(new File("input.jar")) == [new File(workspaceDir, "transformed/output.txt"), new File("input.jar")]
+        0 * factory._
+    }
+
+    def "does not use result when workspace has been removed"() {
+        def index = newIndex()
+        def factory = Mock(Function)
+
+        given:
+        index.get(identity, { key -> executeTransform(["o/output.txt"]) } as Function)
+        workspaceDir.deleteDir()
+
+        when:
+        def result = newIndex().getIfPresent(identity)
+
+        then:
+        result == null
+
+        when:
+        newIndex().get(identity, factory)
+
+        then:
+        1 * factory.apply(identity) >> { executeTransform(["o/other.txt"]) }
+    }
+
+    def "does not store failed result"() {
+        def index = newIndex()
+
+        given:
+        workspaceDir.createDir()
+        def failure = Stub(ExecutionEngine.IdentityCacheResult) {
+            getResult() >> Try.failure(new RuntimeException())
+        }
+        index.get(identity, { key -> failure } as Function)
+
+        expect:
+        newIndex().getIfPresent(identity) == null
+    }
+
+    /**
+     * Creates an index with an empty in-memory cache, as a new daemon would.
+     */
+    private PersistentTransformResultIndex newIndex() {
+        return new PersistentTransformResultIndex(new ManualEvictionInMemoryCache(), workspaceProvider, cacheAccessCoordinator)
+    }
+
+    private ExecutionEngine.IdentityCacheResult executeTransform(List<String> resultPaths) {
+        workspaceDir.createDir()
+        def serializer = new TransformExecutionResultSerializer()
+        def executionResult = serializer.fromPaths(resultPaths)
+        serializer.writeToFile(AbstractTransformExecution.getResultsFile(workspaceDir), executionResult)
+        def workspaceResult = executionResult.resolveForWorkspace(AbstractTransformExecution.getOutputDir(workspaceDir))
+        return Stub(ExecutionEngine.IdentityCacheResult) {
+            getResult() >> Try.successful(workspaceResult)
+            getOriginMetadata() >> Optional.of(originMetadata)
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package org.gradle.api.internal.artifacts.ivyservice
 
 
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleMetadataSegmentStore
 import org.gradle.cache.IndexedCache
 import org.gradle.internal.Factory
 import org.gradle.internal.serialize.Serializer
@@ -36,6 +37,11 @@ class ArtifactCacheLockingAccessCoordinatorStub implements ArtifactCacheLockingA
         return result
     }
 
+    @Override
+    ModuleMetadataSegmentStore getModuleMetadataSegments() {
+        throw new UnsupportedOperationException()
+    }
+
     @Override
     <T> T useCache(Factory<? extends T> action) {
         action.create()
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing;
+
+/**
+ * A {@link TestClassProcessor} that runs the test classes in a worker process, which can stop before the processor is stopped,
+ * for example when a test exits the JVM.
+ */
+public interface WorkerBackedTestClassProcessor extends TestClassProcessor {
+    /**
+     * Returns true when the worker running the test classes of this processor has stopped or could not be started.
+     * Test classes handed to this processor afterwards are not run.
+     */
+    boolean hasWorkerStopped();
+}
@@ -18,7 +18,13 @@
 
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.internal.tasks.testing.WorkerBackedTestClassProcessor;
+import org.gradle.api.tasks.testing.TestFailure;
+import org.gradle.api.tasks.testing.TestOutputEvent;
 import org.gradle.internal.Factory;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.actor.Actor;
@@ -26,29 +32,68 @@
 import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.dispatch.DispatchException;
 
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Manages a set of parallel TestClassProcessors. Uses a simple round-robin algorithm to assign test classes to
- * processors.
+ * Manages a set of parallel TestClassProcessors.
+ *
+ * <p>When the processors run each test class as they receive it, a processor is handed its next test class once it has completed its previous one,
+ * which is signalled by the completion of the test class in the results it reports. Test classes are handed out in the order they were received,
+ * so stopping waits until all of them have been handed out.</p>
+ *
+ * <p>Otherwise, each test class is assigned up front to the processor with the least estimated amount of work assigned so far,
+ * using the durations of the previous run. Without previous durations, this assigns test classes round-robin.</p>
  */
 public class MaxNParallelTestClassProcessor implements TestClassProcessor {
+    private static final long WORKER_CHECK_INTERVAL_MILLIS = 1000;
+
     private final int maxProcessors;
     private final Factory<TestClassProcessor> factory;
     private final ActorFactory actorFactory;
+    private final TestClassDurationEstimates durations;
+    private final boolean dispatchOnCompletion;
     private TestResultProcessor resultProcessor;
-    private int pos;
+    private final List<Long> assignedDurations = new ArrayList<Long>();
     private List<TestClassProcessor> processors = new ArrayList<TestClassProcessor>();
     private List<TestClassProcessor> rawProcessors = new ArrayList<TestClassProcessor>();
     private List<Actor> actors = new ArrayList<Actor>();
     private Actor resultProcessorActor;
     private volatile boolean stoppedNow;
 
+    private final Lock lock = new ReentrantLock();
+    private final Condition testClassCompleted = lock.newCondition();
+    private final Deque<TestClassRunInfo> pendingTestClasses = new ArrayDeque<TestClassRunInfo>();
+    private final List<Fork> forks = new ArrayList<Fork>();
+
     public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory) {
+        this(maxProcessors, factory, actorFactory, Collections.<String, Long>emptyMap());
+    }
+
+    public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, Map<String, Long> previousDurations) {
+        this(maxProcessors, factory, actorFactory, previousDurations, false);
+    }
+
+    /**
+     * @param dispatchOnCompletion whether to hand a processor its next test class only once it has completed its previous one,
+     * which requires the processors to run each test class as they receive it.
+     */
+    public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, Map<String, Long> previousDurations, boolean dispatchOnCompletion) {
         this.maxProcessors = maxProcessors;
         this.factory = factory;
         this.actorFactory = actorFactory;
+        this.durations = new TestClassDurationEstimates(previousDurations);
+        // With a single processor, there is nothing to balance
+        this.dispatchOnCompletion = dispatchOnCompletion && maxProcessors > 1;
     }
 
     @Override
@@ -64,24 +109,130 @@ public void processTestClass(TestClassRunInfo testClass) {
             return;
         }
 
+        if (dispatchOnCompletion) {
+            lock.lock();
+            try {
+                pendingTestClasses.add(testClass);
+                dispatchPendingTestClasses();
+            } finally {
+                lock.unlock();
+            }
+            return;
+        }
+
         TestClassProcessor processor;
+        int index;
         if (processors.size() < maxProcessors) {
-            processor = factory.create();
-            rawProcessors.add(processor);
-            Actor actor = actorFactory.createActor(processor);
-            processor = actor.getProxy(TestClassProcessor.class);
-            actors.add(actor);
-            processors.add(processor);
-            processor.startProcessing(resultProcessor);
+            processor = startProcessor(resultProcessor);
+            assignedDurations.add(0L);
+            index = processors.size() - 1;
         } else {
-            processor = processors.get(pos);
-            pos = (pos + 1) % processors.size();
+            index = leastLoadedProcessor();
+            processor = processors.get(index);
         }
+        assignedDurations.set(index, assignedDurations.get(index) + durations.estimate(testClass.getTestClassName()));
         processor.processTestClass(testClass);
     }
 
+    private TestClassProcessor startProcessor(TestResultProcessor resultProcessor) {
+        TestClassProcessor processor = factory.create();
+        rawProcessors.add(processor);
+        Actor actor = actorFactory.createActor(processor);
+        TestClassProcessor asyncProcessor = actor.getProxy(TestClassProcessor.class);
+        actors.add(actor);
+        processors.add(asyncProcessor);
+        asyncProcessor.startProcessing(resultProcessor);
+        return asyncProcessor;
+    }
+
+    private int leastLoadedProcessor() {
+        int index = 0;
+        for (int i = 1; i < assignedDurations.size(); i++) {
+            if (assignedDurations.get(i) < assignedDurations.get(index)) {
+                index = i;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Hands pending test classes to idle processors, starting new processors while there are fewer than the maximum.
+     * Must be called while holding the lock.
+     */
+    private void dispatchPendingTestClasses() {
+        while (!pendingTestClasses.isEmpty() && !stoppedNow) {
+            Fork fork = idleFork();
+            if (fork == null) {
+                if (forks.size() == maxProcessors) {
+                    return;
+                }
+                fork = new Fork(rawProcessors.size());
+                forks.add(fork);
+                startProcessor(fork);
+            }
+            fork.dispatch(pendingTestClasses.removeFirst());
+        }
+    }
+
+    @Nullable
+    private Fork idleFork() {
+        for (Fork fork : forks) {
+            if (fork.currentTestClass == null && !fork.workerStopped) {
+                return fork;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Waits until all pending test classes have been handed out.
+     */
+    private void awaitPendingTestClasses() {
+        lock.lock();
+        try {
+            while (!pendingTestClasses.isEmpty() && !stoppedNow) {
+                checkForStoppedWorkers();
+                if (forks.size() == maxProcessors && allWorkersStopped()) {
+                    // Nothing left to run the test classes, the failure of the workers is reported when they are stopped
+                    pendingTestClasses.clear();
+                    return;
+                }
+                dispatchPendingTestClasses();
+                testClassCompleted.await(WORKER_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A worker that stops while running a test class never reports the test class as completed, so the test class is given up on.
+     */
+    private void checkForStoppedWorkers() {
+        for (Fork fork : forks) {
+            if (fork.currentTestClass != null && fork.hasWorkerStopped()) {
+                fork.workerStopped = true;
+                fork.testClassFinished();
+            }
+        }
+    }
+
+    private boolean allWorkersStopped() {
+        for (Fork fork : forks) {
+            if (!fork.workerStopped) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public void stop() {
+        if (dispatchOnCompletion) {
+            awaitPendingTestClasses();
+        }
         try {
             CompositeStoppable.stoppable(processors).add(actors).add(resultProcessorActor).stop();
         } catch (DispatchException e) {
@@ -92,8 +243,86 @@ public void stop() {
     @Override
     public void stopNow() {
         stoppedNow = true;
-        for (TestClassProcessor processor : rawProcessors) {
+        List<TestClassProcessor> toStop;
+        lock.lock();
+        try {
+            toStop = new ArrayList<TestClassProcessor>(rawProcessors);
+            testClassCompleted.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (TestClassProcessor processor : toStop) {
             processor.stopNow();
         }
     }
+
+    /**
+     * A processor that is handed one test class at a time, and tracks the completion of that test class in the results it reports.
+     */
+    private class Fork implements TestResultProcessor {
+        private final int index;
+        private String currentTestClass;
+        private Object currentTestClassId;
+        private boolean workerStopped;
+
+        Fork(int index) {
+            this.index = index;
+        }
+
+        void dispatch(TestClassRunInfo testClass) {
+            currentTestClass = testClass.getTestClassName();
+            currentTestClassId = null;
+            processors.get(index).processTestClass(testClass);
+        }
+
+        boolean hasWorkerStopped() {
+            TestClassProcessor processor = rawProcessors.get(index);
+            return processor instanceof WorkerBackedTestClassProcessor && ((WorkerBackedTestClassProcessor) processor).hasWorkerStopped();
+        }
+
+        void testClassFinished() {
+            currentTestClass = null;
+            currentTestClassId = null;
+            testClassCompleted.signalAll();
+        }
+
+        @Override
+        public void started(TestDescriptorInternal test, TestStartEvent event) {
+            resultProcessor.started(test, event);
+            if (test.isComposite()) {
+                lock.lock();
+                try {
+                    if (currentTestClassId == null && test.getClassName() != null && test.getClassName().equals(currentTestClass)) {
+                        currentTestClassId = test.getId();
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        @Override
+        public void completed(Object testId, TestCompleteEvent event) {
+            resultProcessor.completed(testId, event);
+            lock.lock();
+            try {
+                if (currentTestClassId != null && currentTestClassId.equals(testId)) {
+                    testClassFinished();
+                    dispatchPendingTestClasses();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void output(Object testId, TestOutputEvent event) {
+            resultProcessor.output(testId, event);
+        }
+
+        @Override
+        public void failure(Object testId, TestFailure result) {
+            resultProcessor.failure(testId, result);
+        }
+    }
 }
@@ -19,15 +19,18 @@
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.WorkerBackedTestClassProcessor;
 import org.gradle.internal.Factory;
 
-public class RestartEveryNTestClassProcessor implements TestClassProcessor {
+public class RestartEveryNTestClassProcessor implements WorkerBackedTestClassProcessor {
     private final Factory<TestClassProcessor> factory;
     private final long restartEvery;
     private long testCount;
     private TestResultProcessor resultProcessor;
     private volatile boolean stoppedNow;
     private volatile TestClassProcessor processor;
+    private volatile boolean batchEnding;
+    private volatile boolean batchFailed;
 
     public RestartEveryNTestClassProcessor(Factory<TestClassProcessor> factory, long restartEvery) {
         this.factory = factory;
@@ -46,6 +49,7 @@ public void processTestClass(TestClassRunInfo testClass) {
         }
 
         if (processor == null) {
+            batchFailed = false;
             processor = factory.create();
             processor.startProcessing(resultProcessor);
         }
@@ -63,6 +67,16 @@ public void stop() {
         }
     }
 
+    @Override
+    public boolean hasWorkerStopped() {
+        TestClassProcessor current = processor;
+        if (current == null || batchEnding) {
+            // The worker of an ending batch stops, but that only counts when it fails to stop normally
+            return batchFailed;
+        }
+        return current instanceof WorkerBackedTestClassProcessor && ((WorkerBackedTestClassProcessor) current).hasWorkerStopped();
+    }
+
     @Override
     public void stopNow() {
         stoppedNow = true;
@@ -73,11 +87,16 @@ public void stopNow() {
     }
 
     private void endBatch() {
+        batchEnding = true;
         try {
             processor.stop();
+        } catch (RuntimeException e) {
+            batchFailed = true;
+            throw e;
         } finally {
             processor = null;
             testCount = 0;
+            batchEnding = false;
         }
     }
 }
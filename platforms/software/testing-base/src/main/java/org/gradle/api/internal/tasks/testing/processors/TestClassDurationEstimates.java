@@ -0,0 +1,45 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import java.util.Map;
+
+/**
+ * Estimates how long a test class takes to run, based on the durations of the previous run.
+ * Classes without a previous duration are estimated to take the average duration of the known classes.
+ */
+class TestClassDurationEstimates {
+    private final Map<String, Long> previousDurations;
+    private final long defaultDuration;
+
+    TestClassDurationEstimates(Map<String, Long> previousDurations) {
+        this.previousDurations = previousDurations;
+        long total = 0;
+        for (Long duration : previousDurations.values()) {
+            total += duration;
+        }
+        this.defaultDuration = previousDurations.isEmpty() ? 1 : Math.max(1, total / previousDurations.size());
+    }
+
+    /**
+     * Returns the estimated duration in milliseconds, which is always at least 1.
+     */
+    long estimate(String testClassName) {
+        Long duration = previousDurations.get(testClassName);
+        return duration == null ? defaultDuration : Math.max(1, duration);
+    }
+}
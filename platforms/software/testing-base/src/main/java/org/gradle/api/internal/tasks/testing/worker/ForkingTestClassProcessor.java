@@ -18,9 +18,9 @@
 
 import org.gradle.api.Action;
 import org.gradle.api.internal.DocumentationRegistry;
-import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.WorkerBackedTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
 import org.gradle.internal.exceptions.DefaultMultiCauseException;
 import org.gradle.internal.remote.ObjectConnection;
@@ -32,12 +32,13 @@
 import org.gradle.process.internal.worker.WorkerProcessBuilder;
 import org.gradle.process.internal.worker.WorkerProcessFactory;
 
+import javax.annotation.Nullable;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
-public class ForkingTestClassProcessor implements TestClassProcessor {
+public class ForkingTestClassProcessor implements WorkerBackedTestClassProcessor {
     private final WorkerProcessFactory workerFactory;
     private final WorkerTestClassProcessorFactory processorFactory;
     private final JavaForkOptions options;
@@ -45,8 +46,12 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
     private final Action<WorkerProcessBuilder> buildConfigAction;
     private final Lock lock = new ReentrantLock();
     private final WorkerThreadRegistry workerThreadRegistry;
+    @Nullable
+    private final TestWorkerPool workerPool;
     private RemoteTestClassProcessor remoteProcessor;
-    private WorkerProcess workerProcess;
+    private volatile WorkerProcess workerProcess;
+    private volatile PooledTestWorker pooledWorker;
+    private volatile boolean workerStartFailed;
     private TestResultProcessor resultProcessor;
     private WorkerLeaseRegistry.WorkerLeaseCompletion completion;
     private final DocumentationRegistry documentationRegistry;
@@ -62,6 +67,23 @@ public ForkingTestClassProcessor(
         ForkedTestClasspath classpath,
         Action<WorkerProcessBuilder> buildConfigAction,
         DocumentationRegistry documentationRegistry
+    ) {
+        this(workerThreadRegistry, workerFactory, processorFactory, options, classpath, buildConfigAction, documentationRegistry, null);
+    }
+
+    /**
+     * Creates a processor that leases a worker from the given pool, when not null, instead of starting a worker of its own.
+     * Tests that run on the module path always start a worker of their own.
+     */
+    public ForkingTestClassProcessor(
+        WorkerThreadRegistry workerThreadRegistry,
+        WorkerProcessFactory workerFactory,
+        WorkerTestClassProcessorFactory processorFactory,
+        JavaForkOptions options,
+        ForkedTestClasspath classpath,
+        Action<WorkerProcessBuilder> buildConfigAction,
+        DocumentationRegistry documentationRegistry,
+        @Nullable TestWorkerPool workerPool
     ) {
         this.workerThreadRegistry = workerThreadRegistry;
         this.workerFactory = workerFactory;
@@ -70,6 +92,8 @@ public ForkingTestClassProcessor(
         this.classpath = classpath;
         this.buildConfigAction = buildConfigAction;
         this.documentationRegistry = documentationRegistry;
+        // A worker started with a debugger attached must not outlive the test task, and a session cannot load a module path of its own
+        this.workerPool = options.getDebug() || !classpath.getApplicationModulepath().isEmpty() ? null : workerPool;
     }
 
     @Override
@@ -88,8 +112,9 @@ public void processTestClass(TestClassRunInfo testClass) {
             if (remoteProcessor == null) {
                 completion = workerThreadRegistry.startWorker();
                 try {
-                    remoteProcessor = forkProcess();
+                    remoteProcessor = workerPool != null ? leasePooledWorker() : forkProcess();
                 } catch (RuntimeException e) {
+                    workerStartFailed = true;
                     completion.leaseFinish();
                     completion = null;
                     throw e;
@@ -102,35 +127,30 @@ public void processTestClass(TestClassRunInfo testClass) {
         }
     }
 
+    @Override
+    public boolean hasWorkerStopped() {
+        if (workerStartFailed) {
+            return true;
+        }
+        PooledTestWorker pooledWorker = this.pooledWorker;
+        if (pooledWorker != null) {
+            return pooledWorker.getExitCode().isPresent();
+        }
+        WorkerProcess workerProcess = this.workerProcess;
+        return workerProcess != null && workerProcess.getExecResult().isPresent();
+    }
+
     RemoteTestClassProcessor forkProcess() {
-        WorkerProcessBuilder builder = workerFactory.create(new TestWorker(processorFactory));
-        builder.setBaseName("Gradle Test Executor");
-        builder.setImplementationClasspath(classpath.getImplementationClasspath());
-        builder.setImplementationModulePath(classpath.getImplementationModulepath());
+        WorkerProcessBuilder builder = createWorkerProcessBuilder(new TestWorker(processorFactory));
         builder.applicationClasspath(classpath.getApplicationClasspath());
         builder.applicationModulePath(classpath.getApplicationModulepath());
-        options.copyTo(builder.getJavaCommand());
-        builder.getJavaCommand().jvmArgs("-Dorg.gradle.native=false");
-        buildConfigAction.execute(builder);
 
         workerProcess = builder.build();
         workerProcess.start();
 
         ObjectConnection connection = workerProcess.getConnection();
         connection.useParameterSerializers(TestEventSerializer.create());
-        connection.addUnrecoverableErrorHandler(new Action<Throwable>() {
-            @Override
-            public void execute(Throwable throwable) {
-                lock.lock();
-                try {
-                    if (!stoppedNow) {
-                        unrecoverableExceptions.add(throwable);
-                    }
-                } finally {
-                    lock.unlock();
-                }
-            }
-        });
+        connection.addUnrecoverableErrorHandler(this::handleUnrecoverableError);
         connection.addIncoming(TestResultProcessor.class, resultProcessor);
         RemoteTestClassProcessor remoteProcessor = connection.addOutgoing(RemoteTestClassProcessor.class);
         connection.connect();
@@ -138,6 +158,41 @@ public void execute(Throwable throwable) {
         return remoteProcessor;
     }
 
+    private RemoteTestClassProcessor leasePooledWorker() {
+        WorkerProcessBuilder builder = createWorkerProcessBuilder(new TestWorker());
+        PooledTestClasspath pooledClasspath = PooledTestClasspath.of(classpath.getApplicationClasspath(), builder.getSharedPackages());
+        TestWorkerKey key = TestWorkerKey.of(processorFactory, options, classpath, pooledClasspath);
+        PooledTestWorker worker = workerPool.reserveIdleWorker(key);
+        if (worker == null) {
+            builder.applicationClasspath(pooledClasspath.getWorkerClasspath());
+            worker = workerPool.reserveNewWorker(key, builder);
+        }
+        pooledWorker = worker;
+        return worker.startSession(processorFactory, pooledClasspath.getSessionClasspath(), resultProcessor, this::handleUnrecoverableError);
+    }
+
+    private WorkerProcessBuilder createWorkerProcessBuilder(TestWorker worker) {
+        WorkerProcessBuilder builder = workerFactory.create(worker);
+        builder.setBaseName("Gradle Test Executor");
+        builder.setImplementationClasspath(classpath.getImplementationClasspath());
+        builder.setImplementationModulePath(classpath.getImplementationModulepath());
+        options.copyTo(builder.getJavaCommand());
+        builder.getJavaCommand().jvmArgs("-Dorg.gradle.native=false");
+        buildConfigAction.execute(builder);
+        return builder;
+    }
+
+    private void handleUnrecoverableError(Throwable throwable) {
+        lock.lock();
+        try {
+            if (!stoppedNow) {
+                unrecoverableExceptions.add(throwable);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
     @Override
     public void stop() {
         try {
@@ -150,7 +205,11 @@ public void stop() {
                 } finally {
                     lock.unlock();
                 }
-                workerProcess.waitForStop();
+                if (pooledWorker != null) {
+                    completePooledSession();
+                } else {
+                    workerProcess.waitForStop();
+                }
             }
         } catch (ExecException e) {
             if (!stoppedNow) {
@@ -167,12 +226,32 @@ public void stop() {
         maybeRethrowUnrecoverableExceptions();
     }
 
+    private void completePooledSession() {
+        boolean completed = false;
+        try {
+            completed = pooledWorker.waitForSessionCompletion();
+        } finally {
+            lock.lock();
+            try {
+                if (completed && !stoppedNow && unrecoverableExceptions.isEmpty()) {
+                    workerPool.release(pooledWorker);
+                } else {
+                    workerPool.discard(pooledWorker);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
     @Override
     public void stopNow() {
         lock.lock();
         try {
             stoppedNow = true;
-            if (remoteProcessor != null) {
+            if (pooledWorker != null) {
+                pooledWorker.stopNow();
+            } else if (remoteProcessor != null) {
                 workerProcess.stopNow();
             }
         } finally {
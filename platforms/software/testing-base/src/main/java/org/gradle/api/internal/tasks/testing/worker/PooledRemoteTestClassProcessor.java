@@ -0,0 +1,41 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * The commands understood by a test worker kept in a {@link TestWorkerPool}, which processes the tests of several test tasks, one session at a time.
+ *
+ * <p>A session is started with {@link #startSession(WorkerTestClassProcessorFactory, List)} and ended with {@link #stop()}, after which the worker
+ * notifies {@link PooledTestResultProcessor#sessionCompleted()} and waits for the next session.</p>
+ */
+public interface PooledRemoteTestClassProcessor extends RemoteTestClassProcessor {
+    /**
+     * Starts a session that processes tests with a processor created by the given factory. The given classpath is loaded by a class loader
+     * of the session, which is discarded once the session completes. Does not block.
+     */
+    void startSession(WorkerTestClassProcessorFactory factory, List<File> sessionClasspath);
+
+    /**
+     * Stops the worker. Must not be called while a session is in progress. Does not block.
+     */
+    void shutdown();
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.process.internal.worker.WorkerProcessBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Splits the application classpath of a test task that leases a worker of a {@link TestWorkerPool} into the part the worker process loads,
+ * which holds the test framework, and the part each session loads in a class loader of its own, which holds the test classes and their other dependencies.
+ *
+ * <p>The test framework part is made of the archives that hold classes of the packages shared with the Gradle test processors, see
+ * {@link WorkerProcessBuilder#sharedPackages(Iterable)}, as these processors are loaded by the worker process, and of the archives of the libraries
+ * that the test frameworks themselves depend on.</p>
+ */
+class PooledTestClasspath {
+    // The libraries the test frameworks depend on, which must be loaded along with them
+    private static final List<String> FRAMEWORK_DEPENDENCY_PACKAGES = ImmutableList.of(
+        "org.hamcrest",
+        "org.opentest4j",
+        "org.apiguardian",
+        "com.beust.jcommander",
+        "org.slf4j",
+        "org.yaml.snakeyaml"
+    );
+
+    private final ImmutableList<File> workerClasspath;
+    private final ImmutableList<File> sessionClasspath;
+
+    private PooledTestClasspath(ImmutableList<File> workerClasspath, ImmutableList<File> sessionClasspath) {
+        this.workerClasspath = workerClasspath;
+        this.sessionClasspath = sessionClasspath;
+    }
+
+    public static PooledTestClasspath of(List<File> applicationClasspath, Collection<String> sharedPackages) {
+        List<String> frameworkDirectories = new ArrayList<String>();
+        for (String sharedPackage : sharedPackages) {
+            frameworkDirectories.add(sharedPackage.replace('.', '/') + "/");
+        }
+        for (String dependencyPackage : FRAMEWORK_DEPENDENCY_PACKAGES) {
+            frameworkDirectories.add(dependencyPackage.replace('.', '/') + "/");
+        }
+        ImmutableList.Builder<File> workerClasspath = ImmutableList.builder();
+        ImmutableList.Builder<File> sessionClasspath = ImmutableList.builder();
+        for (File file : applicationClasspath) {
+            if (file.isFile() && containsAny(file, frameworkDirectories)) {
+                workerClasspath.add(file);
+            } else {
+                sessionClasspath.add(file);
+            }
+        }
+        return new PooledTestClasspath(workerClasspath.build(), sessionClasspath.build());
+    }
+
+    private static boolean containsAny(File archive, List<String> directories) {
+        try (ZipFile zipFile = new ZipFile(archive)) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                for (String directory : directories) {
+                    if (name.startsWith(directory)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } catch (IOException e) {
+            // Not an archive, leave it to the session
+            return false;
+        }
+    }
+
+    /**
+     * The part of the classpath loaded by the worker process, which holds the test framework.
+     */
+    public ImmutableList<File> getWorkerClasspath() {
+        return workerClasspath;
+    }
+
+    /**
+     * The part of the classpath loaded by each session, which holds the test classes and their other dependencies.
+     */
+    public ImmutableList<File> getSessionClasspath() {
+        return sessionClasspath;
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+
+/**
+ * Receives the results of a test worker kept in a {@link TestWorkerPool}.
+ *
+ * <p>The end of a session is notified on the same channel as the results, so that it is received once all the results of the session have been.</p>
+ */
+public interface PooledTestResultProcessor extends TestResultProcessor {
+    /**
+     * Called once the processing of a session has completed and the worker is ready for the next session.
+     */
+    void sessionCompleted();
+}
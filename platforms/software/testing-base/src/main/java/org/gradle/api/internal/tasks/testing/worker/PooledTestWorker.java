@@ -0,0 +1,199 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.Action;
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.api.logging.LogLevel;
+import org.gradle.api.tasks.testing.TestFailure;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.remote.ObjectConnection;
+import org.gradle.process.ExecResult;
+import org.gradle.process.internal.health.memory.JvmMemoryStatus;
+import org.gradle.process.internal.worker.PooledWorkerProcess;
+import org.gradle.process.internal.worker.WorkerProcess;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A test worker process kept in a {@link TestWorkerPool}, leased to one {@link ForkingTestClassProcessor} at a time.
+ */
+class PooledTestWorker implements PooledWorkerProcess {
+    private static final long PROCESS_CHECK_INTERVAL_MILLIS = 100;
+
+    private final TestWorkerKey key;
+    private final WorkerProcess workerProcess;
+    private final LogLevel logLevel;
+    private final SessionResultProcessor sessionResultProcessor = new SessionResultProcessor();
+    private final PooledRemoteTestClassProcessor remoteProcessor;
+    private int uses;
+
+    PooledTestWorker(TestWorkerKey key, WorkerProcess workerProcess, LogLevel logLevel) {
+        this.key = key;
+        this.workerProcess = workerProcess;
+        this.logLevel = logLevel;
+
+        workerProcess.start();
+        ObjectConnection connection = workerProcess.getConnection();
+        connection.useParameterSerializers(TestEventSerializer.create());
+        connection.addUnrecoverableErrorHandler(sessionResultProcessor::unrecoverableError);
+        connection.addIncoming(PooledTestResultProcessor.class, sessionResultProcessor);
+        this.remoteProcessor = connection.addOutgoing(PooledRemoteTestClassProcessor.class);
+        connection.connect();
+    }
+
+    public TestWorkerKey getKey() {
+        return key;
+    }
+
+    @Override
+    public LogLevel getLogLevel() {
+        return logLevel;
+    }
+
+    @Override
+    public int getUses() {
+        return uses;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return workerProcess.getDisplayName();
+    }
+
+    @Override
+    public boolean isNotExpirable() {
+        return false;
+    }
+
+    /**
+     * Starts a session of this worker, which loads the given classpath in a class loader of its own and sends its results and unrecoverable errors
+     * to the given processor and handler until it completes.
+     */
+    public RemoteTestClassProcessor startSession(WorkerTestClassProcessorFactory processorFactory, List<File> sessionClasspath, TestResultProcessor resultProcessor, Action<Throwable> unrecoverableErrorHandler) {
+        uses++;
+        sessionResultProcessor.startSession(resultProcessor, unrecoverableErrorHandler);
+        remoteProcessor.startSession(processorFactory, new ArrayList<File>(sessionClasspath));
+        return remoteProcessor;
+    }
+
+    /**
+     * Waits for the current session to complete.
+     *
+     * @return true when the session has completed and the worker can be reused, false when the worker process has exited instead.
+     */
+    public boolean waitForSessionCompletion() {
+        try {
+            while (!sessionResultProcessor.awaitCompletion(PROCESS_CHECK_INTERVAL_MILLIS)) {
+                if (getExitCode().isPresent()) {
+                    // Rethrows the failure of the worker process, if any
+                    workerProcess.waitForStop();
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    @Override
+    public boolean isFailed() {
+        return getExitCode().isPresent();
+    }
+
+    @Override
+    public Optional<Integer> getExitCode() {
+        return workerProcess.getExecResult().map(ExecResult::getExitValue);
+    }
+
+    @Override
+    public JvmMemoryStatus getJvmMemoryStatus() {
+        return workerProcess.getJvmMemoryStatus();
+    }
+
+    @Override
+    public void stop() {
+        remoteProcessor.shutdown();
+        workerProcess.waitForStop();
+    }
+
+    public void stopNow() {
+        workerProcess.stopNow();
+    }
+
+    /**
+     * Forwards the results received from the worker to the processor of the current session.
+     */
+    private static class SessionResultProcessor implements PooledTestResultProcessor {
+        private volatile TestResultProcessor delegate;
+        private volatile Action<Throwable> unrecoverableErrorHandler;
+        private volatile CountDownLatch completed = new CountDownLatch(0);
+
+        void startSession(TestResultProcessor delegate, Action<Throwable> unrecoverableErrorHandler) {
+            this.delegate = delegate;
+            this.unrecoverableErrorHandler = unrecoverableErrorHandler;
+            this.completed = new CountDownLatch(1);
+        }
+
+        boolean awaitCompletion(long timeoutMillis) throws InterruptedException {
+            return completed.await(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+
+        void unrecoverableError(Throwable throwable) {
+            Action<Throwable> handler = unrecoverableErrorHandler;
+            if (handler != null) {
+                handler.execute(throwable);
+            }
+        }
+
+        @Override
+        public void started(TestDescriptorInternal test, TestStartEvent event) {
+            delegate.started(test, event);
+        }
+
+        @Override
+        public void completed(Object testId, TestCompleteEvent event) {
+            delegate.completed(testId, event);
+        }
+
+        @Override
+        public void output(Object testId, TestOutputEvent event) {
+            delegate.output(testId, event);
+        }
+
+        @Override
+        public void failure(Object testId, TestFailure result) {
+            delegate.failure(testId, result);
+        }
+
+        @Override
+        public void sessionCompleted() {
+            completed.countDown();
+        }
+    }
+}
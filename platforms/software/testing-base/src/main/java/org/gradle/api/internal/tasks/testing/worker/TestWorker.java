@@ -25,6 +25,9 @@
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.actor.ActorFactory;
 import org.gradle.internal.actor.internal.DefaultActorFactory;
+import org.gradle.internal.classloader.VisitableURLClassLoader;
+import org.gradle.internal.classpath.DefaultClassPath;
+import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.concurrent.DefaultExecutorFactory;
 import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.concurrent.Stoppable;
@@ -40,8 +43,13 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.beans.Introspector;
+import java.io.File;
 import java.io.Serializable;
 import java.security.AccessControlException;
+import java.util.List;
+import java.util.Properties;
+import java.util.ResourceBundle;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 
@@ -56,8 +64,13 @@
  * Commands are received on communication threads and then processed sequentially on the main thread.  Although concurrent calls to
  * any of the methods from {@link RemoteTestClassProcessor} are supported, the commands will still be executed sequentially in the
  * main thread in order of arrival.
+ *
+ * A worker created without a processor factory is kept in a {@link TestWorkerPool} and processes several sessions instead, see
+ * {@link PooledRemoteTestClassProcessor}.  The worker process only loads the test framework, and each session loads the test classes
+ * and their dependencies in a class loader of its own, which is discarded at the end of the session along with the static state of
+ * the tests.  The system properties and the security manager are also reset at the end of each session.
  */
-public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClassProcessor, Serializable, Stoppable {
+public class TestWorker implements Action<WorkerProcessContext>, PooledRemoteTestClassProcessor, Serializable, Stoppable {
     private enum State { INITIALIZING, STARTED, STOPPED }
 
     private static final Logger LOGGER = LoggerFactory.getLogger(TestWorker.class);
@@ -69,6 +82,12 @@ private enum State { INITIALIZING, STARTED, STOPPED }
     private final BlockingQueue<Runnable> runQueue = new ArrayBlockingQueue<Runnable>(1);
     private TestClassProcessor processor;
     private TestResultProcessor resultProcessor;
+    private PooledTestResultProcessor sessionListener;
+    private WorkerProcessContext workerProcessContext;
+    private ServiceRegistry testServices;
+    private Properties initialSystemProperties;
+    private SecurityManager initialSecurityManager;
+    private VisitableURLClassLoader sessionClassLoader;
 
     /**
      * Note that the state object is not synchronized and not thread-safe.  Any modifications to the
@@ -81,6 +100,13 @@ public TestWorker(WorkerTestClassProcessorFactory factory) {
         this.factory = factory;
     }
 
+    /**
+     * Creates a worker that processes a session for each test task it is leased to.
+     */
+    public TestWorker() {
+        this.factory = null;
+    }
+
     @Override
     public void execute(final WorkerProcessContext workerProcessContext) {
         Thread.currentThread().setName(WORK_THREAD_NAME);
@@ -92,7 +118,11 @@ public void execute(final WorkerProcessContext workerProcessContext) {
         System.setProperty(WORKER_ID_SYS_PROPERTY, workerProcessContext.getWorkerId().toString());
 
         DefaultServiceRegistry testServices = new TestFrameworkServiceRegistry(workerProcessContext);
-        startReceivingTests(workerProcessContext, testServices);
+        if (factory == null) {
+            startReceivingSessions(workerProcessContext, testServices, securityManager);
+        } else {
+            startReceivingTests(workerProcessContext, testServices);
+        }
 
         try {
             try {
@@ -134,14 +164,7 @@ private static void executeAndMaintainThreadName(Runnable action) {
     }
 
     private void startReceivingTests(WorkerProcessContext workerProcessContext, ServiceRegistry testServices) {
-        TestClassProcessor targetProcessor = factory.create(testServices);
-        IdGenerator<Object> idGenerator = Cast.uncheckedNonnullCast(testServices.get(IdGenerator.class));
-
-        targetProcessor = new WorkerTestClassProcessor(targetProcessor, idGenerator.generateId(),
-                workerProcessContext.getDisplayName(), testServices.get(Clock.class));
-        ContextClassLoaderProxy<TestClassProcessor> proxy = new ContextClassLoaderProxy<TestClassProcessor>(
-                TestClassProcessor.class, targetProcessor, workerProcessContext.getApplicationClassLoader());
-        processor = proxy.getSource();
+        processor = createProcessor(factory, workerProcessContext, testServices, workerProcessContext.getApplicationClassLoader());
 
         ObjectConnection serverConnection = workerProcessContext.getServerConnection();
         serverConnection.useParameterSerializers(TestEventSerializer.create());
@@ -150,6 +173,32 @@ private void startReceivingTests(WorkerProcessContext workerProcessContext, Serv
         serverConnection.connect();
     }
 
+    private void startReceivingSessions(WorkerProcessContext workerProcessContext, ServiceRegistry testServices, SecurityManager securityManager) {
+        this.workerProcessContext = workerProcessContext;
+        this.testServices = testServices;
+        this.initialSecurityManager = securityManager;
+        this.initialSystemProperties = new Properties();
+        this.initialSystemProperties.putAll(System.getProperties());
+
+        ObjectConnection serverConnection = workerProcessContext.getServerConnection();
+        serverConnection.useParameterSerializers(TestEventSerializer.create());
+        this.sessionListener = serverConnection.addOutgoing(PooledTestResultProcessor.class);
+        this.resultProcessor = sessionListener;
+        serverConnection.addIncoming(PooledRemoteTestClassProcessor.class, this);
+        serverConnection.connect();
+    }
+
+    private static TestClassProcessor createProcessor(WorkerTestClassProcessorFactory factory, WorkerProcessContext workerProcessContext, ServiceRegistry testServices, ClassLoader applicationClassLoader) {
+        TestClassProcessor targetProcessor = factory.create(testServices);
+        IdGenerator<Object> idGenerator = Cast.uncheckedNonnullCast(testServices.get(IdGenerator.class));
+
+        targetProcessor = new WorkerTestClassProcessor(targetProcessor, idGenerator.generateId(),
+                workerProcessContext.getDisplayName(), testServices.get(Clock.class));
+        ContextClassLoaderProxy<TestClassProcessor> proxy = new ContextClassLoaderProxy<TestClassProcessor>(
+                TestClassProcessor.class, targetProcessor, applicationClassLoader);
+        return proxy.getSource();
+    }
+
     @Override
     public void startProcessing() {
         submitToRun(new Runnable() {
@@ -164,6 +213,24 @@ public void run() {
         });
     }
 
+    @Override
+    public void startSession(final WorkerTestClassProcessorFactory sessionFactory, final List<File> sessionClasspath) {
+        submitToRun(new Runnable() {
+            @Override
+            public void run() {
+                if (state != State.INITIALIZING) {
+                    throw new IllegalStateException("A command to start a session has already been received");
+                }
+                // The test frameworks load the test classes through the context class loader
+                sessionClassLoader = new VisitableURLClassLoader("test-session-loader", workerProcessContext.getApplicationClassLoader(), DefaultClassPath.of(sessionClasspath).getAsURLs());
+                System.setProperty("java.class.path", withSessionClasspath(System.getProperty("java.class.path"), sessionClasspath));
+                processor = createProcessor(sessionFactory, workerProcessContext, testServices, sessionClassLoader);
+                processor.startProcessing(resultProcessor);
+                state = State.STARTED;
+            }
+        });
+    }
+
     @Override
     public void processTestClass(final TestClassRunInfo testClass) {
         submitToRun(new Runnable() {
@@ -192,7 +259,11 @@ public void run() {
                 try {
                     processor.stop();
                 } finally {
-                    state = State.STOPPED;
+                    if (sessionListener == null) {
+                        state = State.STOPPED;
+                    } else {
+                        endSession();
+                    }
                     // Clean the interrupted status
                     // because some test class processors do work here, e.g. JUnitPlatform
                     Thread.interrupted();
@@ -201,6 +272,54 @@ public void run() {
         });
     }
 
+    @Override
+    public void shutdown() {
+        submitToRun(new Runnable() {
+            @Override
+            public void run() {
+                if (state == State.STARTED) {
+                    throw new IllegalStateException("Cannot shut down a worker while a session is in progress");
+                }
+                state = State.STOPPED;
+            }
+        });
+    }
+
+    /**
+     * Resets the state that the tests of the session may have changed, so that the next session starts with the worker in the state it was created in.
+     */
+    private void endSession() {
+        processor = null;
+        // Drop the references the JDK keeps to the classes of the session, so that the class loader and the static state of the tests can be collected
+        Introspector.flushCaches();
+        ResourceBundle.clearCache(sessionClassLoader);
+        CompositeStoppable.stoppable(sessionClassLoader).stop();
+        sessionClassLoader = null;
+        if (System.getSecurityManager() != initialSecurityManager) {
+            try {
+                System.setSecurityManager(initialSecurityManager);
+            } catch (SecurityException e) {
+                // Cannot reuse a worker whose security manager cannot be reset
+                LOGGER.warn("Unable to reset SecurityManager. Stopping the worker.", e);
+                state = State.STOPPED;
+                return;
+            }
+        }
+        Properties systemProperties = System.getProperties();
+        systemProperties.keySet().retainAll(initialSystemProperties.keySet());
+        systemProperties.putAll(initialSystemProperties);
+        state = State.INITIALIZING;
+        sessionListener.sessionCompleted();
+    }
+
+    private static String withSessionClasspath(String workerClasspath, List<File> sessionClasspath) {
+        StringBuilder classpath = new StringBuilder(workerClasspath);
+        for (File file : sessionClasspath) {
+            classpath.append(File.pathSeparatorChar).append(file.getAbsolutePath());
+        }
+        return classpath.toString();
+    }
+
     private synchronized void submitToRun(Runnable command) {
         if (state != State.STOPPED) {
             try {
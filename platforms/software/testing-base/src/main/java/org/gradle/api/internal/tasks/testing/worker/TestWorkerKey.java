@@ -0,0 +1,171 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.process.JavaForkOptions;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Identifies the test workers of a {@link TestWorkerPool} that can process the tests of a test task.
+ *
+ * <p>A worker process only loads the part of the application classpath that holds the test framework, see {@link PooledTestClasspath},
+ * as the rest is loaded again for each session. So a worker matches only when the test framework part lists the same files with the same contents,
+ * which is approximated by their sizes and modification times, while the test classes and their other dependencies do not matter.</p>
+ */
+class TestWorkerKey {
+    private final String processorFactoryType;
+    private final String executable;
+    private final File workingDir;
+    private final ImmutableList<String> jvmArgs;
+    private final ImmutableMap<String, String> environment;
+    private final ImmutableList<String> implementationClasspath;
+    private final ImmutableList<String> implementationModulepath;
+    private final ImmutableList<File> workerClasspath;
+    private final HashCode workerClasspathContents;
+    private final String maxHeapSize;
+
+    private TestWorkerKey(
+        String processorFactoryType,
+        String executable,
+        File workingDir,
+        ImmutableList<String> jvmArgs,
+        ImmutableMap<String, String> environment,
+        ImmutableList<String> implementationClasspath,
+        ImmutableList<String> implementationModulepath,
+        ImmutableList<File> workerClasspath,
+        HashCode workerClasspathContents,
+        String maxHeapSize
+    ) {
+        this.processorFactoryType = processorFactoryType;
+        this.executable = executable;
+        this.workingDir = workingDir;
+        this.jvmArgs = jvmArgs;
+        this.environment = environment;
+        this.implementationClasspath = implementationClasspath;
+        this.implementationModulepath = implementationModulepath;
+        this.workerClasspath = workerClasspath;
+        this.workerClasspathContents = workerClasspathContents;
+        this.maxHeapSize = maxHeapSize;
+    }
+
+    public static TestWorkerKey of(WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, ForkedTestClasspath classpath, PooledTestClasspath pooledClasspath) {
+        ImmutableMap.Builder<String, String> environment = ImmutableMap.builder();
+        for (Map.Entry<String, Object> entry : options.getEnvironment().entrySet()) {
+            environment.put(entry.getKey(), String.valueOf(entry.getValue()));
+        }
+        Hasher hasher = Hashing.newHasher();
+        hashContents(pooledClasspath.getWorkerClasspath(), hasher);
+        return new TestWorkerKey(
+            processorFactory.getClass().getName(),
+            options.getExecutable(),
+            options.getWorkingDir(),
+            ImmutableList.copyOf(options.getAllJvmArgs()),
+            environment.build(),
+            toStrings(classpath.getImplementationClasspath()),
+            toStrings(classpath.getImplementationModulepath()),
+            pooledClasspath.getWorkerClasspath(),
+            hasher.hash(),
+            options.getMaxHeapSize()
+        );
+    }
+
+    // Compare URLs by their string representation, as URL.equals() resolves host names
+    private static ImmutableList<String> toStrings(Iterable<URL> urls) {
+        ImmutableList.Builder<String> builder = ImmutableList.builder();
+        for (URL url : urls) {
+            builder.add(url.toString());
+        }
+        return builder.build();
+    }
+
+    private static void hashContents(Iterable<File> files, Hasher hasher) {
+        for (File file : files) {
+            hasher.putString(file.getAbsolutePath());
+            if (file.isDirectory()) {
+                hashDirectory(file.toPath(), hasher);
+            } else {
+                hasher.putLong(file.length());
+                hasher.putLong(file.lastModified());
+            }
+        }
+    }
+
+    private static void hashDirectory(Path directory, Hasher hasher) {
+        try {
+            Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    hasher.putString(directory.relativize(file).toString());
+                    hasher.putLong(attrs.size());
+                    hasher.putLong(attrs.lastModifiedTime().toMillis());
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    /**
+     * The maximum heap size of the workers, or null when not specified.
+     */
+    public String getMaxHeapSize() {
+        return maxHeapSize;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        TestWorkerKey that = (TestWorkerKey) o;
+        return processorFactoryType.equals(that.processorFactoryType)
+            && Objects.equals(executable, that.executable)
+            && Objects.equals(workingDir, that.workingDir)
+            && jvmArgs.equals(that.jvmArgs)
+            && environment.equals(that.environment)
+            && implementationClasspath.equals(that.implementationClasspath)
+            && implementationModulepath.equals(that.implementationModulepath)
+            && workerClasspath.equals(that.workerClasspath)
+            && workerClasspathContents.equals(that.workerClasspathContents);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(processorFactoryType, executable, jvmArgs, workerClasspath, workerClasspathContents);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.logging.LoggingManagerInternal;
+import org.gradle.process.internal.health.memory.MemoryManager;
+import org.gradle.process.internal.health.memory.OsMemoryInfo;
+import org.gradle.process.internal.worker.WorkerProcessBuilder;
+import org.gradle.process.internal.worker.WorkerProcessExpiration;
+import org.gradle.process.internal.worker.WorkerProcessPool;
+
+/**
+ * Keeps test worker processes alive across test tasks and builds, so that a test task can reuse a worker started by an earlier test task
+ * with the same fork options and test framework instead of paying for the startup and the warm-up of a new JVM.
+ *
+ * <p>Workers are reset between test tasks, see {@link TestWorker}. Idle workers are stopped when memory is low, see {@link TestWorkerPoolExpiration},
+ * when there are more of them than {@link #MAX_IDLE_WORKERS}, when their log level is out of date or when their process has exited,
+ * see {@link WorkerProcessPool}.</p>
+ *
+ * <p>The pool is opt-in, see {@link #ENABLED_PROPERTY}, and is not used for test tasks that fork a new worker every N test classes.</p>
+ */
+public class TestWorkerPool implements Stoppable {
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.testing.worker-pool";
+
+    private static final int MAX_IDLE_WORKERS = Runtime.getRuntime().availableProcessors();
+
+    private final WorkerProcessPool<PooledTestWorker> pool;
+    private final MemoryManager memoryManager;
+    private final TestWorkerPoolExpiration expiration;
+
+    public TestWorkerPool(LoggingManagerInternal loggingManager, MemoryManager memoryManager, OsMemoryInfo memoryInfo) {
+        this.pool = new WorkerProcessPool<PooledTestWorker>("test worker", MAX_IDLE_WORKERS, loggingManager);
+        this.memoryManager = memoryManager;
+        this.expiration = new TestWorkerPoolExpiration(pool, WorkerProcessExpiration.getTotalPhysicalMemory(memoryInfo));
+        memoryManager.addMemoryHolder(expiration);
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    PooledTestWorker reserveIdleWorker(TestWorkerKey key) {
+        return pool.reserveIdleWorker(worker -> worker.getKey().equals(key));
+    }
+
+    PooledTestWorker reserveNewWorker(TestWorkerKey key, WorkerProcessBuilder builder) {
+        builder.enableJvmMemoryInfoPublishing(true);
+        // allow the worker to be started concurrently
+        PooledTestWorker worker = new PooledTestWorker(key, builder.build(), pool.getCurrentLogLevel());
+        pool.add(worker);
+        return worker;
+    }
+
+    /**
+     * Returns a worker whose session has completed to the pool.
+     */
+    void release(PooledTestWorker worker) {
+        pool.release(worker);
+    }
+
+    /**
+     * Removes a worker that cannot be reused from the pool, stopping its process.
+     */
+    void discard(PooledTestWorker worker) {
+        pool.remove(worker);
+        if (!worker.isFailed()) {
+            worker.stopNow();
+        }
+    }
+
+    @Override
+    public void stop() {
+        memoryManager.removeMemoryHolder(expiration);
+        pool.stop();
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.Transformer;
+import org.gradle.process.internal.worker.WorkerProcessExpiration;
+import org.gradle.process.internal.worker.WorkerProcessPool;
+
+import java.util.List;
+
+/**
+ * Stops idle test workers of a {@link TestWorkerPool} when the OS is running out of memory, less used first.
+ */
+class TestWorkerPoolExpiration extends WorkerProcessExpiration<PooledTestWorker> {
+
+    private final WorkerProcessPool<PooledTestWorker> pool;
+
+    TestWorkerPoolExpiration(WorkerProcessPool<PooledTestWorker> pool, long osTotalMemory) {
+        super("test worker", osTotalMemory);
+        this.pool = pool;
+    }
+
+    @Override
+    protected void selectIdleWorkersToStop(Transformer<List<PooledTestWorker>, List<PooledTestWorker>> selectionFunction) {
+        pool.selectIdleWorkersToStop(selectionFunction);
+    }
+
+    @Override
+    protected String getMaxHeapSize(PooledTestWorker worker) {
+        return worker.getKey().getMaxHeapSize();
+    }
+}
@@ -16,9 +16,13 @@
 
 package org.gradle.api.internal.tasks.testing.processors
 
+import org.gradle.api.internal.tasks.testing.DefaultTestClassDescriptor
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
 import org.gradle.api.internal.tasks.testing.TestClassProcessor
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
 import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.TestStartEvent
 import org.gradle.internal.actor.Actor
 import org.gradle.internal.actor.ActorFactory
 import spock.lang.Specification
@@ -168,6 +172,77 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         1 * asyncProcessor2.processTestClass(test)
     }
 
+    def assignsTestClassesToProcessorWithLeastEstimatedWork() {
+        def durationAwareProcessor = new MaxNParallelTestClassProcessor(2, factory, actorFactory, [Slow: 1000L, Fast1: 10L, Fast2: 10L, Fast3: 10L])
+        TestClassProcessor processor1 = Mock()
+        TestClassProcessor processor2 = Mock()
+        TestClassProcessor asyncProcessor1 = Mock()
+        TestClassProcessor asyncProcessor2 = Mock()
+        Actor actor1 = Mock()
+        Actor actor2 = Mock()
+
+        1 * actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        1 * resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        1 * factory.create() >> processor1
+        1 * factory.create() >> processor2
+        1 * actorFactory.createActor(processor1) >> actor1
+        1 * actorFactory.createActor(processor2) >> actor2
+        1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+        1 * actor2.getProxy(TestClassProcessor) >> asyncProcessor2
+
+        when:
+        durationAwareProcessor.startProcessing(resultProcessor)
+        ['Slow', 'Fast1', 'Fast2', 'Fast3'].each { durationAwareProcessor.processTestClass(new DefaultTestClassRunInfo(it)) }
+
+        then:
+        1 * asyncProcessor1.processTestClass(new DefaultTestClassRunInfo('Slow'))
+        1 * asyncProcessor2.processTestClass(new DefaultTestClassRunInfo('Fast1'))
+        1 * asyncProcessor2.processTestClass(new DefaultTestClassRunInfo('Fast2'))
+        1 * asyncProcessor2.processTestClass(new DefaultTestClassRunInfo('Fast3'))
+    }
+
+    def "hands processor its next test class once it has completed its previous one"() {
+        def pullingProcessor = new MaxNParallelTestClassProcessor(2, factory, actorFactory, [:], true)
+        TestClassProcessor processor1 = Mock()
+        TestClassProcessor processor2 = Mock()
+        TestClassProcessor asyncProcessor1 = Mock()
+        TestClassProcessor asyncProcessor2 = Mock()
+        Actor actor1 = Mock()
+        Actor actor2 = Mock()
+        TestResultProcessor forkResultProcessor2 = null
+
+        1 * actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        1 * resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        1 * factory.create() >> processor1
+        1 * factory.create() >> processor2
+        1 * actorFactory.createActor(processor1) >> actor1
+        1 * actorFactory.createActor(processor2) >> actor2
+        1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+        1 * actor2.getProxy(TestClassProcessor) >> asyncProcessor2
+        1 * asyncProcessor2.startProcessing(_) >> { TestResultProcessor forkResultProcessor -> forkResultProcessor2 = forkResultProcessor }
+
+        when:
+        pullingProcessor.startProcessing(resultProcessor)
+        ['A', 'B', 'C'].each { pullingProcessor.processTestClass(new DefaultTestClassRunInfo(it)) }
+
+        then:
+        1 * asyncProcessor1.processTestClass(new DefaultTestClassRunInfo('A'))
+        1 * asyncProcessor2.processTestClass(new DefaultTestClassRunInfo('B'))
+        0 * asyncProcessor1.processTestClass(_)
+        0 * asyncProcessor2.processTestClass(_)
+
+        when:
+        def testClass = new DefaultTestClassDescriptor(1, 'B')
+        forkResultProcessor2.started(testClass, new TestStartEvent(0))
+        forkResultProcessor2.completed(1, new TestCompleteEvent(0))
+
+        then:
+        1 * asyncResultProcessor.started(testClass, _)
+        1 * asyncResultProcessor.completed(1, _)
+        1 * asyncProcessor2.processTestClass(new DefaultTestClassRunInfo('C'))
+        0 * asyncProcessor1.processTestClass(_)
+    }
+
     def "stopNow propagates to factory created processors"() {
         TestClassRunInfo test = Mock()
         TestClassProcessor processor1 = Mock()
@@ -30,9 +30,14 @@ import org.gradle.process.internal.JavaExecHandleBuilder
 import org.gradle.process.internal.worker.WorkerProcess
 import org.gradle.process.internal.worker.WorkerProcessBuilder
 import org.gradle.process.internal.worker.WorkerProcessFactory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.JarUtils
+import org.junit.Rule
 import spock.lang.Specification
 
 class ForkingTestClassProcessorTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
     WorkerThreadRegistry workerLeaseRegistry = Mock(WorkerThreadRegistry)
     RemoteTestClassProcessor remoteProcessor = Mock(RemoteTestClassProcessor)
     ObjectConnection connection = Mock(ObjectConnection) {
@@ -44,6 +49,7 @@ class ForkingTestClassProcessorTest extends Specification {
     WorkerProcessBuilder workerProcessBuilder = Mock(WorkerProcessBuilder) {
         build() >> workerProcess
         getJavaCommand() >> Stub(JavaExecHandleBuilder)
+        getSharedPackages() >> (["org.junit"] as Set)
     }
     WorkerProcessFactory workerProcessFactory = Stub(WorkerProcessFactory) {
         create(_) >> workerProcessBuilder
@@ -174,12 +180,107 @@ class ForkingTestClassProcessorTest extends Specification {
         noExceptionThrown()
     }
 
+    def "leases worker from pool and releases it once the session has completed"() {
+        given:
+        def test = Mock(TestClassRunInfo)
+        def pool = Mock(TestWorkerPool)
+        def pooledWorker = Mock(PooledTestWorker)
+        def processor = newProcessor(emptyClasspath(), pool)
+
+        when:
+        processor.processTestClass(test)
+        processor.stop()
+
+        then:
+        1 * workerLeaseRegistry.startWorker()
+        1 * pool.reserveIdleWorker(_) >> pooledWorker
+        1 * pooledWorker.startSession(_, _, _, _) >> remoteProcessor
+        1 * remoteProcessor.processTestClass(test)
+        1 * remoteProcessor.stop()
+        1 * pooledWorker.waitForSessionCompletion() >> true
+        1 * pool.release(pooledWorker)
+        0 * workerProcessBuilder.build()
+        0 * pool.discard(_)
+    }
+
+    def "starts pooled worker when no idle worker matches"() {
+        given:
+        def pool = Mock(TestWorkerPool)
+        def pooledWorker = Mock(PooledTestWorker)
+        def processor = newProcessor(emptyClasspath(), pool)
+
+        when:
+        processor.processTestClass(Mock(TestClassRunInfo))
+
+        then:
+        1 * pool.reserveIdleWorker(_) >> null
+        1 * pool.reserveNewWorker(_, workerProcessBuilder) >> pooledWorker
+        1 * pooledWorker.startSession(_, _, _, _) >> remoteProcessor
+    }
+
+    def "discards pooled worker whose process exits during the session"() {
+        given:
+        def pool = Mock(TestWorkerPool)
+        def pooledWorker = Mock(PooledTestWorker)
+        def processor = newProcessor(emptyClasspath(), pool)
+
+        when:
+        processor.processTestClass(Mock(TestClassRunInfo))
+        processor.stop()
+
+        then:
+        1 * pool.reserveIdleWorker(_) >> pooledWorker
+        1 * pooledWorker.startSession(_, _, _, _) >> remoteProcessor
+        1 * pooledWorker.waitForSessionCompletion() >> false
+        1 * pool.discard(pooledWorker)
+        0 * pool.release(_)
+    }
+
+    def "loads the test framework in the pooled worker and the rest of the classpath in the session"() {
+        given:
+        def framework = tmpDir.file("junit.jar")
+        framework << JarUtils.jarWithContents("org/junit/Test.class": "")
+        def library = tmpDir.file("library.jar")
+        library << JarUtils.jarWithContents("org/example/Library.class": "")
+        def classes = tmpDir.createDir("classes")
+        def pool = Mock(TestWorkerPool)
+        def pooledWorker = Mock(PooledTestWorker)
+        def processor = newProcessor(new ForkedTestClasspath(ImmutableList.of(classes, framework, library), ImmutableList.of(), ImmutableList.of(), ImmutableList.of()), pool)
+
+        when:
+        processor.processTestClass(Mock(TestClassRunInfo))
+
+        then:
+        1 * pool.reserveIdleWorker(_) >> null
+        1 * workerProcessBuilder.applicationClasspath(_) >> { assert it[0] == [framework] }
+        1 * pool.reserveNewWorker(_, workerProcessBuilder) >> pooledWorker
+        1 * pooledWorker.startSession(_, [classes, library], _, _) >> remoteProcessor
+    }
+
+    def "does not lease pooled worker for tests on the module path"() {
+        given:
+        def pool = Mock(TestWorkerPool)
+        def processor = newProcessor(new ForkedTestClasspath(ImmutableList.of(), ImmutableList.of(new File("mod.jar")), ImmutableList.of(), ImmutableList.of()), pool)
+
+        when:
+        processor.processTestClass(Mock(TestClassRunInfo))
+
+        then:
+        0 * pool._
+        1 * workerProcessBuilder.build() >> workerProcess
+    }
+
     def newProcessor(
-        ForkedTestClasspath classpath = new ForkedTestClasspath(ImmutableList.of(), ImmutableList.of(), ImmutableList.of(), ImmutableList.of())
+        ForkedTestClasspath classpath = emptyClasspath(),
+        TestWorkerPool pool = null
     ) {
         return new ForkingTestClassProcessor(
             workerLeaseRegistry, workerProcessFactory, Mock(WorkerTestClassProcessorFactory),
-            Stub(JavaForkOptions), classpath, Mock(Action), Mock(DocumentationRegistry)
+            Stub(JavaForkOptions), classpath, Mock(Action), Mock(DocumentationRegistry), pool
         )
     }
+
+    static ForkedTestClasspath emptyClasspath() {
+        return new ForkedTestClasspath(ImmutableList.of(), ImmutableList.of(), ImmutableList.of(), ImmutableList.of())
+    }
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.JarUtils
+import org.junit.Rule
+import spock.lang.Specification
+
+class PooledTestClasspathTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    def "loads archives of shared packages and of test framework dependencies in the worker"() {
+        def classes = tmpDir.createDir("classes")
+        def junit = jar("junit.jar", "org/junit/Test.class")
+        def hamcrest = jar("hamcrest.jar", "org/hamcrest/Matcher.class")
+        def library = jar("library.jar", "org/example/Library.class")
+        def notAnArchive = tmpDir.file("resource.txt") << "text"
+
+        when:
+        def classpath = PooledTestClasspath.of([classes, junit, library, hamcrest, notAnArchive], ["org.junit"])
+
+        then:
+        classpath.workerClasspath == [junit, hamcrest]
+        classpath.sessionClasspath == [classes, library, notAnArchive]
+    }
+
+    def "does not load archives of packages that only share a prefix with shared packages in the worker"() {
+        def junitExtension = jar("extension.jar", "org/junitpioneer/Extension.class")
+
+        when:
+        def classpath = PooledTestClasspath.of([junitExtension], ["org.junit"])
+
+        then:
+        classpath.workerClasspath.empty
+        classpath.sessionClasspath == [junitExtension]
+    }
+
+    private File jar(String name, String entry) {
+        def jar = tmpDir.file(name)
+        jar << JarUtils.jarWithContents((entry): "")
+        return jar
+    }
+}
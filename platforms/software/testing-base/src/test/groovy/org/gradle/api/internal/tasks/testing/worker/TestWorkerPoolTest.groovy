@@ -0,0 +1,168 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import com.google.common.collect.ImmutableList
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory
+import org.gradle.api.logging.LogLevel
+import org.gradle.internal.logging.LoggingManagerInternal
+import org.gradle.internal.logging.events.LogLevelChangeEvent
+import org.gradle.internal.logging.events.OutputEventListener
+import org.gradle.internal.remote.ObjectConnection
+import org.gradle.process.ExecResult
+import org.gradle.process.JavaForkOptions
+import org.gradle.process.internal.health.memory.MemoryManager
+import org.gradle.process.internal.health.memory.OsMemoryInfo
+import org.gradle.process.internal.worker.WorkerProcess
+import org.gradle.process.internal.worker.WorkerProcessBuilder
+import spock.lang.Specification
+
+class TestWorkerPoolTest extends Specification {
+    OutputEventListener logLevelListener
+    def loggingManager = Mock(LoggingManagerInternal) {
+        getLevel() >> LogLevel.LIFECYCLE
+        addOutputEventListener(_) >> { args -> logLevelListener = args[0] }
+    }
+    def memoryManager = Mock(MemoryManager)
+    def pool = new TestWorkerPool(loggingManager, memoryManager, Stub(OsMemoryInfo))
+    def processorFactory = Stub(WorkerTestClassProcessorFactory)
+
+    def "reuses released worker with the same key"() {
+        def key = key(["-Xmx64m"])
+        def worker = pool.reserveNewWorker(key, builder(workerProcess()))
+
+        expect:
+        pool.reserveIdleWorker(key) == null
+
+        when:
+        pool.release(worker)
+
+        then:
+        pool.reserveIdleWorker(key(["-Xmx64m"])) == worker
+        pool.reserveIdleWorker(key) == null
+    }
+
+    def "does not reuse worker with different fork options"() {
+        def worker = pool.reserveNewWorker(key(["-Xmx64m"]), builder(workerProcess()))
+        pool.release(worker)
+
+        expect:
+        pool.reserveIdleWorker(key(["-Xmx128m"])) == null
+    }
+
+    def "evicts worker whose process has exited"() {
+        def process = workerProcess()
+        def key = key([])
+        def worker = pool.reserveNewWorker(key, builder(process))
+        pool.release(worker)
+
+        when:
+        def reserved = pool.reserveIdleWorker(key)
+
+        then:
+        _ * process.getExecResult() >> Optional.of(Stub(ExecResult) { getExitValue() >> 1 })
+        reserved == null
+    }
+
+    def "stops idle worker when log level has changed"() {
+        def process = workerProcess()
+        def key = key([])
+        def worker = pool.reserveNewWorker(key, builder(process))
+        pool.release(worker)
+
+        when:
+        logLevelListener.onOutput(new LogLevelChangeEvent(LogLevel.DEBUG))
+        def reserved = pool.reserveIdleWorker(key)
+
+        then:
+        reserved == null
+        1 * process.waitForStop()
+    }
+
+    def "discarded worker is stopped and not reused"() {
+        def process = workerProcess()
+        def key = key([])
+        def worker = pool.reserveNewWorker(key, builder(process))
+
+        when:
+        pool.discard(worker)
+
+        then:
+        1 * process.stopNow()
+
+        and:
+        pool.reserveIdleWorker(key) == null
+    }
+
+    def "expiration stops idle workers until enough memory is released"() {
+        def expiration = null
+        def pool = new TestWorkerPool(loggingManager, Mock(MemoryManager) {
+            addMemoryHolder(_) >> { args -> expiration = args[0] }
+        }, Stub(OsMemoryInfo))
+        def first = workerProcess()
+        def second = workerProcess()
+        pool.release(pool.reserveNewWorker(key([]), builder(first)))
+        pool.release(pool.reserveNewWorker(key([]), builder(second)))
+
+        when:
+        def released = expiration.attemptToRelease(100)
+
+        then:
+        _ * first.getJvmMemoryStatus() >> { throw new IllegalStateException() }
+        released == 64 * 1024 * 1024
+        1 * first.waitForStop()
+        0 * second.waitForStop()
+    }
+
+    def "stops idle workers when stopped"() {
+        def process = workerProcess()
+        pool.release(pool.reserveNewWorker(key([]), builder(process)))
+
+        when:
+        pool.stop()
+
+        then:
+        1 * process.waitForStop()
+        1 * memoryManager.removeMemoryHolder(_)
+        1 * loggingManager.removeOutputEventListener(_)
+    }
+
+    private TestWorkerKey key(List<String> jvmArgs) {
+        def options = Stub(JavaForkOptions) {
+            getAllJvmArgs() >> jvmArgs
+            getEnvironment() >> [:]
+            getMaxHeapSize() >> "64m"
+        }
+        return TestWorkerKey.of(processorFactory, options, new ForkedTestClasspath(ImmutableList.of(), ImmutableList.of(), ImmutableList.of(), ImmutableList.of()), PooledTestClasspath.of([], []))
+    }
+
+    private WorkerProcess workerProcess() {
+        def connection = Stub(ObjectConnection) {
+            addOutgoing(PooledRemoteTestClassProcessor) >> Stub(PooledRemoteTestClassProcessor)
+        }
+        return Mock(WorkerProcess) {
+            getConnection() >> connection
+            getExecResult() >> Optional.empty()
+        }
+    }
+
+    private WorkerProcessBuilder builder(WorkerProcess process) {
+        return Stub(WorkerProcessBuilder) {
+            build() >> process
+        }
+    }
+}
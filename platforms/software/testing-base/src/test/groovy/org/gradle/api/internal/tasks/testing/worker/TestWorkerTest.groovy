@@ -27,11 +27,13 @@ import org.gradle.internal.time.Clock
 import org.gradle.internal.time.Time
 import org.gradle.process.internal.worker.WorkerProcessContext
 import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.util.SetSystemProperties
 import org.junit.Rule
 
 public class TestWorkerTest extends ConcurrentSpec {
     @Rule SetSystemProperties properties = new SetSystemProperties()
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
     def workerContext = Mock(WorkerProcessContext)
     def connection = Mock(ObjectConnection)
     def factory = Mock(WorkerTestClassProcessorFactory)
@@ -76,4 +78,49 @@ public class TestWorkerTest extends ConcurrentSpec {
         1 * processor.processTestClass(test)
         1 * processor.stop()
     }
+
+    def processesSessionsAndResetsSystemPropertiesBetweenThem() {
+        def pooledWorker = new TestWorker()
+        def sessionListener = Mock(PooledTestResultProcessor)
+        def otherFactory = Mock(WorkerTestClassProcessorFactory)
+        def otherProcessor = Mock(TestClassProcessor)
+        def sessionClasspath = [tmpDir.createDir("classes")]
+        ClassLoader sessionClassLoader = null
+
+        when:
+        async {
+            pooledWorker.execute(workerContext)
+            instant.completed
+        }
+
+        then:
+        instant.completed > instant.shutdown
+
+        and:
+        1 * connection.addOutgoing(PooledTestResultProcessor) >> sessionListener
+        1 * connection.addIncoming(PooledRemoteTestClassProcessor, pooledWorker)
+        1 * connection.connect() >> {
+            start {
+                pooledWorker.startSession(factory, sessionClasspath)
+                pooledWorker.processTestClass(test)
+                pooledWorker.stop()
+                pooledWorker.startSession(otherFactory, [])
+                pooledWorker.stop()
+                instant.shutdown
+                pooledWorker.shutdown()
+            }
+        }
+        1 * factory.create(_) >> processor
+        1 * processor.processTestClass(test) >> {
+            System.setProperty("test.worker.leaked", "true")
+            sessionClassLoader = Thread.currentThread().contextClassLoader
+            assert sessionClassLoader.URLs as List == sessionClasspath*.toURI()*.toURL()
+        }
+        1 * otherFactory.create(_) >> otherProcessor
+        1 * otherProcessor.startProcessing(_) >> {
+            assert System.getProperty("test.worker.leaked") == null
+            assert !Thread.currentThread().contextClassLoader.is(sessionClassLoader)
+        }
+        2 * sessionListener.sessionCompleted()
+    }
 }
@@ -1,5 +1,6 @@
 plugins {
     id("gradlebuild.distribution.api-java")
+    id("gradlebuild.jmh")
 }
 
 description = "Public and internal 'core' Gradle APIs with implementation"
@@ -32,6 +33,30 @@ val testInterceptorsImplementation: Configuration by configurations.getting {
     extendsFrom(configurations.implementation.get())
 }
 
+// JDK Flight Recorder events, which need jdk.jfr, which is not part of the Java 8 API
+// Separated from the main source set so that only they are compiled without --release, and loaded only when the daemon JVM supports JFR
+sourceSets {
+    val jfr = create("jfr") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+    getByName("test") {
+        compileClasspath += jfr.output
+        runtimeClasspath += jfr.output
+    }
+}
+val jfrImplementation: Configuration by configurations.getting {
+    extendsFrom(configurations.implementation.get())
+}
+tasks.named<JavaCompile>("compileJfrJava") {
+    options.release = null
+    sourceCompatibility = "8"
+    targetCompatibility = "8"
+}
+tasks.jar {
+    from(sourceSets["jfr"].output)
+}
+
 errorprone {
     disabledChecks.addAll(
         "BadImport", // 3 occurrences
@@ -277,6 +302,9 @@ dependencies {
     testInterceptorsImplementation(platform(project(":distributions-dependencies")))
     "testInterceptorsAnnotationProcessor"(project(":internal-instrumentation-processor"))
     "testInterceptorsAnnotationProcessor"(platform(project(":distributions-dependencies")))
+
+    jmhImplementation(platform(project(":distributions-dependencies")))
+    jmhImplementation(libs.commonsCompress)
 }
 
 strictCompile {
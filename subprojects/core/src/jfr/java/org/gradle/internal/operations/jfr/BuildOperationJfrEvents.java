@@ -0,0 +1,290 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import org.gradle.api.internal.artifacts.configurations.ResolveConfigurationDependenciesBuildOperationType;
+import org.gradle.api.internal.tasks.SnapshotTaskInputsBuildOperationType;
+import org.gradle.api.internal.tasks.execution.ExecuteTaskBuildOperationType;
+import org.gradle.caching.internal.operations.BuildCacheArchivePackBuildOperationType;
+import org.gradle.caching.internal.operations.BuildCacheArchiveUnpackBuildOperationType;
+import org.gradle.caching.internal.operations.BuildCacheLocalLoadBuildOperationType;
+import org.gradle.caching.internal.operations.BuildCacheLocalStoreBuildOperationType;
+import org.gradle.caching.internal.operations.BuildCacheRemoteLoadBuildOperationType;
+import org.gradle.caching.internal.operations.BuildCacheRemoteStoreBuildOperationType;
+import org.gradle.internal.configurationcache.ConfigurationCacheLoadBuildOperationType;
+import org.gradle.internal.configurationcache.ConfigurationCacheStoreBuildOperationType;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.OperationFinishEvent;
+import org.gradle.internal.operations.OperationIdentifier;
+
+import javax.annotation.Nullable;
+
+/**
+ * The JDK Flight Recorder event types emitted by {@link JfrBuildOperationListener}.
+ *
+ * Stack traces are not recorded, as they would always point into the listener.
+ */
+class BuildOperationJfrEvents {
+
+    static AbstractBuildOperationEvent forDetails(@Nullable Object details) {
+        if (details instanceof ExecuteTaskBuildOperationType.Details) {
+            return new TaskExecutionEvent();
+        }
+        if (details instanceof SnapshotTaskInputsBuildOperationType.Details) {
+            return new TaskInputsFingerprintingEvent();
+        }
+        if (details instanceof BuildCacheArchivePackBuildOperationType.Details
+            || details instanceof BuildCacheArchiveUnpackBuildOperationType.Details
+            || details instanceof BuildCacheLocalLoadBuildOperationType.Details
+            || details instanceof BuildCacheLocalStoreBuildOperationType.Details
+            || details instanceof BuildCacheRemoteLoadBuildOperationType.Details
+            || details instanceof BuildCacheRemoteStoreBuildOperationType.Details) {
+            return new BuildCacheEvent();
+        }
+        if (details instanceof ResolveConfigurationDependenciesBuildOperationType.Details) {
+            return new DependencyResolutionEvent();
+        }
+        if (details instanceof ConfigurationCacheLoadBuildOperationType.Details
+            || details instanceof ConfigurationCacheStoreBuildOperationType.Details) {
+            return new ConfigurationCacheEvent();
+        }
+        return new BuildOperationEvent();
+    }
+
+    static abstract class AbstractBuildOperationEvent extends Event {
+        @Label("Operation Id")
+        long operationId;
+
+        @Label("Parent Operation Id")
+        long parentOperationId;
+
+        @Label("Display Name")
+        String displayName;
+
+        @Label("Failure")
+        String failure;
+
+        final void populate(BuildOperationDescriptor descriptor, OperationFinishEvent finishEvent) {
+            operationId = descriptor.getId().getId();
+            OperationIdentifier parentId = descriptor.getParentId();
+            parentOperationId = parentId == null ? 0 : parentId.getId();
+            displayName = descriptor.getDisplayName();
+            Throwable failure = finishEvent.getFailure();
+            if (failure != null) {
+                this.failure = failure.toString();
+            }
+            populate(descriptor.getDetails(), finishEvent.getResult());
+        }
+
+        void populate(Object details, @Nullable Object result) {
+        }
+    }
+
+    @Name("org.gradle.BuildOperation")
+    @Label("Build Operation")
+    @Description("A build operation without a more specific event type")
+    @Category({"Gradle", "Build Operations"})
+    @Threshold("1 ms")
+    @StackTrace(false)
+    static class BuildOperationEvent extends AbstractBuildOperationEvent {
+    }
+
+    @Name("org.gradle.TaskExecution")
+    @Label("Task Execution")
+    @Category({"Gradle", "Build Operations"})
+    @StackTrace(false)
+    static class TaskExecutionEvent extends AbstractBuildOperationEvent {
+        @Label("Build Path")
+        String buildPath;
+
+        @Label("Task Path")
+        String taskPath;
+
+        @Label("Task Class")
+        Class<?> taskClass;
+
+        @Label("Skip Message")
+        String skipMessage;
+
+        @Label("Caching Disabled Reason")
+        String cachingDisabledReason;
+
+        @Override
+        void populate(Object details, @Nullable Object result) {
+            ExecuteTaskBuildOperationType.Details taskDetails = (ExecuteTaskBuildOperationType.Details) details;
+            buildPath = taskDetails.getBuildPath();
+            taskPath = taskDetails.getTaskPath();
+            taskClass = taskDetails.getTaskClass();
+            if (result instanceof ExecuteTaskBuildOperationType.Result) {
+                ExecuteTaskBuildOperationType.Result taskResult = (ExecuteTaskBuildOperationType.Result) result;
+                skipMessage = taskResult.getSkipMessage();
+                cachingDisabledReason = taskResult.getCachingDisabledReasonMessage();
+            }
+        }
+    }
+
+    @Name("org.gradle.TaskInputsFingerprinting")
+    @Label("Task Inputs Fingerprinting")
+    @Description("Snapshotting and fingerprinting the inputs of a task")
+    @Category({"Gradle", "Build Operations"})
+    @StackTrace(false)
+    static class TaskInputsFingerprintingEvent extends AbstractBuildOperationEvent {
+    }
+
+    @Name("org.gradle.BuildCache")
+    @Label("Build Cache Operation")
+    @Description("Packing, unpacking, loading or storing a build cache entry")
+    @Category({"Gradle", "Build Operations"})
+    @StackTrace(false)
+    static class BuildCacheEvent extends AbstractBuildOperationEvent {
+        @Label("Operation")
+        String operation;
+
+        @Label("Cache Key")
+        String cacheKey;
+
+        @Label("Archive Size")
+        @DataAmount
+        long archiveSize;
+
+        @Label("Hit")
+        boolean hit;
+
+        @Label("Stored")
+        boolean stored;
+
+        @Override
+        void populate(Object details, @Nullable Object result) {
+            if (details instanceof BuildCacheArchivePackBuildOperationType.Details) {
+                operation = "pack";
+                cacheKey = ((BuildCacheArchivePackBuildOperationType.Details) details).getCacheKey();
+                if (result instanceof BuildCacheArchivePackBuildOperationType.Result) {
+                    archiveSize = ((BuildCacheArchivePackBuildOperationType.Result) result).getArchiveSize();
+                }
+            } else if (details instanceof BuildCacheArchiveUnpackBuildOperationType.Details) {
+                BuildCacheArchiveUnpackBuildOperationType.Details unpackDetails = (BuildCacheArchiveUnpackBuildOperationType.Details) details;
+                operation = "unpack";
+                cacheKey = unpackDetails.getCacheKey();
+                archiveSize = unpackDetails.getArchiveSize();
+            } else if (details instanceof BuildCacheLocalLoadBuildOperationType.Details) {
+                operation = "local load";
+                cacheKey = ((BuildCacheLocalLoadBuildOperationType.Details) details).getCacheKey();
+                if (result instanceof BuildCacheLocalLoadBuildOperationType.Result) {
+                    BuildCacheLocalLoadBuildOperationType.Result loadResult = (BuildCacheLocalLoadBuildOperationType.Result) result;
+                    hit = loadResult.isHit();
+                    archiveSize = loadResult.getArchiveSize();
+                }
+            } else if (details instanceof BuildCacheLocalStoreBuildOperationType.Details) {
+                BuildCacheLocalStoreBuildOperationType.Details storeDetails = (BuildCacheLocalStoreBuildOperationType.Details) details;
+                operation = "local store";
+                cacheKey = storeDetails.getCacheKey();
+                archiveSize = storeDetails.getArchiveSize();
+                if (result instanceof BuildCacheLocalStoreBuildOperationType.Result) {
+                    stored = ((BuildCacheLocalStoreBuildOperationType.Result) result).isStored();
+                }
+            } else if (details instanceof BuildCacheRemoteLoadBuildOperationType.Details) {
+                operation = "remote load";
+                cacheKey = ((BuildCacheRemoteLoadBuildOperationType.Details) details).getCacheKey();
+                if (result instanceof BuildCacheRemoteLoadBuildOperationType.Result) {
+                    BuildCacheRemoteLoadBuildOperationType.Result loadResult = (BuildCacheRemoteLoadBuildOperationType.Result) result;
+                    hit = loadResult.isHit();
+                    archiveSize = loadResult.getArchiveSize();
+                }
+            } else if (details instanceof BuildCacheRemoteStoreBuildOperationType.Details) {
+                BuildCacheRemoteStoreBuildOperationType.Details storeDetails = (BuildCacheRemoteStoreBuildOperationType.Details) details;
+                operation = "remote store";
+                cacheKey = storeDetails.getCacheKey();
+                archiveSize = storeDetails.getArchiveSize();
+                if (result instanceof BuildCacheRemoteStoreBuildOperationType.Result) {
+                    stored = ((BuildCacheRemoteStoreBuildOperationType.Result) result).isStored();
+                }
+            }
+        }
+    }
+
+    @Name("org.gradle.DependencyResolution")
+    @Label("Dependency Resolution")
+    @Description("Resolving the dependency graph of a configuration")
+    @Category({"Gradle", "Build Operations"})
+    @StackTrace(false)
+    static class DependencyResolutionEvent extends AbstractBuildOperationEvent {
+        @Label("Build Path")
+        String buildPath;
+
+        @Label("Project Path")
+        String projectPath;
+
+        @Label("Configuration")
+        String configurationName;
+
+        @Override
+        void populate(Object details, @Nullable Object result) {
+            ResolveConfigurationDependenciesBuildOperationType.Details resolveDetails = (ResolveConfigurationDependenciesBuildOperationType.Details) details;
+            buildPath = resolveDetails.getBuildPath();
+            projectPath = resolveDetails.getProjectPath();
+            configurationName = resolveDetails.getConfigurationName();
+        }
+    }
+
+    @Name("org.gradle.ConfigurationCache")
+    @Label("Configuration Cache Operation")
+    @Description("Loading or storing a configuration cache entry")
+    @Category({"Gradle", "Build Operations"})
+    @StackTrace(false)
+    static class ConfigurationCacheEvent extends AbstractBuildOperationEvent {
+        @Label("Operation")
+        String operation;
+
+        @Label("Cache Entry Size")
+        @DataAmount
+        long cacheEntrySize;
+
+        @Override
+        void populate(Object details, @Nullable Object result) {
+            if (details instanceof ConfigurationCacheLoadBuildOperationType.Details) {
+                operation = "load";
+                if (result instanceof ConfigurationCacheLoadBuildOperationType.Result) {
+                    cacheEntrySize = ((ConfigurationCacheLoadBuildOperationType.Result) result).getCacheEntrySize();
+                }
+            } else {
+                operation = "store";
+                if (result instanceof ConfigurationCacheStoreBuildOperationType.Result) {
+                    cacheEntrySize = ((ConfigurationCacheStoreBuildOperationType.Result) result).getCacheEntrySize();
+                }
+            }
+        }
+    }
+
+    @Name("org.gradle.ResourceLockWait")
+    @Label("Resource Lock Wait")
+    @Description("Waiting for a worker lease, a project lock or work to run")
+    @Category({"Gradle", "Locks"})
+    @Threshold("1 ms")
+    @StackTrace(false)
+    static class ResourceLockWaitEvent extends Event {
+        @Label("Waited For")
+        String waitedFor;
+    }
+}
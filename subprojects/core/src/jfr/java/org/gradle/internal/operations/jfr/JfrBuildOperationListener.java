@@ -0,0 +1,140 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.OperationFinishEvent;
+import org.gradle.internal.operations.OperationIdentifier;
+import org.gradle.internal.operations.OperationProgressEvent;
+import org.gradle.internal.operations.OperationStartEvent;
+import org.gradle.internal.operations.jfr.BuildOperationJfrEvents.AbstractBuildOperationEvent;
+import org.gradle.internal.operations.jfr.BuildOperationJfrEvents.ResourceLockWaitEvent;
+import org.gradle.internal.resources.LeaseHolder;
+import org.gradle.internal.resources.ResourceLock;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Emits a JDK Flight Recorder event for each build operation and for each wait on worker leases, project locks and work to run.
+ *
+ * Only loaded when the JVM supports JFR, by {@link BuildOperationFlightRecorder}.
+ */
+class JfrBuildOperationListener implements BuildOperationFlightRecorder.Listener {
+
+    private final Map<OperationIdentifier, AbstractBuildOperationEvent> runningOperations = new ConcurrentHashMap<>();
+    @Nullable
+    private final Recording recording;
+
+    /**
+     * @param destination when not null, a recording with the default JFR settings is written to this file on {@link #stop()}.
+     */
+    JfrBuildOperationListener(@Nullable File destination) {
+        if (destination == null) {
+            this.recording = null;
+            return;
+        }
+        try {
+            Recording recording = new Recording(Configuration.getConfiguration("default"));
+            recording.setName("Gradle build operations");
+            recording.setDestination(destination.toPath());
+            recording.start();
+            this.recording = recording;
+        } catch (IOException | ParseException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    @Override
+    public void started(BuildOperationDescriptor buildOperation, OperationStartEvent startEvent) {
+        AbstractBuildOperationEvent event = BuildOperationJfrEvents.forDetails(buildOperation.getDetails());
+        if (!event.isEnabled()) {
+            return;
+        }
+        event.begin();
+        runningOperations.put(buildOperation.getId(), event);
+    }
+
+    @Override
+    public void progress(OperationIdentifier operationIdentifier, OperationProgressEvent progressEvent) {
+    }
+
+    @Override
+    public void finished(BuildOperationDescriptor buildOperation, OperationFinishEvent finishEvent) {
+        AbstractBuildOperationEvent event = runningOperations.remove(buildOperation.getId());
+        if (event == null) {
+            return;
+        }
+        event.end();
+        // Only collect the fields of operations that are long enough to be recorded
+        if (event.shouldCommit()) {
+            event.populate(buildOperation, finishEvent);
+            event.commit();
+        }
+    }
+
+    @Override
+    public Wait startWaiting() {
+        ResourceLockWaitEvent event = new ResourceLockWaitEvent();
+        if (!event.isEnabled()) {
+            return Wait.NONE;
+        }
+        event.begin();
+        return waitedFor -> {
+            event.end();
+            if (event.shouldCommit()) {
+                event.waitedFor = describe(waitedFor);
+                event.commit();
+            }
+        };
+    }
+
+    private static String describe(Collection<?> waitedFor) {
+        StringBuilder builder = new StringBuilder();
+        for (Object item : waitedFor) {
+            if (builder.length() > 0) {
+                builder.append(", ");
+            }
+            if (item instanceof ResourceLock) {
+                builder.append(((ResourceLock) item).getDisplayName());
+            } else if (item instanceof LeaseHolder) {
+                builder.append("lease");
+            } else {
+                builder.append(item);
+            }
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public void stop() {
+        runningOperations.clear();
+        if (recording != null) {
+            // Writes the recording to its destination
+            recording.stop();
+            recording.close();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.api.internal.file.DefaultFilePermissions;
+import org.gradle.api.internal.file.copy.CopyActionProcessingStream;
+import org.gradle.api.internal.file.copy.DefaultZipCompressor;
+import org.gradle.api.internal.file.copy.FileCopyDetailsInternal;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Compares writing a deflated archive sequentially with compressing its entries in parallel, for archives with many small entries up to a few large entries.
+ *
+ * The {@code entries} parameter is the number of entries times the size of each entry in bytes. Entries larger than 4MB wait to be compressed in temporary files.
+ */
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Warmup(iterations = 3, time = 5, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = SECONDS)
+@State(Scope.Benchmark)
+public class ZipCopyActionBenchmark {
+    @Param({"20000x512", "2000x65536", "200x1048576", "20x8388608"})
+    String entries;
+
+    @Param({"false", "true"})
+    boolean parallel;
+
+    private int entryCount;
+    private byte[] content;
+    private File tempDir;
+    private File zipFile;
+    private DefaultExecutorFactory executorFactory;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        String[] countAndSize = entries.split("x");
+        entryCount = Integer.parseInt(countAndSize[0]);
+        content = compressibleContent(Integer.parseInt(countAndSize[1]));
+        tempDir = Files.createTempDirectory("zip-copy-action").toFile();
+        zipFile = new File(tempDir, "archive.zip");
+        executorFactory = new DefaultExecutorFactory();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executorFactory.stop();
+        zipFile.delete();
+        tempDir.delete();
+    }
+
+    @Benchmark
+    public void writeArchive() {
+        ZipCopyAction action = new ZipCopyAction(
+            zipFile,
+            new DefaultZipCompressor(false, ZipArchiveOutputStream.DEFLATED),
+            new DocumentationRegistry(),
+            "UTF-8",
+            false,
+            parallel ? executorFactory : null,
+            Runtime.getRuntime().availableProcessors(),
+            tempDir
+        );
+        action.execute(stream());
+    }
+
+    private CopyActionProcessingStream stream() {
+        return action -> {
+            for (int i = 0; i < entryCount; i++) {
+                action.processFile(file("dir" + (i % 100) + "/file" + i + ".txt"));
+            }
+        };
+    }
+
+    private FileCopyDetailsInternal file(String path) {
+        RelativePath relativePath = RelativePath.parse(true, path);
+        DefaultFilePermissions permissions = new DefaultFilePermissions(0644);
+        return (FileCopyDetailsInternal) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{FileCopyDetailsInternal.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getRelativePath":
+                    return relativePath;
+                case "isDirectory":
+                    return false;
+                case "getSize":
+                    return (long) content.length;
+                case "getLastModified":
+                    return 0L;
+                case "getPermissions":
+                    return permissions;
+                case "copyTo":
+                    if (args[0] instanceof OutputStream) {
+                        try {
+                            ((OutputStream) args[0]).write(content);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        return null;
+                    }
+                    throw new UnsupportedOperationException();
+                case "getUnmodifiedZipEntryContent":
+                    return null;
+                case "toString":
+                    return path;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    /**
+     * Returns text-like content, which deflates to about a third of its size like source files do.
+     */
+    private static byte[] compressibleContent(int size) {
+        Random random = new Random(1234);
+        String[] words = {"public", "class", "return", "final", "static", "void", "import", "String", "private", "new", "int", "if"};
+        byte[] content = new byte[size];
+        int pos = 0;
+        while (pos < size) {
+            byte[] word = (words[random.nextInt(words.length)] + (random.nextInt(8) == 0 ? "\n" : " ")).getBytes();
+            int length = Math.min(word.length, size - pos);
+            System.arraycopy(word, 0, content, pos, length);
+            pos += length;
+        }
+        return content;
+    }
+}
@@ -22,8 +22,12 @@
 import org.gradle.cache.PersistentCache;
 import org.gradle.cache.internal.InMemoryCacheDecoratorFactory;
 import org.gradle.cache.scopes.ScopedCacheBuilderFactory;
+import org.gradle.internal.hash.Hashing;
 
 import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 public class CrossBuildFileHashCache implements Closeable {
 
@@ -32,7 +36,7 @@ public class CrossBuildFileHashCache implements Closeable {
 
     public CrossBuildFileHashCache(ScopedCacheBuilderFactory cacheBuilderFactory, InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory, Kind cacheKind) {
         this.inMemoryCacheDecoratorFactory = inMemoryCacheDecoratorFactory;
-        cache = cacheBuilderFactory.createCacheBuilder(cacheKind.cacheId)
+        cache = cacheBuilderFactory.createCacheBuilder(cacheKind.getCacheId())
             .withDisplayName(cacheKind.description)
             .withInitialLockMode(FileLockManager.LockMode.OnDemand)
             .open();
@@ -50,18 +54,37 @@ public void close() {
     }
 
     public enum Kind {
-        FILE_HASHES("fileHashes", "file hash cache"),
-        CHECKSUMS("checksums", "checksums cache");
-        private final String cacheId;
+        FILE_HASHES("fileHashes", true, "file hash cache"),
+        CHECKSUMS("checksums", false, "checksums cache");
+        private final String baseCacheId;
+        private final boolean qualifiedByHashFunction;
         private final String description;
 
-        Kind(String cacheId, String description) {
-            this.cacheId = cacheId;
+        Kind(String baseCacheId, boolean qualifiedByHashFunction, String description) {
+            this.baseCacheId = baseCacheId;
+            this.qualifiedByHashFunction = qualifiedByHashFunction;
             this.description = description;
         }
 
+        /**
+         * The id of the cache. Caches holding hashes produced by the default hash function are qualified with that function when a non-standard default is selected.
+         */
         public String getCacheId() {
-            return cacheId;
+            return qualifiedByHashFunction ? baseCacheId + Hashing.defaultFunctionQualifier() : baseCacheId;
+        }
+
+        /**
+         * The ids the cache has with each of the hash functions that can be selected as default, starting with the id it has with the standard default.
+         */
+        public List<String> getCacheIdsForAllHashFunctions() {
+            if (!qualifiedByHashFunction) {
+                return Collections.singletonList(baseCacheId);
+            }
+            List<String> cacheIds = new ArrayList<>();
+            for (String qualifier : Hashing.defaultFunctionQualifiers()) {
+                cacheIds.add(baseCacheId + qualifier);
+            }
+            return cacheIds;
         }
 
         public String getDescription() {
@@ -19,6 +19,7 @@
 import org.gradle.cache.PersistentCache;
 import org.gradle.cache.scopes.ScopedCacheBuilderFactory;
 import org.gradle.internal.execution.history.ExecutionHistoryCacheAccess;
+import org.gradle.internal.hash.Hashing;
 
 import java.io.Closeable;
 
@@ -27,7 +28,7 @@ public class DefaultExecutionHistoryCacheAccess implements ExecutionHistoryCache
 
     public DefaultExecutionHistoryCacheAccess(ScopedCacheBuilderFactory cacheBuilderFactory) {
         this.cache = cacheBuilderFactory
-            .createCacheBuilder("executionHistory")
+            .createCacheBuilder("executionHistory" + Hashing.defaultFunctionQualifier())
             .withDisplayName("execution history cache")
             .withInitialLockMode(FileLockManager.LockMode.OnDemand)
             .open();
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.concurrent.ParallelismConfiguration;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.snapshot.impl.DirectorySnapshotter;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.Executor;
+
+/**
+ * Provides the executor on which the directory snapshotters of a build session hash regular files, bounded by the maximum number of workers,
+ * when enabled by the {@value DirectorySnapshotter#PARALLEL_HASHING_PROPERTY} system property.
+ */
+public class DirectoryHashingExecutor implements Stoppable {
+    @Nullable
+    private final ManagedExecutor executor;
+
+    public DirectoryHashingExecutor(ExecutorFactory executorFactory, ParallelismConfiguration parallelismConfiguration) {
+        this.executor = Boolean.getBoolean(DirectorySnapshotter.PARALLEL_HASHING_PROPERTY)
+            ? executorFactory.create("Directory file hashing", parallelismConfiguration.getMaxWorkerCount())
+            : null;
+    }
+
+    /**
+     * Returns the executor to hash regular files on, or {@code null} when regular files are hashed by the thread walking the directory.
+     */
+    @Nullable
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    @Override
+    public void stop() {
+        CompositeStoppable.stoppable(executor).stop();
+    }
+}
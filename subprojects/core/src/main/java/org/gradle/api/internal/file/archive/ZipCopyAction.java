@@ -15,10 +15,14 @@
  */
 package org.gradle.api.internal.file.archive;
 
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.zip.DefaultBackingStoreSupplier;
+import org.apache.commons.compress.archivers.zip.ParallelScatterZipCreator;
 import org.apache.commons.compress.archivers.zip.UnixStat;
 import org.apache.commons.compress.archivers.zip.Zip64RequiredException;
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
 import org.gradle.api.GradleException;
 import org.gradle.api.file.FileCopyDetails;
 import org.gradle.api.internal.DocumentationRegistry;
@@ -31,10 +35,23 @@
 import org.gradle.api.tasks.WorkResults;
 import org.gradle.api.tasks.bundling.Zip;
 import org.gradle.internal.IoActions;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.io.StreamByteBuffer;
 
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
 
 public class ZipCopyAction implements CopyAction {
     /**
@@ -54,18 +71,75 @@ public class ZipCopyAction implements CopyAction {
      */
     public static final long CONSTANT_TIME_FOR_ZIP_ENTRIES = new GregorianCalendar(1980, Calendar.FEBRUARY, 1, 0, 0, 0).getTimeInMillis();
 
+    /**
+     * Enables compressing the entries of deflated archives concurrently.
+     */
+    public static final String PARALLEL_COMPRESSION_PROPERTY = "org.gradle.internal.archive.parallel-compression";
+
+    /**
+     * Enables copying the compressed content of unmodified entries of ZIP files into the archive as is, instead of decompressing and compressing it again.
+     *
+     * Entries are always compressed again when they are compressed concurrently, see {@link #PARALLEL_COMPRESSION_PROPERTY}.
+     */
+    public static final String RAW_ENTRY_COPY_PROPERTY = "org.gradle.internal.archive.raw-entry-copy";
+
+    /**
+     * The maximum size of the content of the entries that wait in memory to be compressed.
+     */
+    private static final int MAX_BUFFERED_CONTENT_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * The content of entries larger than this is written to a temporary file to wait to be compressed.
+     */
+    private static final int MAX_BUFFERED_ENTRY_SIZE = 4 * 1024 * 1024;
+
     private final File zipFile;
     private final ZipCompressor compressor;
     private final DocumentationRegistry documentationRegistry;
     private final String encoding;
     private final boolean preserveFileTimestamps;
+    private final ExecutorFactory executorFactory;
+    private final int maxParallelism;
+    private final File temporaryDir;
+    private final boolean copyRawEntries;
 
     public ZipCopyAction(File zipFile, ZipCompressor compressor, DocumentationRegistry documentationRegistry, String encoding, boolean preserveFileTimestamps) {
+        this(zipFile, compressor, documentationRegistry, encoding, preserveFileTimestamps, null, 1, null);
+    }
+
+    /**
+     * Creates an action that deflates the entries of the archive concurrently, on up to the given number of threads created by the given factory, when one is provided.
+     * The content of large entries waits to be compressed, and the compressed entries wait to be written to the archive, in files in the given temporary directory.
+     *
+     * The entries are written to the archive in the order they are visited, so that the archive is reproducible.
+     */
+    public ZipCopyAction(
+        File zipFile,
+        ZipCompressor compressor,
+        DocumentationRegistry documentationRegistry,
+        String encoding,
+        boolean preserveFileTimestamps,
+        @Nullable ExecutorFactory executorFactory,
+        int maxParallelism,
+        @Nullable File temporaryDir
+    ) {
         this.zipFile = zipFile;
         this.compressor = compressor;
         this.documentationRegistry = documentationRegistry;
         this.encoding = encoding;
         this.preserveFileTimestamps = preserveFileTimestamps;
+        this.executorFactory = executorFactory;
+        this.maxParallelism = maxParallelism;
+        this.temporaryDir = temporaryDir;
+        this.copyRawEntries = isRawEntryCopyEnabled();
+    }
+
+    public static boolean isParallelCompressionEnabled() {
+        return Boolean.getBoolean(PARALLEL_COMPRESSION_PROPERTY);
+    }
+
+    public static boolean isRawEntryCopyEnabled() {
+        return Boolean.getBoolean(RAW_ENTRY_COPY_PROPERTY);
     }
 
     @Override
@@ -80,7 +154,11 @@ public WorkResult execute(final CopyActionProcessingStream stream) {
 
         try {
             IoActions.withResource(zipOutStr, outputStream -> {
-                stream.process(new StreamAction(outputStream, encoding));
+                if (executorFactory != null) {
+                    processInParallel(stream, outputStream);
+                } else {
+                    stream.process(new StreamAction(outputStream, encoding));
+                }
             });
         } catch (Exception e) {
             if (e.getCause() instanceof Zip64RequiredException) {
@@ -95,6 +173,43 @@ public WorkResult execute(final CopyActionProcessingStream stream) {
         return WorkResults.didWork(true);
     }
 
+    private void processInParallel(CopyActionProcessingStream stream, ZipArchiveOutputStream zipOutStr) {
+        if (encoding != null) {
+            zipOutStr.setEncoding(encoding);
+        }
+        // The creator shuts the executor down once all entries have been compressed
+        ParallelScatterZipCreator creator = new ParallelScatterZipCreator(
+            executorFactory.create("Compress entries of " + zipFile.getName(), maxParallelism),
+            new DefaultBackingStoreSupplier(temporaryDir != null ? temporaryDir.toPath() : null)
+        );
+        try {
+            try {
+                stream.process(new ParallelStreamAction(creator));
+            } catch (RuntimeException e) {
+                discardEntries(creator);
+                throw e;
+            }
+            creator.writeTo(zipOutStr);
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } catch (ExecutionException e) {
+            throw new GradleException(String.format("Could not add entries to ZIP '%s'.", zipFile), e.getCause());
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    /**
+     * Waits for the entries submitted so far and releases their scatter buffers.
+     */
+    private static void discardEntries(ParallelScatterZipCreator creator) {
+        try (ZipArchiveOutputStream discarded = new ZipArchiveOutputStream(NullOutputStream.NULL_OUTPUT_STREAM)) {
+            creator.writeTo(discarded);
+        } catch (Exception e) {
+            // Ignore, the original failure is reported
+        }
+    }
+
     private class StreamAction implements CopyActionProcessingStreamAction {
         private final ZipArchiveOutputStream zipOutStr;
 
@@ -114,11 +229,23 @@ public void processFile(FileCopyDetailsInternal details) {
             }
         }
 
-        private void visitFile(FileCopyDetails fileDetails) {
+        private void visitFile(FileCopyDetailsInternal fileDetails) {
             try {
                 ZipArchiveEntry archiveEntry = new ZipArchiveEntry(fileDetails.getRelativePath().getPathString());
                 archiveEntry.setTime(getArchiveTimeFor(fileDetails));
                 archiveEntry.setUnixMode(UnixStat.FILE_FLAG | fileDetails.getPermissions().toUnixNumeric());
+                ZipEntryContent rawContent = copyRawEntries ? rawContentOf(fileDetails) : null;
+                if (rawContent != null) {
+                    ZipArchiveEntry sourceEntry = rawContent.getZipEntry();
+                    archiveEntry.setMethod(sourceEntry.getMethod());
+                    archiveEntry.setCrc(sourceEntry.getCrc());
+                    archiveEntry.setSize(sourceEntry.getSize());
+                    archiveEntry.setCompressedSize(sourceEntry.getCompressedSize());
+                    try (InputStream content = rawContent.openRaw()) {
+                        zipOutStr.addRawArchiveEntry(archiveEntry, content);
+                    }
+                    return;
+                }
                 zipOutStr.putArchiveEntry(archiveEntry);
                 fileDetails.copyTo(zipOutStr);
                 zipOutStr.closeArchiveEntry();
@@ -141,6 +268,113 @@ private void visitDir(FileCopyDetails dirDetails) {
         }
     }
 
+    /**
+     * Reads the content of each file on the visiting thread, as file details may only be read while they are visited, and submits the content to be deflated.
+     */
+    private class ParallelStreamAction implements CopyActionProcessingStreamAction {
+        private final ParallelScatterZipCreator creator;
+        private final Semaphore bufferedContent = new Semaphore(MAX_BUFFERED_CONTENT_SIZE);
+
+        public ParallelStreamAction(ParallelScatterZipCreator creator) {
+            this.creator = creator;
+        }
+
+        @Override
+        public void processFile(FileCopyDetailsInternal details) {
+            if (details.isDirectory()) {
+                visitDir(details);
+            } else {
+                visitFile(details);
+            }
+        }
+
+        private void visitFile(FileCopyDetails fileDetails) {
+            ZipArchiveEntry archiveEntry = new ZipArchiveEntry(fileDetails.getRelativePath().getPathString());
+            archiveEntry.setMethod(ZipArchiveEntry.DEFLATED);
+            archiveEntry.setTime(getArchiveTimeFor(fileDetails));
+            archiveEntry.setUnixMode(UnixStat.FILE_FLAG | fileDetails.getPermissions().toUnixNumeric());
+            InputStream content;
+            try {
+                content = fileDetails.getSize() > MAX_BUFFERED_ENTRY_SIZE ? copyToTemporaryFile(fileDetails) : copyToMemory(fileDetails);
+            } catch (Exception e) {
+                throw new GradleException(String.format("Could not add %s to ZIP '%s'.", fileDetails, zipFile), e);
+            }
+            creator.addArchiveEntry(archiveEntry, () -> content);
+        }
+
+        private InputStream copyToMemory(FileCopyDetails fileDetails) throws InterruptedException {
+            int size = (int) fileDetails.getSize();
+            bufferedContent.acquire(size);
+            try {
+                StreamByteBuffer buffer = StreamByteBuffer.createWithChunkSizeInDefaultRange(size);
+                fileDetails.copyTo(buffer.getOutputStream());
+                // Reads the chunks the content was written to, without copying them
+                return new FilterInputStream(buffer.getInputStream()) {
+                    @Override
+                    public void close() throws IOException {
+                        super.close();
+                        bufferedContent.release(size);
+                    }
+                };
+            } catch (RuntimeException e) {
+                bufferedContent.release(size);
+                throw e;
+            }
+        }
+
+        private InputStream copyToTemporaryFile(FileCopyDetails fileDetails) throws IOException {
+            File contentFile = File.createTempFile("zip-entry", ".tmp", temporaryDir);
+            try {
+                try (OutputStream outputStream = new FileOutputStream(contentFile)) {
+                    fileDetails.copyTo(outputStream);
+                }
+                return new FilterInputStream(new FileInputStream(contentFile)) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            contentFile.delete();
+                        }
+                    }
+                };
+            } catch (IOException | RuntimeException e) {
+                contentFile.delete();
+                throw e;
+            }
+        }
+
+        private void visitDir(FileCopyDetails dirDetails) {
+            // Trailing slash in name indicates that entry is a directory
+            ZipArchiveEntry archiveEntry = new ZipArchiveEntry(dirDetails.getRelativePath().getPathString() + '/');
+            archiveEntry.setMethod(ZipArchiveEntry.DEFLATED);
+            archiveEntry.setTime(getArchiveTimeFor(dirDetails));
+            archiveEntry.setUnixMode(UnixStat.DIR_FLAG | dirDetails.getPermissions().toUnixNumeric());
+            creator.addArchiveEntry(archiveEntry, () -> new ByteArrayInputStream(new byte[0]));
+        }
+    }
+
+    /**
+     * Returns the content of the given file when it can be copied without decompressing it, that is when it is an unmodified entry of a ZIP file
+     * that is compressed the same way as the entries of this archive.
+     */
+    @Nullable
+    private ZipEntryContent rawContentOf(FileCopyDetailsInternal details) {
+        ZipEntryContent content = details.getUnmodifiedZipEntryContent();
+        if (content == null) {
+            return null;
+        }
+        ZipArchiveEntry entry = content.getZipEntry();
+        if (entry.getMethod() != compressor.getEntryCompressionMethod()
+            || entry.getGeneralPurposeBit().usesEncryption()
+            || entry.getCrc() == -1
+            || entry.getSize() == ArchiveEntry.SIZE_UNKNOWN
+            || entry.getCompressedSize() == ArchiveEntry.SIZE_UNKNOWN) {
+            return null;
+        }
+        return content;
+    }
+
     private long getArchiveTimeFor(FileCopyDetails details) {
         return preserveFileTimestamps ? details.getLastModified() : CONSTANT_TIME_FOR_ZIP_ENTRIES;
     }
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+
+import java.io.InputStream;
+
+/**
+ * The content of a file that is stored as an entry of a ZIP file, which can be copied to another ZIP file without decompressing it.
+ */
+public interface ZipEntryContent {
+    /**
+     * Returns the entry, with the compression method, CRC and sizes of its content.
+     */
+    ZipArchiveEntry getZipEntry();
+
+    /**
+     * Opens the content of the entry as it is stored in the ZIP file, that is without decompressing it.
+     */
+    InputStream openRaw();
+}
@@ -137,7 +137,7 @@ private File getExpandedDir() {
         return temporaryExtractionDir.newTemporaryDirectory(".cache", "expanded", expandedDirName);
     }
 
-    private static final class DetailsImpl extends AbstractArchiveFileTreeElement {
+    private static final class DetailsImpl extends AbstractArchiveFileTreeElement implements ZipEntryContent {
         private final File originalFile;
         private final ZipArchiveEntry entry;
         private final ZipFile zip;
@@ -173,6 +173,20 @@ public InputStream open() {
             }
         }
 
+        @Override
+        public ZipArchiveEntry getZipEntry() {
+            return entry;
+        }
+
+        @Override
+        public InputStream openRaw() {
+            try {
+                return zip.getRawInputStream(entry);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
         @Override
         public FilePermissions getPermissions() {
             int unixMode = entry.getUnixMode() & 0777;
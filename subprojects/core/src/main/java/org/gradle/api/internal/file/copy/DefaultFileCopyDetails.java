@@ -28,11 +28,13 @@
 import org.gradle.api.file.RelativePath;
 import org.gradle.api.internal.file.AbstractFileTreeElement;
 import org.gradle.api.internal.file.DefaultConfigurableFilePermissions;
+import org.gradle.api.internal.file.archive.ZipEntryContent;
 import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.provider.Provider;
 import org.gradle.internal.Actions;
 import org.gradle.internal.file.Chmod;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.io.File;
 import java.io.FilterReader;
@@ -127,6 +129,15 @@ public void copyTo(OutputStream output) {
         }
     }
 
+    @Nullable
+    @Override
+    public ZipEntryContent getUnmodifiedZipEntryContent() {
+        if (!filterChain.hasFilters() && fileDetails instanceof ZipEntryContent) {
+            return (ZipEntryContent) fileDetails;
+        }
+        return null;
+    }
+
     @Override
     public boolean copyTo(File target) {
         if (filterChain.hasFilters()) {
@@ -32,6 +32,11 @@ public DefaultZipCompressor(boolean allowZip64Mode, int entryCompressionMethod)
         zip64Mode = allowZip64Mode ? Zip64Mode.AsNeeded : Zip64Mode.Never;
     }
 
+    @Override
+    public int getEntryCompressionMethod() {
+        return entryCompressionMethod;
+    }
+
     @Override
     public ZipArchiveOutputStream createArchiveOutputStream(File destination) throws IOException {
         ZipArchiveOutputStream outStream = new ZipArchiveOutputStream(destination);
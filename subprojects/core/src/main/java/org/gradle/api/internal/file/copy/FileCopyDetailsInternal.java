@@ -17,10 +17,19 @@
 package org.gradle.api.internal.file.copy;
 
 import org.gradle.api.file.FileCopyDetails;
+import org.gradle.api.internal.file.archive.ZipEntryContent;
+
+import javax.annotation.Nullable;
 
 public interface FileCopyDetailsInternal extends FileCopyDetails {
 
     boolean isIncludeEmptyDirs();
 
     boolean isDefaultDuplicatesStrategy();
+
+    /**
+     * Returns the ZIP entry that holds the content of this file, when the content is copied unmodified from a ZIP file.
+     */
+    @Nullable
+    ZipEntryContent getUnmodifiedZipEntryContent();
 }
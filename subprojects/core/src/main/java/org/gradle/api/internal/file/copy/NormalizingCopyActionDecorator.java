@@ -28,9 +28,11 @@
 import org.gradle.api.file.RelativePath;
 import org.gradle.api.internal.file.AbstractFileTreeElement;
 import org.gradle.api.internal.file.CopyActionProcessingStreamAction;
+import org.gradle.api.internal.file.archive.ZipEntryContent;
 import org.gradle.api.tasks.WorkResult;
 import org.gradle.internal.file.Chmod;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.FilterReader;
 import java.io.InputStream;
@@ -205,6 +207,12 @@ public boolean isDefaultDuplicatesStrategy() {
             throw new UnsupportedOperationException();
         }
 
+        @Nullable
+        @Override
+        public ZipEntryContent getUnmodifiedZipEntryContent() {
+            return null;
+        }
+
         @Override
         public String getSourceName() {
             throw new UnsupportedOperationException();
@@ -26,4 +26,9 @@ public interface ZipCompressor extends ArchiveOutputStreamFactory {
     @Override
     ZipArchiveOutputStream createArchiveOutputStream(File destination) throws IOException;
 
+    /**
+     * Returns the compression method of the entries of the archives created by this compressor.
+     */
+    int getEntryCompressionMethod();
+
 }
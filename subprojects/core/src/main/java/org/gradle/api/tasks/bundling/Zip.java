@@ -25,6 +25,8 @@
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.Optional;
+import org.gradle.concurrent.ParallelismConfiguration;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.work.DisableCachingByDefault;
 
 import javax.annotation.Nullable;
@@ -62,6 +64,18 @@ protected ZipCompressor getCompressor() {
     @Override
     protected CopyAction createCopyAction() {
         DocumentationRegistry documentationRegistry = getServices().get(DocumentationRegistry.class);
+        if (entryCompression == ZipEntryCompression.DEFLATED && ZipCopyAction.isParallelCompressionEnabled()) {
+            return new ZipCopyAction(
+                getArchiveFile().get().getAsFile(),
+                getCompressor(),
+                documentationRegistry,
+                metadataCharset,
+                isPreserveFileTimestamps(),
+                getServices().get(ExecutorFactory.class),
+                getServices().get(ParallelismConfiguration.class).getMaxWorkerCount(),
+                getTemporaryDir()
+            );
+        }
         return new ZipCopyAction(getArchiveFile().get().getAsFile(), getCompressor(), documentationRegistry, metadataCharset, isPreserveFileTimestamps());
     }
 
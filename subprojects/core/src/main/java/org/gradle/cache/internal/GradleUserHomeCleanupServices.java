@@ -25,8 +25,11 @@
 import org.gradle.internal.logging.progress.ProgressLoggerFactory;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.session.BuildSessionLifecycleListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class GradleUserHomeCleanupServices {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GradleUserHomeCleanupServices.class);
 
     public void configure(
         ServiceRegistration registration,
@@ -36,7 +39,8 @@ public void configure(
         ProgressLoggerFactory progressLoggerFactory,
         CacheConfigurationsInternal cacheConfigurations,
         ListenerManager listenerManager,
-        CacheFactory cacheFactory
+        CacheFactory cacheFactory,
+        CacheAccessWorkerStatistics.Collector cacheAccessWorkerStatisticsCollector
     ) {
         UsedGradleVersions usedGradleVersions = new UsedGradleVersionsFromGradleUserHomeCaches(cacheBuilderFactory);
         registration.add(UsedGradleVersions.class, usedGradleVersions);
@@ -55,6 +59,7 @@ public void beforeComplete() {
                     gradleUserHomeCleanupService.cleanup();
                     cacheFactory.visitCaches(PersistentCache::cleanup);
                 }
+                LOGGER.info("Cache workers> Statistics during current build: {}", cacheAccessWorkerStatisticsCollector.collect());
             }
         });
     }
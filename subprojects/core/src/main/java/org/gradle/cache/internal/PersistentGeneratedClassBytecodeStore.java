@@ -0,0 +1,123 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+import org.gradle.cache.FileLockManager;
+import org.gradle.cache.IndexedCache;
+import org.gradle.cache.IndexedCacheParameters;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.scopes.GlobalScopedCacheBuilderFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.instantiation.generator.GeneratedClassBytecodeStore;
+import org.gradle.internal.instantiation.generator.GlobalGeneratedClassBytecodeStore;
+import org.gradle.internal.serialize.HashCodeSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.gradle.internal.serialize.BaseSerializerFactory.BYTE_ARRAY_SERIALIZER;
+
+/**
+ * Keeps the bytecode of generated classes in the Gradle user home directory, so that a new daemon can define the classes
+ * used by the build without generating them again.
+ *
+ * The cache is version specific and only used when the {@value #ENABLED_PROPERTY} system property is set to true.
+ * While open, it is attached to the {@link GlobalGeneratedClassBytecodeStore} used by the global class generators.
+ */
+public class PersistentGeneratedClassBytecodeStore implements GeneratedClassBytecodeStore, Stoppable {
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.instantiation.persistent-class-cache";
+    public static final String CACHE_KEY = "generated-classes";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PersistentGeneratedClassBytecodeStore.class);
+
+    private final GlobalGeneratedClassBytecodeStore globalStore;
+    private final PersistentCache cache;
+    private final IndexedCache<HashCode, byte[]> bytecode;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+    private final AtomicInteger stores = new AtomicInteger();
+
+    public PersistentGeneratedClassBytecodeStore(GlobalScopedCacheBuilderFactory cacheBuilderFactory, GlobalGeneratedClassBytecodeStore globalStore) {
+        this.globalStore = globalStore;
+        if (Boolean.getBoolean(ENABLED_PROPERTY)) {
+            cache = cacheBuilderFactory
+                .createCacheBuilder(CACHE_KEY)
+                .withDisplayName("generated classes cache")
+                .withInitialLockMode(FileLockManager.LockMode.OnDemand)
+                .open();
+            bytecode = cache.createIndexedCache(IndexedCacheParameters.of("bytecode", new HashCodeSerializer(), BYTE_ARRAY_SERIALIZER));
+            globalStore.attach(this);
+        } else {
+            cache = null;
+            bytecode = null;
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return bytecode != null;
+    }
+
+    @Nullable
+    @Override
+    public byte[] load(HashCode key) {
+        if (bytecode == null) {
+            return null;
+        }
+        byte[] result = bytecode.getIfPresent(key);
+        if (result == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return result;
+    }
+
+    @Override
+    public void store(HashCode key, byte[] bytecode) {
+        if (this.bytecode == null) {
+            return;
+        }
+        this.bytecode.put(key, bytecode);
+        stores.incrementAndGet();
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    public int getStores() {
+        return stores.get();
+    }
+
+    @Override
+    public void stop() {
+        if (cache == null) {
+            return;
+        }
+        globalStore.detach(this);
+        cache.close();
+        LOGGER.info("Generated classes cache: {} hits, {} misses, {} classes stored.", hits.get(), misses.get(), stores.get());
+    }
+}
@@ -34,15 +34,22 @@
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.SortedSet;
 import java.util.function.Supplier;
 
 public class VersionSpecificCacheCleanupAction implements MonitoredCleanupAction {
-    private final static String FILE_HASHES_CACHE_KEY =  CrossBuildFileHashCache.Kind.FILE_HASHES.getCacheId();
+    /**
+     * The lock files of the file hash cache, one for each hash function a version-specific cache directory may have been used with.
+     * The first one is the lock file of the file hash cache of the standard hash function.
+     */
+    private static final List<String> MARKER_FILE_PATHS = markerFilePaths();
 
-    @VisibleForTesting static final String MARKER_FILE_PATH = FILE_HASHES_CACHE_KEY + "/" + FILE_HASHES_CACHE_KEY + ".lock";
+    @VisibleForTesting static final String MARKER_FILE_PATH = MARKER_FILE_PATHS.get(0);
     private static final Logger LOGGER = LoggerFactory.getLogger(VersionSpecificCacheCleanupAction.class);
 
     private final VersionSpecificCacheDirectoryScanner versionSpecificCacheDirectoryScanner;
@@ -51,6 +58,14 @@ public class VersionSpecificCacheCleanupAction implements MonitoredCleanupAction
     private final Deleter deleter;
     private final CleanupFrequency cleanupFrequency;
 
+    private static List<String> markerFilePaths() {
+        List<String> markerFilePaths = new ArrayList<>();
+        for (String cacheId : CrossBuildFileHashCache.Kind.FILE_HASHES.getCacheIdsForAllHashFunctions()) {
+            markerFilePaths.add(cacheId + "/" + cacheId + ".lock");
+        }
+        return markerFilePaths;
+    }
+
     public VersionSpecificCacheCleanupAction(File cacheBaseDir, Supplier<Long> releasesAndSnapshotTimestampSupplier, Deleter deleter, CleanupFrequency cleanupFrequency) {
         this(cacheBaseDir, releasesAndSnapshotTimestampSupplier, releasesAndSnapshotTimestampSupplier, deleter, cleanupFrequency);
     }
@@ -161,8 +176,20 @@ public boolean isSatisfiedBy(VersionSpecificCacheDirectory cacheDir) {
             if (cacheDir.getVersion().compareTo(GradleVersion.current()) >= 0) {
                 return false;
             }
-            File markerFile = new File(cacheDir.getDir(), MARKER_FILE_PATH);
-            return markerFile.exists() && markerFileHasNotBeenTouchedRecently(cacheDir, markerFile);
+            File markerFile = mostRecentlyTouchedMarkerFileOf(cacheDir);
+            return markerFile != null && markerFileHasNotBeenTouchedRecently(cacheDir, markerFile);
+        }
+
+        @Nullable
+        private File mostRecentlyTouchedMarkerFileOf(VersionSpecificCacheDirectory cacheDir) {
+            File mostRecent = null;
+            for (String markerFilePath : MARKER_FILE_PATHS) {
+                File markerFile = new File(cacheDir.getDir(), markerFilePath);
+                if (markerFile.exists() && (mostRecent == null || markerFile.lastModified() > mostRecent.lastModified())) {
+                    mostRecent = markerFile;
+                }
+            }
+            return mostRecent;
         }
 
         private boolean markerFileHasNotBeenTouchedRecently(VersionSpecificCacheDirectory cacheDir, File markerFile) {
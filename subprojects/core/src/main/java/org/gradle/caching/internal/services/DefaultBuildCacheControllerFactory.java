@@ -31,6 +31,7 @@
 import org.gradle.caching.local.internal.DirectoryBuildCacheService;
 import org.gradle.internal.operations.BuildOperationExecutor;
 import org.gradle.internal.operations.BuildOperationProgressEventEmitter;
+import org.gradle.internal.operations.BuildOperationRef;
 import org.gradle.util.Path;
 
 import javax.annotation.Nullable;
@@ -40,6 +41,8 @@ public class DefaultBuildCacheControllerFactory extends AbstractBuildCacheContro
     private final TemporaryFileProvider temporaryFileProvider;
     private final BuildCacheEntryPacker packer;
     private final BuildOperationProgressEventEmitter buildOperationProgressEmitter;
+    @Nullable
+    private final BuildOperationRef buildOperation;
 
     public DefaultBuildCacheControllerFactory(
         StartParameter startParameter,
@@ -48,7 +51,8 @@ public DefaultBuildCacheControllerFactory(
         OriginMetadataFactory originMetadataFactory,
         StringInterner stringInterner,
         TemporaryFileProvider temporaryFileProvider,
-        BuildCacheEntryPacker packer
+        BuildCacheEntryPacker packer,
+        @Nullable BuildOperationRef buildOperation
     ) {
         super(
             startParameter,
@@ -59,6 +63,7 @@ public DefaultBuildCacheControllerFactory(
         this.temporaryFileProvider = temporaryFileProvider;
         this.packer = packer;
         this.buildOperationProgressEmitter = buildOperationProgressEmitter;
+        this.buildOperation = buildOperation;
     }
 
     @Override
@@ -82,6 +87,8 @@ protected BuildCacheController doCreateController(
             temporaryFileProvider::createTemporaryFile,
             logStackTraces,
             !Boolean.getBoolean(REMOTE_CONTINUE_ON_ERROR_PROPERTY),
+            Boolean.getBoolean(REMOTE_ASYNC_STORE_PROPERTY),
+            buildOperation,
             packer,
             originMetadataFactory,
             stringInterner
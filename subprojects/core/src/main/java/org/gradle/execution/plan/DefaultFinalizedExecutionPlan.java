@@ -21,6 +21,8 @@
 import org.gradle.api.Action;
 import org.gradle.api.BuildCancelledException;
 import org.gradle.api.NonNullApi;
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.tasks.TaskExecutionOutcome;
 import org.gradle.internal.MutableBoolean;
 import org.gradle.internal.Pair;
 import org.gradle.internal.resources.ResourceLock;
@@ -57,6 +59,10 @@ public int compare(Node node1, Node node2) {
             } else if (!node1.isPriority() && node2.isPriority()) {
                 return 1;
             }
+            int criticalPath = Long.compare(node2.getCriticalPathDuration(), node1.getCriticalPathDuration());
+            if (criticalPath != 0) {
+                return criticalPath;
+            }
             if (node1.getIndex() > node2.getIndex()) {
                 return 1;
             } else if (node1.getIndex() < node2.getIndex()) {
@@ -84,6 +90,8 @@ public int compare(Node node1, Node node2) {
     private final Map<Pair<Node, Node>, Boolean> reachableCache = new HashMap<>();
     private final OrdinalNodeAccess ordinalNodeAccess;
     private final Consumer<LocalTaskNode> completionHandler;
+    private final TaskDurationHistory durationHistory;
+    private final Map<Node, Long> taskStartTimes = new HashMap<>();
 
     // When true, there may be nodes that are both ready and "selectable", which means their project and resources are able to be locked
     // When false, there are definitely no nodes that are "selectable"
@@ -100,7 +108,8 @@ public DefaultFinalizedExecutionPlan(
         List<Node> scheduledNodes,
         boolean continueOnFailure,
         QueryableExecutionPlan contents,
-        Consumer<LocalTaskNode> completionHandler
+        Consumer<LocalTaskNode> completionHandler,
+        TaskDurationHistory durationHistory
     ) {
         this.displayName = displayName;
         this.outputHierarchy = outputHierarchy;
@@ -110,6 +119,7 @@ public DefaultFinalizedExecutionPlan(
         this.continueOnFailure = continueOnFailure;
         this.contents = contents;
         this.completionHandler = completionHandler;
+        this.durationHistory = durationHistory;
 
         SetMultimap<FinalizerGroup, FinalizerGroup> reachableGroups = LinkedHashMultimap.create();
         for (Node node : scheduledNodes) {
@@ -118,6 +128,10 @@ public DefaultFinalizedExecutionPlan(
             }
         }
 
+        if (durationHistory.isEnabled()) {
+            calculateCriticalPathDurations(scheduledNodes);
+        }
+
         for (int i = 0; i < scheduledNodes.size(); i++) {
             Node node = scheduledNodes.get(i);
             node.setIndex(i);
@@ -129,6 +143,22 @@ public DefaultFinalizedExecutionPlan(
         lockCoordinator.addLockReleaseListener(resourceUnlockListener);
     }
 
+    /**
+     * Calculates the critical path duration of each node from the previous durations of the tasks that depend on it, so that long chains are started first.
+     * Relies on the scheduled nodes being ordered so that a node comes before the nodes that depend on it.
+     */
+    private void calculateCriticalPathDurations(List<Node> scheduledNodes) {
+        for (int i = scheduledNodes.size() - 1; i >= 0; i--) {
+            Node node = scheduledNodes.get(i);
+            long longestDependentPath = 0;
+            for (Node predecessor : node.getDependencyPredecessors()) {
+                longestDependentPath = Math.max(longestDependentPath, predecessor.getCriticalPathDuration());
+            }
+            long duration = node instanceof LocalTaskNode ? durationHistory.getPreviousDuration(((LocalTaskNode) node).getTask().getIdentityPath()) : 0;
+            node.setCriticalPathDuration(longestDependentPath + duration);
+        }
+    }
+
     @Override
     public String getDisplayName() {
         return displayName;
@@ -148,6 +178,7 @@ public WorkSource<Node> asWorkSource() {
     public void close() {
         lockCoordinator.removeLockReleaseListener(resourceUnlockListener);
         waitingToStartNodes.clear();
+        taskStartTimes.clear();
         readyNodes.clear();
         runningNodes.clear();
         reachableCache.clear();
@@ -262,6 +293,7 @@ public Selection<Node> selectNext() {
                     // The node is ready to execute and its pre-execution nodes have not been scheduled, so do this now
                     node.visitPreExecutionNodes(prepareNode -> {
                         prepareNode.setIndex(node.getIndex());
+                        prepareNode.setCriticalPathDuration(node.getCriticalPathDuration());
                         prepareNode.require();
                         prepareNode.updateAllDependenciesComplete();
                         node.addDependencySuccessor(prepareNode);
@@ -280,6 +312,9 @@ public Selection<Node> selectNext() {
                     readyNodes.remove();
                     waitingToStartNodes.remove(node);
                     node.getMutationInfo().started();
+                    if (durationHistory.isEnabled() && node instanceof LocalTaskNode) {
+                        taskStartTimes.put(node, System.currentTimeMillis());
+                    }
                     return Selection.of(node);
                 }
             }
@@ -560,6 +595,7 @@ public void finishedExecuting(Node node, @Nullable Throwable failure) {
             }
 
             node.finishExecution(this::recordNodeCompleted);
+            maybeRecordDuration(node);
             if (node.isFailed()) {
                 LOGGER.debug("Node {} failed", node);
                 handleFailure(node);
@@ -567,6 +603,7 @@ public void finishedExecuting(Node node, @Nullable Throwable failure) {
                 LOGGER.debug("Node {} finished executing", node);
                 node.visitPostExecutionNodes(postNode -> {
                     postNode.setIndex(node.getIndex());
+                    postNode.setCriticalPathDuration(node.getCriticalPathDuration());
                     postNode.require();
                     postNode.updateAllDependenciesComplete();
                     addNodeToPlan(postNode);
@@ -586,6 +623,18 @@ public void finishedExecuting(Node node, @Nullable Throwable failure) {
         }
     }
 
+    private void maybeRecordDuration(Node node) {
+        Long startTime = taskStartTimes.remove(node);
+        if (startTime == null) {
+            return;
+        }
+        TaskInternal task = ((LocalTaskNode) node).getTask();
+        // Only record the duration of actual work, as an up-to-date or cached task says nothing about how long the task takes when it needs to run
+        if (!node.isFailed() && task.getState().getOutcome() == TaskExecutionOutcome.EXECUTED) {
+            durationHistory.recordDuration(task.getIdentityPath(), System.currentTimeMillis() - startTime);
+        }
+    }
+
     private void maybeNodeReady(Node node) {
         if (node.allDependenciesComplete()) {
             maybeNodesSelectable = true;
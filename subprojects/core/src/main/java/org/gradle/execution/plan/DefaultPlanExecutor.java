@@ -34,6 +34,7 @@
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.logging.text.TreeFormatter;
 import org.gradle.internal.resources.ResourceLockCoordinationService;
+import org.gradle.internal.resources.ResourceLockState;
 import org.gradle.internal.work.WorkerLeaseRegistry.WorkerLease;
 import org.gradle.internal.work.WorkerLeaseService;
 
@@ -68,6 +69,7 @@ public class DefaultPlanExecutor implements PlanExecutor, Stoppable {
     private final ResourceLockCoordinationService coordinationService;
     private final ManagedExecutor executor;
     private final MergedQueues queue;
+    private final WorkStateCondition workStateCondition = new WorkStateCondition();
     private final ExecutorState state = new ExecutorState();
     private final ExecutorStats stats;
 
@@ -89,7 +91,7 @@ public DefaultPlanExecutor(
         this.executorCount = numberOfParallelExecutors;
         this.workerLeaseService = workerLeaseService;
         this.stats = internalOptions.getOption(STATS).get() ? new CollectingExecutorStats(state) : state;
-        this.queue = new MergedQueues(coordinationService, false);
+        this.queue = new MergedQueues(coordinationService, workStateCondition, false);
         this.executor = executorFactory.create("Execution worker");
     }
 
@@ -111,7 +113,7 @@ public <T> ExecutionResult<Void> process(WorkSource<T> workSource, Action<T> wor
 
         // Run the work from the source from this thread as well, given that it will be blocked waiting for that work to complete anyway
         WorkerLease currentWorkerLease = workerLeaseService.getCurrentWorkerLease();
-        MergedQueues thisPlanOnly = new MergedQueues(coordinationService, true);
+        MergedQueues thisPlanOnly = new MergedQueues(coordinationService, workStateCondition, true);
         thisPlanOnly.add(planDetails);
         new ExecutorWorker(thisPlanOnly, currentWorkerLease, cancellationToken, coordinationService, workerLeaseService, stats).run();
 
@@ -164,7 +166,7 @@ private void awaitCompletion(WorkSource<?> workSource, WorkerLease workerLease,
                 // Need to hold a worker lease in order to finish up
                 if (!workerLease.isLockedByCurrentThread()) {
                     if (!workerLease.tryLock()) {
-                        return RETRY;
+                        return workStateCondition.retry(resourceLockState);
                     }
                 }
                 workSource.collectFailures(failures);
@@ -173,7 +175,7 @@ private void awaitCompletion(WorkSource<?> workSource, WorkerLease workerLease,
             } else {
                 // Release worker lease (if held) while waiting for work to complete
                 workerLease.unlock();
-                return RETRY;
+                return workStateCondition.retry(resourceLockState);
             }
         });
     }
@@ -209,14 +211,36 @@ public WorkItem(WorkSource.Selection<Object> selection, WorkSource<Object> plan,
         }
     }
 
+    /**
+     * The condition that the threads running work wait for when they cannot make progress, which is signalled whenever the state of the work changes.
+     * Only these threads are woken up when work is added, finishes or is aborted, rather than every thread waiting for the state lock.
+     */
+    private static class WorkStateCondition {
+        ResourceLockState.Disposition retry(ResourceLockState resourceLockState) {
+            resourceLockState.registerWaitingFor(this);
+            return RETRY;
+        }
+
+        void signal(ResourceLockCoordinationService coordinationService) {
+            coordinationService.notifyStateChange(this);
+        }
+
+        @Override
+        public String toString() {
+            return "work to run";
+        }
+    }
+
     private static class MergedQueues implements Closeable {
         private final ResourceLockCoordinationService coordinationService;
+        private final WorkStateCondition workStateCondition;
         private final boolean autoFinish;
         private boolean finished;
         private final LinkedList<PlanDetails> queues = new LinkedList<>();
 
-        public MergedQueues(ResourceLockCoordinationService coordinationService, boolean autoFinish) {
+        public MergedQueues(ResourceLockCoordinationService coordinationService, WorkStateCondition workStateCondition, boolean autoFinish) {
             this.coordinationService = coordinationService;
+            this.workStateCondition = workStateCondition;
             this.autoFinish = autoFinish;
         }
 
@@ -276,7 +300,7 @@ public void add(PlanDetails planDetails) {
                 // Assume that the plan is required by those plans already running and add to the head of the queue
                 queues.addFirst(planDetails);
                 // Signal to the worker threads that work may be available
-                coordinationService.notifyStateChange();
+                workStateCondition.signal(coordinationService);
             });
         }
 
@@ -293,7 +317,7 @@ public void close() throws IOException {
                     throw new IllegalStateException("Not all work has completed.");
                 }
                 // Signal to the worker threads that no more work is available
-                coordinationService.notifyStateChange();
+                workStateCondition.signal(coordinationService);
             });
         }
 
@@ -309,7 +333,7 @@ public void abortAllAndFail(Throwable t) {
             for (PlanDetails details : queues) {
                 details.source.abortAllAndFail(t);
             }
-            coordinationService.notifyStateChange();
+            workStateCondition.signal(coordinationService);
         }
 
         public boolean nothingQueued() {
@@ -416,14 +440,14 @@ private WorkItem getNextItem(final WorkerLease workerLease) {
                         // Do not call `startWaitingForNextItem()` as there may be work available but this worker cannot start it, and so should not be considered "waiting for work".
                         // The health monitoring is currently only concerned with whether work can be started.
                         // At some point it could be improved to track the health of all worker threads, not just the plan executor threads
-                        return RETRY;
+                        return queue.workStateCondition.retry(resourceLockState);
                     }
 
                     if (state == WorkSource.State.NoWorkReadyToStart) {
                         stats.startWaitingForNextItem();
                         // Release worker lease while waiting
                         workerLease.unlock();
-                        return RETRY;
+                        return queue.workStateCondition.retry(resourceLockState);
                     }
 
                     // Have a worker lease and work may be available
@@ -442,7 +466,7 @@ private WorkItem getNextItem(final WorkerLease workerLease) {
                         stats.startWaitingForNextItem();
                         // Release worker lease while waiting
                         workerLease.unlock();
-                        return RETRY;
+                        return queue.workStateCondition.retry(resourceLockState);
                     }
 
                     selected.set(workItem.getItem());
@@ -480,9 +504,9 @@ private void markFinished(Object selected, WorkSource<Object> executionPlan, @Nu
                     } catch (Throwable t) {
                         queue.abortAllAndFail(t);
                     }
-                    // Notify other threads that the item is finished as this may unblock further work
+                    // Notify the worker threads that the item is finished as this may unblock further work
                     // or this might be the last item in the queue
-                    coordinationService.notifyStateChange();
+                    queue.workStateCondition.signal(coordinationService);
                 });
             } finally {
                 stats.finishMarkFinished();
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.cache.IndexedCache;
+import org.gradle.cache.IndexedCacheParameters;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.internal.InMemoryCacheDecoratorFactory;
+import org.gradle.internal.buildoption.InternalFlag;
+import org.gradle.util.Path;
+
+import java.io.Closeable;
+
+public class DefaultTaskDurationHistory implements TaskDurationHistory, Closeable {
+    /**
+     * When enabled, task durations are recorded and ready nodes are started in order of their critical path duration.
+     */
+    public static final InternalFlag CRITICAL_PATH_SCHEDULING = new InternalFlag("org.gradle.internal.executor.critical-path");
+
+    private final PersistentCache cacheAccess;
+    private final IndexedCache<String, Long> durations;
+
+    public DefaultTaskDurationHistory(PersistentCache cacheAccess, InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory) {
+        this.cacheAccess = cacheAccess;
+        this.durations = cacheAccess.createIndexedCache(
+            IndexedCacheParameters.of("taskDurations", String.class, Long.class)
+                .withCacheDecorator(inMemoryCacheDecoratorFactory.decorator(10000, true))
+        );
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public long getPreviousDuration(Path taskIdentityPath) {
+        Long duration = durations.getIfPresent(taskIdentityPath.getPath());
+        return duration == null ? 0 : duration;
+    }
+
+    @Override
+    public void recordDuration(Path taskIdentityPath, long durationMillis) {
+        durations.put(taskIdentityPath.getPath(), durationMillis);
+    }
+
+    @Override
+    public void close() {
+        cacheAccess.close();
+    }
+}
@@ -68,6 +68,7 @@ public enum DependenciesState {
     private Throwable executionFailure;
     private boolean filtered;
     private int index;
+    private long criticalPathDuration;
     private DependencyNodesSet dependencyNodes = DependencyNodesSet.EMPTY;
     private DependentNodesSet dependentNodes = DependentNodesSet.EMPTY;
     private final MutationInfo mutationInfo = new MutationInfo();
@@ -333,6 +334,18 @@ public void setIndex(int index) {
         this.index = index;
     }
 
+    /**
+     * Returns the expected duration, in milliseconds, of the longest chain of work that starts with this node and runs through the nodes that depend on it.
+     * Nodes with a longer chain are started first, all else being equal.
+     */
+    public long getCriticalPathDuration() {
+        return criticalPathDuration;
+    }
+
+    public void setCriticalPathDuration(long criticalPathDuration) {
+        this.criticalPathDuration = criticalPathDuration;
+    }
+
     /**
      * Mark this node as filtered from the current plan. The node will be considered complete and successful.
      */
@@ -349,6 +362,7 @@ public void filtered() {
     public void reset() {
         group = NodeGroup.DEFAULT_GROUP;
         index = 0;
+        criticalPathDuration = 0;
         if (!isCannotRunInAnyPlan()) {
             filtered = false;
             dependenciesProcessed = false;
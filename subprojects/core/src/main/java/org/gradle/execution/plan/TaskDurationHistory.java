@@ -0,0 +1,55 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.internal.service.scopes.Scopes;
+import org.gradle.internal.service.scopes.ServiceScope;
+import org.gradle.util.Path;
+
+/**
+ * Remembers how long tasks took to execute, so that the execution plan can start long chains of work early.
+ */
+@ServiceScope(Scopes.Build.class)
+public interface TaskDurationHistory {
+    TaskDurationHistory NONE = new TaskDurationHistory() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public long getPreviousDuration(Path taskIdentityPath) {
+            return 0;
+        }
+
+        @Override
+        public void recordDuration(Path taskIdentityPath, long durationMillis) {
+        }
+    };
+
+    /**
+     * Returns false when durations are neither recorded nor available, in which case callers can skip any work to use them.
+     */
+    boolean isEnabled();
+
+    /**
+     * Returns the duration of the most recent execution of the given task in milliseconds, or 0 when not known.
+     */
+    long getPreviousDuration(Path taskIdentityPath);
+
+    void recordDuration(Path taskIdentityPath, long durationMillis);
+}
@@ -17,6 +17,8 @@
 package org.gradle.internal.buildtree;
 
 import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.operations.BuildOperationRef;
+import org.gradle.internal.operations.CurrentBuildOperationRef;
 import org.gradle.internal.scopeids.id.BuildInvocationScopeId;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.internal.service.ServiceRegistryBuilder;
@@ -24,6 +26,7 @@
 import org.gradle.internal.service.scopes.ServiceScope;
 import org.gradle.internal.work.ProjectParallelExecutionController;
 
+import javax.annotation.Nullable;
 import java.io.Closeable;
 import java.util.function.Function;
 
@@ -34,6 +37,8 @@
 public class BuildTreeState implements Closeable {
     private final ServiceRegistry services;
     private final DefaultBuildTreeContext context;
+    @Nullable
+    private final BuildOperationRef buildOperation;
 
     public BuildTreeState(BuildInvocationScopeId buildInvocationScopeId, ServiceRegistry parent, BuildTreeModelControllerServices.Supplier modelServices) {
         services = ServiceRegistryBuilder.builder()
@@ -43,12 +48,22 @@ public BuildTreeState(BuildInvocationScopeId buildInvocationScopeId, ServiceRegi
             .provider(new BuildTreeScopeServices(buildInvocationScopeId, this, modelServices))
             .build();
         context = new DefaultBuildTreeContext(services);
+        buildOperation = CurrentBuildOperationRef.instance().get();
     }
 
     public ServiceRegistry getServices() {
         return services;
     }
 
+    /**
+     * Returns the build operation this build tree was created in, which stays running until the build tree is closed.
+     * Returns {@code null} when the build tree is not created in a build operation.
+     */
+    @Nullable
+    public BuildOperationRef getBuildOperation() {
+        return buildOperation;
+    }
+
     /**
      * Runs the given action against the state of this build tree.
      */
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.fingerprint.classpath.impl;
+
+import org.gradle.api.internal.changedetection.state.ZipHasher;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.Executor;
+
+/**
+ * Provides the executor on which the classpath fingerprinters hash the entries of zip files in parallel,
+ * when enabled by the {@value ZipHasher#PARALLEL_HASHING_PROPERTY} system property.
+ */
+public class ZipEntryHashingExecutor implements Stoppable {
+    @Nullable
+    private final ManagedExecutor executor;
+
+    public ZipEntryHashingExecutor(ExecutorFactory executorFactory) {
+        this.executor = Boolean.getBoolean(ZipHasher.PARALLEL_HASHING_PROPERTY)
+            ? executorFactory.create("Zip entry hashing", Runtime.getRuntime().availableProcessors())
+            : null;
+    }
+
+    /**
+     * Returns the executor to hash zip entries on, or {@code null} when zip entries are hashed sequentially.
+     */
+    @Nullable
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    @Override
+    public void stop() {
+        CompositeStoppable.stoppable(executor).stop();
+    }
+}
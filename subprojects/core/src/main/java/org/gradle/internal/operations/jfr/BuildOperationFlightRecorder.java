@@ -0,0 +1,124 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations.jfr;
+
+import org.gradle.StartParameter;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.operations.BuildOperationListener;
+import org.gradle.internal.operations.BuildOperationListenerManager;
+import org.gradle.internal.resources.ResourceLockWaitObserver;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Emits JDK Flight Recorder events for build operations and for waits on worker leases, project locks and work to run,
+ * so they show up on the same timeline as the events of the JVM.
+ * Can be enabled for any build with `-Dorg.gradle.internal.operations.jfr`, when the daemon runs on a JVM that supports JFR.
+ *
+ * The events are part of any recording of the daemon, e.g. one started via `-XX:StartFlightRecording` in `org.gradle.jvmargs`.
+ * If invoked as `-Dorg.gradle.internal.operations.jfr=«path»`, a recording with the default JFR settings is also written to «path» at the end of the build session.
+ *
+ * Imposes no overhead when not enabled.
+ * Unlike {@link org.gradle.internal.operations.trace.BuildOperationTrace}, the details and results of operations are not serialized,
+ * only a few fields of the operation types that matter for performance analysis are recorded.
+ *
+ * The events are implemented in the separate `jfr` source set, as `jdk.jfr` is not part of the Java 8 API the rest of this project is compiled against.
+ */
+public class BuildOperationFlightRecorder implements Stoppable {
+
+    public static final String SYSPROP = "org.gradle.internal.operations.jfr";
+
+    private static final Logger LOGGER = Logging.getLogger(BuildOperationFlightRecorder.class);
+    private static final String LISTENER_CLASS = "org.gradle.internal.operations.jfr.JfrBuildOperationListener";
+
+    private final BuildOperationListenerManager buildOperationListenerManager;
+    @Nullable
+    private final Listener listener;
+
+    public BuildOperationFlightRecorder(StartParameter startParameter, BuildOperationListenerManager buildOperationListenerManager) {
+        this.buildOperationListenerManager = buildOperationListenerManager;
+
+        String value = getProperty(startParameter);
+        if (value == null || value.equals(Boolean.FALSE.toString())) {
+            this.listener = null;
+            return;
+        }
+        if (!isFlightRecorderAvailable()) {
+            LOGGER.warn("JDK Flight Recorder is not available in the Gradle daemon JVM, ignoring {}.", SYSPROP);
+            this.listener = null;
+            return;
+        }
+
+        File destination = value.isEmpty() || value.equals(Boolean.TRUE.toString())
+            ? null
+            : new File(startParameter.getCurrentDir(), value);
+        this.listener = createListener(destination);
+        buildOperationListenerManager.addListener(listener);
+    }
+
+    @Nullable
+    private static String getProperty(StartParameter startParameter) {
+        String value = startParameter.getSystemPropertiesArgs().get(SYSPROP);
+        if (value == null) {
+            value = System.getProperty(SYSPROP);
+        }
+        return value;
+    }
+
+    private static boolean isFlightRecorderAvailable() {
+        try {
+            return (Boolean) Class.forName("jdk.jfr.FlightRecorder").getMethod("isAvailable").invoke(null);
+        } catch (ClassNotFoundException e) {
+            return false;
+        } catch (ReflectiveOperationException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private static Listener createListener(@Nullable File destination) {
+        try {
+            return (Listener) Class.forName(LISTENER_CLASS).getDeclaredConstructor(File.class).newInstance(destination);
+        } catch (InvocationTargetException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    public ResourceLockWaitObserver getResourceLockWaitObserver() {
+        return listener == null ? ResourceLockWaitObserver.NONE : listener;
+    }
+
+    @Override
+    public void stop() {
+        if (listener != null) {
+            buildOperationListenerManager.removeListener(listener);
+            listener.stop();
+        }
+    }
+
+    /**
+     * Implemented by the listener that emits the events.
+     */
+    interface Listener extends BuildOperationListener, ResourceLockWaitObserver, Stoppable {
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations.trace;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationListener;
+import org.gradle.internal.operations.OperationFinishEvent;
+import org.gradle.internal.operations.OperationIdentifier;
+import org.gradle.internal.operations.OperationProgressEvent;
+import org.gradle.internal.operations.OperationStartEvent;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes the build operation stream in a compact binary format.
+ *
+ * The listener only captures the identity, timing and types of each operation and hands it to a background writer through a bounded queue.
+ * When the writer falls behind, records that do not fit into the queue are dropped and counted, so memory use is bounded and the threads running the build operations never block.
+ * Details and results are not serialized, only their class names.
+ *
+ * The format is a header followed by a sequence of records:
+ *
+ * - start: id, parent id + 1 (0 for none), start time, display name, details class name, name of the starting thread
+ * - progress: id, time, details class name
+ * - finish: id, end time, result class name, failure
+ * - dropped: number of records dropped since the previous record
+ *
+ * Times are in milliseconds and encoded as the difference to the previous record.
+ * Class and thread names are encoded as a reference into a table of previously written names, so each of them is only written once.
+ *
+ * Use {@link ChromeTraceExporter} to convert the file into the Chrome trace event format.
+ */
+class BinaryBuildOperationTraceWriter implements BuildOperationListener {
+
+    static final int MAGIC = 0x474f5054;
+    static final int VERSION = 2;
+
+    static final byte START = 1;
+    static final byte PROGRESS = 2;
+    static final byte FINISH = 3;
+    static final byte DROPPED = 4;
+
+    static final int NULL_STRING = 0;
+    static final int NEW_STRING = 1;
+
+    private static final Logger LOGGER = Logging.getLogger(BinaryBuildOperationTraceWriter.class);
+    private static final int QUEUE_CAPACITY = 16 * 1024;
+    private static final Record END = new Record(FINISH, 0, 0, 0, null, null, null);
+
+    private final File logFile;
+    private final BlockingQueue<Record> queue;
+    private final KryoBackedEncoder encoder;
+    private final ManagedExecutor executor;
+    private final Map<String, Integer> strings = new HashMap<>();
+    private final AtomicLong droppedRecords = new AtomicLong();
+    private final AtomicLong unwrittenDroppedRecords = new AtomicLong();
+    private long previousTime;
+    private volatile Throwable failure;
+
+    BinaryBuildOperationTraceWriter(File logFile, ExecutorFactory executorFactory) {
+        this(logFile, executorFactory, QUEUE_CAPACITY);
+    }
+
+    @VisibleForTesting
+    BinaryBuildOperationTraceWriter(File logFile, ExecutorFactory executorFactory, int queueCapacity) {
+        this.logFile = logFile;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        try {
+            this.encoder = new KryoBackedEncoder(new BufferedOutputStream(new FileOutputStream(logFile)));
+        } catch (FileNotFoundException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        encoder.writeInt(MAGIC);
+        encoder.writeSmallInt(VERSION);
+        this.executor = executorFactory.create("Build operation trace writer");
+        executor.execute(this::writeRecords);
+    }
+
+    @Override
+    public void started(BuildOperationDescriptor buildOperation, OperationStartEvent startEvent) {
+        OperationIdentifier parentId = buildOperation.getParentId();
+        Object details = buildOperation.getDetails();
+        enqueue(new Record(
+            START,
+            buildOperation.getId().getId(),
+            parentId == null ? 0 : parentId.getId() + 1,
+            startEvent.getStartTime(),
+            buildOperation.getDisplayName(),
+            details == null ? null : details.getClass().getName(),
+            Thread.currentThread().getName()
+        ));
+    }
+
+    @Override
+    public void progress(OperationIdentifier operationIdentifier, OperationProgressEvent progressEvent) {
+        Object details = progressEvent.getDetails();
+        enqueue(new Record(
+            PROGRESS,
+            operationIdentifier.getId(),
+            0,
+            progressEvent.getTime(),
+            null,
+            details == null ? null : details.getClass().getName(),
+            null
+        ));
+    }
+
+    @Override
+    public void finished(BuildOperationDescriptor buildOperation, OperationFinishEvent finishEvent) {
+        Object result = finishEvent.getResult();
+        Throwable failure = finishEvent.getFailure();
+        enqueue(new Record(
+            FINISH,
+            buildOperation.getId().getId(),
+            0,
+            finishEvent.getEndTime(),
+            failure == null ? null : failure.toString(),
+            result == null ? null : result.getClass().getName(),
+            null
+        ));
+    }
+
+    private void enqueue(Record record) {
+        if (!queue.offer(record)) {
+            droppedRecords.incrementAndGet();
+            unwrittenDroppedRecords.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the number of records dropped so far, as the writer could not keep up with the build.
+     */
+    long getDroppedRecords() {
+        return droppedRecords.get();
+    }
+
+    /**
+     * Waits for all records to be written and closes the file.
+     * Failures to write the file are logged, as the trace is diagnostic output that should not fail the build.
+     */
+    void close() {
+        try {
+            queue.put(END);
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        executor.stop();
+        try {
+            encoder.close();
+        } catch (Throwable t) {
+            if (failure == null) {
+                failure = t;
+            }
+        }
+        if (failure != null) {
+            LOGGER.warn("Could not write build operation trace to {}.", logFile, failure);
+        }
+        long dropped = droppedRecords.get();
+        if (dropped > 0) {
+            LOGGER.warn("Dropped {} records of the build operation trace written to {}, as the trace writer could not keep up with the build.", dropped, logFile);
+        }
+    }
+
+    private void writeRecords() {
+        List<Record> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+            queue.drainTo(batch);
+            long dropped = unwrittenDroppedRecords.getAndSet(0);
+            if (dropped > 0 && failure == null) {
+                try {
+                    encoder.writeByte(DROPPED);
+                    encoder.writeSmallLong(dropped);
+                } catch (Throwable t) {
+                    failure = t;
+                }
+            }
+            for (Record record : batch) {
+                if (record == END) {
+                    return;
+                }
+                if (failure == null) {
+                    try {
+                        write(record);
+                    } catch (Throwable t) {
+                        // Keep draining the queue, so the build does not block on a failed trace
+                        failure = t;
+                    }
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    private void write(Record record) {
+        encoder.writeByte(record.kind);
+        encoder.writeSmallLong(record.id);
+        switch (record.kind) {
+            case START:
+                encoder.writeSmallLong(record.parentId);
+                writeTime(record.time);
+                encoder.writeNullableString(record.message);
+                writeSharedString(record.className);
+                writeSharedString(record.threadName);
+                break;
+            case PROGRESS:
+                writeTime(record.time);
+                writeSharedString(record.className);
+                break;
+            case FINISH:
+                writeTime(record.time);
+                writeSharedString(record.className);
+                encoder.writeNullableString(record.message);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown record kind " + record.kind);
+        }
+    }
+
+    private void writeTime(long time) {
+        long delta = time - previousTime;
+        previousTime = time;
+        // Zig-zag encoding, as records are not always in chronological order
+        encoder.writeSmallLong((delta << 1) ^ (delta >> 63));
+    }
+
+    private void writeSharedString(@Nullable String value) {
+        if (value == null) {
+            encoder.writeSmallInt(NULL_STRING);
+            return;
+        }
+        Integer index = strings.get(value);
+        if (index != null) {
+            encoder.writeSmallInt(index);
+            return;
+        }
+        encoder.writeSmallInt(NEW_STRING);
+        encoder.writeString(value);
+        strings.put(value, strings.size() + NEW_STRING + 1);
+    }
+
+    private static final class Record {
+        final byte kind;
+        final long id;
+        final long parentId;
+        final long time;
+        final String message;
+        final String className;
+        final String threadName;
+
+        Record(byte kind, long id, long parentId, long time, @Nullable String message, @Nullable String className, @Nullable String threadName) {
+            this.kind = kind;
+            this.id = id;
+            this.parentId = parentId;
+            this.time = time;
+            this.message = message;
+            this.className = className;
+            this.threadName = threadName;
+        }
+    }
+}
@@ -29,6 +29,7 @@
 import org.gradle.StartParameter;
 import org.gradle.api.NonNullApi;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.operations.BuildOperationDescriptor;
 import org.gradle.internal.operations.BuildOperationListener;
@@ -78,6 +79,8 @@
  * - «path-base»-tree.json: a JSON tree of the event structure
  * - «path-base»-tree.txt: A simplified tree representation showing basic information
  *
+ * With `-Dorg.gradle.internal.operations.trace.format=binary`, a compact «path-base»-log.bin file is written instead, see {@link #FORMAT_SYSPROP}.
+ *
  * Generally, the simplified tree view is best for browsing.
  * The JSON tree view can be used for more detailed analysis — open in a JSON tree viewer, like Chrome.
  *
@@ -110,6 +113,18 @@ public class BuildOperationTrace implements Stoppable {
      */
     public static final String FILTER_SEPARATOR = ";";
 
+    /**
+     * The format of the log file, either {@value #JSON_FORMAT} (the default) or {@value #BINARY_FORMAT}.
+     *
+     * The binary log is written by a background thread and only contains the identity, timing and types of the operations, not their details or results.
+     * It is cheap enough to be enabled for every build, and can be converted into the Chrome trace event format with {@link ChromeTraceExporter}.
+     * No tree output files are written for the binary format.
+     */
+    public static final String FORMAT_SYSPROP = SYSPROP + ".format";
+
+    public static final String JSON_FORMAT = "json";
+    public static final String BINARY_FORMAT = "binary";
+
     private static final byte[] NEWLINE = "\n".getBytes();
 
     private final boolean outputTree;
@@ -117,43 +132,65 @@ public class BuildOperationTrace implements Stoppable {
     private final String basePath;
 
     private final OutputStream logOutputStream;
+    @Nullable
+    private final BinaryBuildOperationTraceWriter binaryWriter;
     private final JsonGenerator jsonGenerator = createJsonGenerator();
     private final BuildOperationListenerManager buildOperationListenerManager;
 
-    public BuildOperationTrace(StartParameter startParameter, BuildOperationListenerManager buildOperationListenerManager) {
+    public BuildOperationTrace(StartParameter startParameter, BuildOperationListenerManager buildOperationListenerManager, ExecutorFactory executorFactory) {
         this.buildOperationListenerManager = buildOperationListenerManager;
+        this.basePath = getProperty(startParameter, SYSPROP);
+        boolean enabled = basePath != null && !basePath.equals(Boolean.FALSE.toString());
+
+        this.binaryWriter = enabled && BINARY_FORMAT.equals(getProperty(startParameter, FORMAT_SYSPROP))
+            ? new BinaryBuildOperationTraceWriter(createLogFile(binaryLogFile(basePath)), executorFactory)
+            : null;
+        BuildOperationListener writingListener = binaryWriter != null ? binaryWriter : new SerializingBuildOperationListener(this::write);
 
         Set<String> filter = getFilter(startParameter);
         if (filter != null) {
             this.outputTree = false;
-            this.listener = new FilteringBuildOperationListener(new SerializingBuildOperationListener(this::write), filter);
+            this.listener = new FilteringBuildOperationListener(writingListener, filter);
         } else {
-            this.outputTree = true;
-            this.listener = new SerializingBuildOperationListener(this::write);
+            // The tree is built from the JSON log
+            this.outputTree = binaryWriter == null;
+            this.listener = writingListener;
         }
 
-        this.basePath = getProperty(startParameter, SYSPROP);
-
-        if (this.basePath == null || basePath.equals(Boolean.FALSE.toString())) {
+        if (!enabled) {
             this.logOutputStream = null;
             return;
         }
 
+        if (binaryWriter != null) {
+            this.logOutputStream = null;
+        } else {
+            this.logOutputStream = new BufferedOutputStream(createFileOutputStream(createLogFile(logFile(basePath))));
+        }
+
+        buildOperationListenerManager.addListener(listener);
+    }
+
+    private static File createLogFile(File logFile) {
         try {
-            File logFile = logFile(basePath);
             GFileUtils.mkdirs(logFile.getParentFile());
             if (logFile.isFile()) {
                 GFileUtils.forceDelete(logFile);
             }
             //noinspection ResultOfMethodCallIgnored
             logFile.createNewFile();
-
-            this.logOutputStream = new BufferedOutputStream(new FileOutputStream(logFile));
+            return logFile;
         } catch (IOException e) {
             throw UncheckedException.throwAsUncheckedException(e);
         }
+    }
 
-        buildOperationListenerManager.addListener(listener);
+    private static FileOutputStream createFileOutputStream(File file) {
+        try {
+            return new FileOutputStream(file);
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
     }
 
     private static String getProperty(StartParameter startParameter, String property) {
@@ -178,6 +215,9 @@ private static Set<String> getFilter(StartParameter startParameter) {
     @Override
     public void stop() {
         buildOperationListenerManager.removeListener(listener);
+        if (binaryWriter != null) {
+            binaryWriter.close();
+        }
         if (logOutputStream != null) {
             try {
                 synchronized (logOutputStream) {
@@ -453,6 +493,10 @@ private static File logFile(String basePath) {
         return file(basePath, "-log.txt");
     }
 
+    private static File binaryLogFile(String basePath) {
+        return file(basePath, "-log.bin");
+    }
+
     private static File file(String base, String suffix) {
         return new File((base == null || base.trim().isEmpty() ? "operations" : base) + suffix).getAbsoluteFile();
     }
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations.trace;
+
+import groovy.json.JsonOutput;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.gradle.internal.operations.trace.BinaryBuildOperationTraceWriter.DROPPED;
+import static org.gradle.internal.operations.trace.BinaryBuildOperationTraceWriter.FINISH;
+import static org.gradle.internal.operations.trace.BinaryBuildOperationTraceWriter.MAGIC;
+import static org.gradle.internal.operations.trace.BinaryBuildOperationTraceWriter.NEW_STRING;
+import static org.gradle.internal.operations.trace.BinaryBuildOperationTraceWriter.NULL_STRING;
+import static org.gradle.internal.operations.trace.BinaryBuildOperationTraceWriter.PROGRESS;
+import static org.gradle.internal.operations.trace.BinaryBuildOperationTraceWriter.START;
+import static org.gradle.internal.operations.trace.BinaryBuildOperationTraceWriter.VERSION;
+
+/**
+ * Converts a binary build operation trace, as written by {@link BinaryBuildOperationTraceWriter}, into the Chrome trace event format,
+ * which can be opened in Perfetto (https://ui.perfetto.dev) or {@code chrome://tracing}.
+ *
+ * Run it offline against the jars of a Gradle distribution:
+ *
+ * <pre>
+ * java -cp "$GRADLE_HOME/lib/*" org.gradle.internal.operations.trace.ChromeTraceExporter «path-base»-log.bin «path-base»-chrome.json
+ * </pre>
+ *
+ * Each operation becomes a complete event on the thread that started it, and each progress event an instant event.
+ * Records dropped by the writer become global instant events, and the operations they belong to are left out.
+ * The input is streamed, only the operations that are still running are kept in memory.
+ */
+public class ChromeTraceExporter {
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: ChromeTraceExporter <binary-trace-log> <chrome-trace-output>");
+            System.exit(1);
+        }
+        export(new File(args[0]), new File(args[1]));
+    }
+
+    public static void export(File binaryLog, File output) {
+        try (
+            KryoBackedDecoder decoder = new KryoBackedDecoder(new BufferedInputStream(new FileInputStream(binaryLog)));
+            Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(output), StandardCharsets.UTF_8))
+        ) {
+            new Conversion(decoder, writer).run();
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private static class Conversion {
+        private final KryoBackedDecoder decoder;
+        private final Writer writer;
+        private final List<String> strings = new ArrayList<>();
+        private final Map<Long, StartedOperation> runningOperations = new HashMap<>();
+        private final Map<String, Integer> threadIds = new HashMap<>();
+        private long previousTime;
+        private boolean firstEvent = true;
+
+        Conversion(KryoBackedDecoder decoder, Writer writer) {
+            this.decoder = decoder;
+            this.writer = writer;
+        }
+
+        void run() throws IOException {
+            if (decoder.readInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a binary build operation trace.");
+            }
+            int version = decoder.readSmallInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported binary build operation trace version " + version + ".");
+            }
+
+            writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+            while (true) {
+                byte kind;
+                try {
+                    kind = decoder.readByte();
+                } catch (EOFException e) {
+                    break;
+                }
+                long id = decoder.readSmallLong();
+                switch (kind) {
+                    case START:
+                        readStart(id);
+                        break;
+                    case PROGRESS:
+                        readProgress(id);
+                        break;
+                    case FINISH:
+                        readFinish(id);
+                        break;
+                    case DROPPED:
+                        writeDropped(id);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown record kind " + kind + ".");
+                }
+            }
+            writer.write("\n]}\n");
+        }
+
+        private void readStart(long id) throws IOException {
+            long parentId = decoder.readSmallLong() - 1;
+            long startTime = readTime();
+            String displayName = decoder.readNullableString();
+            String detailsClassName = readSharedString();
+            String threadName = readSharedString();
+            runningOperations.put(id, new StartedOperation(parentId, startTime, displayName, detailsClassName, threadId(threadName)));
+        }
+
+        private void readProgress(long id) throws IOException {
+            long time = readTime();
+            String detailsClassName = readSharedString();
+            StartedOperation operation = runningOperations.get(id);
+            startEvent();
+            writer.write("{\"ph\":\"i\",\"s\":\"t\",\"pid\":1,\"tid\":");
+            writer.write(Integer.toString(operation == null ? 0 : operation.threadId));
+            writer.write(",\"ts\":");
+            writer.write(Long.toString(time * 1000));
+            writer.write(",\"name\":");
+            writer.write(JsonOutput.toJson(detailsClassName == null ? "progress" : simpleName(detailsClassName)));
+            writer.write(",\"args\":{\"id\":");
+            writer.write(Long.toString(id));
+            writer.write("}}");
+        }
+
+        private void readFinish(long id) throws IOException {
+            long endTime = readTime();
+            String resultClassName = readSharedString();
+            String failure = decoder.readNullableString();
+            StartedOperation operation = runningOperations.remove(id);
+            if (operation == null) {
+                return;
+            }
+            startEvent();
+            writer.write("{\"ph\":\"X\",\"pid\":1,\"tid\":");
+            writer.write(Integer.toString(operation.threadId));
+            writer.write(",\"ts\":");
+            writer.write(Long.toString(operation.startTime * 1000));
+            writer.write(",\"dur\":");
+            writer.write(Long.toString((endTime - operation.startTime) * 1000));
+            writer.write(",\"name\":");
+            writer.write(JsonOutput.toJson(operation.displayName == null ? "" : operation.displayName));
+            if (operation.detailsClassName != null) {
+                writer.write(",\"cat\":");
+                writer.write(JsonOutput.toJson(simpleName(operation.detailsClassName)));
+            }
+            writer.write(",\"args\":{\"id\":");
+            writer.write(Long.toString(id));
+            if (operation.parentId >= 0) {
+                writer.write(",\"parentId\":");
+                writer.write(Long.toString(operation.parentId));
+            }
+            if (operation.detailsClassName != null) {
+                writer.write(",\"details\":");
+                writer.write(JsonOutput.toJson(operation.detailsClassName));
+            }
+            if (resultClassName != null) {
+                writer.write(",\"result\":");
+                writer.write(JsonOutput.toJson(resultClassName));
+            }
+            if (failure != null) {
+                writer.write(",\"failure\":");
+                writer.write(JsonOutput.toJson(failure));
+            }
+            writer.write("}}");
+        }
+
+        private void writeDropped(long count) throws IOException {
+            startEvent();
+            writer.write("{\"ph\":\"i\",\"s\":\"g\",\"pid\":1,\"tid\":0,\"ts\":");
+            writer.write(Long.toString(previousTime * 1000));
+            writer.write(",\"name\":\"Dropped records\",\"args\":{\"count\":");
+            writer.write(Long.toString(count));
+            writer.write("}}");
+        }
+
+        private int threadId(@Nullable String threadName) throws IOException {
+            String name = threadName == null ? "unknown" : threadName;
+            Integer threadId = threadIds.get(name);
+            if (threadId == null) {
+                threadId = threadIds.size() + 1;
+                threadIds.put(name, threadId);
+                startEvent();
+                writer.write("{\"ph\":\"M\",\"pid\":1,\"tid\":");
+                writer.write(Integer.toString(threadId));
+                writer.write(",\"name\":\"thread_name\",\"args\":{\"name\":");
+                writer.write(JsonOutput.toJson(name));
+                writer.write("}}");
+            }
+            return threadId;
+        }
+
+        private void startEvent() throws IOException {
+            writer.write(firstEvent ? "\n" : ",\n");
+            firstEvent = false;
+        }
+
+        private long readTime() throws IOException {
+            long zigZag = decoder.readSmallLong();
+            long delta = (zigZag >>> 1) ^ -(zigZag & 1);
+            previousTime += delta;
+            return previousTime;
+        }
+
+        @Nullable
+        private String readSharedString() throws IOException {
+            int reference = decoder.readSmallInt();
+            if (reference == NULL_STRING) {
+                return null;
+            }
+            if (reference == NEW_STRING) {
+                String value = decoder.readString();
+                strings.add(value);
+                return value;
+            }
+            return strings.get(reference - NEW_STRING - 1);
+        }
+
+        private static String simpleName(String className) {
+            return className.substring(Math.max(className.lastIndexOf('.'), className.lastIndexOf('$')) + 1);
+        }
+    }
+
+    private static class StartedOperation {
+        final long parentId;
+        final long startTime;
+        final String displayName;
+        final String detailsClassName;
+        final int threadId;
+
+        StartedOperation(long parentId, long startTime, @Nullable String displayName, @Nullable String detailsClassName, int threadId) {
+            this.parentId = parentId;
+            this.startTime = startTime;
+            this.displayName = displayName;
+            this.detailsClassName = detailsClassName;
+            this.threadId = threadId;
+        }
+    }
+}
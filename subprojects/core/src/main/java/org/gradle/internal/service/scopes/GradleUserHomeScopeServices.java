@@ -42,6 +42,7 @@
 import org.gradle.cache.internal.GradleUserHomeCleanupServices;
 import org.gradle.cache.internal.InMemoryCacheDecoratorFactory;
 import org.gradle.cache.internal.LegacyCacheCleanupEnablement;
+import org.gradle.cache.internal.PersistentGeneratedClassBytecodeStore;
 import org.gradle.cache.internal.scopes.DefaultGlobalScopedCacheBuilderFactory;
 import org.gradle.cache.scopes.GlobalScopedCacheBuilderFactory;
 import org.gradle.execution.plan.ToPlannedNodeConverter;
@@ -76,6 +77,7 @@
 import org.gradle.internal.file.FileAccessTimeJournal;
 import org.gradle.internal.hash.ClassLoaderHierarchyHasher;
 import org.gradle.internal.id.LongIdGenerator;
+import org.gradle.internal.instantiation.generator.GlobalGeneratedClassBytecodeStore;
 import org.gradle.internal.jvm.JavaModuleDetector;
 import org.gradle.internal.jvm.inspection.JvmVersionDetector;
 import org.gradle.internal.logging.LoggingManagerInternal;
@@ -238,6 +240,10 @@ FileContentCacheFactory createFileContentCacheFactory(ListenerManager listenerMa
         return new DefaultFileContentCacheFactory(listenerManager, fileSystemAccess, cacheBuilderFactory, inMemoryCacheDecoratorFactory);
     }
 
+    PersistentGeneratedClassBytecodeStore createPersistentGeneratedClassBytecodeStore(GlobalScopedCacheBuilderFactory cacheBuilderFactory, GlobalGeneratedClassBytecodeStore globalStore) {
+        return new PersistentGeneratedClassBytecodeStore(cacheBuilderFactory, globalStore);
+    }
+
     FileAccessTimeJournal createFileAccessTimeJournal(GlobalScopedCacheBuilderFactory cacheBuilderFactory, InMemoryCacheDecoratorFactory cacheDecoratorFactory) {
         return new DefaultFileAccessTimeJournal(cacheBuilderFactory, cacheDecoratorFactory);
     }
@@ -29,6 +29,7 @@
 import org.gradle.api.internal.tasks.DefaultTaskDependencyFactory;
 import org.gradle.api.internal.tasks.TaskDependencyFactory;
 import org.gradle.cache.FileLockManager;
+import org.gradle.cache.internal.CacheAccessWorkerStatistics;
 import org.gradle.cache.internal.CacheFactory;
 import org.gradle.cache.internal.CrossBuildInMemoryCacheFactory;
 import org.gradle.cache.internal.DefaultCacheFactory;
@@ -78,8 +79,12 @@ public WorkerSharedGlobalScopeServices(ClassPath additionalModuleClassPath) {
         this.additionalModuleClassPath = additionalModuleClassPath;
     }
 
-    protected CacheFactory createCacheFactory(FileLockManager fileLockManager, ExecutorFactory executorFactory, ProgressLoggerFactory progressLoggerFactory) {
-        return new DefaultCacheFactory(fileLockManager, executorFactory, progressLoggerFactory);
+    CacheAccessWorkerStatistics.Collector createCacheAccessWorkerStatisticsCollector() {
+        return new CacheAccessWorkerStatistics.Collector();
+    }
+
+    protected CacheFactory createCacheFactory(FileLockManager fileLockManager, ExecutorFactory executorFactory, ProgressLoggerFactory progressLoggerFactory, CacheAccessWorkerStatistics.Collector cacheAccessWorkerStatisticsCollector) {
+        return new DefaultCacheFactory(fileLockManager, executorFactory, progressLoggerFactory, cacheAccessWorkerStatisticsCollector);
     }
 
     LegacyTypesSupport createLegacyTypesSupport() {
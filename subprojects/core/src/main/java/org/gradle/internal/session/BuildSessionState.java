@@ -17,6 +17,7 @@
 package org.gradle.internal.session;
 
 import org.gradle.api.internal.StartParameterInternal;
+import org.gradle.cache.internal.PersistentGeneratedClassBytecodeStore;
 import org.gradle.initialization.BuildCancellationToken;
 import org.gradle.initialization.BuildClientMetaData;
 import org.gradle.initialization.BuildEventConsumer;
@@ -50,6 +51,8 @@ public BuildSessionState(GradleUserHomeScopeServiceRegistry userHomeScopeService
                              BuildEventConsumer buildEventConsumer) {
         this.userHomeScopeServiceRegistry = userHomeScopeServiceRegistry;
         userHomeServices = userHomeScopeServiceRegistry.getServicesFor(startParameter.getGradleUserHomeDir());
+        // Attaches the generated classes cache of the user home directory, if enabled, before any classes are generated for the build
+        userHomeServices.get(PersistentGeneratedClassBytecodeStore.class);
         sessionScopeServices = ServiceRegistryBuilder.builder()
             .scope(Scopes.BuildSession.class)
             .displayName("build session services")
@@ -37,6 +37,7 @@
 import org.gradle.internal.operations.BuildOperationProgressEventEmitter;
 import org.gradle.internal.operations.DefaultBuildOperationExecutor;
 import org.gradle.internal.operations.DefaultBuildOperationQueueFactory;
+import org.gradle.internal.operations.jfr.BuildOperationFlightRecorder;
 import org.gradle.internal.operations.logging.LoggingBuildOperationProgressBroadcaster;
 import org.gradle.internal.operations.notify.BuildOperationNotificationBridge;
 import org.gradle.internal.operations.notify.BuildOperationNotificationValve;
@@ -73,8 +74,9 @@ public CrossBuildSessionState(ServiceRegistry parent, StartParameter startParame
             .parent(parent)
             .provider(new Services(startParameter))
             .build();
-        // Trigger listener to wire itself in
+        // Trigger listeners to wire themselves in
         services.get(BuildOperationTrace.class);
+        services.get(BuildOperationFlightRecorder.class);
     }
 
     public ServiceRegistry getServices() {
@@ -95,7 +97,6 @@ public Services(StartParameter startParameter) {
         }
 
         void configure(ServiceRegistration registration) {
-            registration.add(DefaultResourceLockCoordinationService.class);
             registration.add(DefaultWorkerLeaseService.class);
             registration.add(DefaultDynamicCallContextTracker.class);
         }
@@ -108,6 +109,10 @@ ParallelismConfiguration createParallelismConfiguration() {
             return new DefaultParallelismConfiguration(startParameter.isParallelProjectExecutionEnabled(), startParameter.getMaxWorkerCount());
         }
 
+        DefaultResourceLockCoordinationService createResourceLockCoordinationService(BuildOperationFlightRecorder buildOperationFlightRecorder) {
+            return new DefaultResourceLockCoordinationService(buildOperationFlightRecorder.getResourceLockWaitObserver());
+        }
+
         BuildOperationExecutor createBuildOperationExecutor(
             Clock clock,
             ProgressLoggerFactory progressLoggerFactory,
@@ -144,8 +149,12 @@ LoggingBuildOperationProgressBroadcaster createLoggingBuildOperationProgressBroa
             return new LoggingBuildOperationProgressBroadcaster(outputEventListenerManager, buildOperationProgressEventEmitter);
         }
 
-        BuildOperationTrace createBuildOperationTrace(BuildOperationListenerManager buildOperationListenerManager) {
-            return new BuildOperationTrace(startParameter, buildOperationListenerManager);
+        BuildOperationTrace createBuildOperationTrace(BuildOperationListenerManager buildOperationListenerManager, ExecutorFactory executorFactory) {
+            return new BuildOperationTrace(startParameter, buildOperationListenerManager, executorFactory);
+        }
+
+        BuildOperationFlightRecorder createBuildOperationFlightRecorder(BuildOperationListenerManager buildOperationListenerManager) {
+            return new BuildOperationFlightRecorder(startParameter, buildOperationListenerManager);
         }
 
         BuildOperationNotificationBridge createBuildOperationNotificationBridge(BuildOperationListenerManager buildOperationListenerManager, ListenerManager generalListenerManager) {
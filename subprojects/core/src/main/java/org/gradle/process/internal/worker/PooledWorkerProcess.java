@@ -0,0 +1,52 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.worker;
+
+import org.gradle.api.Describable;
+import org.gradle.api.logging.LogLevel;
+import org.gradle.process.internal.health.memory.JvmMemoryStatus;
+
+import javax.annotation.Nullable;
+import java.util.Optional;
+
+/**
+ * A worker process that is kept alive between uses by a {@link WorkerProcessPool}.
+ */
+public interface PooledWorkerProcess extends Describable {
+    /**
+     * The log level the worker was started with. Idle workers with an out-of-date log level are not reused.
+     */
+    LogLevel getLogLevel();
+
+    /**
+     * The number of times the worker has been used. Less used idle workers are stopped first.
+     */
+    int getUses();
+
+    boolean isFailed();
+
+    Optional<Integer> getExitCode();
+
+    JvmMemoryStatus getJvmMemoryStatus();
+
+    /**
+     * Whether the worker must not be stopped to free system memory.
+     */
+    boolean isNotExpirable();
+
+    void stop();
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.worker;
+
+import org.gradle.api.Transformer;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.process.internal.health.memory.MaximumHeapHelper;
+import org.gradle.process.internal.health.memory.MemoryAmount;
+import org.gradle.process.internal.health.memory.MemoryHolder;
+import org.gradle.process.internal.health.memory.OsMemoryInfo;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stops idle workers of a {@link WorkerProcessPool} when the OS is running out of memory.
+ *
+ * @param <T> the type of worker
+ */
+public abstract class WorkerProcessExpiration<T extends PooledWorkerProcess> implements MemoryHolder {
+
+    private static final Logger LOGGER = Logging.getLogger(WorkerProcessExpiration.class);
+
+    private final String workerType;
+    private final long osTotalMemory;
+
+    /**
+     * @param workerType the name of the workers in log messages, such as "worker daemon"
+     * @param osTotalMemory the total physical memory of the OS, or -1 when not known
+     */
+    protected WorkerProcessExpiration(String workerType, long osTotalMemory) {
+        this.workerType = workerType;
+        this.osTotalMemory = osTotalMemory;
+    }
+
+    /**
+     * Returns the total physical memory of the OS, or -1 when not known.
+     */
+    public static long getTotalPhysicalMemory(OsMemoryInfo memoryInfo) {
+        try {
+            return memoryInfo.getOsSnapshot().getPhysicalMemory().getTotal();
+        } catch (UnsupportedOperationException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Select idle workers to stop, see {@link WorkerProcessPool#selectIdleWorkersToStop(Transformer)}.
+     */
+    protected abstract void selectIdleWorkersToStop(Transformer<List<T>, List<T>> selectionFunction);
+
+    /**
+     * Returns the maximum heap size the given worker was started with, or null when not specified.
+     */
+    @Nullable
+    protected abstract String getMaxHeapSize(T worker);
+
+    @Override
+    public long attemptToRelease(long memoryAmountBytes) throws IllegalArgumentException {
+        if (memoryAmountBytes < 0) {
+            throw new IllegalArgumentException("Negative memory amount");
+        }
+        LOGGER.debug("Will attempt to release {} of memory", memoryAmountBytes / 1024 / 1024);
+        SimpleMemoryExpirationSelector selector = new SimpleMemoryExpirationSelector(memoryAmountBytes);
+        selectIdleWorkersToStop(selector);
+        return selector.getReleasedBytes();
+    }
+
+    /**
+     * Simple implementation of memory based expiration.
+     *
+     * Expire as many workers as needed to free the requested memory under the threshold.
+     */
+    private class SimpleMemoryExpirationSelector implements Transformer<List<T>, List<T>> {
+
+        private final long memoryBytesToRelease;
+        private long releasedBytes;
+
+        public SimpleMemoryExpirationSelector(long memoryBytesToRelease) {
+            this.memoryBytesToRelease = memoryBytesToRelease;
+        }
+
+        public long getReleasedBytes() {
+            return releasedBytes;
+        }
+
+        @Override
+        public List<T> transform(List<T> idleWorkers) {
+            int notExpirable = 0;
+            List<T> toExpire = new ArrayList<>();
+            for (T idleWorker : idleWorkers) {
+                if (idleWorker.isNotExpirable()) {
+                    notExpirable++;
+                    continue;
+                }
+                toExpire.add(idleWorker);
+                long freed = getMemoryUsage(idleWorker);
+                releasedBytes += freed;
+                if (releasedBytes >= memoryBytesToRelease) {
+                    break;
+                }
+            }
+            if (LOGGER.isDebugEnabled() && !toExpire.isEmpty()) {
+                LOGGER.debug("{} {}(s) expired to free some system memory", toExpire.size(), workerType);
+            }
+            if (notExpirable > 0) {
+                LOGGER.debug("{} {}(s) had expiration disabled and were skipped", notExpirable, workerType);
+            }
+            return toExpire;
+        }
+
+        private long getMemoryUsage(T idleWorker) {
+            // prefer to use the actual memory usage reported by the worker
+            try {
+                return idleWorker.getJvmMemoryStatus().getCommittedMemory();
+            } catch (UnsupportedOperationException e) {
+                // This means the worker does not support reporting jvm memory info
+            } catch (IllegalStateException e) {
+                // This means the worker has not reported memory usage yet
+            }
+
+            // if the worker has not reported memory usage yet for some reason, or does not support it,
+            // use the max heap as an approximation
+            long parsed = MemoryAmount.parseNotation(getMaxHeapSize(idleWorker));
+            if (parsed != -1) {
+                // From fork options
+                return parsed;
+            }
+
+            // If we don't know what the max heap is, approximate it based on OS total memory
+            // according to JVM documentation
+            if (osTotalMemory != -1) {
+                return new MaximumHeapHelper().getDefaultMaximumHeapSize(osTotalMemory);
+            }
+
+            // If we get here, we have no idea how much memory the worker is using
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.worker;
+
+import org.gradle.api.Transformer;
+import org.gradle.api.logging.LogLevel;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.specs.Spec;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.logging.LoggingManagerInternal;
+import org.gradle.internal.logging.events.LogLevelChangeEvent;
+import org.gradle.internal.logging.events.OutputEvent;
+import org.gradle.internal.logging.events.OutputEventListener;
+import org.gradle.internal.os.OperatingSystem;
+import org.gradle.util.internal.CollectionUtils;
+import org.gradle.util.internal.TextUtil;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static java.util.Comparator.comparingInt;
+
+/**
+ * Keeps track of the worker processes started for some kind of work, and of those of them that are idle and can be reused.
+ *
+ * <p>Idle workers are stopped when their log level is out of date, when their process has exited, when there are more of them than the maximum
+ * number of idle workers, or when a {@link WorkerProcessExpiration} selects them to free system memory.</p>
+ *
+ * @param <T> the type of worker
+ */
+public class WorkerProcessPool<T extends PooledWorkerProcess> implements Stoppable {
+
+    private static final Logger LOGGER = Logging.getLogger(WorkerProcessPool.class);
+
+    private final Object lock = new Object();
+    private final List<T> allWorkers = new ArrayList<T>();
+    // Least recently released first
+    private final List<T> idleWorkers = new ArrayList<T>();
+
+    private final String workerType;
+    private final int maxIdleWorkers;
+    private final LoggingManagerInternal loggingManager;
+    private final OutputEventListener logLevelChangeEventListener;
+    private volatile LogLevel currentLogLevel;
+
+    /**
+     * @param workerType the name of the workers in log messages, such as "worker daemon"
+     * @param maxIdleWorkers the maximum number of idle workers to keep
+     */
+    public WorkerProcessPool(String workerType, int maxIdleWorkers, LoggingManagerInternal loggingManager) {
+        this.workerType = workerType;
+        this.maxIdleWorkers = maxIdleWorkers;
+        this.loggingManager = loggingManager;
+        this.logLevelChangeEventListener = new LogLevelChangeEventListener();
+        loggingManager.addOutputEventListener(logLevelChangeEventListener);
+        this.currentLogLevel = loggingManager.getLevel();
+    }
+
+    public LogLevel getCurrentLogLevel() {
+        return currentLogLevel;
+    }
+
+    /**
+     * Reserves the first idle worker that is compatible with the work, removing it from the idle workers.
+     */
+    @Nullable
+    public T reserveIdleWorker(Spec<? super T> compatible) {
+        return reserveIdleWorker(compatible, idleWorkers);
+    }
+
+    /**
+     * Reserves the first of the given workers that is compatible with the work, removing it from the given workers.
+     */
+    @Nullable
+    public T reserveIdleWorker(Spec<? super T> compatible, List<T> candidates) {
+        synchronized (lock) {
+            Iterator<T> it = candidates.iterator();
+            while (it.hasNext()) {
+                T candidate = it.next();
+                if (candidate.isFailed()) {
+                    emitUnexpectedWorkerFailureWarning(candidate);
+                    it.remove();
+                    allWorkers.remove(candidate);
+                } else if (compatible.isSatisfiedBy(candidate)) {
+                    it.remove();
+                    if (candidate.getLogLevel() != currentLogLevel) {
+                        // TODO: Send a message to workers to change their log level rather than stopping
+                        LOGGER.info("Log level has changed, stopping idle {} with out-of-date log level.", workerType);
+                        allWorkers.remove(candidate);
+                        candidate.stop();
+                    } else {
+                        return candidate;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Adds a newly started worker, which is in use until it is released.
+     */
+    public void add(T worker) {
+        synchronized (lock) {
+            allWorkers.add(worker);
+        }
+    }
+
+    /**
+     * Returns a worker that is no longer in use to the idle workers, unless its process has exited.
+     */
+    public void release(T worker) {
+        synchronized (lock) {
+            if (worker.isFailed()) {
+                allWorkers.remove(worker);
+                return;
+            }
+            idleWorkers.add(worker);
+            if (idleWorkers.size() > maxIdleWorkers) {
+                stopWorkers(new ArrayList<T>(idleWorkers.subList(0, idleWorkers.size() - maxIdleWorkers)));
+            }
+        }
+    }
+
+    /**
+     * Forgets about a worker that cannot be reused, without stopping it.
+     */
+    public void remove(T worker) {
+        synchronized (lock) {
+            idleWorkers.remove(worker);
+            allWorkers.remove(worker);
+        }
+    }
+
+    /**
+     * Select idle workers to stop.
+     *
+     * @param selectionFunction Gets all idle workers, less used first, workers returned are stopped
+     */
+    public void selectIdleWorkersToStop(Transformer<List<T>, List<T>> selectionFunction) {
+        synchronized (lock) {
+            List<T> sortedWorkers = CollectionUtils.sort(idleWorkers, comparingInt(PooledWorkerProcess::getUses));
+            List<T> workersToStop = selectionFunction.transform(new ArrayList<T>(sortedWorkers));
+            stopWorkers(workersToStop);
+        }
+    }
+
+    /**
+     * Stops all workers, idle or not, that satisfy the given spec.
+     */
+    public void stopWorkers(Spec<? super T> spec) {
+        synchronized (lock) {
+            stopWorkers(CollectionUtils.filter(allWorkers, spec));
+        }
+    }
+
+    @Override
+    public void stop() {
+        synchronized (lock) {
+            stopWorkers(new ArrayList<T>(allWorkers));
+            allWorkers.clear();
+            idleWorkers.clear();
+        }
+        // Do not hold lock while removing listener, as the listener may still be receiving events on another thread and will need to acquire the lock to handle these events
+        loggingManager.removeOutputEventListener(logLevelChangeEventListener);
+    }
+
+    private void stopWorkers(List<T> workersToStop) {
+        if (workersToStop.isEmpty()) {
+            return;
+        }
+        int workerCount = workersToStop.size();
+        LOGGER.debug("Stopping {} {}(s).", workerCount, workerType);
+        int failureCount = 0;
+        for (T worker : workersToStop) {
+            try {
+                if (worker.isFailed()) {
+                    emitUnexpectedWorkerFailureWarning(worker);
+                } else {
+                    worker.stop();
+                }
+            } catch (Exception e) {
+                failureCount++;
+                LOGGER.warn("Failed to stop " + workerType + " '" + worker.getDisplayName() + "'", e);
+            }
+        }
+        idleWorkers.removeAll(workersToStop);
+        allWorkers.removeAll(workersToStop);
+        if (failureCount > 0) {
+            LOGGER.info("Stopped {} {}(s).  {} {}s had failures while stopping.", workerCount, workerType, failureCount, workerType);
+        } else {
+            LOGGER.info("Stopped {} {}(s).", workerCount, workerType);
+        }
+    }
+
+    private void emitUnexpectedWorkerFailureWarning(T worker) {
+        if (worker.getExitCode().isPresent()) {
+            int exitCode = worker.getExitCode().get();
+            String name = TextUtil.capitalize(workerType);
+            if (OperatingSystem.current().isUnix() && exitCode > 127) {
+                LOGGER.warn(name + " '" + worker.getDisplayName() + "' exited unexpectedly after being killed with signal " + (exitCode - 128) + ".  This is likely because an external process has killed the worker.");
+            } else {
+                LOGGER.warn(name + " '" + worker.getDisplayName() + "' exited unexpectedly with exit code " + exitCode + ".");
+            }
+        }
+    }
+
+    private class LogLevelChangeEventListener implements OutputEventListener {
+        @Override
+        public void onOutput(OutputEvent event) {
+            if (event instanceof LogLevelChangeEvent) {
+                LogLevelChangeEvent logLevelChangeEvent = (LogLevelChangeEvent) event;
+                currentLogLevel = logLevelChangeEvent.getNewLogLevel();
+            }
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package org.gradle.testfixtures.internal;
 
 import org.gradle.cache.FileLockManager;
+import org.gradle.cache.internal.CacheAccessWorkerStatistics;
 import org.gradle.cache.internal.CacheFactory;
 import org.gradle.internal.Factory;
 import org.gradle.internal.agents.AgentStatus;
@@ -35,7 +36,7 @@ public TestGlobalScopeServices() {
     }
 
     @Override
-    protected CacheFactory createCacheFactory(FileLockManager fileLockManager, ExecutorFactory executorFactory, ProgressLoggerFactory progressLoggerFactory) {
+    protected CacheFactory createCacheFactory(FileLockManager fileLockManager, ExecutorFactory executorFactory, ProgressLoggerFactory progressLoggerFactory, CacheAccessWorkerStatistics.Collector cacheAccessWorkerStatisticsCollector) {
         return new TestInMemoryCacheFactory();
     }
 
@@ -17,6 +17,7 @@ package org.gradle.api.internal.file.archive
 
 import org.apache.commons.compress.archivers.zip.Zip64RequiredException
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream
+import org.apache.commons.compress.archivers.zip.ZipFile
 import org.gradle.api.file.RelativePath
 import org.gradle.api.internal.DocumentationRegistry
 import org.gradle.api.internal.file.CopyActionProcessingStreamAction
@@ -25,9 +26,11 @@ import org.gradle.api.internal.file.copy.CopyActionProcessingStream
 import org.gradle.api.internal.file.copy.DefaultZipCompressor
 import org.gradle.api.internal.file.copy.FileCopyDetailsInternal
 import org.gradle.api.tasks.bundling.Zip
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.test.fixtures.archive.ZipTestFixture
 import org.gradle.test.fixtures.file.TestFile
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.SetSystemProperties
 import org.junit.Rule
 import spock.lang.Specification
 
@@ -39,6 +42,9 @@ class ZipCopyActionTest extends Specification {
     @Rule
     public final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
 
+    @Rule
+    SetSystemProperties systemProperties = new SetSystemProperties()
+
     ZipCopyAction visitor
     TestFile zipFile
     def encoding = 'UTF-8'
@@ -143,6 +149,77 @@ class ZipCopyActionTest extends Specification {
         e.cause.is(failure)
     }
 
+    void compressesEntriesInParallel() {
+        given:
+        def sequentialZipFile = tmpDir.getTestDirectory().file("sequential.zip")
+        visitor = new ZipCopyAction(sequentialZipFile, new DefaultZipCompressor(false, ZipArchiveOutputStream.DEFLATED), new DocumentationRegistry(), encoding, false)
+        zip(dir("dir"), file("dir/file1"), file("file2"), file("file3"))
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipArchiveOutputStream.DEFLATED), new DocumentationRegistry(), encoding, false, new DefaultExecutorFactory(), 2, tmpDir.createDir("tmp"))
+        zip(dir("dir"), file("dir/file1"), file("file2"), file("file3"))
+
+        when:
+        TestFile expandDir = tmpDir.getTestDirectory().file("expanded")
+        zipFile.unzipTo(expandDir)
+
+        then:
+        expandDir.file("dir/file1").assertContents(equalTo("contents of dir/file1"))
+        expandDir.file("file2").assertContents(equalTo("contents of file2"))
+        new ZipTestFixture(zipFile).hasDescendantsInOrder("dir/file1", "file2", "file3")
+        zipFile.bytes == sequentialZipFile.bytes
+    }
+
+    void wrapsFailureToAddElementWhenCompressingInParallel() {
+        given:
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipArchiveOutputStream.DEFLATED), new DocumentationRegistry(), encoding, false, new DefaultExecutorFactory(), 2, tmpDir.createDir("tmp"))
+        Throwable failure = new RuntimeException("broken")
+
+        def brokenFile = brokenFile("dir/file1", failure)
+        when:
+        zip(file("file2"), brokenFile)
+
+        then:
+        def e = thrown(Exception)
+        e.message == String.format("Could not add $brokenFile to ZIP '%s'.", zipFile)
+        e.cause.is(failure)
+        !zipFile.exists()
+    }
+
+    void copiesUnmodifiedZipEntriesWithoutDecompressingThem() {
+        given:
+        System.setProperty(ZipCopyAction.RAW_ENTRY_COPY_PROPERTY, "true")
+        def sourceZipFile = sourceZip()
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipArchiveOutputStream.DEFLATED), new DocumentationRegistry(), encoding, false)
+
+        when:
+        new ZipFile(sourceZipFile).withCloseable { source ->
+            zip(zipEntryFile("dir/file1", source), zipEntryFile("file2", source))
+        }
+        TestFile expandDir = tmpDir.getTestDirectory().file("expanded")
+        zipFile.unzipTo(expandDir)
+
+        then:
+        expandDir.file("dir/file1").assertContents(equalTo("contents of dir/file1"))
+        expandDir.file("file2").assertContents(equalTo("contents of file2"))
+    }
+
+    void decompressesZipEntriesCompressedDifferentlyFromArchive() {
+        given:
+        System.setProperty(ZipCopyAction.RAW_ENTRY_COPY_PROPERTY, "true")
+        def sourceZipFile = sourceZip()
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipArchiveOutputStream.STORED), new DocumentationRegistry(), encoding, false)
+
+        when:
+        new ZipFile(sourceZipFile).withCloseable { source ->
+            zip(zipEntryFile("dir/file1", source), zipEntryFile("file2", source))
+        }
+        TestFile expandDir = tmpDir.getTestDirectory().file("expanded")
+        zipFile.unzipTo(expandDir)
+
+        then:
+        expandDir.file("dir/file1").assertContents(equalTo("copied contents of dir/file1"))
+        expandDir.file("file2").assertContents(equalTo("copied contents of file2"))
+    }
+
     private void zip(final FileCopyDetailsInternal... files) {
         visitor.execute(new CopyActionProcessingStream() {
             void process(CopyActionProcessingStreamAction action) {
@@ -165,6 +242,31 @@ class ZipCopyActionTest extends Specification {
         mock
     }
 
+    private TestFile sourceZip() {
+        def sourceZipFile = tmpDir.getTestDirectory().file("source.zip")
+        def sourceVisitor = new ZipCopyAction(sourceZipFile, new DefaultZipCompressor(false, ZipArchiveOutputStream.DEFLATED), new DocumentationRegistry(), encoding, false)
+        visit(sourceVisitor, file("dir/file1"), file("file2"))
+        sourceZipFile
+    }
+
+    private FileCopyDetailsInternal zipEntryFile(final String path, final ZipFile source) {
+        def entry = source.getEntry(path)
+        def content = Stub(ZipEntryContent) {
+            getZipEntry() >> entry
+            openRaw() >> { source.getRawInputStream(entry) }
+        }
+        def mock = Mock(FileCopyDetailsInternal)
+        mock.getRelativePath() >> RelativePath.parse(false, path)
+        mock.getLastModified() >> 1000L
+        mock.isDirectory() >> false
+        mock.getPermissions() >> new DefaultFilePermissions(1)
+        mock.getUnmodifiedZipEntryContent() >> content
+        mock.copyTo(_ as OutputStream) >> { OutputStream out ->
+            out << "copied contents of $path"
+        }
+        mock
+    }
+
     private FileCopyDetailsInternal dir(final String path) {
         def mock = Mock(FileCopyDetailsInternal)
         mock.getRelativePath() >> RelativePath.parse(false, path)
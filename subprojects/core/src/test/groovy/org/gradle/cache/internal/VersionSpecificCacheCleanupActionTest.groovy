@@ -190,6 +190,24 @@ class VersionSpecificCacheCleanupActionTest extends Specification implements Gra
         latestSnapshot.assertExists()
     }
 
+    def "considers the file hash caches of all hash functions when checking whether a version-specific cache is used"() {
+        given:
+        def usedWithOtherFunction = createVersionSpecificCacheDir(GradleVersion.version("1.2.3"), NOT_USED_WITHIN_30_DAYS)
+        USED_TODAY.process(usedWithOtherFunction.file("fileHashes-murmur3-128/fileHashes-murmur3-128.lock"))
+        def unusedWithOtherFunction = createVersionSpecificCacheDir(GradleVersion.version("2.3.4"), MISSING_MARKER_FILE)
+        NOT_USED_WITHIN_30_DAYS.process(unusedWithOtherFunction.file("fileHashes-murmur3-128/fileHashes-murmur3-128.lock"))
+
+        when:
+        def cleanedUp = cleanupAction.execute(progressMonitor)
+
+        then:
+        cleanedUp
+        2 * progressMonitor.incrementSkipped()
+        1 * progressMonitor.incrementDeleted()
+        usedWithOtherFunction.assertExists()
+        unusedWithOtherFunction.assertDoesNotExist()
+    }
+
     @Override
     TestFile getGradleUserHomeDir() {
         return userHomeDir
@@ -23,6 +23,7 @@ import org.gradle.api.internal.TaskInternal
 import org.gradle.api.internal.project.ProjectInternal
 import org.gradle.api.internal.project.taskfactory.TestTaskIdentities
 import org.gradle.api.internal.tasks.NodeExecutionContext
+import org.gradle.api.internal.tasks.TaskExecutionOutcome
 import org.gradle.api.internal.tasks.TaskStateInternal
 import org.gradle.api.tasks.Destroys
 import org.gradle.api.tasks.InputDirectory
@@ -1078,6 +1079,40 @@ class DefaultExecutionPlanParallelTest extends AbstractExecutionPlanSpec {
 
     }
 
+    def "starts tasks with the longest chain of dependents first when task durations are known"() {
+        given:
+        def durations = [a: 100L, b: 10L, c: 1000L, d: 500L]
+        def durationHistory = Mock(TaskDurationHistory)
+        _ * durationHistory.enabled >> true
+        _ * durationHistory.getPreviousDuration(_) >> { Path path -> durations[path.name] }
+        def dependencyResolver = new TaskDependencyResolver([new TaskNodeDependencyResolver(taskNodeFactory)])
+        executionPlan = new DefaultExecutionPlan(Path.ROOT.toString(), taskNodeFactory, new OrdinalGroupFactory(), dependencyResolver, accessHierarchies.outputHierarchy, accessHierarchies.destroyableHierarchy, coordinator, durationHistory)
+
+        Task a = task("a", type: Async)
+        Task b = task("b", type: Async)
+        Task c = task("c", type: Async, dependsOn: [b])
+        Task d = task("d", type: Async)
+        b.state.outcome >> TaskExecutionOutcome.EXECUTED
+
+        when:
+        addToGraphAndPopulate(a, c, d)
+
+        def firstTaskNode = selectNextTaskNode()
+        def secondTaskNode = selectNextTaskNode()
+        def thirdTaskNode = selectNextTaskNode()
+        then:
+        firstTaskNode.task == b
+        secondTaskNode.task == d
+        thirdTaskNode.task == a
+        assertNoWorkReadyToStart()
+
+        when:
+        finishedExecuting(firstTaskNode)
+        then:
+        1 * durationHistory.recordDuration(b.identityPath, _)
+        selectNextTask() == c
+    }
+
     def "two tasks that have the same file in outputs are not executed in parallel"() {
         def sharedFile = file("output")
 
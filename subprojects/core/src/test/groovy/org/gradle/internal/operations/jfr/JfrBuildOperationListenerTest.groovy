@@ -0,0 +1,96 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations.jfr
+
+import jdk.jfr.consumer.RecordingFile
+import org.gradle.api.DefaultTask
+import org.gradle.api.internal.tasks.execution.ExecuteTaskBuildOperationType
+import org.gradle.caching.internal.operations.BuildCacheRemoteLoadBuildOperationType
+import org.gradle.internal.operations.BuildOperationDescriptor
+import org.gradle.internal.operations.OperationFinishEvent
+import org.gradle.internal.operations.OperationIdentifier
+import org.gradle.internal.operations.OperationStartEvent
+import org.gradle.internal.resources.ResourceLock
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.test.precondition.Requires
+import org.gradle.test.preconditions.UnitTestPreconditions
+import org.junit.Rule
+import spock.lang.Specification
+
+@Requires(UnitTestPreconditions.Jdk11OrLater)
+class JfrBuildOperationListenerTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+
+    def recordingFile = temporaryFolder.file("build.jfr")
+    def listener = new JfrBuildOperationListener(recordingFile)
+
+    def "records typed events for build operations"() {
+        def taskDetails = Stub(ExecuteTaskBuildOperationType.Details) {
+            getBuildPath() >> ":"
+            getTaskPath() >> ":compileJava"
+            getTaskClass() >> DefaultTask
+        }
+        def loadDetails = Stub(BuildCacheRemoteLoadBuildOperationType.Details) {
+            getCacheKey() >> "0123456789abcdef"
+        }
+        def loadResult = Stub(BuildCacheRemoteLoadBuildOperationType.Result) {
+            isHit() >> true
+            getArchiveSize() >> 1234
+        }
+        def task = BuildOperationDescriptor.displayName("Task :compileJava").details(taskDetails).build(new OperationIdentifier(1), null)
+        def load = BuildOperationDescriptor.displayName("Load entry").details(loadDetails).build(new OperationIdentifier(2), new OperationIdentifier(1))
+
+        when:
+        listener.started(task, new OperationStartEvent(0))
+        listener.started(load, new OperationStartEvent(0))
+        listener.finished(load, new OperationFinishEvent(0, 0, null, loadResult))
+        listener.finished(task, new OperationFinishEvent(0, 0, new RuntimeException("broken"), null))
+        listener.stop()
+
+        then:
+        def events = RecordingFile.readAllEvents(recordingFile.toPath())
+        def taskEvent = events.find { it.eventType.name == "org.gradle.TaskExecution" }
+        taskEvent.getLong("operationId") == 1
+        taskEvent.getString("displayName") == "Task :compileJava"
+        taskEvent.getString("taskPath") == ":compileJava"
+        taskEvent.getString("failure").contains("broken")
+
+        def loadEvent = events.find { it.eventType.name == "org.gradle.BuildCache" }
+        loadEvent.getLong("parentOperationId") == 1
+        loadEvent.getString("operation") == "remote load"
+        loadEvent.getString("cacheKey") == "0123456789abcdef"
+        loadEvent.getBoolean("hit")
+        loadEvent.getLong("archiveSize") == 1234
+    }
+
+    def "records waits for locks and conditions"() {
+        def lock = Stub(ResourceLock) {
+            getDisplayName() >> "project :a"
+        }
+
+        when:
+        def wait = listener.startWaiting()
+        Thread.sleep(20)
+        wait.finished([lock, "work to run"])
+        listener.stop()
+
+        then:
+        def events = RecordingFile.readAllEvents(recordingFile.toPath())
+        events.find { it.eventType.name == "org.gradle.ResourceLockWait" }.getString("waitedFor") == "project :a, work to run"
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations.trace
+
+import groovy.json.JsonSlurper
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.operations.BuildOperationDescriptor
+import org.gradle.internal.operations.OperationFinishEvent
+import org.gradle.internal.operations.OperationIdentifier
+import org.gradle.internal.operations.OperationProgressEvent
+import org.gradle.internal.operations.OperationStartEvent
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class ChromeTraceExporterTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+
+    def executorFactory = new DefaultExecutorFactory()
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "converts binary trace into Chrome trace events"() {
+        def binaryLog = temporaryFolder.file("operations-log.bin")
+        def chromeTrace = temporaryFolder.file("operations-chrome.json")
+        def writer = new BinaryBuildOperationTraceWriter(binaryLog, executorFactory)
+        def root = BuildOperationDescriptor.displayName("Run build").details(new RootDetails()).build(new OperationIdentifier(1), null)
+        def child = BuildOperationDescriptor.displayName("Child \"quoted\"").build(new OperationIdentifier(2), new OperationIdentifier(1))
+
+        when:
+        writer.started(root, new OperationStartEvent(1000))
+        writer.started(child, new OperationStartEvent(1010))
+        writer.progress(new OperationIdentifier(2), new OperationProgressEvent(1015, new ProgressDetails()))
+        writer.finished(child, new OperationFinishEvent(1010, 1020, new RuntimeException("broken"), null))
+        writer.finished(root, new OperationFinishEvent(1000, 1050, null, new RootResult()))
+        writer.close()
+        ChromeTraceExporter.export(binaryLog, chromeTrace)
+
+        then:
+        def events = new JsonSlurper().parse(chromeTrace).traceEvents
+        events.findAll { it.ph == "M" }*.args*.name == [Thread.currentThread().name]
+
+        def operations = events.findAll { it.ph == "X" }
+        operations*.name == ["Child \"quoted\"", "Run build"]
+        operations*.ts == [1010000, 1000000]
+        operations*.dur == [10000, 50000]
+        operations[0].args == [id: 2, parentId: 1, failure: "java.lang.RuntimeException: broken"]
+        operations[1].cat == "RootDetails"
+        operations[1].args == [id: 1, details: RootDetails.name, result: RootResult.name]
+
+        def progress = events.findAll { it.ph == "i" }
+        progress*.name == ["ProgressDetails"]
+        progress*.ts == [1015000]
+    }
+
+    def "drops records that do not fit into the queue instead of blocking"() {
+        def binaryLog = temporaryFolder.file("operations-log.bin")
+        def chromeTrace = temporaryFolder.file("operations-chrome.json")
+        def writer = new BinaryBuildOperationTraceWriter(binaryLog, executorFactory, 1)
+        def count = 100000
+
+        when:
+        (1..count).each {
+            def operation = BuildOperationDescriptor.displayName("Operation $it").details(new RootDetails()).build(new OperationIdentifier(it), null)
+            writer.started(operation, new OperationStartEvent(it))
+            writer.finished(operation, new OperationFinishEvent(it, it + 1, null, null))
+        }
+        writer.close()
+        ChromeTraceExporter.export(binaryLog, chromeTrace)
+
+        then:
+        def events = new JsonSlurper().parse(chromeTrace).traceEvents
+        def dropped = events.findAll { it.name == "Dropped records" }*.args*.count.sum(0)
+        dropped == writer.droppedRecords
+        events.count { it.ph == "X" } >= count - dropped
+        events.count { it.ph == "X" } <= count - dropped / 2
+    }
+
+    static class RootDetails {}
+
+    static class RootResult {}
+
+    static class ProgressDetails {}
+}
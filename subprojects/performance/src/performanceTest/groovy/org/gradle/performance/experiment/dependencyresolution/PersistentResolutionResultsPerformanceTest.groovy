@@ -0,0 +1,65 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.performance.experiment.dependencyresolution
+
+import org.gradle.performance.AbstractCrossBuildPerformanceTest
+import org.gradle.performance.annotations.RunFor
+import org.gradle.performance.annotations.Scenario
+import org.gradle.performance.fixture.GradleBuildExperimentSpec
+
+import static org.gradle.performance.annotations.ScenarioType.PER_WEEK
+import static org.gradle.performance.results.OperatingSystem.LINUX
+
+@RunFor(
+    @Scenario(type = PER_WEEK, operatingSystems = [LINUX], testProjects = ["excludeRuleMergingBuild"])
+)
+class PersistentResolutionResultsPerformanceTest extends AbstractCrossBuildPerformanceTest {
+    private static final String PERSISTENT_RESULTS_PROPERTY = "org.gradle.internal.dependency-resolution.persistent-results"
+
+    def "report large dependency graph from file repo"() {
+        given:
+        runner.testGroup = "persistent resolution results"
+        runner.buildSpec {
+            displayName("reuse resolved graphs across builds")
+            invocation {
+                args("-D${PERSISTENT_RESULTS_PROPERTY}=true")
+            }
+        }
+        runner.baseline {
+            displayName("resolve graphs in every build")
+            invocation {
+                args("-D${PERSISTENT_RESULTS_PROPERTY}=false")
+            }
+        }
+
+        when:
+        def results = runner.run()
+
+        then:
+        results
+    }
+
+    @Override
+    protected void defaultSpec(GradleBuildExperimentSpec.GradleBuilder builder) {
+        super.defaultSpec(builder)
+        builder.invocation {
+            // The dependency report only uses the resolved graph, which is what is reused
+            tasksToRun("dependencies")
+            args("-PnoExcludes")
+        }
+    }
+}
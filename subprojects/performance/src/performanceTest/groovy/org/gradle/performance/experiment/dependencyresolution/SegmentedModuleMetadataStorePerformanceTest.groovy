@@ -0,0 +1,65 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.performance.experiment.dependencyresolution
+
+import org.gradle.performance.AbstractCrossBuildPerformanceTest
+import org.gradle.performance.annotations.RunFor
+import org.gradle.performance.annotations.Scenario
+import org.gradle.performance.fixture.GradleBuildExperimentSpec
+
+import static org.gradle.performance.annotations.ScenarioType.PER_WEEK
+import static org.gradle.performance.results.OperatingSystem.LINUX
+
+@RunFor(
+    @Scenario(type = PER_WEEK, operatingSystems = [LINUX], testProjects = ["excludeRuleMergingBuild"])
+)
+class SegmentedModuleMetadataStorePerformanceTest extends AbstractCrossBuildPerformanceTest {
+    private static final String SEGMENTED_STORE_PROPERTY = "org.gradle.internal.dependency-metadata.segmented-store"
+
+    def "resolve large dependency graph from file repo in a cold daemon"() {
+        given:
+        runner.testGroup = "module metadata store"
+        runner.buildSpec {
+            displayName("segmented module metadata store")
+            invocation {
+                args("-D${SEGMENTED_STORE_PROPERTY}=true")
+            }
+        }
+        runner.baseline {
+            displayName("module metadata file per module")
+            invocation {
+                args("-D${SEGMENTED_STORE_PROPERTY}=false")
+            }
+        }
+
+        when:
+        def results = runner.run()
+
+        then:
+        results
+    }
+
+    @Override
+    protected void defaultSpec(GradleBuildExperimentSpec.GradleBuilder builder) {
+        super.defaultSpec(builder)
+        builder.invocation {
+            tasksToRun("resolveDependencies")
+            args("-PnoExcludes")
+            useDaemon(false)
+        }
+    }
+}